@@ -30,6 +30,7 @@ import com.android.settings.activityembedding.ActivityEmbeddingUtils;
 import com.android.settings.core.instrumentation.ElapsedTimeUtils;
 import com.android.settings.fuelgauge.BatterySettingsStorage;
 import com.android.settings.homepage.SettingsHomepageActivity;
+import com.android.settings.network.SubscriptionSnapshotCache;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.overlay.FeatureFactoryImpl;
 import com.android.settings.spa.SettingsSpaEnvironment;
@@ -57,6 +58,7 @@ public class SettingsApplication extends Application {
         super.onCreate();
 
         BackupRestoreStorageManager.getInstance(this).add(new BatterySettingsStorage(this));
+        SubscriptionSnapshotCache.init(this);
 
         // Add null checking to avoid test case failed.
         if (getApplicationContext() != null) {
@@ -39,6 +39,9 @@ import androidx.annotation.VisibleForTesting;
 import com.android.settings.applications.ProcStatsData;
 import com.android.settings.datausage.lib.DataUsageLib;
 import com.android.settings.network.MobileNetworkRepository;
+import com.android.settings.network.SubscriptionSnapshotCache;
+import com.android.settings.slices.SliceChangeNotifier;
+import com.android.settings.slices.SliceDataCache;
 import com.android.settingslib.net.DataUsageController;
 
 import org.json.JSONArray;
@@ -67,6 +70,12 @@ public class SettingsDumpService extends Service {
     @VisibleForTesting
     static final String KEY_ANOMALY_DETECTION = "anomaly_detection";
     @VisibleForTesting
+    static final String KEY_SLICE_DATA_CACHE = "slice_data_cache";
+    @VisibleForTesting
+    static final String KEY_SLICE_NOTIFICATIONS = "slice_notifications";
+    @VisibleForTesting
+    static final String KEY_SUBSCRIPTION_SNAPSHOT = "subscription_snapshot";
+    @VisibleForTesting
     static final Intent BROWSER_INTENT =
             new Intent("android.intent.action.VIEW", Uri.parse("http://"));
 
@@ -98,6 +107,16 @@ public class SettingsDumpService extends Service {
                 dump.put(KEY_DATAUSAGE, dumpDataUsage());
                 dump.put(KEY_MEMORY, dumpMemory());
                 dump.put(KEY_DEFAULT_BROWSER_APP, dumpDefaultBrowser());
+                dump.put(KEY_SLICE_DATA_CACHE, SliceDataCache.getInstance().dump());
+                final JSONObject sliceNotifications = SliceChangeNotifier.dumpIfStarted();
+                if (sliceNotifications != null) {
+                    dump.put(KEY_SLICE_NOTIFICATIONS, sliceNotifications);
+                }
+                final SubscriptionSnapshotCache subscriptionSnapshotCache =
+                        SubscriptionSnapshotCache.getInstance();
+                if (subscriptionSnapshotCache != null) {
+                    dump.put(KEY_SUBSCRIPTION_SNAPSHOT, subscriptionSnapshotCache.dump());
+                }
             } catch (Exception e) {
                 Log.w(TAG, "exception in dump: ", e);
             }
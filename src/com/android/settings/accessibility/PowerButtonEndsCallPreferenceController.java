@@ -53,6 +53,12 @@ public class PowerButtonEndsCallPreferenceController extends TogglePreferenceCon
                 || !Utils.isVoiceCapable(mContext) ? UNSUPPORTED_ON_DEVICE : AVAILABLE;
     }
 
+    @Override
+    public StateDependencies getStateDependencies() {
+        return new StateDependencies()
+                .addUri(Settings.Secure.getUriFor(Settings.Secure.INCALL_POWER_BUTTON_BEHAVIOR));
+    }
+
     @Override
     public int getSliceHighlightMenuRes() {
         return R.string.menu_key_accessibility;
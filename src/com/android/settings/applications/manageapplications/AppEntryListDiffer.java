@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import android.content.pm.ApplicationInfo;
+import android.text.TextUtils;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Applies new app lists to a {@link RecyclerView.Adapter} with item-level change events.
+ *
+ * <p>{@link AppEntry} instances are mutated in place by {@code ApplicationsState}, so the old and
+ * new lists are compared through snapshots of what each row displays, taken when the list was
+ * submitted. The difference is calculated on a background thread, and only the rows that are
+ * inserted, removed, moved or changed are rebound. A list submitted later supersedes the pending
+ * ones.
+ */
+class AppEntryListDiffer {
+
+    /** Callback to commit the new list into the adapter, right before the updates dispatch. */
+    interface ListCommitCallback {
+        /** Called on the main thread with the list which the adapter shall show. */
+        void onListCommitted(@Nullable ArrayList<AppEntry> entries);
+    }
+
+    private final RecyclerView.Adapter<?> mAdapter;
+    private final int mHeaderCount;
+    private final Executor mBackgroundExecutor;
+    private final Executor mMainExecutor;
+
+    private List<EntrySnapshot> mSnapshots;
+    private int mGeneration;
+
+    AppEntryListDiffer(RecyclerView.Adapter<?> adapter, int headerCount) {
+        this(adapter, headerCount, ThreadUtils::postOnBackgroundThread,
+                ThreadUtils::postOnMainThread);
+    }
+
+    @VisibleForTesting
+    AppEntryListDiffer(RecyclerView.Adapter<?> adapter, int headerCount,
+            Executor backgroundExecutor, Executor mainExecutor) {
+        mAdapter = adapter;
+        mHeaderCount = headerCount;
+        mBackgroundExecutor = backgroundExecutor;
+        mMainExecutor = mainExecutor;
+    }
+
+    /**
+     * Replaces {@code oldEntries} shown by the adapter with {@code newEntries}.
+     *
+     * <p>When either list is empty there is nothing to diff, the new list is committed right away
+     * with a full refresh. Otherwise the list is committed once the difference is calculated, and
+     * the updates are dispatched right after {@code commitCallback}.
+     *
+     * @param contentsChanged whether the content of every kept row shall be considered changed,
+     *                        e.g. after the extra info of all entries was updated in place
+     */
+    @MainThread
+    void submitList(@Nullable ArrayList<AppEntry> oldEntries,
+            @Nullable ArrayList<AppEntry> newEntries, boolean contentsChanged,
+            @NonNull ListCommitCallback commitCallback) {
+        final int generation = ++mGeneration;
+        if (oldEntries == null || oldEntries.isEmpty()
+                || newEntries == null || newEntries.isEmpty()) {
+            mSnapshots = newEntries != null ? takeSnapshots(newEntries) : null;
+            commitCallback.onListCommitted(newEntries);
+            mAdapter.notifyDataSetChanged();
+            return;
+        }
+
+        final List<EntrySnapshot> oldSnapshots = mSnapshots;
+        mBackgroundExecutor.execute(() -> {
+            // The snapshots are missing if the list was set without this differ.
+            final List<EntrySnapshot> fromSnapshots =
+                    oldSnapshots != null && oldSnapshots.size() == oldEntries.size()
+                            ? oldSnapshots : takeSnapshots(oldEntries);
+            final List<EntrySnapshot> toSnapshots = takeSnapshots(newEntries);
+            final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(
+                    new AppEntryDiffCallback(fromSnapshots, toSnapshots, contentsChanged));
+            mMainExecutor.execute(() -> {
+                if (generation != mGeneration) {
+                    // Superseded by a newer list.
+                    return;
+                }
+                mSnapshots = toSnapshots;
+                commitCallback.onListCommitted(newEntries);
+                diffResult.dispatchUpdatesTo(new OffsetListUpdateCallback());
+            });
+        });
+    }
+
+    @VisibleForTesting
+    static List<EntrySnapshot> takeSnapshots(List<AppEntry> entries) {
+        final int size = entries.size();
+        final List<EntrySnapshot> snapshots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            snapshots.add(new EntrySnapshot(entries.get(i)));
+        }
+        return snapshots;
+    }
+
+    /** The values of an {@link AppEntry} shown in its row. */
+    @VisibleForTesting
+    static final class EntrySnapshot {
+        final String mPackageName;
+        final int mUid;
+        final long mId;
+        final String mLabel;
+        final String mSizeStr;
+        final String mInternalSizeStr;
+        final String mExternalSizeStr;
+        final Object mExtraInfo;
+        final boolean mEnabled;
+        final boolean mMounted;
+
+        EntrySnapshot(@NonNull AppEntry entry) {
+            synchronized (entry) {
+                final ApplicationInfo info = entry.info;
+                mPackageName = info != null ? info.packageName : null;
+                mUid = info != null ? info.uid : 0;
+                mEnabled = info != null && info.enabled;
+                mId = entry.id;
+                mLabel = entry.label;
+                mSizeStr = entry.sizeStr;
+                mInternalSizeStr = entry.internalSizeStr;
+                mExternalSizeStr = entry.externalSizeStr;
+                mExtraInfo = entry.extraInfo;
+                mMounted = entry.mounted;
+            }
+        }
+
+        /** Whether both snapshots are the same app, identified by package name and uid. */
+        boolean isSameApp(EntrySnapshot other) {
+            if (mPackageName == null || other.mPackageName == null) {
+                return mId == other.mId && TextUtils.equals(mLabel, other.mLabel);
+            }
+            return mUid == other.mUid && mPackageName.equals(other.mPackageName);
+        }
+
+        boolean hasSameContents(EntrySnapshot other) {
+            // Extra info objects are replaced, not compared, by the bridges.
+            return mId == other.mId
+                    && mEnabled == other.mEnabled
+                    && mMounted == other.mMounted
+                    && mExtraInfo == other.mExtraInfo
+                    && TextUtils.equals(mLabel, other.mLabel)
+                    && TextUtils.equals(mSizeStr, other.mSizeStr)
+                    && TextUtils.equals(mInternalSizeStr, other.mInternalSizeStr)
+                    && TextUtils.equals(mExternalSizeStr, other.mExternalSizeStr);
+        }
+    }
+
+    private static class AppEntryDiffCallback extends DiffUtil.Callback {
+        private final List<EntrySnapshot> mOldSnapshots;
+        private final List<EntrySnapshot> mNewSnapshots;
+        private final boolean mContentsChanged;
+
+        AppEntryDiffCallback(List<EntrySnapshot> oldSnapshots, List<EntrySnapshot> newSnapshots,
+                boolean contentsChanged) {
+            mOldSnapshots = oldSnapshots;
+            mNewSnapshots = newSnapshots;
+            mContentsChanged = contentsChanged;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldSnapshots.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewSnapshots.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mOldSnapshots.get(oldItemPosition).isSameApp(
+                    mNewSnapshots.get(newItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return !mContentsChanged && mOldSnapshots.get(oldItemPosition).hasSameContents(
+                    mNewSnapshots.get(newItemPosition));
+        }
+    }
+
+    /** Shifts the app positions by the header rows shown above the apps. */
+    private class OffsetListUpdateCallback implements ListUpdateCallback {
+        @Override
+        public void onInserted(int position, int count) {
+            mAdapter.notifyItemRangeInserted(position + mHeaderCount, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mAdapter.notifyItemRangeRemoved(position + mHeaderCount, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mAdapter.notifyItemMoved(fromPosition + mHeaderCount, toPosition + mHeaderCount);
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            mAdapter.notifyItemRangeChanged(position + mHeaderCount, count, payload);
+        }
+    }
+}
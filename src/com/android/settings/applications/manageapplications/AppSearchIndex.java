@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A search index of app labels and package names, to filter the app list while typing.
+ *
+ * <p>The labels and package names are normalized once when the index is built: accents are
+ * removed and cases are folded with the rules of the locale. When the query extends the previous
+ * one, only the previous matches are searched again.
+ */
+@WorkerThread
+class AppSearchIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{Mn}+");
+
+    private final List<AppEntry> mEntries;
+    private final Locale mLocale;
+    private final String[] mLabels;
+    private final String[] mPackageNames;
+
+    // The normalized previous query and the positions of its matches.
+    private String mLastQuery;
+    private int[] mLastMatches;
+
+    AppSearchIndex(@NonNull List<AppEntry> entries, @NonNull Locale locale) {
+        mEntries = entries;
+        mLocale = locale;
+        final int size = entries.size();
+        mLabels = new String[size];
+        mPackageNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            final AppEntry entry = entries.get(i);
+            mLabels[i] = normalize(entry.label, locale);
+            mPackageNames[i] = entry.info != null
+                    ? normalize(entry.info.packageName, locale) : "";
+        }
+    }
+
+    /** Whether the index was built from {@code entries} with {@code locale}. */
+    boolean isBuiltFrom(@Nullable List<AppEntry> entries, @NonNull Locale locale) {
+        return mEntries == entries && mLocale.equals(locale);
+    }
+
+    /** Returns the entries whose label or package name contains {@code query}, in list order. */
+    ArrayList<AppEntry> search(@NonNull CharSequence query) {
+        final String normalizedQuery = normalize(query.toString(), mLocale);
+        final int[] candidates;
+        final int candidateCount;
+        if (mLastQuery != null && normalizedQuery.startsWith(mLastQuery)) {
+            // The matches of the longer query are a subset of the previous matches.
+            candidates = mLastMatches;
+            candidateCount = mLastMatches.length;
+        } else {
+            candidates = null;
+            candidateCount = mEntries.size();
+        }
+
+        final int[] matches = new int[candidateCount];
+        int matchCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            final int position = candidates != null ? candidates[i] : i;
+            if (mLabels[position].contains(normalizedQuery)
+                    || mPackageNames[position].contains(normalizedQuery)) {
+                matches[matchCount++] = position;
+            }
+        }
+
+        mLastQuery = normalizedQuery;
+        mLastMatches = Arrays.copyOf(matches, matchCount);
+        final ArrayList<AppEntry> matchedEntries = new ArrayList<>(matchCount);
+        for (int i = 0; i < matchCount; i++) {
+            matchedEntries.add(mEntries.get(matches[i]));
+        }
+        return matchedEntries;
+    }
+
+    /** Removes the accents and folds the cases of {@code text}. */
+    @VisibleForTesting
+    static String normalize(@Nullable String text, @NonNull Locale locale) {
+        if (TextUtils.isEmpty(text)) {
+            return "";
+        }
+        final String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(locale);
+    }
+}
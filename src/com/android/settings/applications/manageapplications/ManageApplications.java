@@ -177,6 +177,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Locale;
 import java.util.Set;
 
 /**
@@ -1221,6 +1222,7 @@ public class ManageApplications extends InstrumentedFragment
         private final AppStateBaseBridge mExtraInfoBridge;
         private final LoadingViewController mLoadingViewController;
         private final IconDrawableFactory mIconDrawableFactory;
+        private final AppEntryListDiffer mListDiffer;
 
         private AppFilterItem mAppFilter;
         private ArrayList<ApplicationsState.AppEntry> mEntries;
@@ -1231,6 +1233,8 @@ public class ManageApplications extends InstrumentedFragment
         private AppFilter mCompositeFilter;
         private boolean mHasReceivedLoadEntries;
         private boolean mHasReceivedBridgeCallback;
+        // Whether the extra info of the entries was updated in place since the last rebuild.
+        private boolean mExtraInfoChanged;
         private SearchFilter mSearchFilter;
         private PowerAllowlistBackend mBackend;
 
@@ -1257,6 +1261,9 @@ public class ManageApplications extends InstrumentedFragment
             );
             mContext = manageApplications.getActivity();
             mIconDrawableFactory = IconDrawableFactory.newInstance(mContext);
+            final boolean hasHeader = mManageApplications.mListType == LIST_TYPE_APPS_LOCALE
+                    || mManageApplications.mListType == LIST_TYPE_CLONED_APPS;
+            mListDiffer = new AppEntryListDiffer(this, hasHeader ? 1 : 0 /* headerCount */);
             mAppFilter = appFilter;
             mBackend = PowerAllowlistBackend.getInstance(mContext);
             if (mManageApplications.mListType == LIST_TYPE_NOTIFICATION) {
@@ -1575,10 +1582,13 @@ public class ManageApplications extends InstrumentedFragment
                     || filterType == FILTER_APPS_POWER_ALLOWLIST_ALL) {
                 entries = removeDuplicateIgnoringUser(entries);
             }
-            mEntries = entries;
             mOriginalEntries = entries;
-            notifyDataSetChanged();
-            if (getItemCount() == 0) {
+            // Only the rows whose app or content changed are rebound, the list is committed once
+            // the difference is calculated in the background.
+            final boolean extraInfoChanged = mExtraInfoChanged;
+            mExtraInfoChanged = false;
+            mListDiffer.submitList(mEntries, entries, extraInfoChanged, this::onEntriesCommitted);
+            if (entries == null || entries.isEmpty()) {
                 mLoadingViewController.showEmpty(false /* animate */);
             } else {
                 mLoadingViewController.showContent(false /* animate */);
@@ -1591,12 +1601,6 @@ public class ManageApplications extends InstrumentedFragment
                     }
                 }
             }
-            // Restore the last scroll position if the number of entries added so far is bigger than
-            // it.
-            if (mLastIndex != -1 && getItemCount() > mLastIndex) {
-                mManageApplications.mRecyclerView.getLayoutManager().scrollToPosition(mLastIndex);
-                mLastIndex = -1;
-            }
 
             if (mManageApplications.mListType == LIST_TYPE_USAGE_ACCESS) {
                 // No enabled or disabled filters for usage access.
@@ -1607,6 +1611,16 @@ public class ManageApplications extends InstrumentedFragment
             mManageApplications.setHasInstant(mState.haveInstantApps());
         }
 
+        private void onEntriesCommitted(ArrayList<ApplicationsState.AppEntry> entries) {
+            mEntries = entries;
+            // Restore the last scroll position if the number of entries added so far is bigger than
+            // it.
+            if (mLastIndex != -1 && getItemCount() > mLastIndex) {
+                mManageApplications.mRecyclerView.getLayoutManager().scrollToPosition(mLastIndex);
+                mLastIndex = -1;
+            }
+        }
+
         @VisibleForTesting
         void updateLoading() {
             final boolean appLoaded = mHasReceivedLoadEntries && mSession.getAllApps().size() != 0;
@@ -1620,6 +1634,7 @@ public class ManageApplications extends InstrumentedFragment
         @Override
         public void onExtraInfoUpdated() {
             mHasReceivedBridgeCallback = true;
+            mExtraInfoChanged = true;
             rebuild();
         }
 
@@ -1952,19 +1967,23 @@ public class ManageApplications extends InstrumentedFragment
          * Item that does not contains the specified substring will be removed from the list.</p>
          */
         private class SearchFilter extends Filter {
+            // Only accessed on the filtering thread, rebuilt when the list or locale changes.
+            private AppSearchIndex mSearchIndex;
+
             @WorkerThread
             @Override
             protected FilterResults performFiltering(CharSequence query) {
+                final ArrayList<ApplicationsState.AppEntry> originalEntries = mOriginalEntries;
                 final ArrayList<ApplicationsState.AppEntry> matchedEntries;
                 if (TextUtils.isEmpty(query)) {
-                    matchedEntries = mOriginalEntries;
+                    matchedEntries = originalEntries;
                 } else {
-                    matchedEntries = new ArrayList<>();
-                    for (ApplicationsState.AppEntry entry : mOriginalEntries) {
-                        if (entry.label.toLowerCase().contains(query.toString().toLowerCase())) {
-                            matchedEntries.add(entry);
-                        }
+                    final Locale locale = Locale.getDefault();
+                    if (mSearchIndex == null
+                            || !mSearchIndex.isBuiltFrom(originalEntries, locale)) {
+                        mSearchIndex = new AppSearchIndex(originalEntries, locale);
                     }
+                    matchedEntries = mSearchIndex.search(query);
                 }
                 final FilterResults results = new FilterResults();
                 results.values = matchedEntries;
@@ -1974,8 +1993,9 @@ public class ManageApplications extends InstrumentedFragment
 
             @Override
             protected void publishResults(CharSequence constraint, FilterResults results) {
-                mEntries = (ArrayList<ApplicationsState.AppEntry>) results.values;
-                notifyDataSetChanged();
+                mListDiffer.submitList(mEntries,
+                        (ArrayList<ApplicationsState.AppEntry>) results.values,
+                        false /* contentsChanged */, entries -> mEntries = entries);
             }
         }
     }
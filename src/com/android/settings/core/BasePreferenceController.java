@@ -44,6 +44,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -119,6 +120,8 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      */
     public static final int DISABLED_DEPENDENT_SETTING = 5;
 
+    private static final int AVAILABILITY_NOT_PRECOMPUTED = -1;
+
     protected final String mPreferenceKey;
     protected UiBlockListener mUiBlockListener;
     protected boolean mUiBlockerFinished;
@@ -127,14 +130,30 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     private UserHandle mWorkProfileUser;
     private int mMetricsCategory;
     private boolean mPrefVisibility;
+    private final Object mPrecomputedAvailabilityLock = new Object();
+    // Set by setPrecomputedAvailabilityStatus(), possibly from a worker thread. Written under
+    // mPrecomputedAvailabilityLock.
+    private volatile int mPrecomputedAvailabilityStatus = AVAILABILITY_NOT_PRECOMPUTED;
+    // Incremented by clearPrecomputedAvailabilityStatus(), guarded by
+    // mPrecomputedAvailabilityLock.
+    private int mPrecomputedAvailabilityGeneration;
 
     /**
      * Instantiate a controller as specified controller type and user-defined key.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through {@link PreferenceControllerRegistry} for controllers declared in
+     * preference xml, and through reflection otherwise. Do not use this method unless you know
+     * what you are doing.
      */
     public static BasePreferenceController createInstance(Context context,
             String controllerName, String key) {
+        if (PreferenceControllerRegistry.contains(controllerName)) {
+            final BasePreferenceController controller =
+                    createFromRegistry(context, controllerName, key, true /* withKey */);
+            if (controller != null) {
+                return controller;
+            }
+        }
         try {
             final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor =
@@ -151,9 +170,18 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through {@link PreferenceControllerRegistry} for controllers declared in
+     * preference xml, and through reflection otherwise. Do not use this method unless you know
+     * what you are doing.
      */
     public static BasePreferenceController createInstance(Context context, String controllerName) {
+        if (PreferenceControllerRegistry.contains(controllerName)) {
+            final BasePreferenceController controller = createFromRegistry(context,
+                    controllerName, null /* key */, false /* withKey */);
+            if (controller != null) {
+                return controller;
+            }
+        }
         try {
             final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor = clazz.getConstructor(Context.class);
@@ -169,7 +197,9 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type and work profile
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through {@link PreferenceControllerRegistry} for controllers declared in
+     * preference xml, and through reflection otherwise. Do not use this method unless you know
+     * what you are doing.
      *
      * @param context        application context
      * @param controllerName class name of the {@link BasePreferenceController}
@@ -178,6 +208,14 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      */
     public static BasePreferenceController createInstance(Context context, String controllerName,
             String key, boolean isWorkProfile) {
+        if (PreferenceControllerRegistry.contains(controllerName)) {
+            final BasePreferenceController controller =
+                    createFromRegistry(context, controllerName, key, true /* withKey */);
+            if (controller != null) {
+                controller.setForWork(isWorkProfile);
+                return controller;
+            }
+        }
         try {
             final Class<?> clazz = Class.forName(controllerName);
             final Constructor<?> preferenceConstructor =
@@ -194,6 +232,39 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
         }
     }
 
+    /**
+     * Instantiate a controller known to {@link PreferenceControllerRegistry}, failing the same
+     * way as reflection does if it has no such constructor.
+     *
+     * @return the controller, or null if the registry can't create it and reflection has to be
+     * used instead
+     */
+    @Nullable
+    private static BasePreferenceController createFromRegistry(Context context,
+            String controllerName, @Nullable String key, boolean withKey) {
+        final int constructor = withKey
+                ? PreferenceControllerRegistry.CONSTRUCTOR_CONTEXT_KEY
+                : PreferenceControllerRegistry.CONSTRUCTOR_CONTEXT;
+        if ((PreferenceControllerRegistry.getConstructors(controllerName) & constructor) == 0) {
+            throw new IllegalStateException(
+                    "Invalid preference controller: " + controllerName);
+        }
+        final Object controller;
+        try {
+            controller = withKey
+                    ? PreferenceControllerRegistry.create(controllerName, context, key)
+                    : PreferenceControllerRegistry.create(controllerName, context);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException(
+                    "Invalid preference controller: " + controllerName, e);
+        }
+        if (controller == null) {
+            Log.w(TAG, "Registry can't create " + controllerName + ", using reflection");
+            return null;
+        }
+        return (BasePreferenceController) controller;
+    }
+
     public BasePreferenceController(Context context, String preferenceKey) {
         super(context);
         mPreferenceKey = preferenceKey;
@@ -248,8 +319,8 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      * <p>
      * This function also check if work profile is existed when android:forWork="true" is set for
      * the controller in preference xml.
-     * TODO (mfritze) Build a dependency mechanism to allow a controller to easily define the
-     * dependent setting.
+     * <p>
+     * See {@link #getStateDependencies()} to define what the availability depends on.
      */
     @Override
     public final boolean isAvailable() {
@@ -257,12 +328,56 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
             return false;
         }
 
-        final int availabilityStatus = getAvailabilityStatus();
+        final int availabilityStatus = getCurrentAvailabilityStatus();
         return (availabilityStatus == AVAILABLE
                 || availabilityStatus == AVAILABLE_UNSEARCHABLE
                 || availabilityStatus == DISABLED_DEPENDENT_SETTING);
     }
 
+    /**
+     * @return the generation to pass to {@link #setPrecomputedAvailabilityStatus(int, int)},
+     * read before evaluating {@link #getAvailabilityStatus()}.
+     */
+    public final int getPrecomputedAvailabilityGeneration() {
+        synchronized (mPrecomputedAvailabilityLock) {
+            return mPrecomputedAvailabilityGeneration;
+        }
+    }
+
+    /**
+     * Keeps {@param status}, evaluated from {@link #getAvailabilityStatus()} on a worker thread,
+     * for {@link #isAvailable()} and {@link #displayPreference(PreferenceScreen)}, until
+     * {@link #clearPrecomputedAvailabilityStatus()}. This is used by fragments that opt in, see
+     * {@link com.android.settings.dashboard.DashboardFragment#shouldPrecomputeAvailability()}.
+     *
+     * <p>The status is dropped if the kept status was cleared since {@param generation} was read,
+     * it may have been evaluated before the state it depends on changed.
+     */
+    public final void setPrecomputedAvailabilityStatus(int status, int generation) {
+        synchronized (mPrecomputedAvailabilityLock) {
+            if (generation == mPrecomputedAvailabilityGeneration) {
+                mPrecomputedAvailabilityStatus = status;
+            }
+        }
+    }
+
+    /**
+     * Drops the status kept by {@link #setPrecomputedAvailabilityStatus(int, int)}, it is
+     * evaluated again on the next use.
+     */
+    public final void clearPrecomputedAvailabilityStatus() {
+        synchronized (mPrecomputedAvailabilityLock) {
+            mPrecomputedAvailabilityGeneration++;
+            mPrecomputedAvailabilityStatus = AVAILABILITY_NOT_PRECOMPUTED;
+        }
+    }
+
+    private int getCurrentAvailabilityStatus() {
+        final int precomputedStatus = mPrecomputedAvailabilityStatus;
+        return precomputedStatus != AVAILABILITY_NOT_PRECOMPUTED
+                ? precomputedStatus : getAvailabilityStatus();
+    }
+
     /**
      * @return {@code false} if the setting is not applicable to the device. This covers both
      * settings which were only introduced in future versions of android, or settings that have
@@ -280,7 +395,7 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
-        if (getAvailabilityStatus() == DISABLED_DEPENDENT_SETTING) {
+        if (getCurrentAvailabilityStatus() == DISABLED_DEPENDENT_SETTING) {
             // Disable preference if it depends on another setting.
             final Preference preference = screen.findPreference(getPreferenceKey());
             if (preference != null) {
@@ -415,6 +530,50 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     public interface UiBlocker {
     }
 
+    /**
+     * @return what the availability and the state of this preference depend on, or {@code null}
+     * if unknown. When declared, {@link com.android.settings.dashboard.DashboardFragment} only
+     * re-evaluates the preference on resume if any of the dependencies changed since the last
+     * time it was updated, so all of them have to be listed.
+     */
+    @Nullable
+    public StateDependencies getStateDependencies() {
+        return null;
+    }
+
+    /**
+     * Content uris and broadcasts that the state of a preference depends on.
+     */
+    public static final class StateDependencies {
+        private final List<Uri> mUris = new ArrayList<>();
+        private final List<String> mBroadcastActions = new ArrayList<>();
+
+        /**
+         * Adds a content uri, e.g. {@link android.provider.Settings.Global#getUriFor(String)}.
+         */
+        public StateDependencies addUri(Uri uri) {
+            mUris.add(uri);
+            return this;
+        }
+
+        /**
+         * Adds the action of a broadcast sent by the system when the state changes. The
+         * receiver is not exported, broadcasts sent by other apps are not received.
+         */
+        public StateDependencies addBroadcastAction(String action) {
+            mBroadcastActions.add(action);
+            return this;
+        }
+
+        public List<Uri> getUris() {
+            return mUris;
+        }
+
+        public List<String> getBroadcastActions() {
+            return mBroadcastActions;
+        }
+    }
+
     /**
      * Set the metrics category of the parent fragment.
      *
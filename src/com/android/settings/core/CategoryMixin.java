@@ -77,9 +77,16 @@ public class CategoryMixin implements LifecycleObserver {
         mContext.registerReceiver(mPackageReceiver, filter);
 
         if (mFirstOnResume) {
+            mFirstOnResume = false;
+            if (CategoryManager.get(mContext).consumeRevalidationPending()) {
+                // Tiles were restored from disk, reload them in the background and only refresh
+                // the categories that turn out to have changed.
+                Log.d(TAG, "Revalidate categories restored from disk");
+                updateCategories(true /* fromBroadcast */);
+                return;
+            }
             // Skip since all tiles have been refreshed in DashboardFragment.onCreatePreferences().
             Log.d(TAG, "Skip categories update");
-            mFirstOnResume = false;
             return;
         }
         updateCategories();
@@ -0,0 +1,588 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_APPEND;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_CONTROLLER;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_FOR_WORK;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_HIGHLIGHTABLE_MENU_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_ICON;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEYWORDS;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_PREF_TYPE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_SEARCHABLE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_SUMMARY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_TITLE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_UNAVAILABLE_SLICE_SUBTITLE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_USER_RESTRICTION;
+
+import android.annotation.XmlRes;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.Resources;
+import android.content.res.XmlResourceParser;
+import android.os.Build;
+import android.os.Bundle;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.TypedValue;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.R;
+import com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves {@link PreferenceXmlParserUtils#extractMetadata} from the preference metadata index
+ * compiled at build time by tools/preference_index, instead of parsing the screen xml.
+ *
+ * <p>The index holds the raw attribute values of every preference screen, and is memory-mapped
+ * once per process. Resource references are resolved against the current configuration, so
+ * translated and overlaid strings are still honored. Screens that are missing from the index, or
+ * whose xml is served by a qualified variant or a resource overlay, are parsed from resources
+ * instead.
+ *
+ * <p>The index is generated from the xml in the source tree, before static product and device
+ * overlays are merged into the apk. Each screen therefore holds a digest of its indexed content,
+ * which is compared with the xml actually packaged, see {@link #computeContentDigest}. Screens
+ * that differ are parsed from resources as well. The packaged xml only changes with the apk, so
+ * the outcome is persisted and each screen is compared once per build and package update.
+ */
+final class PreferenceMetadataIndex {
+
+    private static final String TAG = "PreferenceMetadataIndex";
+    @VisibleForTesting
+    static final int MAGIC = 0x504D4932;
+    @VisibleForTesting
+    static final int DIGEST_LENGTH = 32;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String SHARED_PREFS_TAG = "preference_metadata_index";
+    @VisibleForTesting
+    static final String KEY_BUILD_TOKEN = "build_token";
+
+    // Raw attribute values stored for each element, must match the generator.
+    @VisibleForTesting
+    static final int FIELD_KEY = 0;
+    @VisibleForTesting
+    static final int FIELD_TITLE = 1;
+    @VisibleForTesting
+    static final int FIELD_SUMMARY = 2;
+    @VisibleForTesting
+    static final int FIELD_ICON = 3;
+    @VisibleForTesting
+    static final int FIELD_CONTROLLER = 4;
+    @VisibleForTesting
+    static final int FIELD_KEYWORDS = 5;
+    @VisibleForTesting
+    static final int FIELD_SEARCHABLE = 6;
+    @VisibleForTesting
+    static final int FIELD_APPEND = 7;
+    @VisibleForTesting
+    static final int FIELD_UNAVAILABLE_SLICE_SUBTITLE = 8;
+    @VisibleForTesting
+    static final int FIELD_FOR_WORK = 9;
+    @VisibleForTesting
+    static final int FIELD_HIGHLIGHTABLE_MENU_KEY = 10;
+    @VisibleForTesting
+    static final int FIELD_USER_RESTRICTION = 11;
+    @VisibleForTesting
+    static final int FIELD_COUNT = 12;
+
+    private static final int NO_VALUE = -1;
+    private static final String NULL_REFERENCE = "@null";
+    private static final String ANDROID_PACKAGE = "android";
+
+    // Attributes stored in each FIELD_*, in order.
+    private static final int[] FIELD_ATTRS = {
+            android.R.attr.key,
+            android.R.attr.title,
+            android.R.attr.summary,
+            android.R.attr.icon,
+            R.attr.controller,
+            R.attr.keywords,
+            R.attr.searchable,
+            R.attr.staticPreferenceLocation,
+            R.attr.unavailableSliceSubtitle,
+            R.attr.forWork,
+            R.attr.highlightableMenuKey,
+            com.android.settingslib.R.attr.userRestriction,
+    };
+
+    private static PreferenceMetadataIndex sInstance;
+
+    @Nullable
+    private final ByteBuffer mBuffer;
+    private final int mAssetCookie;
+    private final int[] mStringOffsets;
+    private final String[] mStrings;
+    // Offset of the content digest of each screen, keyed by xml resource name.
+    private final Map<String, Integer> mScreenOffsets = new ArrayMap<>();
+    // Whether the packaged xml of a screen matches the index, keyed by xml resource name.
+    private final Map<String, Boolean> mVerifiedScreens = new ArrayMap<>();
+    // The persisted mVerifiedScreens of the current build, or null if they are not persisted.
+    @Nullable
+    private final SharedPreferences mVerifiedScreensPrefs;
+    private final Map<String, Integer> mResourceIds = new ArrayMap<>();
+
+    static synchronized PreferenceMetadataIndex getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = load(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * @param buffer      the index content, or null if there is no index
+     * @param assetCookie cookie of the apk the index was built from, see
+     *                    {@link TypedValue#assetCookie}
+     */
+    @VisibleForTesting
+    PreferenceMetadataIndex(@Nullable ByteBuffer buffer, int assetCookie) {
+        this(buffer, assetCookie, null /* verifiedScreensPrefs */, null /* buildToken */);
+    }
+
+    /**
+     * @param verifiedScreensPrefs where the screens verified against the packaged xml are
+     *                             persisted, or null to verify them in every process
+     * @param buildToken           identifies the apk, the persisted screens of another apk are
+     *                             dropped
+     */
+    @VisibleForTesting
+    PreferenceMetadataIndex(@Nullable ByteBuffer buffer, int assetCookie,
+            @Nullable SharedPreferences verifiedScreensPrefs, @Nullable String buildToken) {
+        mAssetCookie = assetCookie;
+        if (buffer == null || buffer.capacity() < 4 || buffer.getInt(0) != MAGIC) {
+            mBuffer = null;
+            mStringOffsets = new int[0];
+            mStrings = new String[0];
+            mVerifiedScreensPrefs = null;
+            return;
+        }
+        mBuffer = buffer;
+        mVerifiedScreensPrefs = verifiedScreensPrefs;
+        if (verifiedScreensPrefs != null && !TextUtils.equals(buildToken,
+                verifiedScreensPrefs.getString(KEY_BUILD_TOKEN, null /* defValue */))) {
+            verifiedScreensPrefs.edit()
+                    .clear()
+                    .putString(KEY_BUILD_TOKEN, buildToken)
+                    .apply();
+        }
+        int offset = 4;
+        final int stringCount = buffer.getInt(offset);
+        offset += 4;
+        mStringOffsets = new int[stringCount];
+        mStrings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            mStringOffsets[i] = offset;
+            offset += 4 + buffer.getInt(offset);
+        }
+        final int screenCount = buffer.getInt(offset);
+        offset += 4;
+        for (int i = 0; i < screenCount; i++) {
+            mScreenOffsets.put(getString(buffer.getInt(offset)), offset + 4);
+            final int elementCount = buffer.getInt(offset + 4 + DIGEST_LENGTH);
+            offset += 8 + DIGEST_LENGTH + elementCount * 4 * (1 + FIELD_COUNT);
+        }
+    }
+
+    /**
+     * @return the same metadata as {@link PreferenceXmlParserUtils#extractMetadata}, or null if
+     * the screen has to be parsed from resources.
+     */
+    @Nullable
+    List<Bundle> extractMetadata(Context context, @XmlRes int xmlResId, int flags) {
+        if (mBuffer == null) {
+            return null;
+        }
+        final Resources res = context.getResources();
+        final Integer screenOffset;
+        final String packageName;
+        try {
+            final String entryName = res.getResourceEntryName(xmlResId);
+            final TypedValue value = new TypedValue();
+            res.getValue(xmlResId, value, true /* resolveRefs */);
+            // The index only describes the unqualified screens of the apk it was built from, not
+            // configuration-specific variants nor screens replaced by a resource overlay.
+            if (value.assetCookie != mAssetCookie
+                    || !TextUtils.equals(value.string, "res/xml/" + entryName + ".xml")) {
+                return null;
+            }
+            screenOffset = mScreenOffsets.get(entryName);
+            packageName = res.getResourcePackageName(xmlResId);
+        } catch (Resources.NotFoundException e) {
+            return null;
+        }
+        if (screenOffset == null || !isPackagedContent(res, xmlResId, screenOffset)) {
+            return null;
+        }
+
+        final boolean hasPrefScreenFlag = hasFlag(flags, MetadataFlag.FLAG_INCLUDE_PREF_SCREEN);
+        final int elementsOffset = screenOffset + DIGEST_LENGTH;
+        final int elementCount = mBuffer.getInt(elementsOffset);
+        final List<Bundle> metadata = new ArrayList<>();
+        try {
+            for (int i = 0; i < elementCount; i++) {
+                final int elementOffset = elementsOffset + 4 + i * 4 * (1 + FIELD_COUNT);
+                final String nodeName = getString(mBuffer.getInt(elementOffset));
+                if (!hasPrefScreenFlag
+                        && TextUtils.equals(PreferenceXmlParserUtils.PREF_SCREEN_TAG, nodeName)) {
+                    continue;
+                }
+                if (!PreferenceXmlParserUtils.isPreferenceNode(nodeName)) {
+                    continue;
+                }
+                metadata.add(toBundle(res, packageName, nodeName, elementOffset + 4, flags,
+                        hasPrefScreenFlag));
+            }
+        } catch (Resources.NotFoundException e) {
+            Log.w(TAG, "Unresolved reference in " + xmlResId + ", parsing instead", e);
+            return null;
+        }
+        return metadata;
+    }
+
+    /**
+     * @return whether the xml packaged for {@param xmlResId} has the content indexed at
+     * {@param screenOffset}. This is checked once per screen and build.
+     */
+    private boolean isPackagedContent(Resources res, @XmlRes int xmlResId, int screenOffset) {
+        final String entryName = res.getResourceEntryName(xmlResId);
+        synchronized (mVerifiedScreens) {
+            Boolean verified = mVerifiedScreens.get(entryName);
+            if (verified == null && mVerifiedScreensPrefs != null
+                    && mVerifiedScreensPrefs.contains(entryName)) {
+                verified = mVerifiedScreensPrefs.getBoolean(entryName, false /* defValue */);
+                mVerifiedScreens.put(entryName, verified);
+            }
+            if (verified != null) {
+                return verified;
+            }
+        }
+        final byte[] indexedDigest = new byte[DIGEST_LENGTH];
+        final ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(screenOffset);
+        buffer.get(indexedDigest);
+        boolean verified;
+        try {
+            verified = Arrays.equals(indexedDigest, computeContentDigest(res, xmlResId));
+        } catch (IOException | XmlPullParserException | Resources.NotFoundException e) {
+            Log.w(TAG, "Failed to read " + entryName, e);
+            verified = false;
+        }
+        if (!verified) {
+            Log.i(TAG, entryName + " was changed by an overlay, parsing it instead");
+        }
+        synchronized (mVerifiedScreens) {
+            mVerifiedScreens.put(entryName, verified);
+        }
+        if (mVerifiedScreensPrefs != null) {
+            mVerifiedScreensPrefs.edit().putBoolean(entryName, verified).apply();
+        }
+        return verified;
+    }
+
+    /**
+     * Digests the tag names and the indexed attributes of the packaged xml of {@param xmlResId},
+     * in document order, the same way tools/preference_index digests the source xml. References
+     * are digested by name, without the package unless it is the framework's, and other values
+     * with their whitespace collapsed.
+     */
+    @VisibleForTesting
+    static byte[] computeContentDigest(Resources res, @XmlRes int xmlResId)
+            throws IOException, XmlPullParserException {
+        final MessageDigest digest = newDigest();
+        try (XmlResourceParser parser = res.getXml(xmlResId)) {
+            int type;
+            while ((type = parser.next()) != XmlPullParser.END_DOCUMENT) {
+                if (type != XmlPullParser.START_TAG) {
+                    continue;
+                }
+                update(digest, parser.getName());
+                final String[] values = new String[FIELD_COUNT];
+                for (int i = 0; i < parser.getAttributeCount(); i++) {
+                    final int field = indexOfField(parser.getAttributeNameResource(i));
+                    if (field != NO_VALUE) {
+                        values[field] = getContentValue(res, parser, i);
+                    }
+                }
+                for (String value : values) {
+                    update(digest, value);
+                }
+            }
+        }
+        return digest.digest();
+    }
+
+    @Nullable
+    private static String getContentValue(Resources res, XmlResourceParser parser, int index) {
+        final String value = parser.getAttributeValue(index);
+        if (value == null) {
+            return null;
+        }
+        if (!isReference(value)) {
+            return value.replaceAll("\\s+", " ").replaceAll("^ | $", "");
+        }
+        final int id = parser.getAttributeResourceValue(index, 0 /* defaultValue */);
+        if (id == 0) {
+            return NULL_REFERENCE;
+        }
+        final String packagePrefix = ANDROID_PACKAGE.equals(res.getResourcePackageName(id))
+                ? ANDROID_PACKAGE + ":" : "";
+        return "@" + packagePrefix + res.getResourceTypeName(id) + "/"
+                + res.getResourceEntryName(id);
+    }
+
+    private static int indexOfField(int attr) {
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if (FIELD_ATTRS[i] == attr) {
+                return i;
+            }
+        }
+        return NO_VALUE;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android runtime provides SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, @Nullable String value) {
+        if (value == null) {
+            // Absent values differ from every string, including the empty one.
+            digest.update((byte) 1);
+        } else {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    private Bundle toBundle(Resources res, String packageName, String nodeName, int fieldsOffset,
+            int flags, boolean hasPrefScreenFlag) {
+        final String[] values = new String[FIELD_COUNT];
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            final int index = mBuffer.getInt(fieldsOffset + i * 4);
+            values[i] = index == NO_VALUE ? null : getString(index);
+        }
+
+        final Bundle preferenceMetadata = new Bundle();
+        if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_TYPE)) {
+            preferenceMetadata.putString(METADATA_PREF_TYPE, nodeName);
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_NEED_KEY)) {
+            preferenceMetadata.putString(METADATA_KEY,
+                    resolveString(res, packageName, values[FIELD_KEY]));
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_CONTROLLER)) {
+            preferenceMetadata.putString(METADATA_CONTROLLER,
+                    resolveString(res, packageName, values[FIELD_CONTROLLER]));
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_TITLE)) {
+            preferenceMetadata.putString(METADATA_TITLE,
+                    resolveString(res, packageName, values[FIELD_TITLE]));
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_SUMMARY)) {
+            preferenceMetadata.putString(METADATA_SUMMARY,
+                    resolveString(res, packageName, values[FIELD_SUMMARY]));
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_ICON)) {
+            final String icon = values[FIELD_ICON];
+            preferenceMetadata.putInt(METADATA_ICON,
+                    isReference(icon) ? resolveId(res, packageName, icon) : 0);
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_NEED_KEYWORDS)) {
+            preferenceMetadata.putString(METADATA_KEYWORDS,
+                    resolveString(res, packageName, values[FIELD_KEYWORDS]));
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_NEED_SEARCHABLE)) {
+            preferenceMetadata.putBoolean(METADATA_SEARCHABLE, resolveBoolean(res, packageName,
+                    values[FIELD_SEARCHABLE], true /* defaultValue */));
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_NEED_PREF_APPEND) && hasPrefScreenFlag) {
+            preferenceMetadata.putBoolean(METADATA_APPEND,
+                    isAppended(res, packageName, values[FIELD_APPEND]));
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_UNAVAILABLE_SLICE_SUBTITLE)) {
+            preferenceMetadata.putString(METADATA_UNAVAILABLE_SLICE_SUBTITLE,
+                    resolveString(res, packageName, values[FIELD_UNAVAILABLE_SLICE_SUBTITLE]));
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_FOR_WORK)) {
+            preferenceMetadata.putBoolean(METADATA_FOR_WORK, resolveBoolean(res, packageName,
+                    values[FIELD_FOR_WORK], false /* defaultValue */));
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_NEED_HIGHLIGHTABLE_MENU_KEY)) {
+            preferenceMetadata.putString(METADATA_HIGHLIGHTABLE_MENU_KEY,
+                    resolveString(res, packageName, values[FIELD_HIGHLIGHTABLE_MENU_KEY]));
+        }
+        if (hasFlag(flags, MetadataFlag.FLAG_NEED_USER_RESTRICTION)) {
+            preferenceMetadata.putString(METADATA_USER_RESTRICTION,
+                    resolveString(res, packageName, values[FIELD_USER_RESTRICTION]));
+        }
+        return preferenceMetadata;
+    }
+
+    @Nullable
+    private String resolveString(Resources res, String packageName, @Nullable String value) {
+        if (!isReference(value)) {
+            return value;
+        }
+        final int id = resolveId(res, packageName, value);
+        return id == 0 ? null : res.getText(id).toString();
+    }
+
+    private boolean resolveBoolean(Resources res, String packageName, @Nullable String value,
+            boolean defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (isReference(value)) {
+            final int id = resolveId(res, packageName, value);
+            return id == 0 ? defaultValue : res.getBoolean(id);
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    private boolean isAppended(Resources res, String packageName, @Nullable String value) {
+        if (value == null) {
+            return false;
+        }
+        if (isReference(value)) {
+            final int id = resolveId(res, packageName, value);
+            return id != 0
+                    && res.getInteger(id) == PreferenceXmlParserUtils.APPEND_VALUE;
+        }
+        return "append".equals(value)
+                || String.valueOf(PreferenceXmlParserUtils.APPEND_VALUE).equals(value);
+    }
+
+    /**
+     * Resolves a reference such as {@code @string/name} or {@code @android:drawable/name}.
+     *
+     * @throws Resources.NotFoundException if the resource does not exist
+     */
+    private int resolveId(Resources res, String packageName, String reference) {
+        if (NULL_REFERENCE.equals(reference)) {
+            return 0;
+        }
+        synchronized (mResourceIds) {
+            final Integer cachedId = mResourceIds.get(reference);
+            if (cachedId != null) {
+                return cachedId;
+            }
+        }
+        String name = reference.substring(1);
+        if (name.startsWith("+") || name.startsWith("*")) {
+            name = name.substring(1);
+        }
+        final int id = res.getIdentifier(name, null /* defType */, packageName);
+        if (id == 0) {
+            throw new Resources.NotFoundException(reference);
+        }
+        synchronized (mResourceIds) {
+            mResourceIds.put(reference, id);
+        }
+        return id;
+    }
+
+    private synchronized String getString(int index) {
+        String string = mStrings[index];
+        if (string == null) {
+            final int offset = mStringOffsets[index];
+            final byte[] bytes = new byte[mBuffer.getInt(offset)];
+            final ByteBuffer buffer = mBuffer.duplicate();
+            buffer.position(offset + 4);
+            buffer.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            mStrings[index] = string;
+        }
+        return string;
+    }
+
+    private static boolean isReference(@Nullable String value) {
+        return value != null && value.startsWith("@");
+    }
+
+    private static boolean hasFlag(int flags, int flag) {
+        return (flags & flag) != 0;
+    }
+
+    private static PreferenceMetadataIndex load(Context context) {
+        final Resources res = context.getResources();
+        final TypedValue value = new TypedValue();
+        ByteBuffer buffer = null;
+        try {
+            res.getValue(R.raw.preference_metadata_index, value, true /* resolveRefs */);
+            buffer = map(res);
+        } catch (Resources.NotFoundException | IOException e) {
+            Log.w(TAG, "Preference metadata index unavailable, parsing xml instead", e);
+        }
+        return new PreferenceMetadataIndex(buffer, value.assetCookie,
+                context.getSharedPreferences(SHARED_PREFS_TAG, Context.MODE_PRIVATE),
+                getBuildToken(context));
+    }
+
+    /**
+     * @return the build and the last update of this package, the packaged xml can't change
+     * without either.
+     */
+    private static String getBuildToken(Context context) {
+        long lastUpdateTime = 0;
+        try {
+            lastUpdateTime = context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0 /* flags */).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Package not found", e);
+        }
+        return Build.FINGERPRINT + "/" + lastUpdateTime;
+    }
+
+    private static ByteBuffer map(Resources res) throws IOException {
+        try (AssetFileDescriptor fd = res.openRawResourceFd(R.raw.preference_metadata_index);
+             FileInputStream stream = fd.createInputStream()) {
+            return stream.getChannel().map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(),
+                    fd.getLength());
+        } catch (Resources.NotFoundException e) {
+            // The index is compressed in the apk, it can't be mapped.
+        }
+        try (InputStream stream = res.openRawResource(R.raw.preference_metadata_index)) {
+            return ByteBuffer.wrap(stream.readAllBytes());
+        }
+    }
+}
@@ -28,6 +28,7 @@ import android.util.Xml;
 
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
 
@@ -110,6 +111,9 @@ public class PreferenceXmlParserUtils {
     /**
      * Extracts metadata from preference xml and put them into a {@link Bundle}.
      *
+     * <p>The metadata is read from the index compiled at build time when possible, see
+     * {@link PreferenceMetadataIndex}, and parsed from the xml otherwise.
+     *
      * @param xmlResId xml res id of a preference screen
      * @param flags    Should be one or more of {@link MetadataFlag}.
      */
@@ -121,6 +125,18 @@ public class PreferenceXmlParserUtils {
             Log.d(TAG, xmlResId + " is invalid.");
             return metadata;
         }
+        final List<Bundle> indexedMetadata = PreferenceMetadataIndex.getInstance(context)
+                .extractMetadata(context, xmlResId, flags);
+        if (indexedMetadata != null) {
+            return indexedMetadata;
+        }
+        return parseMetadata(context, xmlResId, flags);
+    }
+
+    @VisibleForTesting
+    static List<Bundle> parseMetadata(Context context, @XmlRes int xmlResId, int flags)
+            throws IOException, XmlPullParserException {
+        final List<Bundle> metadata = new ArrayList<>();
         final XmlResourceParser parser = context.getResources().getXml(xmlResId);
 
         int type;
@@ -138,7 +154,7 @@ public class PreferenceXmlParserUtils {
             if (!hasPrefScreenFlag && TextUtils.equals(PREF_SCREEN_TAG, nodeName)) {
                 continue;
             }
-            if (!SUPPORTED_PREF_TYPES.contains(nodeName) && !nodeName.endsWith("Preference")) {
+            if (!isPreferenceNode(nodeName)) {
                 continue;
             }
             final Bundle preferenceMetadata = new Bundle();
@@ -210,6 +226,13 @@ public class PreferenceXmlParserUtils {
         return metadata;
     }
 
+    /**
+     * @return whether elements named {@param nodeName} are preferences to extract metadata from.
+     */
+    static boolean isPreferenceNode(String nodeName) {
+        return SUPPORTED_PREF_TYPES.contains(nodeName) || nodeName.endsWith("Preference");
+    }
+
     private static boolean hasFlag(int flags, @MetadataFlag int flag) {
         return (flags & flag) != 0;
     }
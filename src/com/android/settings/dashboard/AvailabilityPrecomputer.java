@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates the availability of the controllers of a {@link DashboardFragment} in parallel on
+ * worker threads, see {@link BasePreferenceController#setPrecomputedAvailabilityStatus(int, int)},
+ * and reports the slowest ones of the screen.
+ *
+ * <p>Nothing waits for the evaluation: a controller used before its result is kept is evaluated
+ * on the calling thread as usual. A result is dropped if the controller cleared its status while
+ * it was evaluated, see {@link BasePreferenceController#getPrecomputedAvailabilityGeneration()},
+ * and once {@link #cancel()} or {@link #clear()} is called.
+ */
+class AvailabilityPrecomputer {
+
+    private static final String TAG = "AvailabilityPrecomputer";
+    private static final int PARALLELISM =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final long KEEP_ALIVE_SECONDS = 10L;
+
+    @VisibleForTesting
+    static final int SLOWEST_CONTROLLER_COUNT = 3;
+
+    private static final ThreadPoolExecutor sExecutor = createExecutor();
+
+    private final Executor mExecutor;
+    private final List<BasePreferenceController> mControllers = new ArrayList<>();
+    // Evaluation time of each controller, in milliseconds.
+    private final Map<BasePreferenceController, Long> mDurations = new ArrayMap<>();
+    private final Object mLock = new Object();
+    // Guarded by mLock.
+    private boolean mCancelled;
+
+    AvailabilityPrecomputer() {
+        this(sExecutor);
+    }
+
+    @VisibleForTesting
+    AvailabilityPrecomputer(Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Starts evaluating the availability of {@param controllers}. The slowest ones are reported
+     * under {@param metricsCategory} once all of them are done.
+     */
+    void start(Collection<AbstractPreferenceController> controllers, int metricsCategory) {
+        for (AbstractPreferenceController controller : controllers) {
+            if (controller instanceof BasePreferenceController) {
+                mControllers.add((BasePreferenceController) controller);
+            }
+        }
+        final AtomicInteger remaining = new AtomicInteger(mControllers.size());
+        for (BasePreferenceController controller : mControllers) {
+            mExecutor.execute(() -> {
+                precompute(controller);
+                if (remaining.decrementAndGet() == 0) {
+                    reportSlowestControllers(metricsCategory);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops the evaluation. Controllers not evaluated yet are skipped, and results of the ones
+     * being evaluated are dropped. Results already kept are not affected.
+     */
+    void cancel() {
+        synchronized (mLock) {
+            mCancelled = true;
+        }
+    }
+
+    /**
+     * Stops the evaluation and drops every result, the availability of all controllers is
+     * evaluated again on the next use.
+     */
+    void clear() {
+        cancel();
+        for (BasePreferenceController controller : mControllers) {
+            controller.clearPrecomputedAvailabilityStatus();
+        }
+    }
+
+    /**
+     * @return the slowest controllers evaluated so far, slowest first.
+     */
+    List<Map.Entry<BasePreferenceController, Long>> getSlowestControllers(int count) {
+        final List<Map.Entry<BasePreferenceController, Long>> entries;
+        synchronized (mDurations) {
+            entries = new ArrayList<>(mDurations.entrySet());
+        }
+        entries.sort((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()));
+        return entries.subList(0, Math.min(count, entries.size()));
+    }
+
+    void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "Slowest availability checks:");
+        for (Map.Entry<BasePreferenceController, Long> entry
+                : getSlowestControllers(SLOWEST_CONTROLLER_COUNT)) {
+            writer.println(prefix + "  " + entry.getKey().getClass().getSimpleName() + ": "
+                    + entry.getValue() + "ms");
+        }
+    }
+
+    private void precompute(BasePreferenceController controller) {
+        synchronized (mLock) {
+            if (mCancelled) {
+                return;
+            }
+        }
+        final long startTime = SystemClock.elapsedRealtime();
+        try {
+            final int generation = controller.getPrecomputedAvailabilityGeneration();
+            final int status = controller.getAvailabilityStatus();
+            synchronized (mLock) {
+                if (!mCancelled) {
+                    controller.setPrecomputedAvailabilityStatus(status, generation);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Evaluated again on the main thread when used.
+            Log.w(TAG, "Failed to precompute availability of "
+                    + controller.getPreferenceKey(), e);
+        }
+        synchronized (mDurations) {
+            mDurations.put(controller, SystemClock.elapsedRealtime() - startTime);
+        }
+    }
+
+    private void reportSlowestControllers(int metricsCategory) {
+        final StringBuilder builder = new StringBuilder();
+        for (Map.Entry<BasePreferenceController, Long> entry
+                : getSlowestControllers(SLOWEST_CONTROLLER_COUNT)) {
+            final String name = entry.getKey().getClass().getSimpleName();
+            builder.append(' ').append(name).append('=').append(entry.getValue()).append("ms");
+        }
+        Log.d(TAG, "Slowest availability checks of " + metricsCategory + ":" + builder);
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(PARALLELISM, PARALLELISM,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, TAG));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -17,12 +17,15 @@ package com.android.settings.dashboard;
 
 import android.content.ComponentName;
 import android.content.Context;
+import android.os.Parcel;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.Log;
 import android.util.Pair;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.homepage.HighlightableMenu;
@@ -33,10 +36,12 @@ import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.ProviderTile;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.drawer.TileUtils;
+import com.android.settingslib.utils.ThreadUtils;
 
 import com.google.android.setupcompat.util.WizardManagerHelper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,14 +56,21 @@ public class CategoryManager {
 
     private static CategoryManager sInstance;
     private final InterestingConfigChanges mInterestingConfigChanges;
+    private final TileDiskCache mTileDiskCache;
+    // Serializes full reloads, which run without holding the lock of this object.
+    private final Object mReloadLock = new Object();
 
     // Tile cache (key: <packageName, activityName>, value: tile)
-    private final Map<Pair<String, String>, Tile> mTileByComponentCache;
+    private Map<Pair<String, String>, Tile> mTileByComponentCache;
 
     // Tile cache (key: category key, value: category)
     private final Map<String, DashboardCategory> mCategoryByKeyMap;
 
     private List<DashboardCategory> mCategories;
+    // Whether the categories were restored from a snapshot that may be stale.
+    private boolean mRevalidationPending;
+    // The snapshot last restored or written, to skip writing it again when tiles didn't change.
+    private byte[] mPersistedData;
 
     public static CategoryManager get(Context context) {
         if (sInstance == null) {
@@ -68,10 +80,16 @@ public class CategoryManager {
     }
 
     CategoryManager(Context context) {
+        this(context, new TileDiskCache(context));
+    }
+
+    @VisibleForTesting
+    CategoryManager(Context context, TileDiskCache tileDiskCache) {
         mTileByComponentCache = new ArrayMap<>();
         mCategoryByKeyMap = new ArrayMap<>();
         mInterestingConfigChanges = new InterestingConfigChanges();
         mInterestingConfigChanges.applyNewConfig(context.getResources());
+        mTileDiskCache = tileDiskCache;
     }
 
     public synchronized DashboardCategory getTilesByCategory(Context context, String categoryKey) {
@@ -88,11 +106,55 @@ public class CategoryManager {
         return mCategories;
     }
 
-    public synchronized void reloadAllCategories(Context context) {
-        final boolean forceClearCache = mInterestingConfigChanges.applyNewConfig(
-                context.getResources());
-        mCategories = null;
-        tryInitCategories(context, forceClearCache);
+    /**
+     * Reloads all categories from the package manager. The current categories keep being served
+     * to other callers until the reload is complete.
+     */
+    public void reloadAllCategories(Context context) {
+        synchronized (mReloadLock) {
+            final Map<Pair<String, String>, Tile> tileByComponentCache;
+            synchronized (this) {
+                final boolean forceClearCache = mInterestingConfigChanges.applyNewConfig(
+                        context.getResources());
+                if (!WizardManagerHelper.isUserSetupComplete(context)) {
+                    // Don't init while setup wizard is still running.
+                    mCategories = null;
+                    return;
+                }
+                // TileUtils updates the cached tiles in place, copy them so that the tiles being
+                // served are not modified while loading.
+                tileByComponentCache = new ArrayMap<>();
+                if (!forceClearCache) {
+                    for (Entry<Pair<String, String>, Tile> entry
+                            : mTileByComponentCache.entrySet()) {
+                        tileByComponentCache.put(entry.getKey(), copyTile(entry.getValue()));
+                    }
+                }
+            }
+
+            final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+            final List<DashboardCategory> categories =
+                    loadCategories(context, tileByComponentCache, categoryByKeyMap);
+            persistCategories(mTileDiskCache.marshall(categories));
+
+            synchronized (this) {
+                final boolean firstLoading = mCategoryByKeyMap.isEmpty();
+                mTileByComponentCache = tileByComponentCache;
+                setCategories(categories, categoryByKeyMap);
+                mRevalidationPending = false;
+                onCategoriesLoaded(context, firstLoading);
+            }
+        }
+    }
+
+    /**
+     * @return whether the categories were restored from disk and have to be reloaded to pick up
+     * changes since they were persisted. The pending state is cleared by this call.
+     */
+    public synchronized boolean consumeRevalidationPending() {
+        final boolean pending = mRevalidationPending;
+        mRevalidationPending = false;
+        return pending;
     }
 
     /**
@@ -141,47 +203,119 @@ public class CategoryManager {
     }
 
     private synchronized void tryInitCategories(Context context) {
-        // Keep cached tiles by default. The cache is only invalidated when InterestingConfigChange
-        // happens.
-        tryInitCategories(context, false /* forceClearCache */);
-    }
-
-    private synchronized void tryInitCategories(Context context, boolean forceClearCache) {
         if (!WizardManagerHelper.isUserSetupComplete(context)) {
             // Don't init while setup wizard is still running.
             return;
         }
         if (mCategories == null) {
             final boolean firstLoading = mCategoryByKeyMap.isEmpty();
-            if (forceClearCache) {
-                mTileByComponentCache.clear();
+            // Render from the last snapshot on cold start, the package manager is only queried
+            // when it is missing. Cached tiles are otherwise kept, they are only invalidated when
+            // InterestingConfigChange happens.
+            if (!firstLoading || !restoreCategories()) {
+                final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+                setCategories(loadCategories(context, mTileByComponentCache, categoryByKeyMap),
+                        categoryByKeyMap);
+                persistCategories(mTileDiskCache.marshall(mCategories));
             }
-            mCategoryByKeyMap.clear();
-            mCategories = TileUtils.getCategories(context, mTileByComponentCache);
-            for (DashboardCategory category : mCategories) {
-                mCategoryByKeyMap.put(category.key, category);
+            onCategoriesLoaded(context, firstLoading);
+        }
+    }
+
+    private List<DashboardCategory> loadCategories(Context context,
+            Map<Pair<String, String>, Tile> tileByComponentCache,
+            Map<String, DashboardCategory> categoryByKeyMap) {
+        final long startTime = SystemClock.elapsedRealtime();
+        final List<DashboardCategory> categories =
+                TileUtils.getCategories(context, tileByComponentCache);
+        for (DashboardCategory category : categories) {
+            categoryByKeyMap.put(category.key, category);
+        }
+        backwardCompatCleanupForCategory(tileByComponentCache, categoryByKeyMap);
+        mergeSecurityPrivacyKeys(context, tileByComponentCache, categoryByKeyMap);
+        sortCategories(context, categoryByKeyMap);
+        filterDuplicateTiles(categoryByKeyMap);
+        Log.d(TAG, "Loaded categories in " + (SystemClock.elapsedRealtime() - startTime) + "ms");
+        return categories;
+    }
+
+    private void setCategories(List<DashboardCategory> categories,
+            Map<String, DashboardCategory> categoryByKeyMap) {
+        mCategories = categories;
+        mCategoryByKeyMap.clear();
+        mCategoryByKeyMap.putAll(categoryByKeyMap);
+    }
+
+    /**
+     * Restores the categories persisted by the last full load. They are always revalidated, as
+     * components, users and packages may have changed since.
+     */
+    private boolean restoreCategories() {
+        final long startTime = SystemClock.elapsedRealtime();
+        final TileDiskCache.Snapshot snapshot = mTileDiskCache.read();
+        if (snapshot == null) {
+            return false;
+        }
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+        for (DashboardCategory category : snapshot.mCategories) {
+            categoryByKeyMap.put(category.key, category);
+        }
+        setCategories(snapshot.mCategories, categoryByKeyMap);
+        mPersistedData = snapshot.mData;
+        mRevalidationPending = true;
+        Log.d(TAG, "Restored categories in " + (SystemClock.elapsedRealtime() - startTime)
+                + "ms");
+        return true;
+    }
+
+    /**
+     * Persists the flattened categories in the background, unless they are the same as the last
+     * restored or written snapshot, which is the case of most reloads.
+     */
+    private synchronized void persistCategories(@Nullable byte[] data) {
+        if (data != null && Arrays.equals(data, mPersistedData)) {
+            return;
+        }
+        mPersistedData = data;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            if (data != null) {
+                mTileDiskCache.write(data);
+            } else {
+                // Don't restore an older snapshot than the categories that failed to persist.
+                mTileDiskCache.delete();
             }
-            backwardCompatCleanupForCategory(mTileByComponentCache, mCategoryByKeyMap);
-            mergeSecurityPrivacyKeys(context, mTileByComponentCache, mCategoryByKeyMap);
-            sortCategories(context, mCategoryByKeyMap);
-            filterDuplicateTiles(mCategoryByKeyMap);
-            if (firstLoading) {
-                logTiles(context);
-
-                final DashboardCategory homepageCategory = mCategoryByKeyMap.get(
-                        CategoryKey.CATEGORY_HOMEPAGE);
-                if (homepageCategory == null) {
-                    return;
-                }
-                for (Tile tile : homepageCategory.getTiles()) {
-                    final String key = tile.getKey(context);
-                    if (TextUtils.isEmpty(key)) {
-                        Log.w(TAG, "Key hint missing for homepage tile: " + tile.getTitle(context));
-                        continue;
-                    }
-                    HighlightableMenu.addMenuKey(key);
-                }
+        });
+    }
+
+    private static Tile copyTile(Tile tile) {
+        final Parcel parcel = Parcel.obtain();
+        try {
+            tile.writeToParcel(parcel, 0 /* flags */);
+            parcel.setDataPosition(0);
+            return Tile.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private void onCategoriesLoaded(Context context, boolean firstLoading) {
+        if (!firstLoading) {
+            return;
+        }
+        logTiles(context);
+
+        final DashboardCategory homepageCategory = mCategoryByKeyMap.get(
+                CategoryKey.CATEGORY_HOMEPAGE);
+        if (homepageCategory == null) {
+            return;
+        }
+        for (Tile tile : homepageCategory.getTiles()) {
+            final String key = tile.getKey(context);
+            if (TextUtils.isEmpty(key)) {
+                Log.w(TAG, "Key hint missing for homepage tile: " + tile.getTitle(context));
+                continue;
             }
+            HighlightableMenu.addMenuKey(key);
         }
     }
 
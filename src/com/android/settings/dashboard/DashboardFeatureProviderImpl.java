@@ -49,6 +49,7 @@ import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.Log;
+import android.util.LruCache;
 import android.util.Pair;
 import android.widget.Toast;
 
@@ -90,12 +91,16 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     private static final String TAG = "DashboardFeatureImpl";
     private static final String DASHBOARD_TILE_PREF_KEY_PREFIX = "dashboard_tile_pref_";
     private static final String META_DATA_KEY_INTENT_ACTION = "com.android.settings.intent.action";
+    private static final int MAX_CACHED_DYNAMIC_DATA = 128;
 
     protected final Context mContext;
 
     private final MetricsFeatureProvider mMetricsFeatureProvider;
     private final CategoryManager mCategoryManager;
     private final PackageManager mPackageManager;
+    // Last known dynamic title, summary or switch state of tiles, keyed by the data uri.
+    private final LruCache<Uri, Object> mDynamicDataCache =
+            new LruCache<>(MAX_CACHED_DYNAMIC_DATA);
 
     public DashboardFeatureProviderImpl(Context context) {
         mContext = context.getApplicationContext();
@@ -257,6 +262,12 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
                         break;
                 }
             }
+
+            @Override
+            protected void onFirstDataLoaded(long latencyMillis) {
+                Log.d(TAG, "Loaded " + method + " from " + uri.getAuthority() + " in "
+                        + latencyMillis + "ms");
+            }
         };
     }
 
@@ -268,14 +279,16 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
         }
         if (tile.getMetaData() != null && tile.getMetaData().containsKey(
                 META_DATA_PREFERENCE_TITLE_URI)) {
-            // Set a placeholder title before starting to fetch real title, this is necessary
-            // to avoid preference height change.
-            if (preference.getTitle() == null) {
-                preference.setTitle(R.string.summary_placeholder);
-            }
-
             final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_TITLE_URI,
                     METHOD_GET_DYNAMIC_TITLE);
+            // Show the last known title, or a placeholder, before starting to fetch real title,
+            // this is necessary to avoid preference height change.
+            final Object cachedTitle = mDynamicDataCache.get(uri);
+            if (cachedTitle instanceof String) {
+                preference.setTitle((String) cachedTitle);
+            } else if (preference.getTitle() == null) {
+                preference.setTitle(R.string.summary_placeholder);
+            }
             return createDynamicDataObserver(METHOD_GET_DYNAMIC_TITLE, uri, preference);
         }
         return null;
@@ -286,6 +299,8 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             final Map<String, IContentProvider> providerMap = new ArrayMap<>();
             final String titleFromUri = TileUtils.getTextFromUri(
                     mContext, uri, providerMap, META_DATA_PREFERENCE_TITLE);
+            putDynamicData(uri, titleFromUri);
+            observer.notifyDataLoaded();
             if (!TextUtils.equals(titleFromUri, preference.getTitle())) {
                 observer.post(() -> preference.setTitle(titleFromUri));
             }
@@ -298,14 +313,16 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             preference.setSummary(summary);
         } else if (tile.getMetaData() != null
                 && tile.getMetaData().containsKey(META_DATA_PREFERENCE_SUMMARY_URI)) {
-            // Set a placeholder summary before starting to fetch real summary, this is necessary
-            // to avoid preference height change.
-            if (preference.getSummary() == null) {
-                preference.setSummary(R.string.summary_placeholder);
-            }
-
             final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_SUMMARY_URI,
                     METHOD_GET_DYNAMIC_SUMMARY);
+            // Show the last known summary, or a placeholder, before starting to fetch real
+            // summary, this is necessary to avoid preference height change.
+            final Object cachedSummary = mDynamicDataCache.get(uri);
+            if (cachedSummary instanceof String) {
+                preference.setSummary((String) cachedSummary);
+            } else if (preference.getSummary() == null) {
+                preference.setSummary(R.string.summary_placeholder);
+            }
             return createDynamicDataObserver(METHOD_GET_DYNAMIC_SUMMARY, uri, preference);
         }
         return null;
@@ -316,6 +333,8 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             final Map<String, IContentProvider> providerMap = new ArrayMap<>();
             final String summaryFromUri = TileUtils.getTextFromUri(
                     mContext, uri, providerMap, META_DATA_PREFERENCE_SUMMARY);
+            putDynamicData(uri, summaryFromUri);
+            observer.notifyDataLoaded();
             if (!TextUtils.equals(summaryFromUri, preference.getSummary())) {
                 observer.post(() -> preference.setSummary(summaryFromUri));
             }
@@ -336,6 +355,12 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
 
         final Uri isCheckedUri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_SWITCH_URI,
                 METHOD_IS_CHECKED);
+        // Show the last known state, but keep the switch disabled until the provider confirms
+        // it, toggling it from a stale state would write the wrong value.
+        final Object cachedChecked = mDynamicDataCache.get(isCheckedUri);
+        if (cachedChecked instanceof Boolean) {
+            setSwitchChecked(preference, (Boolean) cachedChecked);
+        }
         setSwitchEnabled(preference, false);
         return createDynamicDataObserver(METHOD_IS_CHECKED, isCheckedUri, preference);
     }
@@ -368,6 +393,8 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             final Map<String, IContentProvider> providerMap = new ArrayMap<>();
             final boolean checked = TileUtils.getBooleanFromUri(mContext, uri, providerMap,
                     EXTRA_SWITCH_CHECKED_STATE);
+            mDynamicDataCache.put(uri, checked);
+            observer.notifyDataLoaded();
             observer.post(() -> {
                 setSwitchChecked(preference, checked);
                 setSwitchEnabled(preference, true);
@@ -375,6 +402,14 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
         });
     }
 
+    private void putDynamicData(Uri uri, String text) {
+        if (text == null) {
+            mDynamicDataCache.remove(uri);
+        } else {
+            mDynamicDataCache.put(uri, text);
+        }
+    }
+
     private void setSwitchChecked(Preference pref, boolean checked) {
         if (pref instanceof PrimarySwitchPreference primarySwitchPreference) {
             primarySwitchPreference.setChecked(checked);
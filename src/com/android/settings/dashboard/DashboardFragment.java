@@ -21,6 +21,7 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.preference.PreferenceManager.OnActivityResultListener;
 import android.text.TextUtils;
 import android.util.ArrayMap;
@@ -54,6 +55,8 @@ import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.search.Indexable;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -63,8 +66,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Base fragment for dashboard style UI containing a list of static and dynamic setting items.
@@ -74,7 +75,6 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         BasePreferenceController.UiBlockListener {
     public static final String CATEGORY = "category";
     private static final String TAG = "DashboardFragment";
-    private static final long TIMEOUT_MILLIS = 50L;
 
     @VisibleForTesting
     final ArrayMap<String, List<DynamicDataObserver>> mDashboardTilePrefKeys = new ArrayMap<>();
@@ -83,6 +83,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     private final List<DynamicDataObserver> mRegisteredObservers = new ArrayList<>();
     private final List<AbstractPreferenceController> mControllers = new ArrayList<>();
     @VisibleForTesting
+    final PreferenceStateTracker mPreferenceStateTracker = new PreferenceStateTracker();
+    private AvailabilityPrecomputer mAvailabilityPrecomputer;
+    @VisibleForTesting
     UiBlockerController mBlockerController;
     private DashboardFeatureProvider mDashboardFeatureProvider;
     private DashboardTilePlaceholderPreferenceController mPlaceholderPreferenceController;
@@ -135,6 +138,37 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         for (AbstractPreferenceController controller : mControllers) {
             addPreferenceController(controller);
         }
+        mPreferenceStateTracker.startTracking(context, mControllers);
+        if (shouldPrecomputeAvailability()) {
+            mAvailabilityPrecomputer = new AvailabilityPrecomputer();
+            mAvailabilityPrecomputer.start(mControllers, metricCategory);
+        }
+    }
+
+    @Override
+    public void onDetach() {
+        super.onDetach();
+        mPreferenceStateTracker.stopTracking();
+        if (mAvailabilityPrecomputer != null) {
+            // Workers still running must not keep their results once detached.
+            mAvailabilityPrecomputer.clear();
+            mAvailabilityPrecomputer = null;
+        }
+    }
+
+    /**
+     * Whether the availability of all controllers is evaluated in parallel on worker threads
+     * when attached. The results are kept until the fragment is detached, nothing waits for
+     * them: a controller used before its result is kept is evaluated on the main thread.
+     *
+     * <p>Only enable this if {@link BasePreferenceController#getAvailabilityStatus()} of every
+     * controller of the screen can run off the main thread, concurrently with the main thread,
+     * and either can't change while the screen exists or depends only on what the controller
+     * declares in {@link BasePreferenceController#getStateDependencies()}, whose changes drop
+     * the kept result.
+     */
+    protected boolean shouldPrecomputeAvailability() {
+        return false;
     }
 
     @VisibleForTesting
@@ -239,7 +273,11 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     @Override
     public void onResume() {
         super.onResume();
+        // Coming back to the screen, controllers declaring their state dependencies only need
+        // to be updated if one of them changed in the meantime.
+        mPreferenceStateTracker.setDirtyOnly(true);
         updatePreferenceStates();
+        mPreferenceStateTracker.setDirtyOnly(false);
     }
 
     @Override
@@ -394,7 +432,11 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 mPreferenceControllers.values();
         for (List<AbstractPreferenceController> controllerList : controllerLists) {
             for (AbstractPreferenceController controller : controllerList) {
+                if (!mPreferenceStateTracker.shouldUpdate(controller)) {
+                    continue;
+                }
                 if (!controller.isAvailable()) {
+                    mPreferenceStateTracker.onUpdated(controller, -1L /* durationNanos */);
                     continue;
                 }
 
@@ -411,7 +453,10 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                             key, controller.getClass().getSimpleName()));
                     continue;
                 }
+                final long startTime = SystemClock.elapsedRealtimeNanos();
                 controller.updateState(preference);
+                mPreferenceStateTracker.onUpdated(controller,
+                        SystemClock.elapsedRealtimeNanos() - startTime);
             }
         }
     }
@@ -571,18 +616,18 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             unregisterDynamicDataObservers(entry.getValue());
         }
 
-        // Wait for pending observers to update UI.
-        if (!pendingObservers.isEmpty()) {
-            final CountDownLatch mainLatch = new CountDownLatch(1);
-            new Thread(() -> {
-                pendingObservers.forEach(observer ->
-                        awaitObserverLatch(observer.getCountDownLatch()));
-                mainLatch.countDown();
-            }).start();
-            Log.d(tag, "Start waiting observers");
-            awaitObserverLatch(mainLatch);
-            Log.d(tag, "Stop waiting observers");
-            pendingObservers.forEach(DynamicDataObserver::updateUi);
+        // Let pending observers update UI as soon as their data arrives instead of blocking the
+        // main thread on slow providers. Tiles show their last known data until then.
+        pendingObservers.forEach(DynamicDataObserver::updateUi);
+    }
+
+    @Override
+    public void dump(@NonNull String prefix, @Nullable FileDescriptor fd,
+            @NonNull PrintWriter writer, @Nullable String[] args) {
+        super.dump(prefix, fd, writer, args);
+        mPreferenceStateTracker.dump(prefix, writer);
+        if (mAvailabilityPrecomputer != null) {
+            mAvailabilityPrecomputer.dump(prefix, writer);
         }
     }
 
@@ -646,12 +691,4 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             resolver.unregisterContentObserver(observer);
         });
     }
-
-    private void awaitObserverLatch(CountDownLatch latch) {
-        try {
-            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            // Do nothing
-        }
-    }
 }
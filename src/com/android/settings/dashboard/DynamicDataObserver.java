@@ -19,23 +19,23 @@ import android.database.ContentObserver;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 
 import com.android.settingslib.utils.ThreadUtils;
 
-import java.util.concurrent.CountDownLatch;
-
 /**
  * Observer for updating injected dynamic data.
  */
 public abstract class DynamicDataObserver extends ContentObserver {
 
     private Runnable mUpdateRunnable;
-    private CountDownLatch mCountDownLatch;
     private boolean mUpdateDelegated;
+    private final long mCreatedTime;
+    private boolean mFirstDataLoaded;
 
     protected DynamicDataObserver() {
         super(new Handler(Looper.getMainLooper()));
-        mCountDownLatch = new CountDownLatch(1);
+        mCreatedTime = SystemClock.elapsedRealtime();
         // Load data for the first time
         onDataChanged();
     }
@@ -54,22 +54,31 @@ public abstract class DynamicDataObserver extends ContentObserver {
         }
     }
 
-    /** Returns the count-down latch */
-    public CountDownLatch getCountDownLatch() {
-        return mCountDownLatch;
-    }
-
     @Override
     public void onChange(boolean selfChange) {
         onDataChanged();
     }
 
+    /**
+     * Called the first time data arrives, with the time taken by the provider since this
+     * observer was created.
+     */
+    protected void onFirstDataLoaded(long latencyMillis) {
+    }
+
+    /** Called whenever the provider returns data, whether it changed or not. */
+    protected synchronized void notifyDataLoaded() {
+        if (!mFirstDataLoaded) {
+            mFirstDataLoaded = true;
+            onFirstDataLoaded(SystemClock.elapsedRealtime() - mCreatedTime);
+        }
+    }
+
     protected synchronized void post(Runnable runnable) {
         if (mUpdateDelegated) {
             ThreadUtils.postOnMainThread(runnable);
         } else {
             mUpdateRunnable = runnable;
-            mCountDownLatch.countDown();
         }
     }
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks which preference controllers of a {@link DashboardFragment} have to update their state.
+ *
+ * <p>Controllers declaring {@link BasePreferenceController#getStateDependencies()} are marked
+ * dirty when one of their dependencies fires, which also drops their precomputed availability.
+ * They are skipped by dirty-only refreshes until then. Other controllers are always updated. The
+ * time spent in {@link AbstractPreferenceController#updateState} is collected per controller for
+ * dumpsys.
+ *
+ * <p>All methods have to be called on the main thread.
+ */
+class PreferenceStateTracker {
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final List<ContentObserver> mObservers = new ArrayList<>();
+    private final Map<String, List<AbstractPreferenceController>> mActionDependents =
+            new ArrayMap<>();
+    private final Set<AbstractPreferenceController> mTrackedControllers = new ArraySet<>();
+    private final Set<AbstractPreferenceController> mDirtyControllers = new ArraySet<>();
+    private final Map<AbstractPreferenceController, UpdateStats> mStats = new ArrayMap<>();
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            markDirty(mActionDependents.get(intent.getAction()));
+        }
+    };
+
+    private Context mContext;
+    private boolean mDirtyOnly;
+
+    /**
+     * Starts listening to the dependencies declared by {@param controllers}, until
+     * {@link #stopTracking()}.
+     */
+    void startTracking(Context context, Collection<AbstractPreferenceController> controllers) {
+        mContext = context.getApplicationContext();
+        final Map<Uri, List<AbstractPreferenceController>> uriDependents = new ArrayMap<>();
+        for (AbstractPreferenceController controller : controllers) {
+            if (!(controller instanceof BasePreferenceController)) {
+                continue;
+            }
+            final BasePreferenceController.StateDependencies dependencies =
+                    ((BasePreferenceController) controller).getStateDependencies();
+            if (dependencies == null) {
+                continue;
+            }
+            mTrackedControllers.add(controller);
+            mDirtyControllers.add(controller);
+            for (Uri uri : dependencies.getUris()) {
+                uriDependents.computeIfAbsent(uri, key -> new ArrayList<>()).add(controller);
+            }
+            for (String action : dependencies.getBroadcastActions()) {
+                mActionDependents.computeIfAbsent(action, key -> new ArrayList<>())
+                        .add(controller);
+            }
+        }
+
+        for (Map.Entry<Uri, List<AbstractPreferenceController>> entry
+                : uriDependents.entrySet()) {
+            final List<AbstractPreferenceController> dependents = entry.getValue();
+            final ContentObserver observer = new ContentObserver(mHandler) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    markDirty(dependents);
+                }
+            };
+            mContext.getContentResolver().registerContentObserver(entry.getKey(),
+                    false /* notifyForDescendants */, observer);
+            mObservers.add(observer);
+        }
+        if (!mActionDependents.isEmpty()) {
+            final IntentFilter filter = new IntentFilter();
+            mActionDependents.keySet().forEach(filter::addAction);
+            mContext.registerReceiver(mReceiver, filter, null /* broadcastPermission */,
+                    mHandler, Context.RECEIVER_NOT_EXPORTED);
+        }
+    }
+
+    void stopTracking() {
+        if (mContext == null) {
+            return;
+        }
+        mObservers.forEach(mContext.getContentResolver()::unregisterContentObserver);
+        mObservers.clear();
+        if (!mActionDependents.isEmpty()) {
+            mContext.unregisterReceiver(mReceiver);
+            mActionDependents.clear();
+        }
+        mTrackedControllers.clear();
+        mDirtyControllers.clear();
+    }
+
+    /**
+     * Sets whether controllers whose dependencies did not fire should be skipped.
+     */
+    void setDirtyOnly(boolean dirtyOnly) {
+        mDirtyOnly = dirtyOnly;
+    }
+
+    /**
+     * @return whether the availability and state of {@param controller} have to be evaluated.
+     */
+    boolean shouldUpdate(AbstractPreferenceController controller) {
+        if (!mDirtyOnly || !mTrackedControllers.contains(controller)
+                || mDirtyControllers.contains(controller)) {
+            return true;
+        }
+        getStats(controller).mSkipCount++;
+        return false;
+    }
+
+    /**
+     * Marks {@param controller} as up to date, after it was found unavailable or its state was
+     * updated in {@param durationNanos}, or -1 if it was not.
+     */
+    void onUpdated(AbstractPreferenceController controller, long durationNanos) {
+        mDirtyControllers.remove(controller);
+        if (durationNanos >= 0) {
+            getStats(controller).onUpdated(durationNanos);
+        }
+    }
+
+    /**
+     * Writes the dirty state and update statistics of every controller.
+     */
+    void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "Preference state updates (dirty tracked: "
+                + mTrackedControllers.size() + ", dirty: " + mDirtyControllers.size() + "):");
+        for (Map.Entry<AbstractPreferenceController, UpdateStats> entry : mStats.entrySet()) {
+            final AbstractPreferenceController controller = entry.getKey();
+            final UpdateStats stats = entry.getValue();
+            writer.println(prefix + "  " + controller.getClass().getSimpleName()
+                    + "/" + controller.getPreferenceKey()
+                    + ": updates=" + stats.mUpdateCount
+                    + " skips=" + stats.mSkipCount
+                    + " avgUs=" + (stats.mUpdateCount > 0
+                            ? toMicros(stats.mTotalNanos / stats.mUpdateCount) : 0)
+                    + " maxUs=" + toMicros(stats.mMaxNanos));
+        }
+    }
+
+    @VisibleForTesting
+    boolean isDirty(AbstractPreferenceController controller) {
+        return mDirtyControllers.contains(controller);
+    }
+
+    private void markDirty(List<AbstractPreferenceController> controllers) {
+        if (controllers == null) {
+            return;
+        }
+        for (AbstractPreferenceController controller : controllers) {
+            mDirtyControllers.add(controller);
+            // Tracked controllers are always BasePreferenceController.
+            ((BasePreferenceController) controller).clearPrecomputedAvailabilityStatus();
+        }
+    }
+
+    private UpdateStats getStats(AbstractPreferenceController controller) {
+        return mStats.computeIfAbsent(controller, key -> new UpdateStats());
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static class UpdateStats {
+        int mUpdateCount;
+        int mSkipCount;
+        long mTotalNanos;
+        long mMaxNanos;
+
+        void onUpdated(long durationNanos) {
+            mUpdateCount++;
+            mTotalNanos += durationNanos;
+            mMaxNanos = Math.max(mMaxNanos, durationNanos);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ProviderInfo;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.UserHandle;
+import android.text.TextUtils;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.drawer.ActivityTile;
+import com.android.settingslib.drawer.DashboardCategory;
+import com.android.settingslib.drawer.ProviderTile;
+import com.android.settingslib.drawer.Tile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists the dashboard categories loaded by {@link CategoryManager}, so that a cold start can
+ * render tiles without querying every package injecting them.
+ *
+ * <p>The snapshot is an explicit, versioned serialization of the tiles, dropped on a new build.
+ * It can't tell whether components were enabled or disabled, users were added or removed, or
+ * packages changed since it was written, so restored categories always have to be reloaded in
+ * the background. Restored tiles resolve their component info lazily.
+ */
+class TileDiskCache {
+
+    private static final String TAG = "TileDiskCache";
+    private static final String FILE_NAME = "dashboard_tiles";
+
+    @VisibleForTesting
+    static final int VERSION = 2;
+
+    private static final byte TILE_ACTIVITY = 0;
+    private static final byte TILE_PROVIDER = 1;
+
+    private static final byte VALUE_STRING = 0;
+    private static final byte VALUE_INT = 1;
+    private static final byte VALUE_LONG = 2;
+    private static final byte VALUE_BOOLEAN = 3;
+    private static final byte VALUE_FLOAT = 4;
+    private static final byte VALUE_DOUBLE = 5;
+
+    private final AtomicFile mFile;
+
+    /**
+     * Categories restored from disk, which have to be revalidated against the package manager.
+     */
+    static class Snapshot {
+        final List<DashboardCategory> mCategories;
+        // The persisted form of the categories, as returned by marshall().
+        final byte[] mData;
+
+        Snapshot(List<DashboardCategory> categories, byte[] data) {
+            mCategories = categories;
+            mData = data;
+        }
+    }
+
+    TileDiskCache(Context context) {
+        this(new File(context.getCacheDir(), FILE_NAME));
+    }
+
+    @VisibleForTesting
+    TileDiskCache(File file) {
+        mFile = new AtomicFile(file);
+    }
+
+    /**
+     * @return the persisted categories, or null if there are none or they were written by another
+     * build.
+     */
+    @Nullable
+    Snapshot read() {
+        final byte[] data;
+        try {
+            data = mFile.readFully();
+        } catch (IOException e) {
+            // No snapshot yet.
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != VERSION || !TextUtils.equals(in.readUTF(), Build.FINGERPRINT)) {
+                Log.i(TAG, "Snapshot from another build, dropping it");
+                delete();
+                return null;
+            }
+            final int categoryCount = in.readInt();
+            final List<DashboardCategory> categories = new ArrayList<>(categoryCount);
+            for (int i = 0; i < categoryCount; i++) {
+                final DashboardCategory category = new DashboardCategory(in.readUTF());
+                final int tileCount = in.readInt();
+                for (int j = 0; j < tileCount; j++) {
+                    category.addTile(readTile(in));
+                }
+                categories.add(category);
+            }
+            return new Snapshot(categories, data);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Failed to read snapshot", e);
+            delete();
+            return null;
+        }
+    }
+
+    /**
+     * Flattens {@param categories} for {@link #write(byte[])}. This has to be called while the
+     * tiles are not being modified, and doesn't query the package manager.
+     *
+     * @return the flattened categories, or null if a tile holds data that can't be persisted.
+     */
+    @Nullable
+    byte[] marshall(List<DashboardCategory> categories) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(VERSION);
+            out.writeUTF(Build.FINGERPRINT);
+            out.writeInt(categories.size());
+            for (DashboardCategory category : categories) {
+                out.writeUTF(category.key);
+                final List<Tile> tiles = category.getTiles();
+                out.writeInt(tiles.size());
+                for (Tile tile : tiles) {
+                    writeTile(out, tile);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Failed to flatten categories", e);
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    void write(byte[] data) {
+        FileOutputStream out = null;
+        try {
+            out = mFile.startWrite();
+            out.write(data);
+            mFile.finishWrite(out);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write snapshot", e);
+            mFile.failWrite(out);
+        }
+    }
+
+    void delete() {
+        mFile.delete();
+    }
+
+    private static void writeTile(DataOutputStream out, Tile tile) throws IOException {
+        final boolean isProviderTile = tile instanceof ProviderTile;
+        out.writeByte(isProviderTile ? TILE_PROVIDER : TILE_ACTIVITY);
+        out.writeUTF(tile.getPackageName());
+        out.writeUTF(tile.getComponentName());
+        if (isProviderTile) {
+            // The description of a provider tile is "<authority>/<key>".
+            final String description = tile.getDescription();
+            out.writeUTF(description.substring(0, description.indexOf('/')));
+        }
+        out.writeUTF(tile.getCategory());
+        out.writeInt(tile.userHandle.size());
+        for (UserHandle user : tile.userHandle) {
+            out.writeInt(user.getIdentifier());
+        }
+        writeBundle(out, tile.getMetaData());
+    }
+
+    private static Tile readTile(DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        final String packageName = in.readUTF();
+        final String componentName = in.readUTF();
+        final String authority = type == TILE_PROVIDER ? in.readUTF() : null;
+        final String category = in.readUTF();
+        final int userCount = in.readInt();
+        final List<UserHandle> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(UserHandle.of(in.readInt()));
+        }
+        final Bundle metaData = readBundle(in);
+
+        final Tile tile;
+        if (type == TILE_PROVIDER) {
+            final ProviderInfo info = new ProviderInfo();
+            info.packageName = packageName;
+            info.name = componentName;
+            info.authority = authority;
+            tile = new ProviderTile(info, category, metaData);
+        } else if (type == TILE_ACTIVITY) {
+            final ActivityInfo info = new ActivityInfo();
+            info.packageName = packageName;
+            info.name = componentName;
+            info.metaData = metaData;
+            tile = new ActivityTile(info, category);
+        } else {
+            throw new IOException("Unknown tile type " + type);
+        }
+        tile.userHandle.addAll(users);
+        return tile;
+    }
+
+    private static void writeBundle(DataOutputStream out, @Nullable Bundle bundle)
+            throws IOException {
+        if (bundle == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(bundle.size());
+        for (String key : bundle.keySet()) {
+            final Object value = bundle.get(key);
+            out.writeUTF(key);
+            if (value instanceof String) {
+                out.writeByte(VALUE_STRING);
+                out.writeUTF((String) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(VALUE_INT);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(VALUE_LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(VALUE_BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Float) {
+                out.writeByte(VALUE_FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Double) {
+                out.writeByte(VALUE_DOUBLE);
+                out.writeDouble((Double) value);
+            } else {
+                throw new IllegalArgumentException("Unsupported metadata " + key + ": " + value);
+            }
+        }
+    }
+
+    @Nullable
+    private static Bundle readBundle(DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        final Bundle bundle = new Bundle();
+        for (int i = 0; i < size; i++) {
+            final String key = in.readUTF();
+            final byte type = in.readByte();
+            switch (type) {
+                case VALUE_STRING:
+                    bundle.putString(key, in.readUTF());
+                    break;
+                case VALUE_INT:
+                    bundle.putInt(key, in.readInt());
+                    break;
+                case VALUE_LONG:
+                    bundle.putLong(key, in.readLong());
+                    break;
+                case VALUE_BOOLEAN:
+                    bundle.putBoolean(key, in.readBoolean());
+                    break;
+                case VALUE_FLOAT:
+                    bundle.putFloat(key, in.readFloat());
+                    break;
+                case VALUE_DOUBLE:
+                    bundle.putDouble(key, in.readDouble());
+                    break;
+                default:
+                    throw new IOException("Unknown metadata type " + type);
+            }
+        }
+        return bundle;
+    }
+}
@@ -57,6 +57,7 @@ import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import com.android.settings.R;
 import com.android.settings.SettingsActivity;
 import com.android.settings.Utils;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.SubSettingLauncher;
 import com.android.settings.dashboard.RestrictedDashboardFragment;
 import com.android.settings.development.autofill.AutofillCategoryController;
@@ -807,6 +808,19 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
                     return DevelopmentSettingsEnabler.isDevelopmentSettingsEnabled(context);
                 }
 
+                @Override
+                public BasePreferenceController.StateDependencies getSearchDependencies(
+                        Context context) {
+                    // Only the suppressed page is cached, the controllers of the enabled page
+                    // depend on more than settings.
+                    if (isPageSearchEnabled(context)) {
+                        return null;
+                    }
+                    return new BasePreferenceController.StateDependencies()
+                            .addUri(Settings.Global.getUriFor(DEVELOPMENT_SETTINGS_ENABLED))
+                            .addBroadcastAction(UserManager.ACTION_USER_RESTRICTIONS_CHANGED);
+                }
+
                 @Override
                 public List<AbstractPreferenceController> createPreferenceControllers(Context
                         context) {
@@ -19,8 +19,10 @@ package com.android.settings.development.featureflags;
 import android.app.settings.SettingsEnums;
 import android.content.Context;
 import android.provider.SearchIndexableResource;
+import android.provider.Settings;
 
 import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
 import com.android.settingslib.search.Indexable;
@@ -77,5 +79,13 @@ public class FeatureFlagsDashboard extends DashboardFragment {
                 protected boolean isPageSearchEnabled(Context context) {
                     return DevelopmentSettingsEnabler.isDevelopmentSettingsEnabled(context);
                 }
+
+                @Override
+                public BasePreferenceController.StateDependencies getSearchDependencies(
+                        Context context) {
+                    return new BasePreferenceController.StateDependencies().addUri(
+                            Settings.Global.getUriFor(
+                                    Settings.Global.DEVELOPMENT_SETTINGS_ENABLED));
+                }
             };
 }
@@ -284,7 +284,8 @@ public class StorageCategoryFragment extends DashboardFragment
         return new StorageAsyncLoader(context, mUserManager,
                 mSelectedStorageEntry.getFsUuid(),
                 new StorageStatsSource(context),
-                context.getPackageManager());
+                context.getPackageManager(),
+                true /* loadInParallel */);
     }
 
     @Override
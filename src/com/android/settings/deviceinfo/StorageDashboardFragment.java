@@ -481,7 +481,8 @@ public class StorageDashboardFragment extends DashboardFragment
         return new StorageAsyncLoader(context, mUserManager,
                 mSelectedStorageEntry.getFsUuid(),
                 new StorageStatsSource(context),
-                context.getPackageManager());
+                context.getPackageManager(),
+                true /* loadInParallel */);
     }
 
     @Override
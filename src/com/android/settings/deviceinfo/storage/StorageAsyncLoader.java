@@ -35,6 +35,7 @@ import android.os.UserManager;
 import android.provider.MediaStore;
 import android.provider.MediaStore.Files.FileColumns;
 import android.provider.MediaStore.MediaColumns;
+import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.Log;
 import android.util.SparseArray;
@@ -43,30 +44,54 @@ import com.android.settingslib.applications.StorageStatsSource;
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * StorageAsyncLoader is a Loader which loads categorized app information and external stats for all
  * users
+ *
+ * <p>In the parallel mode, the apps of each user and each media category are computed on a shared
+ * thread pool instead of one after another.
  */
 public class StorageAsyncLoader
         extends AsyncLoaderCompat<SparseArray<StorageAsyncLoader.StorageResult>> {
     private UserManager mUserManager;
     private static final String TAG = "StorageAsyncLoader";
+    // Each user issues one apps task and five media queries, mostly waiting for binder calls.
+    private static final int PARALLELISM = 4;
+    private static final long EXECUTOR_KEEP_ALIVE_SECONDS = 10;
+
+    private static Executor sExecutor;
 
     private String mUuid;
     private StorageStatsSource mStatsManager;
     private PackageManager mPackageManager;
-    private ArraySet<String> mSeenPackages;
+    private final boolean mLoadInParallel;
 
     public StorageAsyncLoader(Context context, UserManager userManager,
             String uuid, StorageStatsSource source, PackageManager pm) {
+        this(context, userManager, uuid, source, pm, false /* loadInParallel */);
+    }
+
+    public StorageAsyncLoader(Context context, UserManager userManager,
+            String uuid, StorageStatsSource source, PackageManager pm, boolean loadInParallel) {
         super(context);
         mUserManager = userManager;
         mUuid = uuid;
         mStatsManager = source;
         mPackageManager = pm;
+        mLoadInParallel = loadInParallel;
     }
 
     @Override
@@ -75,47 +100,112 @@ public class StorageAsyncLoader
     }
 
     private SparseArray<StorageResult> getStorageResultsForUsers() {
-        mSeenPackages = new ArraySet<>();
-        final SparseArray<StorageResult> results = new SparseArray<>();
+        final long startTime = System.currentTimeMillis();
         final List<UserInfo> infos = mUserManager.getUsers();
 
         // Sort the users by user id ascending.
         Collections.sort(infos,
                 (userInfo, otherUser) -> Integer.compare(userInfo.id, otherUser.id));
 
+        // Starts all the tasks first, they're run inline if not loading in parallel.
+        final List<UserTasks> userTasks = new ArrayList<>(infos.size());
         for (UserInfo info : infos) {
-            final StorageResult result = getAppsAndGamesSize(info.id);
-            final Bundle media = new Bundle();
-            media.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, MediaColumns.VOLUME_NAME
-                    + "= '" + MediaStore.VOLUME_EXTERNAL_PRIMARY + "'");
-            result.imagesSize = getFilesSize(info.id, MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                    media /* queryArgs */);
-            result.videosSize = getFilesSize(info.id, MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                    media /* queryArgs */);
-            result.audioSize = getFilesSize(info.id, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
-                    media /* queryArgs */);
-
-            final Bundle documentsAndOtherQueryArgs = new Bundle();
-            documentsAndOtherQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
-                    FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_IMAGE
-                    + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_VIDEO
-                    + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_AUDIO
-                    + " AND " + FileColumns.MIME_TYPE + " IS NOT NULL");
-            result.documentsAndOtherSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY),
-                    documentsAndOtherQueryArgs);
-
-            final Bundle trashQueryArgs = new Bundle();
-            trashQueryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
-            result.trashSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY),
-                    trashQueryArgs);
-
-            results.put(info.id, result);
+            userTasks.add(startUserTasks(info.id));
+        }
+
+        // Code bytes may share between different profiles. Packages are attributed to the user
+        // with the lowest id, regardless of which task completes first.
+        final ArraySet<String> seenPackages = new ArraySet<>();
+        final SparseArray<StorageResult> results = new SparseArray<>();
+        for (UserTasks tasks : userTasks) {
+            final AppsAndGamesSize appsAndGamesSize = getResult(tasks.mAppsAndGamesSize);
+            final StorageResult result = appsAndGamesSize.mResult;
+            for (Map.Entry<String, Long> codeBytes : appsAndGamesSize.mCodeBytes.entrySet()) {
+                if (!seenPackages.add(codeBytes.getKey())) {
+                    result.duplicateCodeSize += codeBytes.getValue();
+                }
+            }
+            result.imagesSize = getResult(tasks.mImagesSize);
+            result.videosSize = getResult(tasks.mVideosSize);
+            result.audioSize = getResult(tasks.mAudioSize);
+            result.documentsAndOtherSize = getResult(tasks.mDocumentsAndOtherSize);
+            result.trashSize = getResult(tasks.mTrashSize);
+            results.put(tasks.mUserId, result);
         }
+        Log.d(TAG, String.format("getStorageResultsForUsers() parallel=%b in %d/ms",
+                mLoadInParallel, System.currentTimeMillis() - startTime));
         return results;
     }
 
+    private UserTasks startUserTasks(int userId) {
+        final UserTasks tasks = new UserTasks(userId);
+        tasks.mAppsAndGamesSize = submit(() -> getAppsAndGamesSize(userId));
+
+        final Bundle media = new Bundle();
+        media.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, MediaColumns.VOLUME_NAME
+                + "= '" + MediaStore.VOLUME_EXTERNAL_PRIMARY + "'");
+        tasks.mImagesSize = submit(() -> getFilesSize(userId,
+                MediaStore.Images.Media.EXTERNAL_CONTENT_URI, media /* queryArgs */));
+        tasks.mVideosSize = submit(() -> getFilesSize(userId,
+                MediaStore.Video.Media.EXTERNAL_CONTENT_URI, media /* queryArgs */));
+        tasks.mAudioSize = submit(() -> getFilesSize(userId,
+                MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, media /* queryArgs */));
+
+        final Bundle documentsAndOtherQueryArgs = new Bundle();
+        documentsAndOtherQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
+                FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_IMAGE
+                + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_VIDEO
+                + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_AUDIO
+                + " AND " + FileColumns.MIME_TYPE + " IS NOT NULL");
+        tasks.mDocumentsAndOtherSize = submit(() -> getFilesSize(userId,
+                MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY),
+                documentsAndOtherQueryArgs));
+
+        final Bundle trashQueryArgs = new Bundle();
+        trashQueryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
+        tasks.mTrashSize = submit(() -> getFilesSize(userId,
+                MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY),
+                trashQueryArgs));
+        return tasks;
+    }
+
+    private <T> Future<T> submit(Callable<T> callable) {
+        final FutureTask<T> task = new FutureTask<>(callable);
+        if (mLoadInParallel) {
+            getExecutor().execute(task);
+        } else {
+            task.run();
+        }
+        return task;
+    }
+
+    private static <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static synchronized Executor getExecutor() {
+        if (sExecutor == null) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(PARALLELISM, PARALLELISM,
+                    EXECUTOR_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> new Thread(runnable, TAG));
+            // Storage is only loaded when the storage pages are opened, don't hold on to threads.
+            executor.allowCoreThreadTimeOut(true);
+            sExecutor = executor;
+        }
+        return sExecutor;
+    }
+
     private long getFilesSize(int userId, Uri uri, Bundle queryArgs) {
         final Context perUserContext;
         try {
@@ -140,11 +230,12 @@ public class StorageAsyncLoader
         }
     }
 
-    private StorageResult getAppsAndGamesSize(int userId) {
+    private AppsAndGamesSize getAppsAndGamesSize(int userId) {
         Log.d(TAG, "Loading apps");
         final List<ApplicationInfo> applicationInfos =
                 mPackageManager.getInstalledApplicationsAsUser(0, userId);
-        final StorageResult result = new StorageResult();
+        final AppsAndGamesSize appsAndGamesSize = new AppsAndGamesSize(applicationInfos.size());
+        final StorageResult result = appsAndGamesSize.mResult;
         final UserHandle myUser = UserHandle.of(userId);
         for (int i = 0, size = applicationInfos.size(); i < size; i++) {
             final ApplicationInfo app = applicationInfos.get(i);
@@ -159,24 +250,23 @@ public class StorageAsyncLoader
             }
 
             final long dataSize = stats.getDataBytes();
-            final long cacheQuota = mStatsManager.getCacheQuotaBytes(mUuid, app.uid);
             final long cacheBytes = stats.getCacheBytes();
             long blamedSize = dataSize + stats.getCodeBytes();
             // Technically, we could overages as freeable on the storage settings screen.
             // If the app is using more cache than its quota, we would accidentally subtract the
             // overage from the system size (because it shows up as unused) during our attribution.
-            // Thus, we cap the attribution at the quota size.
-            if (cacheQuota < cacheBytes) {
-                blamedSize = blamedSize - cacheBytes + cacheQuota;
+            // Thus, we cap the attribution at the quota size. Without cache there's no overage,
+            // skip the quota binder call.
+            if (cacheBytes > 0) {
+                final long cacheQuota = mStatsManager.getCacheQuotaBytes(mUuid, app.uid);
+                if (cacheQuota < cacheBytes) {
+                    blamedSize = blamedSize - cacheBytes + cacheQuota;
+                }
             }
 
             // Code bytes may share between different profiles. To know all the duplicate code size
             // and we can get a reasonable system size in StorageItemPreferenceController.
-            if (mSeenPackages.contains(app.packageName)) {
-                result.duplicateCodeSize += stats.getCodeBytes();
-            } else {
-                mSeenPackages.add(app.packageName);
-            }
+            appsAndGamesSize.mCodeBytes.put(app.packageName, stats.getCodeBytes());
 
             switch (app.category) {
                 case CATEGORY_GAME:
@@ -206,7 +296,32 @@ public class StorageAsyncLoader
             Log.w(TAG, e);
         }
         Log.d(TAG, "Obtaining result completed");
-        return result;
+        return appsAndGamesSize;
+    }
+
+    /** The pending results of a user. */
+    private static class UserTasks {
+        final int mUserId;
+        Future<AppsAndGamesSize> mAppsAndGamesSize;
+        Future<Long> mImagesSize;
+        Future<Long> mVideosSize;
+        Future<Long> mAudioSize;
+        Future<Long> mDocumentsAndOtherSize;
+        Future<Long> mTrashSize;
+
+        UserTasks(int userId) {
+            mUserId = userId;
+        }
+    }
+
+    /** The app sizes of a user, with the code bytes of each package to find duplicates. */
+    private static class AppsAndGamesSize {
+        final StorageResult mResult = new StorageResult();
+        final Map<String, Long> mCodeBytes;
+
+        AppsAndGamesSize(int capacity) {
+            mCodeBytes = new ArrayMap<>(capacity);
+        }
     }
 
     @Override
@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.util.ArrayMap;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A columnar copy of a battery history map, keyed by timestamp and then by {@link
+ * BatteryHistEntry#getKey()}.
+ *
+ * <p>Timestamps are kept in a sorted {@code long[]} and consumer keys are interned to int ids, so
+ * the usage values of a (timestamp, key) cell are read from primitive columns instead of through
+ * two map lookups per cell. Only the cells holding an entry are stored, each row keeping the
+ * sorted key ids of its entries. A cell without entry holds zero values, the same as an empty
+ * {@link BatteryHistEntry}.
+ */
+final class BatteryHistoryStore {
+
+    // The cell of every (row, key) pair without entry, holding zero values.
+    private static final int EMPTY_CELL = 0;
+
+    private final long[] mTimestamps;
+    // Interned keys, ordered by hash code to keep the iteration order of an ArraySet of keys.
+    private final String[] mKeys;
+    private final boolean[] mHasEntries;
+
+    // The cells of a row are [mRowStarts[row], mRowStarts[row + 1]), sorted by key id.
+    private final int[] mRowStarts;
+    private final int[] mCellKeyIds;
+    private final BatteryHistEntry[] mEntries;
+    private final long[] mForegroundUsageTimeInMs;
+    private final long[] mForegroundServiceUsageTimeInMs;
+    private final long[] mBackgroundUsageTimeInMs;
+    private final double[] mConsumePower;
+    private final double[] mForegroundUsageConsumePower;
+    private final double[] mForegroundServiceUsageConsumePower;
+    private final double[] mBackgroundUsageConsumePower;
+    private final double[] mCachedUsageConsumePower;
+
+    private BatteryHistoryStore(long[] timestamps, String[] keys, int entryCount) {
+        final int cellCount = entryCount + 1;
+        mTimestamps = timestamps;
+        mKeys = keys;
+        mHasEntries = new boolean[timestamps.length];
+        mRowStarts = new int[timestamps.length + 1];
+        mCellKeyIds = new int[cellCount];
+        mEntries = new BatteryHistEntry[cellCount];
+        mForegroundUsageTimeInMs = new long[cellCount];
+        mForegroundServiceUsageTimeInMs = new long[cellCount];
+        mBackgroundUsageTimeInMs = new long[cellCount];
+        mConsumePower = new double[cellCount];
+        mForegroundUsageConsumePower = new double[cellCount];
+        mForegroundServiceUsageConsumePower = new double[cellCount];
+        mBackgroundUsageConsumePower = new double[cellCount];
+        mCachedUsageConsumePower = new double[cellCount];
+    }
+
+    /**
+     * Creates the store of {@code batteryHistoryMap}. Null keys are dropped, and {@code
+     * placeholderEntry} only marks its timestamp as having entries without filling any cell.
+     */
+    static BatteryHistoryStore create(
+            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
+            @Nullable final BatteryHistEntry placeholderEntry) {
+        final long[] timestamps = new long[batteryHistoryMap.size()];
+        int timestampCount = 0;
+        for (Long timestamp : batteryHistoryMap.keySet()) {
+            timestamps[timestampCount++] = timestamp;
+        }
+        Arrays.sort(timestamps);
+
+        final Map<String, Integer> keyIds = new ArrayMap<>();
+        final List<String> keys = new ArrayList<>();
+        for (long timestamp : timestamps) {
+            final Map<String, BatteryHistEntry> entryMap = batteryHistoryMap.get(timestamp);
+            if (entryMap == null) {
+                continue;
+            }
+            for (String key : entryMap.keySet()) {
+                if (key != null && !keyIds.containsKey(key)) {
+                    keyIds.put(key, keys.size());
+                    keys.add(key);
+                }
+            }
+        }
+        // List.sort() is stable, keys with the same hash code stay in insertion order.
+        keys.sort((key1, key2) -> Integer.compare(key1.hashCode(), key2.hashCode()));
+        for (int keyId = 0; keyId < keys.size(); keyId++) {
+            keyIds.put(keys.get(keyId), keyId);
+        }
+
+        int entryCount = 0;
+        for (long timestamp : timestamps) {
+            final Map<String, BatteryHistEntry> entryMap = batteryHistoryMap.get(timestamp);
+            if (entryMap == null) {
+                continue;
+            }
+            for (Map.Entry<String, BatteryHistEntry> mapEntry : entryMap.entrySet()) {
+                if (isStored(mapEntry, placeholderEntry)) {
+                    entryCount++;
+                }
+            }
+        }
+
+        final BatteryHistoryStore store =
+                new BatteryHistoryStore(timestamps, keys.toArray(new String[0]), entryCount);
+        int cell = EMPTY_CELL + 1;
+        for (int row = 0; row < timestamps.length; row++) {
+            store.mRowStarts[row] = cell;
+            final Map<String, BatteryHistEntry> entryMap = batteryHistoryMap.get(timestamps[row]);
+            if (entryMap == null || entryMap.isEmpty()) {
+                continue;
+            }
+            store.mHasEntries[row] = true;
+            final int rowStart = cell;
+            for (Map.Entry<String, BatteryHistEntry> mapEntry : entryMap.entrySet()) {
+                if (isStored(mapEntry, placeholderEntry)) {
+                    store.mCellKeyIds[cell++] = keyIds.get(mapEntry.getKey());
+                }
+            }
+            Arrays.sort(store.mCellKeyIds, rowStart, cell);
+            for (int rowCell = rowStart; rowCell < cell; rowCell++) {
+                store.setCell(rowCell, entryMap.get(store.mKeys[store.mCellKeyIds[rowCell]]));
+            }
+        }
+        store.mRowStarts[timestamps.length] = cell;
+        return store;
+    }
+
+    private static boolean isStored(
+            Map.Entry<String, BatteryHistEntry> mapEntry,
+            @Nullable BatteryHistEntry placeholderEntry) {
+        return mapEntry.getKey() != null
+                && mapEntry.getValue() != null
+                && mapEntry.getValue() != placeholderEntry;
+    }
+
+    private void setCell(int cell, BatteryHistEntry entry) {
+        mEntries[cell] = entry;
+        mForegroundUsageTimeInMs[cell] = entry.mForegroundUsageTimeInMs;
+        mForegroundServiceUsageTimeInMs[cell] = entry.mForegroundServiceUsageTimeInMs;
+        mBackgroundUsageTimeInMs[cell] = entry.mBackgroundUsageTimeInMs;
+        mConsumePower[cell] = entry.mConsumePower;
+        mForegroundUsageConsumePower[cell] = entry.mForegroundUsageConsumePower;
+        mForegroundServiceUsageConsumePower[cell] = entry.mForegroundServiceUsageConsumePower;
+        mBackgroundUsageConsumePower[cell] = entry.mBackgroundUsageConsumePower;
+        mCachedUsageConsumePower[cell] = entry.mCachedUsageConsumePower;
+    }
+
+    int getTimestampCount() {
+        return mTimestamps.length;
+    }
+
+    long getTimestamp(int row) {
+        return mTimestamps[row];
+    }
+
+    int getKeyCount() {
+        return mKeys.length;
+    }
+
+    String getKey(int keyId) {
+        return mKeys[keyId];
+    }
+
+    /** Returns the row of {@code timestamp}, or -1 if it isn't in the store. */
+    int indexOf(long timestamp) {
+        final int row = Arrays.binarySearch(mTimestamps, timestamp);
+        return row >= 0 ? row : -1;
+    }
+
+    /** Returns whether the row holds any entry, including a placeholder entry. */
+    boolean hasEntries(int row) {
+        return mHasEntries[row];
+    }
+
+    /**
+     * Returns the cell index of the {@code keyId} entry in the {@code row}, or a cell holding zero
+     * values if the row has no entry for the key.
+     */
+    int getCell(int row, int keyId) {
+        final int cell =
+                Arrays.binarySearch(mCellKeyIds, mRowStarts[row], mRowStarts[row + 1], keyId);
+        return cell >= 0 ? cell : EMPTY_CELL;
+    }
+
+    /** Returns the number of stored cells, including the cell holding zero values. */
+    @VisibleForTesting
+    int getCellCount() {
+        return mEntries.length;
+    }
+
+    @Nullable
+    BatteryHistEntry getEntry(int cell) {
+        return mEntries[cell];
+    }
+
+    long getForegroundUsageTimeInMs(int cell) {
+        return mForegroundUsageTimeInMs[cell];
+    }
+
+    long getForegroundServiceUsageTimeInMs(int cell) {
+        return mForegroundServiceUsageTimeInMs[cell];
+    }
+
+    long getBackgroundUsageTimeInMs(int cell) {
+        return mBackgroundUsageTimeInMs[cell];
+    }
+
+    double getConsumePower(int cell) {
+        return mConsumePower[cell];
+    }
+
+    double getForegroundUsageConsumePower(int cell) {
+        return mForegroundUsageConsumePower[cell];
+    }
+
+    double getForegroundServiceUsageConsumePower(int cell) {
+        return mForegroundServiceUsageConsumePower[cell];
+    }
+
+    double getBackgroundUsageConsumePower(int cell) {
+        return mBackgroundUsageConsumePower[cell];
+    }
+
+    double getCachedUsageConsumePower(int cell) {
+        return mCachedUsageConsumePower[cell];
+    }
+
+    /**
+     * Searches the nearest lower and upper values of {@code target} in the ascending {@code
+     * sortedTimestamps}, with zero representing an invalid result.
+     */
+    static long[] findNearestTimestamp(final long[] sortedTimestamps, final long target) {
+        final long[] results = new long[] {0, 0};
+        final int index = Arrays.binarySearch(sortedTimestamps, target);
+        if (index >= 0) {
+            results[0] = sortedTimestamps[index];
+            results[1] = sortedTimestamps[index];
+            return results;
+        }
+        final int insertionPoint = -index - 1;
+        if (insertionPoint > 0) {
+            results[0] = sortedTimestamps[insertionPoint - 1];
+        }
+        if (insertionPoint < sortedTimestamps.length) {
+            results[1] = sortedTimestamps[insertionPoint];
+        }
+        return results;
+    }
+}
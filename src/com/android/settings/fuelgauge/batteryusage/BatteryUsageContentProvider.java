@@ -44,6 +44,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 /** {@link ContentProvider} class to fetch battery usage data. */
 public class BatteryUsageContentProvider extends ContentProvider {
@@ -188,6 +189,44 @@ public class BatteryUsageContentProvider extends ContentProvider {
         return uri;
     }
 
+    @Override
+    public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
+        final long timestamp = mClock.millis();
+        // Each DAO insertAll() writes all rows in a single transaction.
+        try {
+            switch (sUriMatcher.match(uri)) {
+                case BATTERY_STATE_CODE:
+                    mBatteryStateDao.insertAll(createEntities(values, BatteryState::create));
+                    break;
+                case APP_USAGE_EVENT_CODE:
+                    mAppUsageEventDao.insertAll(
+                            createEntities(values, AppUsageEventEntity::create));
+                    break;
+                case BATTERY_EVENT_CODE:
+                    mBatteryEventDao.insertAll(createEntities(values, BatteryEventEntity::create));
+                    break;
+                case BATTERY_USAGE_SLOT_CODE:
+                    mBatteryUsageSlotDao.insertAll(
+                            createEntities(values, BatteryUsageSlotEntity::create));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown URI: " + uri);
+            }
+        } catch (RuntimeException e) {
+            if (e instanceof IllegalArgumentException) {
+                throw e;
+            }
+            Log.e(TAG, "bulkInsert() from:" + uri + " error:", e);
+            return 0;
+        }
+        Log.d(
+                TAG,
+                String.format(
+                        "bulkInsert() size=%d into %s in %d/ms",
+                        values.length, uri.getPath(), mClock.millis() - timestamp));
+        return values.length;
+    }
+
     @Override
     public int delete(@NonNull Uri uri, @Nullable String s, @Nullable String[] strings) {
         throw new UnsupportedOperationException("unsupported!");
@@ -318,6 +357,15 @@ public class BatteryUsageContentProvider extends ContentProvider {
         return cursor;
     }
 
+    private static <T> List<T> createEntities(
+            ContentValues[] values, Function<ContentValues, T> creator) {
+        final List<T> entities = new ArrayList<>(values.length);
+        for (ContentValues contentValues : values) {
+            entities.add(creator.apply(contentValues));
+        }
+        return entities;
+    }
+
     private List<Integer> getQueryBatteryEventTypes(Uri uri) {
         Log.d(TAG, "getQueryBatteryEventTypes from uri: " + uri);
         final String batteryEventTypesParameter =
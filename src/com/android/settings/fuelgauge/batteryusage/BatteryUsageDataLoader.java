@@ -22,6 +22,7 @@ import android.os.AsyncTask;
 import android.os.BatteryUsageStats;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.ArrayMap;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -124,7 +125,8 @@ public final class BatteryUsageDataLoader {
                         batteryDiffDataMap -> {
                             DatabaseUtils.sendBatteryUsageSlotData(
                                     context,
-                                    ConvertUtils.convertToBatteryUsageSlotList(batteryDiffDataMap));
+                                    ConvertUtils.convertToBatteryUsageSlotList(
+                                            getCompletedBatteryDiffDataMap(batteryDiffDataMap)));
                             if (batteryDiffDataMap.values().stream()
                                     .anyMatch(
                                             data ->
@@ -155,6 +157,36 @@ public final class BatteryUsageDataLoader {
                         batteryLevelData, System.currentTimeMillis() - start));
     }
 
+    /**
+     * Returns the battery diff data of the completed time slots only. The last slot ends at the
+     * current time without the latest battery history, it will be computed again in the next job
+     * and is always computed live when showing the battery usage page.
+     */
+    @VisibleForTesting
+    static Map<Long, BatteryDiffData> getCompletedBatteryDiffDataMap(
+            final Map<Long, BatteryDiffData> batteryDiffDataMap) {
+        long lastEndTimestamp = Long.MIN_VALUE;
+        for (BatteryDiffData batteryDiffData : batteryDiffDataMap.values()) {
+            if (batteryDiffData != null) {
+                lastEndTimestamp = Math.max(lastEndTimestamp, batteryDiffData.getEndTimestamp());
+            }
+        }
+        final Map<Long, BatteryDiffData> completedBatteryDiffDataMap = new ArrayMap<>();
+        for (Map.Entry<Long, BatteryDiffData> entry : batteryDiffDataMap.entrySet()) {
+            final BatteryDiffData batteryDiffData = entry.getValue();
+            if (batteryDiffData != null && batteryDiffData.getEndTimestamp() < lastEndTimestamp) {
+                completedBatteryDiffDataMap.put(entry.getKey(), batteryDiffData);
+            }
+        }
+        Log.d(
+                TAG,
+                String.format(
+                        "getCompletedBatteryDiffDataMap() size=%d, skipped=%d",
+                        completedBatteryDiffDataMap.size(),
+                        batteryDiffDataMap.size() - completedBatteryDiffDataMap.size()));
+        return completedBatteryDiffDataMap;
+    }
+
     private static void loadUsageDataSafely(
             final Context context, final boolean isFullChargeStart) {
         try {
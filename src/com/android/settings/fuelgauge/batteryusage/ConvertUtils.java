@@ -41,6 +41,8 @@ import com.android.settings.fuelgauge.batteryusage.db.AppUsageEventEntity;
 import com.android.settings.fuelgauge.batteryusage.db.BatteryEventEntity;
 import com.android.settings.fuelgauge.batteryusage.db.BatteryUsageSlotEntity;
 
+import com.google.protobuf.InvalidProtocolBufferException;
+
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
@@ -130,9 +132,7 @@ public final class ConvertUtils {
                         batteryStatus,
                         batteryHealth,
                         bootTimestamp);
-        values.put(
-                BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                convertBatteryInformationToString(batteryInformation));
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
         // Save the BatteryInformation unencoded string into database for debugging.
         if (Build.TYPE.equals("userdebug")) {
             values.put(
@@ -174,31 +174,59 @@ public final class ConvertUtils {
         return values;
     }
 
-    /** Gets the encoded string from {@link BatteryInformation} instance. */
-    public static String convertBatteryInformationToString(
-            final BatteryInformation batteryInformation) {
-        return Base64.encodeToString(batteryInformation.toByteArray(), Base64.DEFAULT);
+    /**
+     * Gets the serialized {@link BatteryInformation} from {@link ContentValues}, which holds
+     * either the bytes or the legacy Base64 encoded string.
+     */
+    @Nullable
+    public static byte[] getBatteryInformationBytes(
+            final ContentValues values, final String key) {
+        final Object value = values != null ? values.get(key) : null;
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        if (value instanceof String) {
+            try {
+                return Base64.decode((String) value, Base64.DEFAULT);
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "invalid battery information string", e);
+            }
+        }
+        return null;
     }
 
     /** Gets the {@link BatteryInformation} instance from {@link ContentValues}. */
     public static BatteryInformation getBatteryInformation(
             final ContentValues values, final String key) {
-        final BatteryInformation defaultInstance = BatteryInformation.getDefaultInstance();
-        if (values != null && values.containsKey(key)) {
-            return BatteryUtils.parseProtoFromString(values.getAsString(key), defaultInstance);
-        }
-        return defaultInstance;
+        return parseBatteryInformation(getBatteryInformationBytes(values, key));
     }
 
     /** Gets the {@link BatteryInformation} instance from {@link Cursor}. */
     public static BatteryInformation getBatteryInformation(final Cursor cursor, final String key) {
         final BatteryInformation defaultInstance = BatteryInformation.getDefaultInstance();
         final int columnIndex = cursor.getColumnIndex(key);
-        if (columnIndex >= 0) {
+        if (columnIndex < 0) {
+            return defaultInstance;
+        }
+        if (cursor.getType(columnIndex) == Cursor.FIELD_TYPE_STRING) {
             return BatteryUtils.parseProtoFromString(
                     cursor.getString(columnIndex), defaultInstance);
         }
-        return defaultInstance;
+        // Parses the stored bytes directly, without a Base64 string in between.
+        return parseBatteryInformation(cursor.getBlob(columnIndex));
+    }
+
+    /** Parses the {@link BatteryInformation} instance from its serialized bytes. */
+    public static BatteryInformation parseBatteryInformation(@Nullable final byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return BatteryInformation.getDefaultInstance();
+        }
+        try {
+            return BatteryInformation.parseFrom(bytes);
+        } catch (InvalidProtocolBufferException e) {
+            Log.e(TAG, "failed to parse battery information", e);
+            return BatteryInformation.getDefaultInstance();
+        }
     }
 
     /** Converts to {@link BatteryHistEntry} */
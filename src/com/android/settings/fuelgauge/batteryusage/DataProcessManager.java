@@ -18,7 +18,7 @@ package com.android.settings.fuelgauge.batteryusage;
 
 import android.app.usage.UsageEvents;
 import android.content.Context;
-import android.os.AsyncTask;
+import android.os.CancellationSignal;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.UserHandle;
@@ -31,17 +31,28 @@ import androidx.annotation.Nullable;
 
 import com.android.internal.annotations.VisibleForTesting;
 import com.android.settings.Utils;
+import com.android.settings.fuelgauge.batteryusage.bugreport.BatteryUsageLogUtils;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
- * Manages the async tasks to process battery and app usage data.
+ * Manages the pipeline to process battery and app usage data.
  *
- * <p>For now, there exist 4 async tasks in this manager:
+ * <p>The pipeline is a graph of stages running on a bounded executor shared by all managers. For
+ * now, there exist 6 loading stages in this manager:
  *
  * <ul>
  *   <li>loadCurrentBatteryHistoryMap: load the latest battery history data from battery stats
@@ -50,32 +61,46 @@ import java.util.Set;
  *       from usage stats service.
  *   <li>loadDatabaseAppUsageList: load the necessary app usage data (after last full charge) from
  *       database
+ *   <li>loadPowerConnectionBatteryEventList: load the power connection battery events from
+ *       database
+ *   <li>loadBatteryUsageSlotList: load the persisted battery usage slots from database
  *   <li>loadAndApplyBatteryMapFromServiceOnly: load all the battery history data (should be after
  *       last full charge) from battery stats service and apply the callback function directly
  * </ul>
  *
- * If there is battery level data, the first 3 async tasks will be started at the same time.
+ * If there is battery level data, the first 5 loading stages run in parallel.
  *
  * <ul>
- *   <li>After loadCurrentAppUsageList and loadDatabaseAppUsageList complete, which means all app
- *       usage data has been loaded, the intermediate usage result will be generated.
- *   <li>Then after all 3 async tasks complete, the battery history data and app usage data will be
- *       combined to generate final data used for UI rendering. And the callback function will be
- *       applied.
+ *   <li>After both app usage lists and the battery events are loaded, which means all app usage
+ *       data has been loaded, the intermediate usage result will be generated.
+ *   <li>Then after the intermediate usage result, the current battery history and the battery
+ *       usage slots are ready, the battery history data and app usage data will be combined to
+ *       generate final data used for UI rendering. And the callback function will be applied.
  *   <li>If current user is locked, which means we couldn't get the latest app usage data, screen-on
  *       time will not be shown in the UI and empty screen-on time data will be returned.
  * </ul>
  *
- * If there is no battery level data, the 4th async task will be started only and the usage map
+ * If there is no battery level data, only the last loading stage will be started and the usage map
  * callback function will be applied directly to show the app list on the UI.
+ *
+ * <p>The pipeline is cancelled through the {@link CancellationSignal} given to {@link
+ * #getBatteryLevelData}: the stages not started yet are skipped and the callback isn't applied.
+ * The latency of every stage is written into {@link BatteryUsageLogUtils} for the dump.
  */
 public class DataProcessManager {
     private static final String TAG = "DataProcessManager";
     private static final List<BatteryEventType> POWER_CONNECTION_EVENTS =
             List.of(BatteryEventType.POWER_CONNECTED, BatteryEventType.POWER_DISCONNECTED);
+    // The loading stages of two pages may run at the same time.
+    private static final int MAX_THREADS = 4;
+    private static final int MAX_QUEUED_STAGES = 32;
+    private static final long EXECUTOR_KEEP_ALIVE_SECONDS = 10;
+
+    private static Executor sExecutor;
 
     // For testing only.
     @VisibleForTesting static Map<Long, Map<String, BatteryHistEntry>> sFakeBatteryHistoryMap;
+    @VisibleForTesting static Executor sTestExecutor;
 
     // Raw start timestamp with round to the nearest hour.
     private final long mRawStartTimestamp;
@@ -84,17 +109,21 @@ public class DataProcessManager {
     private final Handler mHandler;
     private final UserManager mUserManager;
     private final OnBatteryDiffDataMapLoadedListener mCallbackFunction;
+    private final Executor mExecutor;
     private final List<AppUsageEvent> mAppUsageEventList = new ArrayList<>();
     private final List<BatteryEvent> mBatteryEventList = new ArrayList<>();
     private final List<BatteryUsageSlot> mBatteryUsageSlotList = new ArrayList<>();
     private final List<BatteryLevelData.PeriodBatteryLevelData> mHourlyBatteryLevelsPerDay;
     private final Map<Long, Map<String, BatteryHistEntry>> mBatteryHistoryMap;
-
-    private boolean mIsCurrentBatteryHistoryLoaded = false;
-    private boolean mIsCurrentAppUsageLoaded = false;
-    private boolean mIsDatabaseAppUsageLoaded = false;
-    private boolean mIsBatteryEventLoaded = false;
-    private boolean mIsBatteryUsageSlotLoaded = false;
+    private final List<CompletableFuture<?>> mStages =
+            Collections.synchronizedList(new ArrayList<>());
+    private final List<String> mStageLatencies = Collections.synchronizedList(new ArrayList<>());
+
+    private CompletableFuture<Map<String, BatteryHistEntry>> mCurrentBatteryHistoryStage;
+    private CompletableFuture<List<AppUsageEvent>> mCurrentAppUsageStage;
+    private CompletableFuture<List<AppUsageEvent>> mDatabaseAppUsageStage;
+    private CompletableFuture<List<BatteryEvent>> mBatteryEventStage;
+    private volatile boolean mIsCancelled = false;
     // Used to identify whether screen-on time data should be shown in the UI.
     private boolean mShowScreenOnTime = true;
     private Set<String> mSystemAppsPackageNames = null;
@@ -111,7 +140,7 @@ public class DataProcessManager {
             mAppUsagePeriodMap;
 
     /**
-     * A callback listener when all the data is processed. This happens when all the async tasks
+     * A callback listener when all the data is processed. This happens when all the stages
      * complete and generate the final callback.
      */
     public interface OnBatteryDiffDataMapLoadedListener {
@@ -134,6 +163,7 @@ public class DataProcessManager {
         mRawStartTimestamp = rawStartTimestamp;
         mLastFullChargeTimestamp = lastFullChargeTimestamp;
         mCallbackFunction = callbackFunction;
+        mExecutor = getExecutor();
         mHourlyBatteryLevelsPerDay = hourlyBatteryLevelsPerDay;
         mBatteryHistoryMap = batteryHistoryMap;
     }
@@ -147,6 +177,7 @@ public class DataProcessManager {
         mHandler = handler;
         mUserManager = mContext.getSystemService(UserManager.class);
         mCallbackFunction = callbackFunction;
+        mExecutor = getExecutor();
         mRawStartTimestamp = 0L;
         mLastFullChargeTimestamp = 0L;
         mHourlyBatteryLevelsPerDay = null;
@@ -156,35 +187,101 @@ public class DataProcessManager {
         mShowScreenOnTime = false;
     }
 
-    /** Starts the async tasks to load battery history data and app usage data. */
+    /** Starts the pipeline to load battery history data and app usage data. */
     public void start() {
         start(/* isFromPeriodJob= */ false);
     }
 
-    /** Starts the async tasks to load battery history data and app usage data. */
+    /** Starts the pipeline to load battery history data and app usage data. */
     public void start(boolean isFromPeriodJob) {
-        // If we have battery level data, load the battery history map and app usage simultaneously.
+        if (mIsCancelled) {
+            Log.d(TAG, "not start the cancelled pipeline");
+            return;
+        }
+        final long startTime = System.currentTimeMillis();
+        // If we have battery level data, load the battery history map and app usage in parallel.
         if (mHourlyBatteryLevelsPerDay != null) {
+            final CompletableFuture<List<BatteryUsageSlot>> batteryUsageSlotStage;
             if (isFromPeriodJob) {
-                mIsCurrentBatteryHistoryLoaded = true;
-                mIsCurrentAppUsageLoaded = true;
-                mIsBatteryUsageSlotLoaded = true;
+                mCurrentBatteryHistoryStage = CompletableFuture.completedFuture(null);
+                mCurrentAppUsageStage = CompletableFuture.completedFuture(null);
+                batteryUsageSlotStage = CompletableFuture.completedFuture(null);
             } else {
                 // Loads the latest battery history data from the service.
-                loadCurrentBatteryHistoryMap();
+                mCurrentBatteryHistoryStage =
+                        runStage(
+                                "loadCurrentBatteryHistoryMap",
+                                this::loadCurrentBatteryHistoryMap);
                 // Loads the latest app usage list from the service.
-                loadCurrentAppUsageList();
+                mCurrentAppUsageStage =
+                        runStage("loadCurrentAppUsageList", this::loadCurrentAppUsageList);
                 // Loads existing battery usage slots from database.
-                loadBatteryUsageSlotList();
+                batteryUsageSlotStage =
+                        runStage("loadBatteryUsageSlotList", this::loadBatteryUsageSlotList);
             }
             // Loads app usage list from database.
-            loadDatabaseAppUsageList();
+            mDatabaseAppUsageStage =
+                    runStage("loadDatabaseAppUsageList", this::loadDatabaseAppUsageList);
             // Loads the battery event list from database.
-            loadPowerConnectionBatteryEventList();
+            mBatteryEventStage =
+                    runStage(
+                            "loadPowerConnectionBatteryEventList",
+                            this::loadPowerConnectionBatteryEventList);
+
+            final CompletableFuture<Void> appUsageStage =
+                    CompletableFuture.allOf(
+                                    mCurrentAppUsageStage,
+                                    mDatabaseAppUsageStage,
+                                    mBatteryEventStage)
+                            .thenApplyAsync(
+                                    unused ->
+                                            traceStage(
+                                                    "processAppUsageData",
+                                                    this::processAppUsageData),
+                                    mExecutor);
+            final CompletableFuture<Map<Long, BatteryDiffData>> finalDataStage =
+                    CompletableFuture.allOf(
+                                    mCurrentBatteryHistoryStage,
+                                    appUsageStage,
+                                    batteryUsageSlotStage)
+                            .thenApplyAsync(
+                                    unused ->
+                                            traceStage(
+                                                    "generateFinalData",
+                                                    () ->
+                                                            generateFinalData(
+                                                                    mCurrentBatteryHistoryStage
+                                                                            .join(),
+                                                                    batteryUsageSlotStage
+                                                                            .join())),
+                                    mExecutor);
+            mStages.add(appUsageStage);
+            mStages.add(finalDataStage);
+            finalDataStage.whenComplete(
+                    (batteryDiffDataMap, throwable) ->
+                            applyCallback(startTime, batteryDiffDataMap, throwable));
         } else {
             // If there is no battery level data, only load the battery history data from service
             // and show it as the app list directly.
-            loadAndApplyBatteryMapFromServiceOnly();
+            runStage(
+                            "loadAndApplyBatteryMapFromServiceOnly",
+                            this::loadBatteryMapFromServiceOnly)
+                    .whenComplete(
+                            (batteryDiffDataMap, throwable) ->
+                                    applyCallback(startTime, batteryDiffDataMap, throwable));
+        }
+    }
+
+    /**
+     * Cancels the pipeline. The stages not started yet are skipped, and the callback function
+     * isn't applied.
+     */
+    public void cancel() {
+        mIsCancelled = true;
+        synchronized (mStages) {
+            for (CompletableFuture<?> stage : mStages) {
+                stage.cancel(/* mayInterruptIfRunning= */ false);
+            }
         }
     }
 
@@ -201,22 +298,22 @@ public class DataProcessManager {
 
     @VisibleForTesting
     boolean getIsCurrentAppUsageLoaded() {
-        return mIsCurrentAppUsageLoaded;
+        return isStageDone(mCurrentAppUsageStage);
     }
 
     @VisibleForTesting
     boolean getIsDatabaseAppUsageLoaded() {
-        return mIsDatabaseAppUsageLoaded;
+        return isStageDone(mDatabaseAppUsageStage);
     }
 
     @VisibleForTesting
     boolean getIsBatteryEventLoaded() {
-        return mIsBatteryEventLoaded;
+        return isStageDone(mBatteryEventStage);
     }
 
     @VisibleForTesting
     boolean getIsCurrentBatteryHistoryLoaded() {
-        return mIsCurrentBatteryHistoryLoaded;
+        return isStageDone(mCurrentBatteryHistoryStage);
     }
 
     @VisibleForTesting
@@ -224,255 +321,165 @@ public class DataProcessManager {
         return mShowScreenOnTime;
     }
 
-    private void loadCurrentBatteryHistoryMap() {
-        new AsyncTask<Void, Void, Map<String, BatteryHistEntry>>() {
-            @Override
-            protected Map<String, BatteryHistEntry> doInBackground(Void... voids) {
-                final long startTime = System.currentTimeMillis();
-                // Loads the current battery usage data from the battery stats service.
-                final Map<String, BatteryHistEntry> currentBatteryHistoryMap =
-                        DataProcessor.getCurrentBatteryHistoryMapFromStatsService(mContext);
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadCurrentBatteryHistoryMap size=%d in %d/ms",
-                                currentBatteryHistoryMap.size(),
-                                (System.currentTimeMillis() - startTime)));
-                return currentBatteryHistoryMap;
-            }
+    @VisibleForTesting
+    boolean isCancelled() {
+        return mIsCancelled;
+    }
 
-            @Override
-            protected void onPostExecute(
-                    final Map<String, BatteryHistEntry> currentBatteryHistoryMap) {
-                if (mBatteryHistoryMap != null) {
-                    // Replaces the placeholder in mBatteryHistoryMap.
-                    for (Map.Entry<Long, Map<String, BatteryHistEntry>> mapEntry :
-                            mBatteryHistoryMap.entrySet()) {
-                        if (mapEntry.getValue()
-                                .containsKey(
-                                        DataProcessor.CURRENT_TIME_BATTERY_HISTORY_PLACEHOLDER)) {
-                            mapEntry.setValue(currentBatteryHistoryMap);
-                        }
-                    }
-                }
-                mIsCurrentBatteryHistoryLoaded = true;
-                tryToGenerateFinalDataAndApplyCallback();
-            }
-        }.execute();
+    private static boolean isStageDone(@Nullable CompletableFuture<?> stage) {
+        return stage != null && stage.isDone() && !stage.isCompletedExceptionally();
     }
 
-    private void loadCurrentAppUsageList() {
-        new AsyncTask<Void, Void, List<AppUsageEvent>>() {
-            @Override
-            protected List<AppUsageEvent> doInBackground(Void... voids) {
-                if (!shouldLoadAppUsageData()) {
-                    Log.d(TAG, "not loadCurrentAppUsageList");
-                    return null;
-                }
-                final long startTime = System.currentTimeMillis();
-                // Loads the current battery usage data from the battery stats service.
-                final int currentUserId = getCurrentUserId();
-                final int workProfileUserId = getWorkProfileUserId();
-                final UsageEvents usageEventsForCurrentUser =
-                        DataProcessor.getAppUsageEventsForUser(
-                                mContext, currentUserId, mRawStartTimestamp);
-                // If fail to load usage events for current user, return null directly and screen-on
-                // time will not be shown in the UI.
-                if (usageEventsForCurrentUser == null) {
-                    Log.w(TAG, "usageEventsForCurrentUser is null");
-                    return null;
-                }
-                UsageEvents usageEventsForWorkProfile = null;
-                if (workProfileUserId != Integer.MIN_VALUE) {
-                    usageEventsForWorkProfile =
-                            DataProcessor.getAppUsageEventsForUser(
-                                    mContext, workProfileUserId, mRawStartTimestamp);
-                } else {
-                    Log.d(TAG, "there is no work profile");
-                }
+    private static synchronized Executor getExecutor() {
+        if (sTestExecutor != null) {
+            return sTestExecutor;
+        }
+        if (sExecutor == null) {
+            final ThreadPoolExecutor executor =
+                    new ThreadPoolExecutor(
+                            MAX_THREADS,
+                            MAX_THREADS,
+                            EXECUTOR_KEEP_ALIVE_SECONDS,
+                            TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(MAX_QUEUED_STAGES),
+                            runnable -> new Thread(runnable, TAG),
+                            // Runs the stage in the caller thread instead of dropping it.
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+            // The pipeline only runs when the page is opened, don't hold on to threads.
+            executor.allowCoreThreadTimeOut(true);
+            sExecutor = executor;
+        }
+        return sExecutor;
+    }
 
-                final Map<Long, UsageEvents> usageEventsMap = new ArrayMap<>();
-                usageEventsMap.put(Long.valueOf(currentUserId), usageEventsForCurrentUser);
-                if (usageEventsForWorkProfile != null) {
-                    Log.d(TAG, "usageEventsForWorkProfile is null");
-                    usageEventsMap.put(Long.valueOf(workProfileUserId), usageEventsForWorkProfile);
-                }
+    private <T> CompletableFuture<T> runStage(String stageName, Supplier<T> stage) {
+        final CompletableFuture<T> future =
+                CompletableFuture.supplyAsync(() -> traceStage(stageName, stage), mExecutor);
+        mStages.add(future);
+        return future;
+    }
 
-                final List<AppUsageEvent> appUsageEventList =
-                        DataProcessor.generateAppUsageEventListFromUsageEvents(
-                                mContext, usageEventsMap);
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadCurrentAppUsageList size=%d in %d/ms",
-                                appUsageEventList.size(),
-                                (System.currentTimeMillis() - startTime)));
-                return appUsageEventList;
-            }
+    private <T> T traceStage(String stageName, Supplier<T> stage) {
+        if (mIsCancelled) {
+            throw new CancellationException(stageName + " is cancelled");
+        }
+        final long startTime = System.currentTimeMillis();
+        final T result = stage.get();
+        final long elapsedTime = System.currentTimeMillis() - startTime;
+        mStageLatencies.add(String.format(Locale.US, "%s=%dms", stageName, elapsedTime));
+        Log.d(TAG, String.format("execute %s in %d/ms", stageName, elapsedTime));
+        return result;
+    }
 
-            @Override
-            protected void onPostExecute(final List<AppUsageEvent> currentAppUsageList) {
-                if (currentAppUsageList == null || currentAppUsageList.isEmpty()) {
-                    Log.d(TAG, "currentAppUsageList is null or empty");
-                } else {
-                    mAppUsageEventList.addAll(currentAppUsageList);
-                }
-                mIsCurrentAppUsageLoaded = true;
-                tryToProcessAppUsageData();
-            }
-        }.execute();
+    private Map<String, BatteryHistEntry> loadCurrentBatteryHistoryMap() {
+        // Loads the current battery usage data from the battery stats service.
+        final Map<String, BatteryHistEntry> currentBatteryHistoryMap =
+                DataProcessor.getCurrentBatteryHistoryMapFromStatsService(mContext);
+        Log.d(TAG, "loadCurrentBatteryHistoryMap size=" + currentBatteryHistoryMap.size());
+        return currentBatteryHistoryMap;
     }
 
-    private void loadDatabaseAppUsageList() {
-        new AsyncTask<Void, Void, List<AppUsageEvent>>() {
-            @Override
-            protected List<AppUsageEvent> doInBackground(Void... voids) {
-                if (!shouldLoadAppUsageData()) {
-                    Log.d(TAG, "not loadDatabaseAppUsageList");
-                    return null;
-                }
-                final long startTime = System.currentTimeMillis();
-                // Loads the app usage data from the database.
-                final List<AppUsageEvent> appUsageEventList =
-                        DatabaseUtils.getAppUsageEventForUsers(
-                                mContext,
-                                Calendar.getInstance(),
-                                getCurrentUserIds(),
-                                mRawStartTimestamp);
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadDatabaseAppUsageList size=%d in %d/ms",
-                                appUsageEventList.size(),
-                                (System.currentTimeMillis() - startTime)));
-                return appUsageEventList;
-            }
+    private List<AppUsageEvent> loadCurrentAppUsageList() {
+        if (!shouldLoadAppUsageData()) {
+            Log.d(TAG, "not loadCurrentAppUsageList");
+            return null;
+        }
+        // Loads the current battery usage data from the battery stats service.
+        final int currentUserId = getCurrentUserId();
+        final int workProfileUserId = getWorkProfileUserId();
+        final UsageEvents usageEventsForCurrentUser =
+                DataProcessor.getAppUsageEventsForUser(
+                        mContext, currentUserId, mRawStartTimestamp);
+        // If fail to load usage events for current user, return null directly and screen-on time
+        // will not be shown in the UI.
+        if (usageEventsForCurrentUser == null) {
+            Log.w(TAG, "usageEventsForCurrentUser is null");
+            return null;
+        }
+        UsageEvents usageEventsForWorkProfile = null;
+        if (workProfileUserId != Integer.MIN_VALUE) {
+            usageEventsForWorkProfile =
+                    DataProcessor.getAppUsageEventsForUser(
+                            mContext, workProfileUserId, mRawStartTimestamp);
+        } else {
+            Log.d(TAG, "there is no work profile");
+        }
 
-            @Override
-            protected void onPostExecute(final List<AppUsageEvent> databaseAppUsageList) {
-                if (databaseAppUsageList == null || databaseAppUsageList.isEmpty()) {
-                    Log.d(TAG, "databaseAppUsageList is null or empty");
-                } else {
-                    mAppUsageEventList.addAll(databaseAppUsageList);
-                }
-                mIsDatabaseAppUsageLoaded = true;
-                tryToProcessAppUsageData();
-            }
-        }.execute();
-    }
-
-    private void loadPowerConnectionBatteryEventList() {
-        new AsyncTask<Void, Void, List<BatteryEvent>>() {
-            @Override
-            protected List<BatteryEvent> doInBackground(Void... voids) {
-                final long startTime = System.currentTimeMillis();
-                // Loads the battery event data from the database.
-                final List<BatteryEvent> batteryEventList =
-                        DatabaseUtils.getBatteryEvents(
-                                mContext,
-                                Calendar.getInstance(),
-                                mRawStartTimestamp,
-                                POWER_CONNECTION_EVENTS);
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadPowerConnectionBatteryEventList size=%d in %d/ms",
-                                batteryEventList.size(), (System.currentTimeMillis() - startTime)));
-                return batteryEventList;
-            }
+        final Map<Long, UsageEvents> usageEventsMap = new ArrayMap<>();
+        usageEventsMap.put(Long.valueOf(currentUserId), usageEventsForCurrentUser);
+        if (usageEventsForWorkProfile != null) {
+            Log.d(TAG, "usageEventsForWorkProfile is null");
+            usageEventsMap.put(Long.valueOf(workProfileUserId), usageEventsForWorkProfile);
+        }
 
-            @Override
-            protected void onPostExecute(final List<BatteryEvent> batteryEventList) {
-                if (batteryEventList == null || batteryEventList.isEmpty()) {
-                    Log.d(TAG, "batteryEventList is null or empty");
-                } else {
-                    mBatteryEventList.clear();
-                    mBatteryEventList.addAll(batteryEventList);
-                }
-                mIsBatteryEventLoaded = true;
-                tryToProcessAppUsageData();
-            }
-        }.execute();
-    }
-
-    private void loadBatteryUsageSlotList() {
-        new AsyncTask<Void, Void, List<BatteryUsageSlot>>() {
-            @Override
-            protected List<BatteryUsageSlot> doInBackground(Void... voids) {
-                final long startTime = System.currentTimeMillis();
-                // Loads the battery usage slot data from the database.
-                final List<BatteryUsageSlot> batteryUsageSlotList =
-                        DatabaseUtils.getBatteryUsageSlots(
-                                mContext, Calendar.getInstance(), mLastFullChargeTimestamp);
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadBatteryUsageSlotList size=%d in %d/ms",
-                                batteryUsageSlotList.size(),
-                                (System.currentTimeMillis() - startTime)));
-                return batteryUsageSlotList;
-            }
+        final List<AppUsageEvent> appUsageEventList =
+                DataProcessor.generateAppUsageEventListFromUsageEvents(mContext, usageEventsMap);
+        Log.d(TAG, "loadCurrentAppUsageList size=" + appUsageEventList.size());
+        return appUsageEventList;
+    }
 
-            @Override
-            protected void onPostExecute(final List<BatteryUsageSlot> batteryUsageSlotList) {
-                if (batteryUsageSlotList == null || batteryUsageSlotList.isEmpty()) {
-                    Log.d(TAG, "batteryUsageSlotList is null or empty");
-                } else {
-                    mBatteryUsageSlotList.clear();
-                    mBatteryUsageSlotList.addAll(batteryUsageSlotList);
-                }
-                mIsBatteryUsageSlotLoaded = true;
-                tryToGenerateFinalDataAndApplyCallback();
-            }
-        }.execute();
-    }
-
-    private void loadAndApplyBatteryMapFromServiceOnly() {
-        new AsyncTask<Void, Void, Map<Long, BatteryDiffData>>() {
-            @Override
-            protected Map<Long, BatteryDiffData> doInBackground(Void... voids) {
-                final long startTime = System.currentTimeMillis();
-                final Map<Long, BatteryDiffData> batteryDiffDataMap =
-                        DataProcessor.getBatteryDiffDataMapFromStatsService(
-                                mContext,
-                                mRawStartTimestamp,
-                                getSystemAppsPackageNames(),
-                                getSystemAppsUids());
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute loadAndApplyBatteryMapFromServiceOnly size=%d in %d/ms",
-                                batteryDiffDataMap.size(),
-                                (System.currentTimeMillis() - startTime)));
-                return batteryDiffDataMap;
-            }
+    private List<AppUsageEvent> loadDatabaseAppUsageList() {
+        if (!shouldLoadAppUsageData()) {
+            Log.d(TAG, "not loadDatabaseAppUsageList");
+            return null;
+        }
+        // Loads the app usage data from the database.
+        final List<AppUsageEvent> appUsageEventList =
+                DatabaseUtils.getAppUsageEventForUsers(
+                        mContext, Calendar.getInstance(), getCurrentUserIds(), mRawStartTimestamp);
+        Log.d(TAG, "loadDatabaseAppUsageList size=" + appUsageEventList.size());
+        return appUsageEventList;
+    }
 
-            @Override
-            protected void onPostExecute(final Map<Long, BatteryDiffData> batteryDiffDataMap) {
-                // Post results back to main thread to refresh UI.
-                if (mHandler != null && mCallbackFunction != null) {
-                    mHandler.post(
-                            () -> {
-                                mCallbackFunction.onBatteryDiffDataMapLoaded(batteryDiffDataMap);
-                            });
-                }
-            }
-        }.execute();
+    private List<BatteryEvent> loadPowerConnectionBatteryEventList() {
+        // Loads the battery event data from the database.
+        final List<BatteryEvent> batteryEventList =
+                DatabaseUtils.getBatteryEvents(
+                        mContext,
+                        Calendar.getInstance(),
+                        mRawStartTimestamp,
+                        POWER_CONNECTION_EVENTS);
+        Log.d(TAG, "loadPowerConnectionBatteryEventList size=" + batteryEventList.size());
+        return batteryEventList;
     }
 
-    private void tryToProcessAppUsageData() {
-        // Ignore processing the data if any required data is not loaded.
-        if (!mIsCurrentAppUsageLoaded || !mIsDatabaseAppUsageLoaded || !mIsBatteryEventLoaded) {
-            return;
-        }
-        processAppUsageData();
-        tryToGenerateFinalDataAndApplyCallback();
+    private List<BatteryUsageSlot> loadBatteryUsageSlotList() {
+        // Loads the battery usage slot data from the database.
+        final List<BatteryUsageSlot> batteryUsageSlotList =
+                DatabaseUtils.getBatteryUsageSlots(
+                        mContext, Calendar.getInstance(), mLastFullChargeTimestamp);
+        Log.d(TAG, "loadBatteryUsageSlotList size=" + batteryUsageSlotList.size());
+        return batteryUsageSlotList;
     }
 
-    private void processAppUsageData() {
+    private Map<Long, BatteryDiffData> loadBatteryMapFromServiceOnly() {
+        return DataProcessor.getBatteryDiffDataMapFromStatsService(
+                mContext, mRawStartTimestamp, getSystemAppsPackageNames(), getSystemAppsUids());
+    }
+
+    private Void processAppUsageData() {
+        final List<AppUsageEvent> currentAppUsageList = mCurrentAppUsageStage.join();
+        if (currentAppUsageList == null || currentAppUsageList.isEmpty()) {
+            Log.d(TAG, "currentAppUsageList is null or empty");
+        } else {
+            mAppUsageEventList.addAll(currentAppUsageList);
+        }
+        final List<AppUsageEvent> databaseAppUsageList = mDatabaseAppUsageStage.join();
+        if (databaseAppUsageList == null || databaseAppUsageList.isEmpty()) {
+            Log.d(TAG, "databaseAppUsageList is null or empty");
+        } else {
+            mAppUsageEventList.addAll(databaseAppUsageList);
+        }
+        final List<BatteryEvent> batteryEventList = mBatteryEventStage.join();
+        if (batteryEventList == null || batteryEventList.isEmpty()) {
+            Log.d(TAG, "batteryEventList is null or empty");
+        } else {
+            mBatteryEventList.clear();
+            mBatteryEventList.addAll(batteryEventList);
+        }
         // If there is no screen-on time data, no need to process.
         if (!mShowScreenOnTime) {
-            return;
+            return null;
         }
         // Generates the indexed AppUsagePeriod list data for each corresponding time slot for
         // further use.
@@ -482,63 +489,99 @@ public class DataProcessManager {
                         mHourlyBatteryLevelsPerDay,
                         mAppUsageEventList,
                         mBatteryEventList);
+        return null;
     }
 
-    private void tryToGenerateFinalDataAndApplyCallback() {
-        // Ignore processing the data if any required data is not loaded.
-        if (!mIsCurrentBatteryHistoryLoaded
-                || !mIsCurrentAppUsageLoaded
-                || !mIsDatabaseAppUsageLoaded
-                || !mIsBatteryEventLoaded
-                || !mIsBatteryUsageSlotLoaded) {
-            return;
-        }
-        generateFinalDataAndApplyCallback();
-    }
-
-    private synchronized void generateFinalDataAndApplyCallback() {
-        new AsyncTask<Void, Void, Map<Long, BatteryDiffData>>() {
-            @Override
-            protected Map<Long, BatteryDiffData> doInBackground(Void... voids) {
-                final long startTime = System.currentTimeMillis();
-                final Map<Long, BatteryDiffData> batteryDiffDataMap = new ArrayMap<>();
-                for (BatteryUsageSlot batteryUsageSlot : mBatteryUsageSlotList) {
-                    batteryDiffDataMap.put(
-                            batteryUsageSlot.getStartTimestamp(),
-                            ConvertUtils.convertToBatteryDiffData(
-                                    mContext,
-                                    batteryUsageSlot,
-                                    getSystemAppsPackageNames(),
-                                    getSystemAppsUids()));
+    private Map<Long, BatteryDiffData> generateFinalData(
+            @Nullable final Map<String, BatteryHistEntry> currentBatteryHistoryMap,
+            @Nullable final List<BatteryUsageSlot> batteryUsageSlotList) {
+        if (currentBatteryHistoryMap != null && mBatteryHistoryMap != null) {
+            // Replaces the placeholder in mBatteryHistoryMap.
+            for (Map.Entry<Long, Map<String, BatteryHistEntry>> mapEntry :
+                    mBatteryHistoryMap.entrySet()) {
+                if (mapEntry.getValue()
+                        .containsKey(DataProcessor.CURRENT_TIME_BATTERY_HISTORY_PLACEHOLDER)) {
+                    mapEntry.setValue(currentBatteryHistoryMap);
                 }
-                batteryDiffDataMap.putAll(
-                        DataProcessor.getBatteryDiffDataMap(
-                                mContext,
-                                mHourlyBatteryLevelsPerDay,
-                                mBatteryHistoryMap,
-                                mAppUsagePeriodMap,
-                                getSystemAppsPackageNames(),
-                                getSystemAppsUids()));
-
-                Log.d(
-                        TAG,
-                        String.format(
-                                "execute generateFinalDataAndApplyCallback size=%d in %d/ms",
-                                batteryDiffDataMap.size(), System.currentTimeMillis() - startTime));
-                return batteryDiffDataMap;
             }
+        }
+        if (batteryUsageSlotList == null || batteryUsageSlotList.isEmpty()) {
+            Log.d(TAG, "batteryUsageSlotList is null or empty");
+        } else {
+            mBatteryUsageSlotList.clear();
+            mBatteryUsageSlotList.addAll(batteryUsageSlotList);
+        }
 
-            @Override
-            protected void onPostExecute(final Map<Long, BatteryDiffData> batteryDiffDataMap) {
-                // Post results back to main thread to refresh UI.
-                if (mHandler != null && mCallbackFunction != null) {
-                    mHandler.post(
-                            () -> {
-                                mCallbackFunction.onBatteryDiffDataMapLoaded(batteryDiffDataMap);
-                            });
-                }
+        final Map<Long, BatteryDiffData> batteryDiffDataMap = new ArrayMap<>();
+        // Past time slots never change, they're loaded from the slots persisted by the periodic
+        // job. Only the slots since the latest persisted one are computed from the battery
+        // history, and they override the stored data.
+        for (BatteryUsageSlot batteryUsageSlot : mBatteryUsageSlotList) {
+            batteryDiffDataMap.put(
+                    batteryUsageSlot.getStartTimestamp(),
+                    ConvertUtils.convertToBatteryDiffData(
+                            mContext,
+                            batteryUsageSlot,
+                            getSystemAppsPackageNames(),
+                            getSystemAppsUids()));
+        }
+        final Map<Long, BatteryDiffData> liveBatteryDiffDataMap =
+                DataProcessor.getBatteryDiffDataMap(
+                        mContext,
+                        mHourlyBatteryLevelsPerDay,
+                        mBatteryHistoryMap,
+                        mAppUsagePeriodMap,
+                        getSystemAppsPackageNames(),
+                        getSystemAppsUids());
+        batteryDiffDataMap.putAll(liveBatteryDiffDataMap);
+        Log.d(
+                TAG,
+                String.format(
+                        "generateFinalData size=%d (stored=%d, live=%d)",
+                        batteryDiffDataMap.size(),
+                        mBatteryUsageSlotList.size(),
+                        liveBatteryDiffDataMap.size()));
+        return batteryDiffDataMap;
+    }
+
+    private void applyCallback(
+            final long startTime,
+            @Nullable final Map<Long, BatteryDiffData> batteryDiffDataMap,
+            @Nullable final Throwable throwable) {
+        // Exceptions of the dependent stages are wrapped into a CompletionException.
+        final boolean isCancelled =
+                mIsCancelled
+                        || throwable instanceof CancellationException
+                        || (throwable != null
+                                && throwable.getCause() instanceof CancellationException);
+        final String stageLatencies;
+        synchronized (mStageLatencies) {
+            stageLatencies = String.join(" ", mStageLatencies);
+        }
+        final String processLog =
+                String.format(
+                        Locale.US,
+                        "%s total=%dms %s",
+                        isCancelled ? "cancelled" : (throwable != null ? "failed" : "completed"),
+                        System.currentTimeMillis() - startTime,
+                        stageLatencies);
+        Log.d(TAG, "pipeline " + processLog);
+        BatteryUsageLogUtils.writeProcessLog(mContext, processLog);
+        if (throwable != null) {
+            if (!isCancelled) {
+                Log.e(TAG, "failed to process battery usage data", throwable);
             }
-        }.execute();
+            return;
+        }
+        // Post results back to main thread to refresh UI.
+        if (mHandler != null && mCallbackFunction != null) {
+            mHandler.post(
+                    () -> {
+                        if (!mIsCancelled) {
+                            mCallbackFunction.onBatteryDiffDataMapLoaded(batteryDiffDataMap);
+                        }
+                    });
+        }
     }
 
     // Whether we should load app usage data from service or database.
@@ -601,6 +644,26 @@ public class DataProcessManager {
             @Nullable Handler handler,
             final boolean isFromPeriodJob,
             final OnBatteryDiffDataMapLoadedListener onBatteryUsageMapLoadedListener) {
+        return getBatteryLevelData(
+                context,
+                handler,
+                isFromPeriodJob,
+                onBatteryUsageMapLoadedListener,
+                /* cancellationSignal= */ null);
+    }
+
+    /**
+     * Same as {@link #getBatteryLevelData(Context, Handler, boolean,
+     * OnBatteryDiffDataMapLoadedListener)}, and the started pipeline is cancelled when {@code
+     * cancellationSignal} is cancelled.
+     */
+    @Nullable
+    public static BatteryLevelData getBatteryLevelData(
+            Context context,
+            @Nullable Handler handler,
+            final boolean isFromPeriodJob,
+            final OnBatteryDiffDataMapLoadedListener onBatteryUsageMapLoadedListener,
+            @Nullable final CancellationSignal cancellationSignal) {
         final long start = System.currentTimeMillis();
         final long lastFullChargeTime = DatabaseUtils.getLastFullChargeTime(context);
         final List<BatteryEvent> batteryLevelRecordEvents =
@@ -620,7 +683,8 @@ public class DataProcessManager {
                         startTimestamp,
                         lastFullChargeTime,
                         isFromPeriodJob,
-                        onBatteryUsageMapLoadedListener);
+                        onBatteryUsageMapLoadedListener,
+                        cancellationSignal);
         Log.d(
                 TAG,
                 String.format(
@@ -639,7 +703,8 @@ public class DataProcessManager {
             final long startTimestamp,
             final long lastFullChargeTime,
             final boolean isFromPeriodJob,
-            final OnBatteryDiffDataMapLoadedListener onBatteryDiffDataMapLoadedListener) {
+            final OnBatteryDiffDataMapLoadedListener onBatteryDiffDataMapLoadedListener,
+            @Nullable final CancellationSignal cancellationSignal) {
         final long currentTime = System.currentTimeMillis();
         Log.d(
                 TAG,
@@ -663,7 +728,10 @@ public class DataProcessManager {
                                 lastFullChargeTime);
         if (batteryHistoryMap == null || batteryHistoryMap.isEmpty()) {
             Log.d(TAG, "batteryHistoryMap is null in getPeriodBatteryLevelData()");
-            new DataProcessManager(context, handler, onBatteryDiffDataMapLoadedListener).start();
+            startDataProcessManager(
+                    new DataProcessManager(context, handler, onBatteryDiffDataMapLoadedListener),
+                    isFromPeriodJob,
+                    cancellationSignal);
             return null;
         }
 
@@ -675,22 +743,37 @@ public class DataProcessManager {
                 DataProcessor.getLevelDataThroughProcessedHistoryMap(
                         context, processedBatteryHistoryMap);
         if (batteryLevelData == null) {
-            new DataProcessManager(context, handler, onBatteryDiffDataMapLoadedListener).start();
+            startDataProcessManager(
+                    new DataProcessManager(context, handler, onBatteryDiffDataMapLoadedListener),
+                    isFromPeriodJob,
+                    cancellationSignal);
             Log.d(TAG, "getBatteryLevelData() returns null");
             return null;
         }
 
-        // Start the async task to compute diff usage data and load labels and icons.
-        new DataProcessManager(
+        // Start the pipeline to compute diff usage data and load labels and icons.
+        startDataProcessManager(
+                new DataProcessManager(
                         context,
                         handler,
                         startTimestamp,
                         lastFullChargeTime,
                         onBatteryDiffDataMapLoadedListener,
                         batteryLevelData.getHourlyBatteryLevelsPerDay(),
-                        processedBatteryHistoryMap)
-                .start(isFromPeriodJob);
+                        processedBatteryHistoryMap),
+                isFromPeriodJob,
+                cancellationSignal);
 
         return batteryLevelData;
     }
+
+    private static void startDataProcessManager(
+            final DataProcessManager dataProcessManager,
+            final boolean isFromPeriodJob,
+            @Nullable final CancellationSignal cancellationSignal) {
+        if (cancellationSignal != null) {
+            cancellationSignal.setOnCancelListener(dataProcessManager::cancel);
+        }
+        dataProcessManager.start(isFromPeriodJob);
+    }
 }
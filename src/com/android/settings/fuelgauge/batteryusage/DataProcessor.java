@@ -85,7 +85,6 @@ public final class DataProcessor {
     private static final int MAX_DIFF_SECONDS_OF_UPPER_TIMESTAMP = 5;
     private static final String MEDIASERVER_PACKAGE_NAME = "mediaserver";
     private static final String ANDROID_CORE_APPS_SHARED_USER_ID = "android.uid.shared";
-    private static final Map<String, BatteryHistEntry> EMPTY_BATTERY_MAP = new ArrayMap<>();
     private static final BatteryHistEntry EMPTY_BATTERY_HIST_ENTRY =
             new BatteryHistEntry(new ContentValues());
 
@@ -429,8 +428,10 @@ public final class DataProcessor {
         Collections.sort(rawTimestampList);
         final long currentTime = getCurrentTimeMillis();
         final List<Long> expectedTimestampList = getTimestampSlots(rawTimestampList, currentTime);
+        final long[] rawTimestamps =
+                rawTimestampList.stream().mapToLong(Long::longValue).toArray();
         interpolateHistory(
-                context, rawTimestampList, expectedTimestampList, batteryHistoryMap, resultMap);
+                context, rawTimestamps, expectedTimestampList, batteryHistoryMap, resultMap);
         Log.d(
                 TAG,
                 String.format(
@@ -500,25 +501,6 @@ public final class DataProcessor {
         return BatteryStatus.isCharged(firstHistEntry.mBatteryStatus, firstHistEntry.mBatteryLevel);
     }
 
-    @VisibleForTesting
-    static long[] findNearestTimestamp(final List<Long> timestamps, final long target) {
-        final long[] results = new long[] {Long.MIN_VALUE, Long.MAX_VALUE};
-        // Searches the nearest lower and upper timestamp value.
-        timestamps.forEach(
-                timestamp -> {
-                    if (timestamp <= target && timestamp > results[0]) {
-                        results[0] = timestamp;
-                    }
-                    if (timestamp >= target && timestamp < results[1]) {
-                        results[1] = timestamp;
-                    }
-                });
-        // Uses zero value to represent invalid searching result.
-        results[0] = results[0] == Long.MIN_VALUE ? 0 : results[0];
-        results[1] = results[1] == Long.MAX_VALUE ? 0 : results[1];
-        return results;
-    }
-
     static Map<Long, BatteryDiffData> getBatteryDiffDataMap(
             Context context,
             final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
@@ -527,7 +509,10 @@ public final class DataProcessor {
                     appUsagePeriodMap,
             final @NonNull Set<String> systemAppsPackageNames,
             final @NonNull Set<Integer> systemAppsUids) {
+        final long startTime = System.currentTimeMillis();
         final Map<Long, BatteryDiffData> batteryDiffDataMap = new ArrayMap<>();
+        final BatteryHistoryStore batteryHistoryStore =
+                BatteryHistoryStore.create(batteryHistoryMap, EMPTY_BATTERY_HIST_ENTRY);
         final int currentUserId = context.getUserId();
         final UserHandle userHandle =
                 Utils.getManagedProfile(context.getSystemService(UserManager.class));
@@ -550,17 +535,14 @@ public final class DataProcessor {
                 final int endBatteryLevel =
                         hourlyBatteryLevelsPerDay.get(dailyIndex).getLevels().get(hourlyIndex + 1);
                 final long slotDuration = endTimestamp - startTimestamp;
-                List<Map<String, BatteryHistEntry>> slotBatteryHistoryList = new ArrayList<>();
-                slotBatteryHistoryList.add(
-                        batteryHistoryMap.getOrDefault(startTimestamp, EMPTY_BATTERY_MAP));
-                for (Long timestamp = TimestampUtils.getNextHourTimestamp(startTimestamp);
+                final List<Integer> slotRowList = new ArrayList<>();
+                slotRowList.add(batteryHistoryStore.indexOf(startTimestamp));
+                for (long timestamp = TimestampUtils.getNextHourTimestamp(startTimestamp);
                         timestamp < endTimestamp;
                         timestamp += DateUtils.HOUR_IN_MILLIS) {
-                    slotBatteryHistoryList.add(
-                            batteryHistoryMap.getOrDefault(timestamp, EMPTY_BATTERY_MAP));
+                    slotRowList.add(batteryHistoryStore.indexOf(timestamp));
                 }
-                slotBatteryHistoryList.add(
-                        batteryHistoryMap.getOrDefault(endTimestamp, EMPTY_BATTERY_MAP));
+                slotRowList.add(batteryHistoryStore.indexOf(endTimestamp));
 
                 final BatteryDiffData hourlyBatteryDiffData =
                         insertHourlyUsageDiffDataPerSlot(
@@ -578,10 +560,18 @@ public final class DataProcessor {
                                                 || appUsagePeriodMap.get(dailyIndex) == null
                                         ? null
                                         : appUsagePeriodMap.get(dailyIndex).get(hourlyIndex),
-                                slotBatteryHistoryList);
+                                batteryHistoryStore,
+                                slotRowList.stream().mapToInt(Integer::intValue).toArray());
                 batteryDiffDataMap.put(startTimestamp, hourlyBatteryDiffData);
             }
         }
+        Log.d(
+                TAG,
+                String.format(
+                        "getBatteryDiffDataMap() size=%d keys=%d in %d/ms",
+                        batteryDiffDataMap.size(),
+                        batteryHistoryStore.getKeyCount(),
+                        (System.currentTimeMillis() - startTime)));
         return batteryDiffDataMap;
     }
 
@@ -1121,11 +1111,11 @@ public final class DataProcessor {
      */
     private static void interpolateHistory(
             Context context,
-            final List<Long> rawTimestampList,
+            final long[] rawTimestamps,
             final List<Long> expectedTimestampSlots,
             final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
             final Map<Long, Map<String, BatteryHistEntry>> resultMap) {
-        if (rawTimestampList.isEmpty() || expectedTimestampSlots.isEmpty()) {
+        if (rawTimestamps.length == 0 || expectedTimestampSlots.isEmpty()) {
             return;
         }
         final int expectedTimestampSlotsSize = expectedTimestampSlots.size();
@@ -1137,7 +1127,7 @@ public final class DataProcessor {
             interpolateHistoryForSlot(
                     context,
                     expectedTimestampSlots.get(index),
-                    rawTimestampList,
+                    rawTimestamps,
                     batteryHistoryMap,
                     resultMap);
         }
@@ -1149,10 +1139,11 @@ public final class DataProcessor {
     private static void interpolateHistoryForSlot(
             Context context,
             final long currentSlot,
-            final List<Long> rawTimestampList,
+            final long[] rawTimestamps,
             final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
             final Map<Long, Map<String, BatteryHistEntry>> resultMap) {
-        final long[] nearestTimestamps = findNearestTimestamp(rawTimestampList, currentSlot);
+        final long[] nearestTimestamps =
+                BatteryHistoryStore.findNearestTimestamp(rawTimestamps, currentSlot);
         final long lowerTimestamp = nearestTimestamps[0];
         final long upperTimestamp = nearestTimestamps[1];
         // Case 1: upper timestamp is zero since scheduler is delayed!
@@ -1337,7 +1328,8 @@ public final class DataProcessor {
             final Set<String> systemAppsPackageNames,
             final Set<Integer> systemAppsUids,
             final Map<Long, Map<String, List<AppUsagePeriod>>> appUsageMap,
-            final List<Map<String, BatteryHistEntry>> slotBatteryHistoryList) {
+            final BatteryHistoryStore batteryHistoryStore,
+            final int[] slotRows) {
         long slotScreenOnTime = 0L;
         if (appUsageMap != null) {
             final List<AppUsagePeriod> flatAppUsagePeriodList = new ArrayList<>();
@@ -1360,10 +1352,8 @@ public final class DataProcessor {
         final List<BatteryDiffEntry> appEntries = new ArrayList<>();
         final List<BatteryDiffEntry> systemEntries = new ArrayList<>();
 
-        // Collects all keys in these three time slot records as all populations.
-        final Set<String> allBatteryHistEntryKeys = new ArraySet<>();
-        for (Map<String, BatteryHistEntry> slotBatteryHistMap : slotBatteryHistoryList) {
-            if (slotBatteryHistMap.isEmpty()) {
+        for (int slotRow : slotRows) {
+            if (slotRow < 0 || !batteryHistoryStore.hasEntries(slotRow)) {
                 // We should not get the empty list since we have at least one fake data to record
                 // the battery level and status in each time slot, the empty list is used to
                 // represent there is no enough data to apply interpolation arithmetic.
@@ -1380,23 +1370,17 @@ public final class DataProcessor {
                         systemAppsUids,
                         /* isAccumulated= */ false);
             }
-            allBatteryHistEntryKeys.addAll(slotBatteryHistMap.keySet());
         }
 
-        // Calculates all packages diff usage data in a specific time slot.
-        for (String key : allBatteryHistEntryKeys) {
-            if (key == null) {
-                continue;
-            }
-
+        // Calculates all packages diff usage data in a specific time slot. Keys without any entry
+        // in the slot records are skipped, the missing entries of other keys count as zero.
+        for (int keyId = 0; keyId < batteryHistoryStore.getKeyCount(); keyId++) {
             BatteryHistEntry selectedBatteryEntry = null;
-            final List<BatteryHistEntry> batteryHistEntries = new ArrayList<>();
-            for (Map<String, BatteryHistEntry> slotBatteryHistMap : slotBatteryHistoryList) {
-                BatteryHistEntry entry =
-                        slotBatteryHistMap.getOrDefault(key, EMPTY_BATTERY_HIST_ENTRY);
-                batteryHistEntries.add(entry);
-                if (selectedBatteryEntry == null && entry != EMPTY_BATTERY_HIST_ENTRY) {
-                    selectedBatteryEntry = entry;
+            for (int slotRow : slotRows) {
+                selectedBatteryEntry =
+                        batteryHistoryStore.getEntry(batteryHistoryStore.getCell(slotRow, keyId));
+                if (selectedBatteryEntry != null) {
+                    break;
                 }
             }
             if (selectedBatteryEntry == null) {
@@ -1420,38 +1404,43 @@ public final class DataProcessor {
             double foregroundServiceUsageConsumePower = 0;
             double backgroundUsageConsumePower = 0;
             double cachedUsageConsumePower = 0;
-            for (int i = 0; i < batteryHistEntries.size() - 1; i++) {
-                final BatteryHistEntry currentEntry = batteryHistEntries.get(i);
-                final BatteryHistEntry nextEntry = batteryHistEntries.get(i + 1);
+            for (int i = 0; i < slotRows.length - 1; i++) {
+                final int currentCell = batteryHistoryStore.getCell(slotRows[i], keyId);
+                final int nextCell = batteryHistoryStore.getCell(slotRows[i + 1], keyId);
                 foregroundUsageTimeInMs +=
                         getDiffValue(
-                                currentEntry.mForegroundUsageTimeInMs,
-                                nextEntry.mForegroundUsageTimeInMs);
+                                batteryHistoryStore.getForegroundUsageTimeInMs(currentCell),
+                                batteryHistoryStore.getForegroundUsageTimeInMs(nextCell));
                 foregroundServiceUsageTimeInMs +=
                         getDiffValue(
-                                currentEntry.mForegroundServiceUsageTimeInMs,
-                                nextEntry.mForegroundServiceUsageTimeInMs);
+                                batteryHistoryStore.getForegroundServiceUsageTimeInMs(currentCell),
+                                batteryHistoryStore.getForegroundServiceUsageTimeInMs(nextCell));
                 backgroundUsageTimeInMs +=
                         getDiffValue(
-                                currentEntry.mBackgroundUsageTimeInMs,
-                                nextEntry.mBackgroundUsageTimeInMs);
-                consumePower += getDiffValue(currentEntry.mConsumePower, nextEntry.mConsumePower);
+                                batteryHistoryStore.getBackgroundUsageTimeInMs(currentCell),
+                                batteryHistoryStore.getBackgroundUsageTimeInMs(nextCell));
+                consumePower +=
+                        getDiffValue(
+                                batteryHistoryStore.getConsumePower(currentCell),
+                                batteryHistoryStore.getConsumePower(nextCell));
                 foregroundUsageConsumePower +=
                         getDiffValue(
-                                currentEntry.mForegroundUsageConsumePower,
-                                nextEntry.mForegroundUsageConsumePower);
+                                batteryHistoryStore.getForegroundUsageConsumePower(currentCell),
+                                batteryHistoryStore.getForegroundUsageConsumePower(nextCell));
                 foregroundServiceUsageConsumePower +=
                         getDiffValue(
-                                currentEntry.mForegroundServiceUsageConsumePower,
-                                nextEntry.mForegroundServiceUsageConsumePower);
+                                batteryHistoryStore.getForegroundServiceUsageConsumePower(
+                                        currentCell),
+                                batteryHistoryStore.getForegroundServiceUsageConsumePower(
+                                        nextCell));
                 backgroundUsageConsumePower +=
                         getDiffValue(
-                                currentEntry.mBackgroundUsageConsumePower,
-                                nextEntry.mBackgroundUsageConsumePower);
+                                batteryHistoryStore.getBackgroundUsageConsumePower(currentCell),
+                                batteryHistoryStore.getBackgroundUsageConsumePower(nextCell));
                 cachedUsageConsumePower +=
                         getDiffValue(
-                                currentEntry.mCachedUsageConsumePower,
-                                nextEntry.mCachedUsageConsumePower);
+                                batteryHistoryStore.getCachedUsageConsumePower(currentCell),
+                                batteryHistoryStore.getCachedUsageConsumePower(nextCell));
             }
             // Forces refine the cumulative value since it may introduce deviation error since we
             // will apply the interpolation arithmetic.
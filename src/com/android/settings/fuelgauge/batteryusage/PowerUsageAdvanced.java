@@ -23,6 +23,7 @@ import android.database.ContentObserver;
 import android.net.Uri;
 import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.os.Handler;
 import android.os.Looper;
 import android.provider.SearchIndexableResource;
@@ -70,6 +71,8 @@ public class PowerUsageAdvanced extends PowerUsageBase {
     private boolean mIsChartDataLoaded = false;
     private long mResumeTimestamp;
     private Map<Integer, Map<Integer, BatteryDiffData>> mBatteryUsageMap;
+    // Cancels the pipeline of the previous loading which is superseded or not needed anymore.
+    @VisibleForTesting CancellationSignal mBatteryLevelDataCancellationSignal;
 
     private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
     private final Handler mHandler = new Handler(Looper.getMainLooper());
@@ -104,6 +107,7 @@ public class PowerUsageAdvanced extends PowerUsageBase {
         if (getActivity().isChangingConfigurations()) {
             BatteryEntry.clearUidCache();
         }
+        cancelBatteryLevelDataLoading();
         mExecutor.shutdown();
     }
 
@@ -479,10 +483,20 @@ public class PowerUsageAdvanced extends PowerUsageBase {
                 }
             };
 
+    private void cancelBatteryLevelDataLoading() {
+        if (mBatteryLevelDataCancellationSignal != null) {
+            mBatteryLevelDataCancellationSignal.cancel();
+            mBatteryLevelDataCancellationSignal = null;
+        }
+    }
+
     private class BatteryLevelDataLoaderCallbacks
             implements LoaderManager.LoaderCallbacks<BatteryLevelData> {
         @Override
         public Loader<BatteryLevelData> onCreateLoader(int id, Bundle bundle) {
+            cancelBatteryLevelDataLoading();
+            final CancellationSignal cancellationSignal = new CancellationSignal();
+            mBatteryLevelDataCancellationSignal = cancellationSignal;
             return new AsyncLoaderCompat<BatteryLevelData>(getContext().getApplicationContext()) {
                 @Override
                 protected void onDiscardResult(BatteryLevelData result) {}
@@ -493,7 +507,8 @@ public class PowerUsageAdvanced extends PowerUsageBase {
                             getContext(),
                             mHandler,
                             /* isFromPeriodJob= */ false,
-                            PowerUsageAdvanced.this::onBatteryDiffDataMapUpdate);
+                            PowerUsageAdvanced.this::onBatteryDiffDataMapUpdate,
+                            cancellationSignal);
                 }
             };
         }
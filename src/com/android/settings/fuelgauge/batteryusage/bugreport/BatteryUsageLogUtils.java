@@ -36,14 +36,38 @@ public final class BatteryUsageLogUtils {
     private static final String TAG = "BatteryUsageLogUtils";
     private static final String BATTERY_USAGE_FILE_NAME = "battery_usage_historical_logs";
     private static final String LOGS_KEY = "battery_usage_logs_key";
+    private static final String PROCESS_LOGS_KEY = "battery_usage_process_logs_key";
 
     // 24 hours x 4 events every hour x 3 days
     static final int MAX_ENTRIES = 288;
+    // Kept apart from the periodic job events, which shouldn't be pruned by page loads.
+    static final int MAX_PROCESS_ENTRIES = 30;
 
     private BatteryUsageLogUtils() {}
 
     /** Write the log into the {@link SharedPreferences}. */
     public static void writeLog(Context context, Action action, String actionDescription) {
+        writeLog(context, LOGS_KEY, MAX_ENTRIES, action, actionDescription);
+    }
+
+    /** Write the stage latencies of processing battery usage data into the process log. */
+    public static void writeProcessLog(Context context, String actionDescription) {
+        writeLog(
+                context,
+                PROCESS_LOGS_KEY,
+                MAX_PROCESS_ENTRIES,
+                Action.PROCESS_USAGE_DATA,
+                actionDescription);
+    }
+
+    // Synchronized since the pipeline stages and the periodic job write from several threads, and
+    // each write reads, modifies and stores the whole log.
+    private static synchronized void writeLog(
+            Context context,
+            String logsKey,
+            int maxEntries,
+            Action action,
+            String actionDescription) {
         final SharedPreferences sharedPreferences = getSharedPreferences(context);
         final BatteryUsageHistoricalLogEntry newLogEntry =
                 BatteryUsageHistoricalLogEntry.newBuilder()
@@ -53,23 +77,32 @@ public final class BatteryUsageLogUtils {
                         .build();
 
         final BatteryUsageHistoricalLog existingLog =
-                parseLogFromString(sharedPreferences.getString(LOGS_KEY, ""));
+                parseLogFromString(sharedPreferences.getString(logsKey, ""));
         final BatteryUsageHistoricalLog.Builder newLogBuilder = existingLog.toBuilder();
         // Prune old entries to limit the max logging data count.
-        if (existingLog.getLogEntryCount() >= MAX_ENTRIES) {
+        if (existingLog.getLogEntryCount() >= maxEntries) {
             newLogBuilder.removeLogEntry(0);
         }
         newLogBuilder.addLogEntry(newLogEntry);
 
         final String loggingContent =
                 Base64.encodeToString(newLogBuilder.build().toByteArray(), Base64.DEFAULT);
-        sharedPreferences.edit().putString(LOGS_KEY, loggingContent).apply();
+        sharedPreferences.edit().putString(logsKey, loggingContent).apply();
     }
 
     /** Prints the historical log that has previously been stored by this utility. */
     public static void printHistoricalLog(Context context, PrintWriter writer) {
+        printLog(context, LOGS_KEY, writer);
+    }
+
+    /** Prints the process log that has previously been stored by this utility. */
+    public static void printProcessLog(Context context, PrintWriter writer) {
+        printLog(context, PROCESS_LOGS_KEY, writer);
+    }
+
+    private static void printLog(Context context, String logsKey, PrintWriter writer) {
         final BatteryUsageHistoricalLog existingLog =
-                parseLogFromString(getSharedPreferences(context).getString(LOGS_KEY, ""));
+                parseLogFromString(getSharedPreferences(context).getString(logsKey, ""));
         final List<BatteryUsageHistoricalLogEntry> logEntryList = existingLog.getLogEntryList();
         if (logEntryList.isEmpty()) {
             writer.println("\tnothing to dump");
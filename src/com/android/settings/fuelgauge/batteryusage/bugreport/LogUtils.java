@@ -52,6 +52,11 @@ public final class LogUtils {
         BatteryUsageLogUtils.printHistoricalLog(context, writer);
         writer.flush();
 
+        // Dumps stage latencies of processing battery usage data.
+        writer.println("\nBattery UsageData Process History:");
+        BatteryUsageLogUtils.printProcessLog(context, writer);
+        writer.flush();
+
         // Dumps phenotype environments.
         DatabaseUtils.dump(context, writer);
         writer.flush();
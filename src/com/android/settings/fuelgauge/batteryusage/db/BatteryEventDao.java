@@ -32,6 +32,10 @@ public interface BatteryEventDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insert(BatteryEventEntity event);
 
+    /** Inserts {@link BatteryEventEntity} data into the database. */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<BatteryEventEntity> events);
+
     /** Gets all recorded data. */
     @Query("SELECT * FROM BatteryEventEntity ORDER BY timestamp DESC")
     List<BatteryEventEntity> getAll();
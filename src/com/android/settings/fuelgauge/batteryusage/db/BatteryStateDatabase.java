@@ -16,12 +16,22 @@
 
 package com.android.settings.fuelgauge.batteryusage.db;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.android.settings.fuelgauge.batteryusage.ConvertUtils;
 
 /** A {@link RoomDatabase} for battery usage states history. */
 @Database(
@@ -31,13 +41,61 @@ import androidx.room.RoomDatabase;
             BatteryState.class,
             BatteryUsageSlotEntity.class
         },
-        version = 1,
+        version = 2,
         exportSchema = false)
 public abstract class BatteryStateDatabase extends RoomDatabase {
     private static final String TAG = "BatteryStateDatabase";
 
     private static BatteryStateDatabase sBatteryStateDatabase;
 
+    /**
+     * Migrates the battery information of {@link BatteryState} from a Base64 encoded string into
+     * a BLOB column holding the serialized proto.
+     */
+    @VisibleForTesting
+    static final Migration MIGRATION_1_2 =
+            new Migration(1, 2) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase database) {
+                    final long timestamp = System.currentTimeMillis();
+                    database.execSQL(
+                            "CREATE TABLE `BatteryState_new` ("
+                                    + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,"
+                                    + " `uid` INTEGER NOT NULL,"
+                                    + " `userId` INTEGER NOT NULL,"
+                                    + " `packageName` TEXT,"
+                                    + " `timestamp` INTEGER NOT NULL,"
+                                    + " `consumerType` INTEGER NOT NULL,"
+                                    + " `isFullChargeCycleStart` INTEGER NOT NULL,"
+                                    + " `batteryInformation` BLOB,"
+                                    + " `batteryInformationDebug` TEXT)");
+                    // SQLite cannot decode Base64, so rows are converted one by one.
+                    int size = 0;
+                    try (Cursor cursor = database.query("SELECT * FROM `BatteryState`")) {
+                        while (cursor.moveToNext()) {
+                            final ContentValues values = new ContentValues();
+                            DatabaseUtils.cursorRowToContentValues(cursor, values);
+                            values.put(
+                                    "batteryInformation",
+                                    ConvertUtils.getBatteryInformationBytes(
+                                            values, "batteryInformation"));
+                            database.insert(
+                                    "BatteryState_new",
+                                    SQLiteDatabase.CONFLICT_REPLACE,
+                                    values);
+                            size++;
+                        }
+                    }
+                    database.execSQL("DROP TABLE `BatteryState`");
+                    database.execSQL("ALTER TABLE `BatteryState_new` RENAME TO `BatteryState`");
+                    Log.d(
+                            TAG,
+                            String.format(
+                                    "migrate battery states size=%d in %d/ms",
+                                    size, System.currentTimeMillis() - timestamp));
+                }
+            };
+
     /** Provides DAO for app usage event table. */
     public abstract AppUsageEventDao appUsageEventDao();
 
@@ -57,6 +115,7 @@ public abstract class BatteryStateDatabase extends RoomDatabase {
                     Room.databaseBuilder(context, BatteryStateDatabase.class, "battery-usage-db-v9")
                             // Allows accessing data in the main thread for dumping bugreport.
                             .allowMainThreadQueries()
+                            .addMigrations(MIGRATION_1_2)
                             .fallbackToDestructiveMigration()
                             .build();
             Log.d(TAG, "initialize battery states database");
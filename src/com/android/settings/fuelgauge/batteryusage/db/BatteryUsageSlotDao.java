@@ -32,14 +32,21 @@ public interface BatteryUsageSlotDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insert(BatteryUsageSlotEntity event);
 
+    /** Inserts {@link BatteryUsageSlotEntity} data into the database. */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<BatteryUsageSlotEntity> events);
+
     /** Gets all recorded data. */
     @Query("SELECT * FROM BatteryUsageSlotEntity ORDER BY timestamp ASC")
     List<BatteryUsageSlotEntity> getAll();
 
-    /** Gets the {@link Cursor} of all recorded data after a specific timestamp. */
+    /**
+     * Gets the {@link Cursor} of all recorded data after a specific timestamp. Slots with the same
+     * timestamp are ordered by insertion, so the latest recomputed slot comes last.
+     */
     @Query(
             "SELECT * FROM BatteryUsageSlotEntity WHERE timestamp >= :timestamp"
-                    + " ORDER BY timestamp ASC")
+                    + " ORDER BY timestamp ASC, mId ASC")
     Cursor getAllAfter(long timestamp);
 
     /** Gets all recorded data after a specific timestamp for log.*/
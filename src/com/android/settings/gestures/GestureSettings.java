@@ -58,6 +58,13 @@ public class GestureSettings extends DashboardFragment {
         use(ScreenOffUdfpsPreferenceController.class).setConfig(getConfig(context));
     }
 
+    @Override
+    protected boolean shouldPrecomputeAvailability() {
+        // The availability depends on resources, sensors, system properties and the navigation
+        // bar, except for the prevent ringing gesture which declares its settings.
+        return true;
+    }
+
     private AmbientDisplayConfiguration getConfig(Context context) {
         if (mAmbientDisplayConfig == null) {
             mAmbientDisplayConfig = new AmbientDisplayConfiguration(context);
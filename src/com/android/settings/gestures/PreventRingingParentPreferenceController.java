@@ -168,6 +168,13 @@ public class PreventRingingParentPreferenceController extends TogglePreferenceCo
      * This handles the condition when long press on power for Assistant changes power + volume
      * chord to power menu and this setting needs to be disabled.
      */
+    @Override
+    public StateDependencies getStateDependencies() {
+        return new StateDependencies()
+                .addUri(Settings.Secure.getUriFor(Settings.Secure.VOLUME_HUSH_GESTURE))
+                .addUri(Settings.Global.getUriFor(Settings.Global.KEY_CHORD_POWER_VOLUME_UP));
+    }
+
     private boolean isVolumePowerKeyChordSetToHush() {
         return Settings.Global.getInt(mContext.getContentResolver(),
                 Settings.Global.KEY_CHORD_POWER_VOLUME_UP,
@@ -59,6 +59,12 @@ public class SwipeToNotificationSettings extends DashboardFragment {
         return R.xml.swipe_to_notification_settings;
     }
 
+    @Override
+    protected boolean shouldPrecomputeAvailability() {
+        // The availability only depends on the fingerprint hardware and resources.
+        return true;
+    }
+
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider(R.xml.swipe_to_notification_settings) {
 
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.slice.Slice;
+
+import java.util.Map;
+
+/**
+ * A short-lived cache of the slices bound by {@link EligibleCardChecker}, keyed by slice uri.
+ *
+ * <p>Reopening the homepage, or reloading cards shortly after, reuses the recent bind results
+ * instead of binding every slice again. The cache is invalidated whenever the card provider
+ * notifies a change.
+ */
+public class CardEligibilityCache {
+
+    @VisibleForTesting
+    static final long EXPIRATION_MS = 15_000L;
+
+    private static CardEligibilityCache sInstance;
+
+    private final Map<Uri, Result> mResults = new ArrayMap<>();
+
+    /**
+     * A slice bind result. The slice is null if the bind failed.
+     */
+    static class Result {
+        @Nullable
+        final Slice mSlice;
+        final long mBindTime;
+
+        Result(@Nullable Slice slice, long bindTime) {
+            mSlice = slice;
+            mBindTime = bindTime;
+        }
+    }
+
+    public static synchronized CardEligibilityCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new CardEligibilityCache();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    CardEligibilityCache() {
+    }
+
+    /**
+     * @return the result of the last bind of {@param uri}, or null if it is unknown or expired.
+     */
+    @Nullable
+    synchronized Result get(Uri uri) {
+        final Result result = mResults.get(uri);
+        if (result == null) {
+            return null;
+        }
+        if (SystemClock.elapsedRealtime() - result.mBindTime > EXPIRATION_MS) {
+            mResults.remove(uri);
+            return null;
+        }
+        return result;
+    }
+
+    synchronized void put(Uri uri, @Nullable Slice slice) {
+        mResults.put(uri, new Result(slice, SystemClock.elapsedRealtime()));
+    }
+
+    /**
+     * Drops all results, cards have to be bound again on the next load.
+     */
+    public synchronized void invalidate() {
+        mResults.clear();
+    }
+}
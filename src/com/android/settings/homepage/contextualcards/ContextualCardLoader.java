@@ -30,6 +30,7 @@ import android.provider.Settings;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
@@ -40,10 +41,15 @@ import com.android.settingslib.utils.AsyncLoaderCompat;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>> {
@@ -55,12 +61,20 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
     static final int CARD_CONTENT_LOADER_ID = 1;
 
     private static final String TAG = "ContextualCardLoader";
-    private static final long ELIGIBILITY_CHECKER_TIMEOUT_MS = 400;
+    @VisibleForTesting
+    static final long ELIGIBILITY_CHECKER_TIMEOUT_MS = 400;
+    private static final int MAX_ELIGIBILITY_CHECKER_THREADS = 6;
+    private static final long ELIGIBILITY_CHECKER_KEEP_ALIVE_SECONDS = 10L;
+
+    // Shared by all loaders, its threads go away once the homepage stops loading cards.
+    private static final ThreadPoolExecutor sEligibilityExecutor = createEligibilityExecutor();
 
     private final ContentObserver mObserver = new ContentObserver(
             new Handler(Looper.getMainLooper())) {
         @Override
         public void onChange(boolean selfChange, Uri uri) {
+            // Cards were refreshed or dismissed, their slices have to be checked again.
+            CardEligibilityCache.getInstance().invalidate();
             if (isStarted()) {
                 mNotifyUri = uri;
                 forceLoad();
@@ -187,46 +201,110 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
             return candidates;
         }
 
-        final ExecutorService executor = Executors.newFixedThreadPool(candidates.size());
-        final List<ContextualCard> cards = new ArrayList<>();
-        List<Future<ContextualCard>> eligibleCards = new ArrayList<>();
-
-        final List<EligibleCardChecker> checkers = candidates.stream()
-                .map(card -> new EligibleCardChecker(mContext, card))
+        final List<EligibilityCheck> checks = candidates.stream()
+                .map(card -> new EligibilityCheck(new EligibleCardChecker(mContext, card), card))
                 .collect(Collectors.toList());
-        try {
-            eligibleCards = executor.invokeAll(checkers, ELIGIBILITY_CHECKER_TIMEOUT_MS,
-                    TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.w(TAG, "Failed to get eligible states for all cards", e);
+        for (EligibilityCheck check : checks) {
+            check.submit(sEligibilityExecutor);
         }
-        executor.shutdown();
-
-        // Collect future and eligible cards
-        for (int i = 0; i < eligibleCards.size(); i++) {
-            final Future<ContextualCard> cardFuture = eligibleCards.get(i);
-            if (cardFuture.isCancelled()) {
-                Log.w(TAG, "Timeout getting eligible state for card: "
-                        + candidates.get(i).getSliceUri());
-                continue;
-            }
+        // Checks queued behind the ones running start once those finish or time out.
+        final int rounds = (checks.size() + MAX_ELIGIBILITY_CHECKER_THREADS - 1)
+                / MAX_ELIGIBILITY_CHECKER_THREADS;
+        final long startDeadlineNanos = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(rounds * ELIGIBILITY_CHECKER_TIMEOUT_MS);
 
-            try {
-                final ContextualCard card = cardFuture.get();
+        // Collect eligible cards
+        final List<ContextualCard> cards = new ArrayList<>();
+        try {
+            for (EligibilityCheck check : checks) {
+                final ContextualCard card = check.get(startDeadlineNanos);
                 if (card != null) {
                     cards.add(card);
                 }
-            } catch (Exception e) {
-                Log.w(TAG, "Failed to get eligible state for card", e);
             }
+        } catch (InterruptedException e) {
+            Log.w(TAG, "Failed to get eligible states for all cards", e);
+            checks.forEach(EligibilityCheck::cancel);
         }
         return cards;
     }
 
+    private static ThreadPoolExecutor createEligibilityExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_ELIGIBILITY_CHECKER_THREADS, MAX_ELIGIBILITY_CHECKER_THREADS,
+                ELIGIBILITY_CHECKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, TAG));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     private boolean isLargeCard(ContextualCard card) {
         return card.getSliceUri().equals(BLUETOOTH_DEVICES_SLICE_URI);
     }
 
+    /**
+     * Checks whether a card is eligible. Its timeout starts once the check is running, so the
+     * time spent waiting for a free thread doesn't count against it.
+     */
+    @VisibleForTesting
+    static class EligibilityCheck implements Callable<ContextualCard> {
+        private final Callable<ContextualCard> mChecker;
+        private final ContextualCard mCard;
+        private final CountDownLatch mStarted = new CountDownLatch(1);
+        private volatile long mStartNanos;
+        private Future<ContextualCard> mFuture;
+
+        EligibilityCheck(Callable<ContextualCard> checker, ContextualCard card) {
+            mChecker = checker;
+            mCard = card;
+        }
+
+        @Override
+        public ContextualCard call() throws Exception {
+            mStartNanos = System.nanoTime();
+            mStarted.countDown();
+            return mChecker.call();
+        }
+
+        void submit(ExecutorService executor) {
+            mFuture = executor.submit(this);
+        }
+
+        /**
+         * Waits for the check, cancelling it if it doesn't start before {@code startDeadlineNanos}
+         * or doesn't finish within {@link #ELIGIBILITY_CHECKER_TIMEOUT_MS} once started.
+         *
+         * @return the card if it's eligible, or null
+         */
+        @Nullable
+        ContextualCard get(long startDeadlineNanos) throws InterruptedException {
+            try {
+                if (!mStarted.await(startDeadlineNanos - System.nanoTime(),
+                        TimeUnit.NANOSECONDS)) {
+                    Log.w(TAG, "Timeout waiting to check eligible state for card: "
+                            + mCard.getSliceUri());
+                    return null;
+                }
+                final long remainingNanos = mStartNanos
+                        + TimeUnit.MILLISECONDS.toNanos(ELIGIBILITY_CHECKER_TIMEOUT_MS)
+                        - System.nanoTime();
+                return mFuture.get(remainingNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                Log.w(TAG, "Timeout getting eligible state for card: " + mCard.getSliceUri());
+                return null;
+            } catch (ExecutionException e) {
+                Log.w(TAG, "Failed to get eligible state for card", e);
+                return null;
+            } finally {
+                cancel();
+            }
+        }
+
+        void cancel() {
+            mFuture.cancel(true /* mayInterruptIfRunning */);
+        }
+    }
+
     public interface CardContentLoaderListener {
         void onFinishCardLoading(List<ContextualCard> contextualCards);
     }
@@ -43,13 +43,20 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
     private static final String TAG = "EligibleCardChecker";
 
     private final Context mContext;
+    private final CardEligibilityCache mCache;
 
     @VisibleForTesting
     ContextualCard mCard;
 
     EligibleCardChecker(Context context, ContextualCard card) {
+        this(context, card, CardEligibilityCache.getInstance());
+    }
+
+    @VisibleForTesting
+    EligibleCardChecker(Context context, ContextualCard card, CardEligibilityCache cache) {
         mContext = context;
         mCard = card;
+        mCache = cache;
     }
 
     @Override
@@ -93,7 +100,7 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
             return false;
         }
 
-        final Slice slice = bindSlice(uri);
+        final Slice slice = getSlice(uri);
 
         if (slice == null || slice.hasHint(HINT_ERROR)) {
             Log.w(TAG, "Failed to bind slice, not eligible for display " + uri);
@@ -109,6 +116,16 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
         return true;
     }
 
+    private Slice getSlice(Uri uri) {
+        final CardEligibilityCache.Result cachedResult = mCache.get(uri);
+        if (cachedResult != null) {
+            return cachedResult.mSlice;
+        }
+        final Slice slice = bindSlice(uri);
+        mCache.put(uri, slice);
+        return slice;
+    }
+
     @VisibleForTesting
     Slice bindSlice(Uri uri) {
         final SliceViewManager manager = SliceViewManager.getInstance(mContext);
@@ -33,11 +33,13 @@ import android.telephony.UiccCardInfo;
 import android.telephony.UiccPortInfo;
 import android.telephony.UiccSlotInfo;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.IndentingPrintWriter;
 import android.util.Log;
 
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.LifecycleOwner;
 
 import com.android.internal.telephony.flags.Flags;
@@ -57,9 +59,11 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptionsChangedListener {
@@ -67,7 +71,13 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     private static final String TAG = "MobileNetworkRepository";
     private static final boolean DEBUG = Log.isLoggable(TAG, Log.DEBUG);
 
-    private static ExecutorService sExecutor = Executors.newSingleThreadExecutor();
+    // Changes are reported in bursts, e.g. on SIM swap or boot. Updates requested within the
+    // delay are written together.
+    private static final long UPDATE_DEBOUNCE_MS = 100;
+
+    @VisibleForTesting
+    static ScheduledExecutorService sExecutor =
+            Executors.newSingleThreadScheduledExecutor();
     private static Map<Integer, SubscriptionInfoEntity> sCacheSubscriptionInfoEntityMap =
             new ArrayMap<>();
     private static Map<Integer, MobileNetworkInfoEntity> sCacheMobileNetworkInfoEntityMap =
@@ -104,6 +114,24 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     private Map<Integer, TelephonyManager> mTelephonyManagerMap = new HashMap<>();
     private Map<Integer, PhoneCallStateTelephonyCallback> mTelephonyCallbackMap = new HashMap<>();
 
+    private final Object mPendingUpdateLock = new Object();
+    @GuardedBy("mPendingUpdateLock")
+    private boolean mUpdateScheduled;
+    @GuardedBy("mPendingUpdateLock")
+    private boolean mPendingSubscriptionsUpdate;
+    @GuardedBy("mPendingUpdateLock")
+    private final Set<Integer> mPendingMobileNetworkInfoSubIds = new ArraySet<>();
+    @GuardedBy("mPendingUpdateLock")
+    private long mCoalescedUpdateCount;
+    @GuardedBy("mPendingUpdateLock")
+    private long mTransactionCount;
+    @GuardedBy("mPendingUpdateLock")
+    private long mCommittedWriteCount;
+    @GuardedBy("mPendingUpdateLock")
+    private long mSuppressedWriteCount;
+    @GuardedBy("mPendingUpdateLock")
+    private long mFailedTransactionCount;
+
     @NonNull
     public static MobileNetworkRepository getInstance(Context context) {
         synchronized (sInstanceLock) {
@@ -119,9 +147,16 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     }
 
     private MobileNetworkRepository(Context context) {
+        this(context, MobileNetworkDatabase.getInstance(context),
+                FeatureFactory.getFeatureFactory().getMetricsFeatureProvider());
+    }
+
+    @VisibleForTesting
+    MobileNetworkRepository(Context context, MobileNetworkDatabase mobileNetworkDatabase,
+            MetricsFeatureProvider metricsFeatureProvider) {
         mContext = context;
-        mMobileNetworkDatabase = MobileNetworkDatabase.getInstance(context);
-        mMetricsFeatureProvider = FeatureFactory.getFeatureFactory().getMetricsFeatureProvider();
+        mMobileNetworkDatabase = mobileNetworkDatabase;
+        mMetricsFeatureProvider = metricsFeatureProvider;
         mMetricsFeatureProvider.action(mContext, SettingsEnums.ACTION_MOBILE_NETWORK_DB_CREATED);
         mSubscriptionManager = context.getSystemService(SubscriptionManager.class);
         mSubscriptionInfoDao = mMobileNetworkDatabase.mSubscriptionInfoDao();
@@ -189,9 +224,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
             if (tm == null) {
                 return;
             }
-            sExecutor.execute(() -> {
-                insertMobileNetworkInfo(mContext, mRegSubId, tm);
-            });
+            requestMobileNetworkInfoUpdate(mRegSubId);
             boolean isDataRoamingEnabled = tm.isDataRoamingEnabled();
             for (MobileNetworkCallback callback : sCallbacks) {
                 callback.onDataRoamingChanged(mRegSubId, isDataRoamingEnabled);
@@ -235,10 +268,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         MobileDataContentObserver dataContentObserver = new MobileDataContentObserver(
                 new Handler(Looper.getMainLooper()));
         dataContentObserver.setOnMobileDataChangedListener(() -> {
-            sExecutor.execute(() -> {
-                insertMobileNetworkInfo(mContext, subId,
-                        getTelephonyManagerBySubId(mContext, subId));
-            });
+            requestMobileNetworkInfoUpdate(subId);
         });
         dataContentObserver.register(mContext, subId);
         mDataContentObserverMap.put(subId, dataContentObserver);
@@ -322,9 +352,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     public void updateEntity() {
         // Check the latest state after back to the UI.
         if (sCacheSubscriptionInfoEntityMap != null || !sCacheSubscriptionInfoEntityMap.isEmpty()) {
-            sExecutor.execute(() -> {
-                onSubscriptionsChanged();
-            });
+            requestSubscriptionsUpdate();
         }
 
         boolean isAirplaneModeOn = isAirplaneModeOn();
@@ -501,48 +529,43 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
                 SettingsEnums.ACTION_MOBILE_NETWORK_DB_NOTIFY_MOBILE_NETWORK_INFO_IS_CHANGED, 0);
     }
 
-    private void insertSubInfo(Context context, SubscriptionInfo info) {
+    private void insertSubInfo(Context context, SubscriptionInfo info, PendingWrites writes) {
         int subId = info.getSubscriptionId();
         createTelephonyManagerBySubId(subId);
         TelephonyManager telephonyManager = getTelephonyManagerBySubId(context, subId);
         SubscriptionInfoEntity subInfoEntity =
                 convertToSubscriptionInfoEntity(context, info, telephonyManager);
         if (subInfoEntity != null) {
-            if (!sCacheSubscriptionInfoEntityMap.containsKey(subId)
-                    || (sCacheSubscriptionInfoEntityMap.get(subId) != null
-                    && !sCacheSubscriptionInfoEntityMap.get(subId).equals(subInfoEntity))) {
-                sCacheSubscriptionInfoEntityMap.put(subId, subInfoEntity);
+            if (!writes.isUnchanged(writes.mSubInfos, sCacheSubscriptionInfoEntityMap, subId,
+                    subInfoEntity)) {
                 if (DEBUG) {
                     Log.d(TAG, "Convert subId " + subId + " to SubscriptionInfoEntity: "
                             + subInfoEntity);
                 }
-                mMobileNetworkDatabase.insertSubsInfo(subInfoEntity);
+                writes.mSubInfos.put(subInfoEntity.subId, subInfoEntity);
                 mMetricsFeatureProvider.action(mContext,
                         SettingsEnums.ACTION_MOBILE_NETWORK_DB_INSERT_SUB_INFO, subId);
-                insertUiccInfo(subId, telephonyManager);
-                insertMobileNetworkInfo(context, subId, telephonyManager);
+                insertUiccInfo(subId, telephonyManager, writes);
+                insertMobileNetworkInfo(context, subId, telephonyManager, writes);
+            } else {
+                writes.mSuppressedCount++;
             }
         } else if (DEBUG) {
             Log.d(TAG, "Can not insert subInfo, the entity is null");
         }
     }
 
-    private void deleteAllInfoBySubId(String subId) {
+    private void deleteAllInfoBySubId(String subId, PendingWrites writes) {
         if (DEBUG) {
             Log.d(TAG, "deleteAllInfoBySubId, subId = " + subId);
         }
-        mMobileNetworkDatabase.deleteSubInfoBySubId(subId);
-        mMobileNetworkDatabase.deleteUiccInfoBySubId(subId);
-        mMobileNetworkDatabase.deleteMobileNetworkInfoBySubId(subId);
+        writes.mDeletedSubIds.add(subId);
         mUiccInfoEntityList.removeIf(info -> info.subId.equals(subId));
         mMobileNetworkInfoEntityList.removeIf(info -> info.subId.equals(subId));
         int id = Integer.parseInt(subId);
         removerRegisterBySubId(id);
         mSubscriptionInfoMap.remove(id);
         mTelephonyManagerMap.remove(id);
-        sCacheSubscriptionInfoEntityMap.remove(id);
-        sCacheUiccInfoEntityMap.remove(id);
-        sCacheMobileNetworkInfoEntityMap.remove(id);
         mMetricsFeatureProvider.action(mContext,
                 SettingsEnums.ACTION_MOBILE_NETWORK_DB_DELETE_DATA, id);
     }
@@ -592,22 +615,24 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         }
     }
 
-    private void insertUiccInfo(int subId, TelephonyManager telephonyManager) {
+    private void insertUiccInfo(int subId, TelephonyManager telephonyManager,
+            PendingWrites writes) {
         UiccInfoEntity uiccInfoEntity = convertToUiccInfoEntity(subId, telephonyManager);
         if (DEBUG) {
             Log.d(TAG, "uiccInfoEntity = " + uiccInfoEntity);
         }
-        if (!sCacheUiccInfoEntityMap.containsKey(subId)
-                || !sCacheUiccInfoEntityMap.get(subId).equals(uiccInfoEntity)) {
-            sCacheUiccInfoEntityMap.put(subId, uiccInfoEntity);
-            mMobileNetworkDatabase.insertUiccInfo(uiccInfoEntity);
+        if (!writes.isUnchanged(writes.mUiccInfos, sCacheUiccInfoEntityMap, subId,
+                uiccInfoEntity)) {
+            writes.mUiccInfos.put(uiccInfoEntity.subId, uiccInfoEntity);
             mMetricsFeatureProvider.action(mContext,
                     SettingsEnums.ACTION_MOBILE_NETWORK_DB_INSERT_UICC_INFO, subId);
+        } else {
+            writes.mSuppressedCount++;
         }
     }
 
     private void insertMobileNetworkInfo(Context context, int subId,
-            TelephonyManager telephonyManager) {
+            TelephonyManager telephonyManager, PendingWrites writes) {
         MobileNetworkInfoEntity mobileNetworkInfoEntity = convertToMobileNetworkInfoEntity(context,
                 subId, telephonyManager);
 
@@ -620,16 +645,19 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
             return;
         }
 
-        if (!sCacheMobileNetworkInfoEntityMap.containsKey(subId)
-                || !sCacheMobileNetworkInfoEntityMap.get(subId).equals(mobileNetworkInfoEntity)) {
-            sCacheMobileNetworkInfoEntityMap.put(subId, mobileNetworkInfoEntity);
-            mMobileNetworkDatabase.insertMobileNetworkInfo(mobileNetworkInfoEntity);
+        if (!writes.isUnchanged(writes.mMobileNetworkInfos, sCacheMobileNetworkInfoEntityMap,
+                subId, mobileNetworkInfoEntity)) {
+            writes.mMobileNetworkInfos.put(mobileNetworkInfoEntity.subId,
+                    mobileNetworkInfoEntity);
             mMetricsFeatureProvider.action(mContext,
                     SettingsEnums.ACTION_MOBILE_NETWORK_DB_INSERT_MOBILE_NETWORK_INFO, subId);
+        } else {
+            writes.mSuppressedCount++;
         }
     }
 
-    private MobileNetworkInfoEntity convertToMobileNetworkInfoEntity(Context context, int subId,
+    @VisibleForTesting
+    MobileNetworkInfoEntity convertToMobileNetworkInfoEntity(Context context, int subId,
             TelephonyManager telephonyManager) {
         boolean isDataEnabled = false;
         boolean isDataRoamingEnabled = false;
@@ -684,78 +712,211 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
 
     @Override
     public void onSubscriptionsChanged() {
-        insertAvailableSubInfoToEntity(
-                SubscriptionUtil.getSelectableSubscriptionInfoList(mContext));
+        // The snapshots are otherwise invalidated on the main thread, possibly after the update
+        // reads them.
+        final SubscriptionSnapshotCache cache = SubscriptionSnapshotCache.getInstance();
+        if (cache != null) {
+            cache.invalidate();
+        }
+        requestSubscriptionsUpdate();
+    }
+
+    /** Requests to update all the available subscriptions, written with the pending updates. */
+    private void requestSubscriptionsUpdate() {
+        synchronized (mPendingUpdateLock) {
+            mPendingSubscriptionsUpdate = true;
+            scheduleUpdateLocked();
+        }
+    }
+
+    /** Requests to update the mobile network info of a subscription. */
+    @VisibleForTesting
+    void requestMobileNetworkInfoUpdate(int subId) {
+        synchronized (mPendingUpdateLock) {
+            mPendingMobileNetworkInfoSubIds.add(subId);
+            scheduleUpdateLocked();
+        }
     }
 
-    private void insertAvailableSubInfoToEntity(List<SubscriptionInfo> inputAvailableInfoList) {
-        sExecutor.execute(() -> {
-            SubscriptionInfoEntity[] availableInfoArray = null;
-            int availableEntitySize = 0;
-            synchronized (this) {
-                availableInfoArray = mAvailableSubInfoEntityList.toArray(
-                    new SubscriptionInfoEntity[0]);
-                availableEntitySize = mAvailableSubInfoEntityList.size();
+    @GuardedBy("mPendingUpdateLock")
+    private void scheduleUpdateLocked() {
+        if (mUpdateScheduled) {
+            mCoalescedUpdateCount++;
+            return;
+        }
+        mUpdateScheduled = true;
+        sExecutor.schedule(() -> {
+            // Nobody waits for the scheduled future, a failure would be dropped silently.
+            try {
+                updatePendingEntities();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to update the pending entities", e);
             }
-            if ((inputAvailableInfoList == null || inputAvailableInfoList.size() == 0)
-                    && availableEntitySize != 0) {
-                if (DEBUG) {
-                    Log.d(TAG, "availableSudInfoList from framework is empty, remove all subs");
-                }
+        }, UPDATE_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void updatePendingEntities() {
+        final boolean updateSubscriptions;
+        final Set<Integer> mobileNetworkInfoSubIds;
+        synchronized (mPendingUpdateLock) {
+            mUpdateScheduled = false;
+            updateSubscriptions = mPendingSubscriptionsUpdate;
+            mPendingSubscriptionsUpdate = false;
+            mobileNetworkInfoSubIds = new ArraySet<>(mPendingMobileNetworkInfoSubIds);
+            mPendingMobileNetworkInfoSubIds.clear();
+        }
 
-                for (SubscriptionInfoEntity info : availableInfoArray) {
-                    deleteAllInfoBySubId(info.subId);
+        final PendingWrites writes = new PendingWrites();
+        if (updateSubscriptions) {
+            insertAvailableSubInfoToEntity(
+                    SubscriptionUtil.getSelectableSubscriptionInfoList(mContext), writes);
+        }
+        for (int subId : mobileNetworkInfoSubIds) {
+            if (writes.mDeletedSubIds.contains(String.valueOf(subId))
+                    && !writes.mSubInfos.containsKey(String.valueOf(subId))) {
+                // The subscription was removed meanwhile.
+                continue;
+            }
+            insertMobileNetworkInfo(mContext, subId, getTelephonyManagerBySubId(mContext, subId),
+                    writes);
+        }
+
+        final int writeCount = writes.getWriteCount();
+        if (writeCount > 0) {
+            try {
+                // Observers of the database are notified once for all the rows.
+                mMobileNetworkDatabase.runInTransaction(
+                        () -> writes.writeTo(mMobileNetworkDatabase));
+            } catch (RuntimeException e) {
+                // The caches still hold the committed rows, so the next update writes them again.
+                Log.e(TAG, "Failed to write " + writeCount + " rows", e);
+                synchronized (mPendingUpdateLock) {
+                    mFailedTransactionCount++;
                 }
+                return;
+            }
+            writes.updateCaches();
+        }
+        if (DEBUG) {
+            Log.d(TAG, "updatePendingEntities, writes = " + writeCount
+                    + ", suppressed = " + writes.mSuppressedCount);
+        }
+        synchronized (mPendingUpdateLock) {
+            mTransactionCount += writeCount > 0 ? 1 : 0;
+            mCommittedWriteCount += writeCount;
+            mSuppressedWriteCount += writes.mSuppressedCount;
+        }
+    }
 
-            } else if (inputAvailableInfoList != null) {
-                SubscriptionInfo[] inputAvailableInfoArray = inputAvailableInfoList.toArray(
-                        new SubscriptionInfo[0]);
-                // Remove the redundant subInfo
-                if (inputAvailableInfoList.size() <= availableEntitySize) {
-                    for (SubscriptionInfo subInfo : inputAvailableInfoArray) {
-                        int subId = subInfo.getSubscriptionId();
-                        if (mSubscriptionInfoMap.containsKey(subId)) {
-                            mSubscriptionInfoMap.remove(subId);
-                        }
+    @VisibleForTesting
+    long getTransactionCount() {
+        synchronized (mPendingUpdateLock) {
+            return mTransactionCount;
+        }
+    }
+
+    @VisibleForTesting
+    long getCommittedWriteCount() {
+        synchronized (mPendingUpdateLock) {
+            return mCommittedWriteCount;
+        }
+    }
+
+    @VisibleForTesting
+    long getSuppressedWriteCount() {
+        synchronized (mPendingUpdateLock) {
+            return mSuppressedWriteCount;
+        }
+    }
+
+    @VisibleForTesting
+    long getCoalescedUpdateCount() {
+        synchronized (mPendingUpdateLock) {
+            return mCoalescedUpdateCount;
+        }
+    }
+
+    @VisibleForTesting
+    long getFailedTransactionCount() {
+        synchronized (mPendingUpdateLock) {
+            return mFailedTransactionCount;
+        }
+    }
+
+    @VisibleForTesting
+    static void clearCachesForTesting() {
+        sCacheSubscriptionInfoEntityMap.clear();
+        sCacheUiccInfoEntityMap.clear();
+        sCacheMobileNetworkInfoEntityMap.clear();
+    }
+
+    private void insertAvailableSubInfoToEntity(List<SubscriptionInfo> inputAvailableInfoList,
+            PendingWrites writes) {
+        SubscriptionInfoEntity[] availableInfoArray = null;
+        int availableEntitySize = 0;
+        synchronized (this) {
+            availableInfoArray = mAvailableSubInfoEntityList.toArray(
+                new SubscriptionInfoEntity[0]);
+            availableEntitySize = mAvailableSubInfoEntityList.size();
+        }
+        if ((inputAvailableInfoList == null || inputAvailableInfoList.size() == 0)
+                && availableEntitySize != 0) {
+            if (DEBUG) {
+                Log.d(TAG, "availableSudInfoList from framework is empty, remove all subs");
+            }
+
+            for (SubscriptionInfoEntity info : availableInfoArray) {
+                deleteAllInfoBySubId(info.subId, writes);
+            }
+
+        } else if (inputAvailableInfoList != null) {
+            SubscriptionInfo[] inputAvailableInfoArray = inputAvailableInfoList.toArray(
+                    new SubscriptionInfo[0]);
+            // Remove the redundant subInfo
+            if (inputAvailableInfoList.size() <= availableEntitySize) {
+                for (SubscriptionInfo subInfo : inputAvailableInfoArray) {
+                    int subId = subInfo.getSubscriptionId();
+                    if (mSubscriptionInfoMap.containsKey(subId)) {
+                        mSubscriptionInfoMap.remove(subId);
                     }
+                }
 
-                    if (!mSubscriptionInfoMap.isEmpty()) {
-                        for (Integer key : mSubscriptionInfoMap.keySet()) {
-                            if (key != null) {
-                                deleteAllInfoBySubId(String.valueOf(key));
-                            }
+                if (!mSubscriptionInfoMap.isEmpty()) {
+                    for (Integer key : mSubscriptionInfoMap.keySet()) {
+                        if (key != null) {
+                            deleteAllInfoBySubId(String.valueOf(key), writes);
                         }
-                    } else if (inputAvailableInfoList.size() < availableEntitySize) {
-                        // Check the subInfo between the new list from framework and old list in
-                        // the database, if the subInfo is not existed in the new list, delete it
-                        // from the database.
-                        for (SubscriptionInfoEntity info : availableInfoArray) {
-                            if (sCacheSubscriptionInfoEntityMap.containsKey(info.getSubId())) {
-                                deleteAllInfoBySubId(info.subId);
-                            }
+                    }
+                } else if (inputAvailableInfoList.size() < availableEntitySize) {
+                    // Check the subInfo between the new list from framework and old list in
+                    // the database, if the subInfo is not existed in the new list, delete it
+                    // from the database.
+                    for (SubscriptionInfoEntity info : availableInfoArray) {
+                        if (sCacheSubscriptionInfoEntityMap.containsKey(info.getSubId())) {
+                            deleteAllInfoBySubId(info.subId, writes);
                         }
                     }
                 }
+            }
 
-                // Insert all new available subInfo to database.
-                for (SubscriptionInfo subInfo : inputAvailableInfoArray) {
+            // Insert all new available subInfo to database.
+            for (SubscriptionInfo subInfo : inputAvailableInfoArray) {
+                if (DEBUG) {
+                    Log.d(TAG, "insert subInfo to subInfoEntity, subInfo = " + subInfo);
+                }
+                if (subInfo.isEmbedded()
+                    && (subInfo.getProfileClass() == PROFILE_CLASS_PROVISIONING
+                        || (Flags.oemEnabledSatelliteFlag()
+                        && subInfo.isOnlyNonTerrestrialNetwork()))) {
                     if (DEBUG) {
-                        Log.d(TAG, "insert subInfo to subInfoEntity, subInfo = " + subInfo);
-                    }
-                    if (subInfo.isEmbedded()
-                        && (subInfo.getProfileClass() == PROFILE_CLASS_PROVISIONING
-                            || (Flags.oemEnabledSatelliteFlag()
-                            && subInfo.isOnlyNonTerrestrialNetwork()))) {
-                        if (DEBUG) {
-                            Log.d(TAG, "Do not insert the provisioning or satellite eSIM");
-                        }
-                        continue;
+                        Log.d(TAG, "Do not insert the provisioning or satellite eSIM");
                     }
-                    mSubscriptionInfoMap.put(subInfo.getSubscriptionId(), subInfo);
-                    insertSubInfo(mContext, subInfo);
+                    continue;
                 }
+                mSubscriptionInfoMap.put(subInfo.getSubscriptionId(), subInfo);
+                insertSubInfo(mContext, subInfo, writes);
             }
-        });
+        }
     }
 
     public boolean isAirplaneModeOn() {
@@ -774,6 +935,75 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         }
     }
 
+    /**
+     * The rows to write in one transaction, the deletions are written first. The caches of the
+     * written rows are only updated once the transaction is committed.
+     */
+    private static class PendingWrites {
+        final Set<String> mDeletedSubIds = new ArraySet<>();
+        final Map<String, SubscriptionInfoEntity> mSubInfos = new ArrayMap<>();
+        final Map<String, UiccInfoEntity> mUiccInfos = new ArrayMap<>();
+        final Map<String, MobileNetworkInfoEntity> mMobileNetworkInfos = new ArrayMap<>();
+        // The rows which were not written since they didn't change.
+        int mSuppressedCount;
+
+        int getWriteCount() {
+            return mDeletedSubIds.size() + mSubInfos.size() + mUiccInfos.size()
+                    + mMobileNetworkInfos.size();
+        }
+
+        /**
+         * @return whether {@param entity} matches the row pending for {@param subId}, or else the
+         * committed one, a deleted row having none.
+         */
+        <T> boolean isUnchanged(Map<String, T> pending, Map<Integer, T> cache, int subId,
+                T entity) {
+            final String key = String.valueOf(subId);
+            if (pending.containsKey(key)) {
+                return entity.equals(pending.get(key));
+            }
+            return !mDeletedSubIds.contains(key) && entity.equals(cache.get(subId));
+        }
+
+        void writeTo(MobileNetworkDatabase database) {
+            for (String subId : mDeletedSubIds) {
+                database.deleteSubInfoBySubId(subId);
+                database.deleteUiccInfoBySubId(subId);
+                database.deleteMobileNetworkInfoBySubId(subId);
+            }
+            for (SubscriptionInfoEntity subInfoEntity : mSubInfos.values()) {
+                database.insertSubsInfo(subInfoEntity);
+            }
+            for (UiccInfoEntity uiccInfoEntity : mUiccInfos.values()) {
+                database.insertUiccInfo(uiccInfoEntity);
+            }
+            for (MobileNetworkInfoEntity mobileNetworkInfoEntity : mMobileNetworkInfos.values()) {
+                database.insertMobileNetworkInfo(mobileNetworkInfoEntity);
+            }
+        }
+
+        void updateCaches() {
+            for (String subId : mDeletedSubIds) {
+                final int id = Integer.parseInt(subId);
+                sCacheSubscriptionInfoEntityMap.remove(id);
+                sCacheUiccInfoEntityMap.remove(id);
+                sCacheMobileNetworkInfoEntityMap.remove(id);
+            }
+            for (Map.Entry<String, SubscriptionInfoEntity> entry : mSubInfos.entrySet()) {
+                sCacheSubscriptionInfoEntityMap.put(Integer.parseInt(entry.getKey()),
+                        entry.getValue());
+            }
+            for (Map.Entry<String, UiccInfoEntity> entry : mUiccInfos.entrySet()) {
+                sCacheUiccInfoEntityMap.put(Integer.parseInt(entry.getKey()), entry.getValue());
+            }
+            for (Map.Entry<String, MobileNetworkInfoEntity> entry
+                    : mMobileNetworkInfos.entrySet()) {
+                sCacheMobileNetworkInfoEntityMap.put(Integer.parseInt(entry.getKey()),
+                        entry.getValue());
+            }
+        }
+    }
+
     /**
      * Callback for clients to get the latest info changes if the framework or content observers.
      * updates the relevant info.
@@ -814,6 +1044,13 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         printwriter.println(" uiccInfoEntityList= " + mUiccInfoEntityList);
         printwriter.println(" CacheSubscriptionInfoEntityMap= " + sCacheSubscriptionInfoEntityMap);
         printwriter.println(" SubscriptionInfoMap= " + mSubscriptionInfoMap);
+        synchronized (mPendingUpdateLock) {
+            printwriter.println(" coalescedUpdates= " + mCoalescedUpdateCount
+                    + " transactions= " + mTransactionCount
+                    + " committedWrites= " + mCommittedWriteCount
+                    + " suppressedWrites= " + mSuppressedWriteCount
+                    + " failedTransactions= " + mFailedTransactionCount);
+        }
         printwriter.flush();
         printwriter.decreaseIndent();
     }
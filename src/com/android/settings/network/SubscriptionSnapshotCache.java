@@ -0,0 +1,337 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.telephony.UiccSlotInfo;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A process-wide, immutable snapshot of the subscriptions and UICC slots, shared by the screens
+ * which query them through {@link SubscriptionUtil}.
+ *
+ * <p>There is one snapshot for each {@link SubscriptionManager} queried, since its view of the
+ * subscriptions can't be told from outside. The snapshots of the user-scoped view of
+ * {@link Context#getSystemService} and of the view of
+ * {@link SubscriptionManager#createForAllUserProfiles()} of the user of the process are shared by
+ * the screens querying them with a {@link Context}. Each list of a snapshot is loaded
+ * on its first query and kept until {@link ActiveSubscriptionsListener} reports a change, or the
+ * SIM slots or cards change, so the screens rendered in between don't query the subscription
+ * service again. The unique display names of the snapshots are kept along with them.
+ */
+public class SubscriptionSnapshotCache {
+
+    private static SubscriptionSnapshotCache sSingleton;
+
+    private final Context mContext;
+    private final int mUserId;
+    private final ActiveSubscriptionsListener mSubscriptionMonitor;
+    private final TelephonyManager mTelephonyManager;
+    // The UICC slots of the snapshots change without any subscription change.
+    private final BroadcastReceiver mSimSlotReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            invalidate();
+        }
+    };
+
+    private boolean mListening;
+    // Keyed by identity, SubscriptionManager doesn't override equals().
+    private final Map<SubscriptionManager, Snapshot> mSnapshots = new WeakHashMap<>();
+    private int mGeneration;
+    private Map<Integer, CharSequence> mDisplayNames;
+    private String mDisplayNamesSimCardLabel;
+
+    private long mHitCount;
+    private long mRebuildCount;
+    private long mInvalidationCount;
+    private long mBinderCallsMade;
+    private long mBinderCallsAvoided;
+    private long mDisplayNamesHitCount;
+
+    /**
+     * Enables the process-wide cache. Until then, {@link SubscriptionUtil} queries the
+     * subscription service directly.
+     */
+    public static synchronized void init(Context context) {
+        if (sSingleton == null) {
+            sSingleton = new SubscriptionSnapshotCache(context.getApplicationContext());
+        }
+    }
+
+    /**
+     * @return the process-wide cache, or {@code null} if it's not enabled.
+     */
+    @Nullable
+    public static synchronized SubscriptionSnapshotCache getInstance() {
+        return sSingleton;
+    }
+
+    @VisibleForTesting
+    public static synchronized void setInstanceForTesting(
+            @Nullable SubscriptionSnapshotCache cache) {
+        sSingleton = cache;
+    }
+
+    @VisibleForTesting
+    SubscriptionSnapshotCache(Context context) {
+        mContext = context;
+        mUserId = context.getUserId();
+        mTelephonyManager = context.getSystemService(TelephonyManager.class);
+        mSubscriptionMonitor = new ActiveSubscriptionsListener(context.getMainLooper(), context) {
+            @Override
+            public void onChanged() {
+                invalidate();
+            }
+        };
+    }
+
+    /** @return the user whose subscriptions are cached. */
+    public int getUserId() {
+        return mUserId;
+    }
+
+    /**
+     * Returns the current snapshot of a view of the subscriptions of the user, which is created if
+     * there's none.
+     *
+     * @param forAllUserProfiles whether the snapshot is for the view of
+     *                           {@link SubscriptionManager#createForAllUserProfiles()}, rather
+     *                           than the user-scoped one
+     */
+    @NonNull
+    public Snapshot getSnapshot(boolean forAllUserProfiles) {
+        return getSnapshot(forAllUserProfiles
+                ? mSubscriptionMonitor.getSubscriptionManager()
+                : mContext.getSystemService(SubscriptionManager.class));
+    }
+
+    /**
+     * Returns the current snapshot of the view of {@code subscriptionManager}, which is created if
+     * there's none.
+     */
+    @NonNull
+    public Snapshot getSnapshot(@NonNull SubscriptionManager subscriptionManager) {
+        // Listen before querying, a change during the query invalidates the new snapshot.
+        startListening();
+        synchronized (this) {
+            Snapshot snapshot = mSnapshots.get(subscriptionManager);
+            if (snapshot == null) {
+                snapshot = new Snapshot(this, subscriptionManager, mTelephonyManager);
+                mSnapshots.put(subscriptionManager, snapshot);
+                mRebuildCount++;
+            }
+            return snapshot;
+        }
+    }
+
+    private void startListening() {
+        synchronized (this) {
+            if (mListening) {
+                return;
+            }
+            mListening = true;
+        }
+        mSubscriptionMonitor.start();
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(TelephonyManager.ACTION_SIM_SLOT_STATUS_CHANGED);
+        filter.addAction(TelephonyManager.ACTION_SIM_CARD_STATE_CHANGED);
+        mContext.registerReceiver(mSimSlotReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+    }
+
+    /**
+     * Drops the snapshots, the next queries create new ones.
+     *
+     * <p>Besides the listener of the cache, which runs on the main thread, callers reading the
+     * subscriptions right after their own subscription change callback call it to not read the
+     * snapshots of before the change.
+     */
+    public synchronized void invalidate() {
+        mGeneration++;
+        mInvalidationCount++;
+        mSnapshots.clear();
+        mDisplayNames = null;
+        mDisplayNamesSimCardLabel = null;
+    }
+
+    /** @return the generation of the snapshots, which changes on every invalidation. */
+    synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * @return the unique display names of the current snapshots, or {@code null} if they weren't
+     * calculated with {@code simCardLabel} since the last invalidation.
+     */
+    @Nullable
+    synchronized Map<Integer, CharSequence> getDisplayNames(String simCardLabel) {
+        if (mDisplayNames == null || !TextUtils.equals(mDisplayNamesSimCardLabel, simCardLabel)) {
+            return null;
+        }
+        mDisplayNamesHitCount++;
+        return mDisplayNames;
+    }
+
+    /**
+     * Keeps the unique display names calculated in {@code generation}, unless the snapshots were
+     * invalidated meanwhile.
+     */
+    synchronized void putDisplayNames(int generation, String simCardLabel,
+            Map<Integer, CharSequence> displayNames) {
+        if (generation != mGeneration) {
+            return;
+        }
+        mDisplayNames = Collections.unmodifiableMap(displayNames);
+        mDisplayNamesSimCardLabel = simCardLabel;
+    }
+
+    private synchronized void onQuery(boolean loaded) {
+        if (loaded) {
+            mHitCount++;
+            mBinderCallsAvoided++;
+        } else {
+            mBinderCallsMade++;
+        }
+    }
+
+    /**
+     * @return the counters of the cache for dumpsys.
+     */
+    public synchronized JSONObject dump() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        obj.put("snapshots", mSnapshots.size());
+        obj.put("generation", mGeneration);
+        obj.put("hits", mHitCount);
+        obj.put("rebuilds", mRebuildCount);
+        obj.put("invalidations", mInvalidationCount);
+        obj.put("binderCallsAvoided", mBinderCallsAvoided);
+        obj.put("binderCallsMade", mBinderCallsMade);
+        obj.put("displayNamesHits", mDisplayNamesHitCount);
+        return obj;
+    }
+
+    @VisibleForTesting
+    synchronized long getBinderCallsAvoided() {
+        return mBinderCallsAvoided;
+    }
+
+    @VisibleForTesting
+    synchronized long getBinderCallsMade() {
+        return mBinderCallsMade;
+    }
+
+    @VisibleForTesting
+    synchronized long getRebuildCount() {
+        return mRebuildCount;
+    }
+
+    /**
+     * The subscriptions and UICC slots of a view, each loaded on its first query and kept for the
+     * lifetime of the snapshot.
+     */
+    public static final class Snapshot {
+        private final Query<List<SubscriptionInfo>> mActiveSubscriptions;
+        private final Query<List<SubscriptionInfo>> mAvailableSubscriptions;
+        private final Query<List<SubscriptionInfo>> mAllSubscriptions;
+        private final Query<UiccSlotInfo[]> mUiccSlotsInfo;
+
+        @VisibleForTesting
+        Snapshot(SubscriptionSnapshotCache cache, SubscriptionManager subscriptionManager,
+                TelephonyManager telephonyManager) {
+            mActiveSubscriptions = new Query<>(cache,
+                    () -> unmodifiableCopy(subscriptionManager.getActiveSubscriptionInfoList()));
+            mAvailableSubscriptions = new Query<>(cache,
+                    () -> unmodifiableCopy(subscriptionManager.getAvailableSubscriptionInfoList()));
+            mAllSubscriptions = new Query<>(cache,
+                    () -> unmodifiableCopy(subscriptionManager.getAllSubscriptionInfoList()));
+            mUiccSlotsInfo = new Query<>(cache, telephonyManager::getUiccSlotsInfo);
+        }
+
+        /** @see SubscriptionManager#getActiveSubscriptionInfoList() */
+        @Nullable
+        public List<SubscriptionInfo> getActiveSubscriptions() {
+            return mActiveSubscriptions.get();
+        }
+
+        /** @see SubscriptionManager#getAvailableSubscriptionInfoList() */
+        @Nullable
+        public List<SubscriptionInfo> getAvailableSubscriptions() {
+            return mAvailableSubscriptions.get();
+        }
+
+        /** @see SubscriptionManager#getAllSubscriptionInfoList() */
+        @Nullable
+        public List<SubscriptionInfo> getAllSubscriptions() {
+            return mAllSubscriptions.get();
+        }
+
+        /** @see TelephonyManager#getUiccSlotsInfo() */
+        @Nullable
+        UiccSlotInfo[] getUiccSlotsInfo() {
+            return mUiccSlotsInfo.get();
+        }
+
+        @Nullable
+        private static List<SubscriptionInfo> unmodifiableCopy(
+                @Nullable List<SubscriptionInfo> subscriptions) {
+            return subscriptions != null
+                    ? Collections.unmodifiableList(new ArrayList<>(subscriptions)) : null;
+        }
+    }
+
+    /** A binder call made once, on the first query. */
+    private static final class Query<T> {
+        private final SubscriptionSnapshotCache mCache;
+        private Supplier<T> mLoader;
+        private T mValue;
+
+        Query(SubscriptionSnapshotCache cache, Supplier<T> loader) {
+            mCache = cache;
+            mLoader = loader;
+        }
+
+        synchronized T get() {
+            final boolean loaded = mLoader == null;
+            mCache.onQuery(loaded);
+            if (!loaded) {
+                mValue = mLoader.get();
+                mLoader = null;
+            }
+            return mValue;
+        }
+    }
+}
@@ -100,7 +100,9 @@ public class SubscriptionUtil {
         if (manager == null) {
             return Collections.emptyList();
         }
-        final List<SubscriptionInfo> subscriptions = manager.getActiveSubscriptionInfoList();
+        final SubscriptionSnapshotCache.Snapshot snapshot = getSnapshot(manager);
+        final List<SubscriptionInfo> subscriptions = snapshot != null
+                ? snapshot.getActiveSubscriptions() : manager.getActiveSubscriptionInfoList();
         if (subscriptions == null) {
             return new ArrayList<>();
         }
@@ -170,8 +172,15 @@ public class SubscriptionUtil {
         final ParcelUuid groupUuid = subInfo.getGroupUuid();
 
         if (groupUuid != null) {
-            if (isPrimarySubscriptionWithinSameUuid(getUiccSlotsInfo(context), groupUuid,
-                    subscriptionManager.getAccessibleSubscriptionsInfo(), subId)) {
+            // ProxySubscriptionManager queries the view of all user profiles.
+            final SubscriptionSnapshotCache.Snapshot snapshot = getSnapshot(context,
+                    true /* forAllUserProfiles */);
+            final UiccSlotInfo[] slotsInfo = snapshot != null
+                    ? snapshot.getUiccSlotsInfo() : getUiccSlotsInfo(context);
+            final List<SubscriptionInfo> subscriptions = snapshot != null
+                    ? snapshot.getAvailableSubscriptions()
+                    : subscriptionManager.getAccessibleSubscriptionsInfo();
+            if (isPrimarySubscriptionWithinSameUuid(slotsInfo, groupUuid, subscriptions, subId)) {
                 return subInfo;
             }
             return null;
@@ -185,6 +194,42 @@ public class SubscriptionUtil {
         return telMgr.getUiccSlotsInfo();
     }
 
+    /**
+     * Returns the process-wide snapshot of a view of the subscriptions of the user of
+     * {@code context}, or {@code null} to query the subscription service directly.
+     *
+     * @param forAllUserProfiles whether to use the view of
+     *                           {@link SubscriptionManager#createForAllUserProfiles()}, rather
+     *                           than the user-scoped one of {@code context}
+     */
+    @Nullable
+    private static SubscriptionSnapshotCache.Snapshot getSnapshot(Context context,
+            boolean forAllUserProfiles) {
+        final SubscriptionSnapshotCache cache = getSnapshotCache(context);
+        return cache != null ? cache.getSnapshot(forAllUserProfiles) : null;
+    }
+
+    /**
+     * Returns the process-wide snapshot of the view of {@code subscriptionManager}, or
+     * {@code null} to query it directly.
+     */
+    @Nullable
+    private static SubscriptionSnapshotCache.Snapshot getSnapshot(
+            SubscriptionManager subscriptionManager) {
+        final SubscriptionSnapshotCache cache = SubscriptionSnapshotCache.getInstance();
+        return cache != null ? cache.getSnapshot(subscriptionManager) : null;
+    }
+
+    /**
+     * @return the process-wide cache if it holds the subscriptions of the user of
+     * {@code context}, {@code null} otherwise
+     */
+    @Nullable
+    private static SubscriptionSnapshotCache getSnapshotCache(Context context) {
+        final SubscriptionSnapshotCache cache = SubscriptionSnapshotCache.getInstance();
+        return cache != null && cache.getUserId() == context.getUserId() ? cache : null;
+    }
+
     private static boolean isPrimarySubscriptionWithinSameUuid(UiccSlotInfo[] slotsInfo,
             ParcelUuid groupUuid, List<SubscriptionInfo> subscriptions, int subId) {
         // only interested in subscriptions with this group UUID
@@ -287,6 +332,25 @@ public class SubscriptionUtil {
      */
     @VisibleForTesting
     public static Map<Integer, CharSequence> getUniqueSubscriptionDisplayNames(Context context) {
+        final SubscriptionSnapshotCache cache = getSnapshotCache(context);
+        if (cache == null) {
+            return calculateUniqueSubscriptionDisplayNames(context);
+        }
+        // The names of generic cards are localized.
+        final String simCardLabel = context.getResources().getString(R.string.sim_card);
+        final Map<Integer, CharSequence> cachedDisplayNames = cache.getDisplayNames(simCardLabel);
+        if (cachedDisplayNames != null) {
+            return new HashMap<>(cachedDisplayNames);
+        }
+        final int generation = cache.getGeneration();
+        final Map<Integer, CharSequence> displayNames =
+                calculateUniqueSubscriptionDisplayNames(context);
+        cache.putDisplayNames(generation, simCardLabel, new HashMap<>(displayNames));
+        return displayNames;
+    }
+
+    private static Map<Integer, CharSequence> calculateUniqueSubscriptionDisplayNames(
+            Context context) {
         class DisplayInfo {
             public SubscriptionInfo subscriptionInfo;
             public CharSequence originalName;
@@ -500,7 +564,11 @@ public class SubscriptionUtil {
      */
     public static List<SubscriptionInfo> getSelectableSubscriptionInfoList(Context context) {
         SubscriptionManager subManager = context.getSystemService(SubscriptionManager.class);
-        List<SubscriptionInfo> availableList = subManager.getAvailableSubscriptionInfoList();
+        final SubscriptionSnapshotCache.Snapshot snapshot = getSnapshot(context,
+                false /* forAllUserProfiles */);
+        List<SubscriptionInfo> availableList = snapshot != null
+                ? snapshot.getAvailableSubscriptions()
+                : subManager.getAvailableSubscriptionInfoList();
         if (availableList == null) {
             return null;
         } else {
@@ -590,8 +658,10 @@ public class SubscriptionUtil {
         if (subId == SubscriptionManager.INVALID_SUBSCRIPTION_ID) {
             return null;
         }
-        return subscriptionManager
-                .getAllSubscriptionInfoList()
+        final SubscriptionSnapshotCache.Snapshot snapshot = getSnapshot(subscriptionManager);
+        final List<SubscriptionInfo> allSubscriptions = snapshot != null
+                ? snapshot.getAllSubscriptions() : subscriptionManager.getAllSubscriptionInfoList();
+        return allSubscriptions
                 .stream()
                 .filter(subInfo -> subInfo.getSubscriptionId() == subId)
                 .findFirst()
@@ -642,8 +712,10 @@ public class SubscriptionUtil {
             return Collections.emptyList();
         }
         ParcelUuid groupUuid = subscription.getGroupUuid();
-        List<SubscriptionInfo> availableSubscriptions =
-                subscriptionManager.getAvailableSubscriptionInfoList();
+        final SubscriptionSnapshotCache.Snapshot snapshot = getSnapshot(subscriptionManager);
+        List<SubscriptionInfo> availableSubscriptions = snapshot != null
+                ? snapshot.getAvailableSubscriptions()
+                : subscriptionManager.getAvailableSubscriptionInfoList();
 
         if (availableSubscriptions == null
                 || availableSubscriptions.isEmpty()
@@ -706,7 +778,10 @@ public class SubscriptionUtil {
             Log.w(TAG, "UICC cards info list is empty.");
             return null;
         }
-        List<SubscriptionInfo> allSubscriptions = subscriptionManager.getAllSubscriptionInfoList();
+        final SubscriptionSnapshotCache.Snapshot snapshot = getSnapshot(context,
+                false /* forAllUserProfiles */);
+        List<SubscriptionInfo> allSubscriptions = snapshot != null
+                ? snapshot.getAllSubscriptions() : subscriptionManager.getAllSubscriptionInfoList();
         if (allSubscriptions == null) {
             Log.w(TAG, "All subscription info list is empty.");
             return null;
@@ -29,6 +29,7 @@ import android.provider.SearchIndexableResource;
 import android.util.Log;
 
 import androidx.annotation.CallSuper;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.core.BasePreferenceController;
@@ -179,6 +180,19 @@ public class BaseSearchIndexProvider implements Indexable.SearchIndexProvider {
         return null;
     }
 
+    /**
+     * Returns the settings and broadcasts that the dynamic raw data and non-indexable keys of this
+     * page depend on, or null if they have to be computed on every query. The results of pages
+     * declaring their dependencies are cached until one of them fires.
+     *
+     * <p>This is called again on every load, so pages may only declare their dependencies in some
+     * states, as long as the declared dependencies fire when leaving these states.
+     */
+    @Nullable
+    public BasePreferenceController.StateDependencies getSearchDependencies(Context context) {
+        return null;
+    }
+
     /**
      * Returns true if the page should be considered in search query. If return false, entire page
      * will be suppressed during search query.
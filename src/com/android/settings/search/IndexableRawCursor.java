@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_CLASS_NAME;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_ENTRIES;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_ICON_RESID;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_INTENT_ACTION;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_INTENT_TARGET_CLASS;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_INTENT_TARGET_PACKAGE;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_KEY;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_KEYWORDS;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_SCREEN_TITLE;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_SUMMARY_OFF;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_SUMMARY_ON;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_TITLE;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_USER_ID;
+import static android.provider.SearchIndexablesContract.INDEXABLES_RAW_COLUMNS;
+
+import android.database.AbstractCursor;
+import android.database.CursorIndexOutOfBoundsException;
+
+import com.android.settingslib.search.SearchIndexableRaw;
+
+import java.util.List;
+
+/**
+ * A cursor over {@link SearchIndexableRaw} rows, with {@link
+ * android.provider.SearchIndexablesContract#INDEXABLES_RAW_COLUMNS} columns.
+ *
+ * <p>Values are read from the raw data as the client moves, instead of being copied into a
+ * {@link android.database.MatrixCursor} first. Across processes, cursor windows are filled from
+ * the raw data directly.
+ */
+class IndexableRawCursor extends AbstractCursor {
+
+    private final List<SearchIndexableRaw> mRaws;
+
+    IndexableRawCursor(List<SearchIndexableRaw> raws) {
+        mRaws = raws;
+    }
+
+    @Override
+    public int getCount() {
+        return mRaws.size();
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return INDEXABLES_RAW_COLUMNS;
+    }
+
+    @Override
+    public String getString(int column) {
+        final Object value = get(column);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        final Object value = get(column);
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.parseLong(value.toString());
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        final Object value = get(column);
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return Double.parseDouble(value.toString());
+    }
+
+    @Override
+    public int getType(int column) {
+        final Object value = get(column);
+        if (value == null) {
+            return FIELD_TYPE_NULL;
+        }
+        return value instanceof Number ? FIELD_TYPE_INTEGER : FIELD_TYPE_STRING;
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return get(column) == null;
+    }
+
+    private Object get(int column) {
+        if (column < 0 || column >= INDEXABLES_RAW_COLUMNS.length) {
+            throw new CursorIndexOutOfBoundsException("Requested column: " + column
+                    + ", # of columns: " + INDEXABLES_RAW_COLUMNS.length);
+        }
+        if (mPos < 0) {
+            throw new CursorIndexOutOfBoundsException("Before first row.");
+        }
+        if (mPos >= mRaws.size()) {
+            throw new CursorIndexOutOfBoundsException("After last row.");
+        }
+        final SearchIndexableRaw raw = mRaws.get(mPos);
+        switch (column) {
+            case COLUMN_INDEX_RAW_TITLE:
+                return raw.title;
+            case COLUMN_INDEX_RAW_SUMMARY_ON:
+                return raw.summaryOn;
+            case COLUMN_INDEX_RAW_SUMMARY_OFF:
+                return raw.summaryOff;
+            case COLUMN_INDEX_RAW_ENTRIES:
+                return raw.entries;
+            case COLUMN_INDEX_RAW_KEYWORDS:
+                return raw.keywords;
+            case COLUMN_INDEX_RAW_SCREEN_TITLE:
+                return raw.screenTitle;
+            case COLUMN_INDEX_RAW_CLASS_NAME:
+                return raw.className;
+            case COLUMN_INDEX_RAW_ICON_RESID:
+                return raw.iconResId;
+            case COLUMN_INDEX_RAW_INTENT_ACTION:
+                return raw.intentAction;
+            case COLUMN_INDEX_RAW_INTENT_TARGET_PACKAGE:
+                return raw.intentTargetPackage;
+            case COLUMN_INDEX_RAW_INTENT_TARGET_CLASS:
+                return raw.intentTargetClass;
+            case COLUMN_INDEX_RAW_KEY:
+                return raw.key;
+            case COLUMN_INDEX_RAW_USER_ID:
+                return raw.userId;
+            default:
+                // The rank column is not used by raw data.
+                return null;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.os.Bundle;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks the search index data returned by {@link SettingsSearchIndexablesProvider}, so that
+ * clients can query only the rows that changed since the last generation they know.
+ *
+ * <p>Rows are identified by their class name and key. Changes are detected by comparing the
+ * values of every row with the ones last recorded, so there are no false negatives.
+ * Generations are only valid within an epoch, the lifetime of this tracker. Clients passing a
+ * generation from another epoch, or older than the removed rows still tracked, get all rows.
+ */
+class SearchIndexDeltaTracker {
+
+    static final int OPERATION_ADDED = 0;
+    static final int OPERATION_CHANGED = 1;
+    static final int OPERATION_REMOVED = 2;
+
+    @VisibleForTesting
+    static final int MAX_REMOVED_ROWS = 1000;
+
+    private final long mEpoch;
+    private final Map<String, DataState> mDataStates = new ArrayMap<>();
+    private long mGeneration;
+
+    private static class RowState {
+        final String mClassName;
+        final Object mKey;
+        final Object[] mValues;
+        final long mAddedGeneration;
+        final long mChangedGeneration;
+
+        RowState(Row row, long addedGeneration, long changedGeneration) {
+            mClassName = row.mClassName;
+            mKey = row.mKey;
+            mValues = row.mValues;
+            mAddedGeneration = addedGeneration;
+            mChangedGeneration = changedGeneration;
+        }
+    }
+
+    private static class RemovedRow {
+        final String mClassName;
+        final Object mKey;
+        final long mGeneration;
+
+        RemovedRow(String className, Object key, long generation) {
+            mClassName = className;
+            mKey = key;
+            mGeneration = generation;
+        }
+    }
+
+    /** The tracked rows of one kind of data. */
+    private static class DataState {
+        // Ids of the rows of each provider in order, keyed by class name.
+        final Map<String, List<String>> mProviderRows = new ArrayMap<>();
+        final Map<String, RowState> mRows = new HashMap<>();
+        // Oldest first.
+        final LinkedHashMap<String, RemovedRow> mRemovedRows = new LinkedHashMap<>();
+        // Clients that know an older generation may have missed pruned removals.
+        long mOldestValidGeneration;
+    }
+
+    /** A row of the current data. */
+    private static class Row {
+        final String mId;
+        final String mClassName;
+        final Object mKey;
+        final Object[] mValues;
+
+        Row(String id, String className, Object key, Object[] values) {
+            mId = id;
+            mClassName = className;
+            mKey = key;
+            mValues = values;
+        }
+    }
+
+    SearchIndexDeltaTracker(long epoch) {
+        mEpoch = epoch;
+    }
+
+    /**
+     * Records {@param current}, the full data of {@param dataType}, and returns the rows that
+     * changed since {@param sinceGeneration}.
+     *
+     * @param classNameColumn the column holding the class name of the provider of each row
+     * @param keyColumn       the column identifying each row within its provider
+     * @return a cursor with the columns of {@param current} followed by
+     * {@link SettingsSearchIndexablesProvider#COLUMN_DELTA_OPERATION}, with the generation, the
+     * epoch and whether all rows are returned in its extras.
+     */
+    synchronized Cursor computeDelta(String dataType, Cursor current, int classNameColumn,
+            int keyColumn, long sinceGeneration, long epoch) {
+        final DataState state = mDataStates.computeIfAbsent(dataType, type -> new DataState());
+        final Map<String, List<Row>> providerRows = readRows(current, classNameColumn,
+                keyColumn);
+        update(state, providerRows);
+
+        final String[] columns = Arrays.copyOf(current.getColumnNames(),
+                current.getColumnCount() + 1);
+        columns[columns.length - 1] = SettingsSearchIndexablesProvider.COLUMN_DELTA_OPERATION;
+        final MatrixCursor cursor = new MatrixCursor(columns);
+        final boolean full = epoch != mEpoch || sinceGeneration < state.mOldestValidGeneration
+                || sinceGeneration > mGeneration;
+        for (List<Row> rows : providerRows.values()) {
+            for (Row row : rows) {
+                final RowState rowState = state.mRows.get(row.mId);
+                if (!full && rowState.mChangedGeneration <= sinceGeneration) {
+                    continue;
+                }
+                final int operation = full || rowState.mAddedGeneration > sinceGeneration
+                        ? OPERATION_ADDED : OPERATION_CHANGED;
+                cursor.addRow(withOperation(row.mValues, operation));
+            }
+        }
+        if (!full) {
+            for (RemovedRow removedRow : state.mRemovedRows.values()) {
+                if (removedRow.mGeneration <= sinceGeneration) {
+                    continue;
+                }
+                final Object[] values = new Object[columns.length];
+                values[classNameColumn] = removedRow.mClassName;
+                values[keyColumn] = removedRow.mKey;
+                values[columns.length - 1] = OPERATION_REMOVED;
+                cursor.addRow(values);
+            }
+        }
+
+        final Bundle extras = new Bundle();
+        extras.putLong(SettingsSearchIndexablesProvider.EXTRA_DELTA_GENERATION, mGeneration);
+        extras.putLong(SettingsSearchIndexablesProvider.EXTRA_DELTA_EPOCH, mEpoch);
+        extras.putBoolean(SettingsSearchIndexablesProvider.EXTRA_DELTA_FULL, full);
+        cursor.setExtras(extras);
+        return cursor;
+    }
+
+    private void update(DataState state, Map<String, List<Row>> providerRows) {
+        final long generation = mGeneration + 1;
+        boolean changed = false;
+        for (Map.Entry<String, List<Row>> entry : providerRows.entrySet()) {
+            final String className = entry.getKey();
+            final List<Row> rows = entry.getValue();
+            final List<String> previousIds = state.mProviderRows.get(className);
+            if (previousIds != null && isUnchanged(state, previousIds, rows)) {
+                continue;
+            }
+            changed = true;
+            final List<String> ids = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                ids.add(row.mId);
+                final RowState rowState = state.mRows.get(row.mId);
+                if (rowState == null) {
+                    state.mRows.put(row.mId, new RowState(row, generation, generation));
+                    state.mRemovedRows.remove(row.mId);
+                } else if (!Arrays.equals(rowState.mValues, row.mValues)) {
+                    state.mRows.put(row.mId, new RowState(row, rowState.mAddedGeneration,
+                            generation));
+                }
+            }
+            state.mProviderRows.put(className, ids);
+            if (previousIds != null) {
+                final Set<String> removedIds = new ArraySet<>(previousIds);
+                removedIds.removeAll(ids);
+                removeRows(state, removedIds, generation);
+            }
+        }
+
+        final Set<String> removedProviders = new ArraySet<>(state.mProviderRows.keySet());
+        removedProviders.removeAll(providerRows.keySet());
+        for (String className : removedProviders) {
+            changed = true;
+            removeRows(state, state.mProviderRows.remove(className), generation);
+        }
+
+        if (changed) {
+            mGeneration = generation;
+        }
+    }
+
+    /**
+     * @return whether {@param rows} are the rows last recorded for their provider, with the same
+     * values in the same order.
+     */
+    private static boolean isUnchanged(DataState state, List<String> previousIds,
+            List<Row> rows) {
+        if (previousIds.size() != rows.size()) {
+            return false;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            final Row row = rows.get(i);
+            if (!row.mId.equals(previousIds.get(i))
+                    || !Arrays.equals(state.mRows.get(row.mId).mValues, row.mValues)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void removeRows(DataState state, Collection<String> ids, long generation) {
+        for (String id : ids) {
+            final RowState rowState = state.mRows.remove(id);
+            // Re-insert so the removed rows stay ordered by generation.
+            state.mRemovedRows.remove(id);
+            state.mRemovedRows.put(id,
+                    new RemovedRow(rowState.mClassName, rowState.mKey, generation));
+        }
+        final Iterator<RemovedRow> iterator = state.mRemovedRows.values().iterator();
+        while (state.mRemovedRows.size() > MAX_REMOVED_ROWS && iterator.hasNext()) {
+            state.mOldestValidGeneration = iterator.next().mGeneration;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @return the rows of {@param cursor}, grouped by class name in order.
+     */
+    private static Map<String, List<Row>> readRows(Cursor cursor, int classNameColumn,
+            int keyColumn) {
+        final Map<String, List<Row>> providerRows = new LinkedHashMap<>();
+        final Set<String> ids = new ArraySet<>();
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            final Object[] values = new Object[cursor.getColumnCount()];
+            for (int i = 0; i < values.length; i++) {
+                switch (cursor.getType(i)) {
+                    case Cursor.FIELD_TYPE_INTEGER:
+                        values[i] = cursor.getLong(i);
+                        break;
+                    case Cursor.FIELD_TYPE_NULL:
+                        break;
+                    default:
+                        values[i] = cursor.getString(i);
+                        break;
+                }
+            }
+            final String className = String.valueOf(values[classNameColumn]);
+            // Rows without a unique key are identified by their position within the provider.
+            String id = className + "/" + values[keyColumn];
+            for (int i = 1; !ids.add(id); i++) {
+                id = className + "/" + values[keyColumn] + "#" + i;
+            }
+            providerRows.computeIfAbsent(className, name -> new ArrayList<>())
+                    .add(new Row(id, className, values[keyColumn], values));
+        }
+        return providerRows;
+    }
+
+    private static Object[] withOperation(Object[] values, int operation) {
+        final Object[] row = Arrays.copyOf(values, values.length + 1);
+        row[values.length] = operation;
+        return row;
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Configuration;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.SystemProperties;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settingslib.search.Indexable;
+import com.android.settingslib.search.SearchIndexableData;
+import com.android.settingslib.search.SearchIndexableRaw;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Collects the dynamic raw data and non-indexable keys of the search index providers, in
+ * parallel.
+ *
+ * <p>All providers of a query share a deadline of {@link #PROVIDER_TIMEOUT_MS}. Dynamic raw data
+ * of providers taking longer is left out of the current query, unless it is required. Non-indexable
+ * keys are never left out, since settings hidden by them would show up in the results: the querying
+ * thread waits for the late providers, or runs them itself if they didn't start yet.
+ *
+ * <p>The results of providers declaring their {@link BaseSearchIndexProvider#getSearchDependencies}
+ * are kept in memory until one of these dependencies fires, or the configuration changes, so
+ * unchanged providers are not queried again. Dependencies are declared again on every load, and
+ * observed from that load until the results depending on them are dropped.
+ */
+class SearchIndexableDataCollector {
+
+    private static final String TAG = "SearchIndexableCollector";
+
+    /**
+     * Flag for a system property which makes providers run serially on the querying thread.
+     */
+    @VisibleForTesting
+    static final String SYSPROP_SERIAL_COLLECTION =
+            "debug.com.android.settings.search.serial_collection";
+    private static final long PROVIDER_TIMEOUT_MS = 2000L;
+    private static final int MAX_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 10L;
+
+    private static SearchIndexableDataCollector sInstance;
+
+    private final Context mContext;
+    private final Executor mExecutor;
+    private final long mTimeoutMs;
+    // Cached results, keyed by provider.
+    private final Map<Indexable.SearchIndexProvider, ProviderState> mProviderStates =
+            new ArrayMap<>();
+    // Providers with cached results depending on each uri, and the observer of the uri.
+    private final Map<Uri, Set<Indexable.SearchIndexProvider>> mUriDependents = new ArrayMap<>();
+    private final Map<Uri, ContentObserver> mObservers = new ArrayMap<>();
+    // Providers with cached results depending on each broadcast action.
+    private final Map<String, Set<Indexable.SearchIndexProvider>> mActionDependents =
+            new ArrayMap<>();
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            invalidateDependents(mActionDependents, intent.getAction());
+        }
+    };
+    private boolean mReceiverRegistered;
+    // Configuration the cached results were computed with.
+    @Nullable
+    private Configuration mConfiguration;
+
+    private static class ProviderState {
+        // The observed dependencies, null while nothing is observed.
+        @Nullable
+        BasePreferenceController.StateDependencies mDependencies;
+        // Bumped when a dependency fires, results computed before are dropped.
+        int mGeneration;
+        // Whether the dependencies are observed, which is the case while results are cached.
+        boolean mObserving;
+        @Nullable
+        List<SearchIndexableRaw> mDynamicRawData;
+        @Nullable
+        List<String> mNonIndexableKeys;
+    }
+
+    static synchronized SearchIndexableDataCollector getInstance(Context context) {
+        if (sInstance == null) {
+            final Executor executor;
+            if (SystemProperties.getBoolean(SYSPROP_SERIAL_COLLECTION, false)) {
+                executor = Runnable::run;
+            } else {
+                final ThreadPoolExecutor threadPool = new ThreadPoolExecutor(MAX_THREADS,
+                        MAX_THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, TAG));
+                threadPool.allowCoreThreadTimeOut(true);
+                executor = threadPool;
+            }
+            sInstance = new SearchIndexableDataCollector(context.getApplicationContext(),
+                    executor);
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    SearchIndexableDataCollector(Context context, Executor executor) {
+        this(context, executor, PROVIDER_TIMEOUT_MS);
+    }
+
+    @VisibleForTesting
+    SearchIndexableDataCollector(Context context, Executor executor, long timeoutMs) {
+        mContext = context;
+        mExecutor = executor;
+        mTimeoutMs = timeoutMs;
+    }
+
+    /**
+     * @return the dynamic raw data of {@param bundles}, in order. Unless {@param required} is set,
+     * providers which don't return their data in time are left out.
+     */
+    List<SearchIndexableRaw> getDynamicRawData(Collection<SearchIndexableData> bundles,
+            Function<SearchIndexableData, List<SearchIndexableRaw>> loader, boolean required) {
+        return collect(bundles, loader, state -> state.mDynamicRawData,
+                (state, raws) -> state.mDynamicRawData = raws, required);
+    }
+
+    /**
+     * @return the non-indexable keys of {@param bundles}, in order. This waits for every
+     * provider, however long they take.
+     */
+    List<String> getNonIndexableKeys(Collection<SearchIndexableData> bundles,
+            Function<SearchIndexableData, List<String>> loader) {
+        return collect(bundles, loader, state -> state.mNonIndexableKeys,
+                (state, keys) -> state.mNonIndexableKeys = keys, true /* required */);
+    }
+
+    private interface ResultSetter<T> {
+        void set(ProviderState state, List<T> results);
+    }
+
+    private <T> List<T> collect(Collection<SearchIndexableData> bundles,
+            Function<SearchIndexableData, List<T>> loader,
+            Function<ProviderState, List<T>> getter, ResultSetter<T> setter, boolean required) {
+        checkConfiguration();
+        final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(mTimeoutMs);
+        final List<Future<List<T>>> tasks = new ArrayList<>(bundles.size());
+        for (SearchIndexableData bundle : bundles) {
+            final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+            final ProviderState state = getProviderState(provider);
+            final int generation;
+            synchronized (this) {
+                final List<T> cachedResults = getter.apply(state);
+                if (cachedResults != null) {
+                    tasks.add(CompletableFuture.completedFuture(new ArrayList<>(cachedResults)));
+                    continue;
+                }
+                generation = state.mGeneration;
+            }
+            final FutureTask<List<T>> task = new FutureTask<>(() -> {
+                final BasePreferenceController.StateDependencies dependencies =
+                        getSearchDependencies(provider);
+                if (dependencies != null) {
+                    // Observe before loading, a change during the load drops its results.
+                    startObserving(provider, state, dependencies);
+                }
+                final List<T> results = loader.apply(bundle);
+                if (results != null && dependencies != null) {
+                    synchronized (this) {
+                        if (state.mGeneration == generation) {
+                            setter.set(state, new ArrayList<>(results));
+                        }
+                    }
+                }
+                return results;
+            });
+            mExecutor.execute(task);
+            tasks.add(task);
+        }
+
+        final List<T> results = new ArrayList<>();
+        int index = 0;
+        for (SearchIndexableData bundle : bundles) {
+            final Future<List<T>> task = tasks.get(index++);
+            final List<T> providerResults;
+            try {
+                providerResults = getResults(bundle, task, deadlineNanos, required);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (required) {
+                    // Partial results would let hidden settings show up, fail the query instead.
+                    throw new IllegalStateException("Interrupted while collecting search data", e);
+                }
+                Log.w(TAG, "Interrupted while collecting search data", e);
+                break;
+            }
+            if (providerResults != null) {
+                results.addAll(providerResults);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Waits for the results of {@param task} until {@param deadlineNanos}. Past the deadline,
+     * required results are still waited for, or loaded on the calling thread if the task did not
+     * start yet, in which case they are cached as usual.
+     *
+     * @return the results, or null if the provider has none or they are not ready in time
+     */
+    @Nullable
+    private <T> List<T> getResults(SearchIndexableData bundle, Future<List<T>> task,
+            long deadlineNanos, boolean required) throws InterruptedException {
+        try {
+            try {
+                return task.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                final String providerName = bundle.getTargetClass().getName();
+                if (!required) {
+                    // Keep running, the results are cached for the next query if possible.
+                    Log.w(TAG, "Timed out collecting search data from " + providerName);
+                    return null;
+                }
+                Log.w(TAG, "Timed out collecting search data from " + providerName
+                        + ", waiting since it is required");
+                if (task instanceof RunnableFuture) {
+                    // Runs the provider here if it did not start yet, does nothing otherwise.
+                    ((RunnableFuture<?>) task).run();
+                }
+                return task.get();
+            }
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Drops the cached results of {@param provider}.
+     */
+    @VisibleForTesting
+    synchronized void invalidate(Indexable.SearchIndexProvider provider) {
+        final ProviderState state = mProviderStates.get(provider);
+        if (state != null) {
+            state.mGeneration++;
+            state.mDynamicRawData = null;
+            state.mNonIndexableKeys = null;
+            stopObserving(provider, state);
+        }
+    }
+
+    private synchronized <K> void invalidateDependents(
+            Map<K, Set<Indexable.SearchIndexProvider>> dependents, K dependency) {
+        final Set<Indexable.SearchIndexProvider> providers = dependents.get(dependency);
+        if (providers != null) {
+            invalidateAll(providers);
+        }
+    }
+
+    private synchronized void invalidateAll(Collection<Indexable.SearchIndexProvider> providers) {
+        // Invalidating removes the providers from the collection.
+        for (Indexable.SearchIndexProvider provider : new ArrayList<>(providers)) {
+            invalidate(provider);
+        }
+    }
+
+    /**
+     * Drops every cached result if the configuration changed since they were computed, since
+     * titles and availability may depend on the locale, density or night mode among others.
+     */
+    private synchronized void checkConfiguration() {
+        final Configuration configuration = mContext.getResources().getConfiguration();
+        if (mConfiguration != null && !mConfiguration.equals(configuration)) {
+            invalidateAll(mProviderStates.keySet());
+        }
+        mConfiguration = new Configuration(configuration);
+    }
+
+    private synchronized ProviderState getProviderState(Indexable.SearchIndexProvider provider) {
+        return mProviderStates.computeIfAbsent(provider, key -> new ProviderState());
+    }
+
+    @Nullable
+    private BasePreferenceController.StateDependencies getSearchDependencies(
+            Indexable.SearchIndexProvider provider) {
+        return provider instanceof BaseSearchIndexProvider
+                ? ((BaseSearchIndexProvider) provider).getSearchDependencies(mContext) : null;
+    }
+
+    /**
+     * Invalidates {@param provider} when one of {@param dependencies} fires, until it is
+     * invalidated. Dependencies already observed are kept, the provider only declares other ones
+     * after one of them fires. Observers are shared by the providers depending on the
+     * same uri.
+     */
+    private synchronized void startObserving(Indexable.SearchIndexProvider provider,
+            ProviderState state, BasePreferenceController.StateDependencies dependencies) {
+        if (state.mObserving) {
+            return;
+        }
+        state.mObserving = true;
+        state.mDependencies = dependencies;
+        for (Uri uri : state.mDependencies.getUris()) {
+            final Set<Indexable.SearchIndexProvider> dependents =
+                    mUriDependents.computeIfAbsent(uri, key -> new ArraySet<>());
+            if (dependents.isEmpty()) {
+                final ContentObserver observer = new ContentObserver(null /* handler */) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        invalidateDependents(mUriDependents, uri);
+                    }
+                };
+                mContext.getContentResolver().registerContentObserver(uri,
+                        false /* notifyForDescendants */, observer);
+                mObservers.put(uri, observer);
+            }
+            dependents.add(provider);
+        }
+        boolean actionsChanged = false;
+        for (String action : state.mDependencies.getBroadcastActions()) {
+            final Set<Indexable.SearchIndexProvider> dependents =
+                    mActionDependents.computeIfAbsent(action, key -> new ArraySet<>());
+            actionsChanged |= dependents.isEmpty();
+            dependents.add(provider);
+        }
+        if (actionsChanged) {
+            updateReceiver();
+        }
+    }
+
+    private synchronized void stopObserving(Indexable.SearchIndexProvider provider,
+            ProviderState state) {
+        if (!state.mObserving) {
+            return;
+        }
+        state.mObserving = false;
+        for (Uri uri : state.mDependencies.getUris()) {
+            final Set<Indexable.SearchIndexProvider> dependents = mUriDependents.get(uri);
+            if (dependents != null && dependents.remove(provider) && dependents.isEmpty()) {
+                mUriDependents.remove(uri);
+                mContext.getContentResolver().unregisterContentObserver(mObservers.remove(uri));
+            }
+        }
+        boolean actionsChanged = false;
+        for (String action : state.mDependencies.getBroadcastActions()) {
+            final Set<Indexable.SearchIndexProvider> dependents = mActionDependents.get(action);
+            if (dependents != null && dependents.remove(provider) && dependents.isEmpty()) {
+                mActionDependents.remove(action);
+                actionsChanged = true;
+            }
+        }
+        state.mDependencies = null;
+        if (actionsChanged) {
+            updateReceiver();
+        }
+    }
+
+    /**
+     * Registers the receiver again for the current broadcast actions, if any.
+     */
+    private void updateReceiver() {
+        if (mReceiverRegistered) {
+            mContext.unregisterReceiver(mReceiver);
+            mReceiverRegistered = false;
+        }
+        if (mActionDependents.isEmpty()) {
+            return;
+        }
+        final IntentFilter filter = new IntentFilter();
+        mActionDependents.keySet().forEach(filter::addAction);
+        mContext.registerReceiver(mReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+        mReceiverRegistered = true;
+    }
+
+    @VisibleForTesting
+    synchronized int getObservedUriCount() {
+        return mObservers.size();
+    }
+}
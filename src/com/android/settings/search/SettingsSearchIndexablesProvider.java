@@ -18,18 +18,7 @@ package com.android.settings.search;
 
 import static android.provider.SearchIndexablesContract.COLUMN_INDEX_NON_INDEXABLE_KEYS_KEY_VALUE;
 import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_CLASS_NAME;
-import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_ENTRIES;
-import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_ICON_RESID;
-import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_INTENT_ACTION;
-import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_INTENT_TARGET_CLASS;
-import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_INTENT_TARGET_PACKAGE;
 import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_KEY;
-import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_KEYWORDS;
-import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_SCREEN_TITLE;
-import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_SUMMARY_OFF;
-import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_SUMMARY_ON;
-import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_TITLE;
-import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_USER_ID;
 import static android.provider.SearchIndexablesContract.COLUMN_INDEX_XML_RES_CLASS_NAME;
 import static android.provider.SearchIndexablesContract.COLUMN_INDEX_XML_RES_ICON_RESID;
 import static android.provider.SearchIndexablesContract.COLUMN_INDEX_XML_RES_INTENT_ACTION;
@@ -37,7 +26,6 @@ import static android.provider.SearchIndexablesContract.COLUMN_INDEX_XML_RES_INT
 import static android.provider.SearchIndexablesContract.COLUMN_INDEX_XML_RES_INTENT_TARGET_PACKAGE;
 import static android.provider.SearchIndexablesContract.COLUMN_INDEX_XML_RES_RANK;
 import static android.provider.SearchIndexablesContract.COLUMN_INDEX_XML_RES_RESID;
-import static android.provider.SearchIndexablesContract.INDEXABLES_RAW_COLUMNS;
 import static android.provider.SearchIndexablesContract.INDEXABLES_XML_RES_COLUMNS;
 import static android.provider.SearchIndexablesContract.NON_INDEXABLES_KEYS_COLUMNS;
 import static android.provider.SearchIndexablesContract.SITE_MAP_COLUMNS;
@@ -93,12 +81,39 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     public static final String SYSPROP_CRASH_ON_ERROR =
             "debug.com.android.settings.search.crash_on_error";
 
+    /**
+     * Path prefix of the delta queries, followed by one of {@link #DELTA_TYPE_XML_RES},
+     * {@link #DELTA_TYPE_RAW} or {@link #DELTA_TYPE_DYNAMIC_RAW}.
+     *
+     * <p>Delta queries return the rows of the matching query that changed since the generation
+     * passed as {@link #QUERY_PARAMETER_SINCE_GENERATION}, with their
+     * {@link #COLUMN_DELTA_OPERATION}. Removed rows only hold their class name and key. The
+     * current generation, to pass in the next query, is returned in the cursor extras along with
+     * the epoch, which must be passed as {@link #QUERY_PARAMETER_EPOCH}. If
+     * {@link #EXTRA_DELTA_FULL} is set, all rows are returned and previously indexed rows missing
+     * from the result must be dropped.
+     */
+    public static final String INDEXABLES_DELTA_PATH = "settings/indexables_delta";
+    public static final String DELTA_TYPE_XML_RES = "xml_res";
+    public static final String DELTA_TYPE_RAW = "raw";
+    public static final String DELTA_TYPE_DYNAMIC_RAW = "dynamic_raw";
+    public static final String QUERY_PARAMETER_SINCE_GENERATION = "since_generation";
+    public static final String QUERY_PARAMETER_EPOCH = "epoch";
+    public static final String COLUMN_DELTA_OPERATION = "delta_operation";
+    public static final int DELTA_OPERATION_ADDED = SearchIndexDeltaTracker.OPERATION_ADDED;
+    public static final int DELTA_OPERATION_CHANGED = SearchIndexDeltaTracker.OPERATION_CHANGED;
+    public static final int DELTA_OPERATION_REMOVED = SearchIndexDeltaTracker.OPERATION_REMOVED;
+    public static final String EXTRA_DELTA_GENERATION = "delta_generation";
+    public static final String EXTRA_DELTA_EPOCH = "delta_epoch";
+    public static final String EXTRA_DELTA_FULL = "delta_full";
+
     private static final String TAG = "SettingsSearchProvider";
 
     private static final Collection<String> INVALID_KEYS;
 
     // Search enabled states for injection (key: category key, value: search enabled)
     private Map<String, Boolean> mSearchEnabledByCategoryKeyMap;
+    private SearchIndexDeltaTracker mDeltaTracker;
 
     static {
         INVALID_KEYS = new ArraySet<>();
@@ -109,9 +124,56 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     @Override
     public boolean onCreate() {
         mSearchEnabledByCategoryKeyMap = new ArrayMap<>();
+        mDeltaTracker = new SearchIndexDeltaTracker(System.currentTimeMillis());
         return true;
     }
 
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs,
+            String sortOrder) {
+        final List<String> segments = uri.getPathSegments();
+        if (segments.size() != 3
+                || !INDEXABLES_DELTA_PATH.equals(segments.get(0) + "/" + segments.get(1))) {
+            return super.query(uri, projection, selection, selectionArgs, sortOrder);
+        }
+        final long sinceGeneration = parseLong(
+                uri.getQueryParameter(QUERY_PARAMETER_SINCE_GENERATION));
+        final long epoch = parseLong(uri.getQueryParameter(QUERY_PARAMETER_EPOCH));
+        final String type = segments.get(2);
+        switch (type) {
+            case DELTA_TYPE_XML_RES:
+                return mDeltaTracker.computeDelta(type, queryXmlResources(null /* projection */),
+                        COLUMN_INDEX_XML_RES_CLASS_NAME, COLUMN_INDEX_XML_RES_RESID,
+                        sinceGeneration, epoch);
+            case DELTA_TYPE_RAW:
+                return mDeltaTracker.computeDelta(type, queryRawData(null /* projection */),
+                        COLUMN_INDEX_RAW_CLASS_NAME, COLUMN_INDEX_RAW_KEY, sinceGeneration, epoch);
+            case DELTA_TYPE_DYNAMIC_RAW:
+                // Rows of a late provider would be reported as removed, then added again.
+                return mDeltaTracker.computeDelta(type,
+                        queryDynamicRawData(true /* waitForAllProviders */),
+                        COLUMN_INDEX_RAW_CLASS_NAME, COLUMN_INDEX_RAW_KEY, sinceGeneration, epoch);
+            default:
+                throw new IllegalArgumentException("Unknown delta type: " + type);
+        }
+    }
+
+    /**
+     * @return {@param value} as a long, or -1 if it is missing or invalid, so all rows are
+     * returned.
+     */
+    private static long parseLong(@Nullable String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Invalid delta query parameter: " + value);
+            return -1;
+        }
+    }
+
     @Override
     public Cursor queryXmlResources(String[] projection) {
         final MatrixCursor cursor = new MatrixCursor(INDEXABLES_XML_RES_COLUMNS);
@@ -137,13 +199,7 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
      */
     @Override
     public Cursor queryRawData(String[] projection) {
-        final MatrixCursor cursor = new MatrixCursor(INDEXABLES_RAW_COLUMNS);
-        final List<SearchIndexableRaw> raws = getSearchIndexableRawFromProvider(getContext());
-        for (SearchIndexableRaw val : raws) {
-            cursor.addRow(createIndexableRawColumnObjects(val));
-        }
-
-        return cursor;
+        return new IndexableRawCursor(getSearchIndexableRawFromProvider(getContext()));
     }
 
     /**
@@ -171,14 +227,23 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     @Nullable
     @Override
     public Cursor queryDynamicRawData(String[] projection) {
+        return queryDynamicRawData(false /* waitForAllProviders */);
+    }
+
+    /**
+     * @param waitForAllProviders whether to wait for the providers which don't return their data
+     *                            in time, rather than leaving them out
+     */
+    private Cursor queryDynamicRawData(boolean waitForAllProviders) {
         final Context context = getContext();
         final List<SearchIndexableRaw> rawList = new ArrayList<>();
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFeatureFactory()
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
 
+        rawList.addAll(getCollector(context).getDynamicRawData(bundles,
+                bundle -> getDynamicSearchIndexableRawData(context, bundle),
+                waitForAllProviders));
         for (SearchIndexableData bundle : bundles) {
-            rawList.addAll(getDynamicSearchIndexableRawData(context, bundle));
-
             // Refresh the search enabled state for indexing injection raw data
             final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
             if (provider instanceof BaseSearchIndexProvider) {
@@ -186,13 +251,7 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
             }
         }
         rawList.addAll(getInjectionIndexableRawData(context));
-
-        final MatrixCursor cursor = new MatrixCursor(INDEXABLES_RAW_COLUMNS);
-        for (SearchIndexableRaw raw : rawList) {
-            cursor.addRow(createIndexableRawColumnObjects(raw));
-        }
-
-        return cursor;
+        return new IndexableRawCursor(rawList);
     }
 
     @Override
@@ -274,51 +333,55 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFeatureFactory()
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
 
-        final List<String> nonIndexableKeys = new ArrayList<>();
-
-        for (SearchIndexableData bundle : bundles) {
-            final long startTime = System.currentTimeMillis();
-            Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
-            List<String> providerNonIndexableKeys;
-            try {
-                providerNonIndexableKeys = provider.getNonIndexableKeys(context);
-            } catch (Exception e) {
-                // Catch a generic crash. In the absence of the catch, the background thread will
-                // silently fail anyway, so we aren't losing information by catching the exception.
-                // We crash when the system property exists so that we can test if crashes need to
-                // be fixed.
-                // The gain is that if there is a crash in a specific controller, we don't lose all
-                // non-indexable keys, but we can still find specific crashes in development.
-                if (System.getProperty(SYSPROP_CRASH_ON_ERROR) != null) {
-                    throw new RuntimeException(e);
-                }
-                Log.e(TAG, "Error trying to get non-indexable keys from: "
-                        + bundle.getTargetClass().getName(), e);
-                continue;
-            }
-
-            if (providerNonIndexableKeys == null || providerNonIndexableKeys.isEmpty()) {
-                if (DEBUG) {
-                    final long totalTime = System.currentTimeMillis() - startTime;
-                    Log.d(TAG, "No indexable, total time " + totalTime);
-                }
-                continue;
-            }
+        return getCollector(context).getNonIndexableKeys(bundles,
+                bundle -> getNonIndexableKeysFromProvider(context, bundle));
+    }
 
-            if (providerNonIndexableKeys.removeAll(INVALID_KEYS)) {
-                Log.v(TAG, provider + " tried to add an empty non-indexable key");
+    /**
+     * @return the valid non-indexable keys of {@param bundle}, or null if they could not be
+     * computed.
+     */
+    @Nullable
+    private List<String> getNonIndexableKeysFromProvider(Context context,
+            SearchIndexableData bundle) {
+        final long startTime = System.currentTimeMillis();
+        Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+        List<String> providerNonIndexableKeys;
+        try {
+            providerNonIndexableKeys = provider.getNonIndexableKeys(context);
+        } catch (Exception e) {
+            // Catch a generic crash. In the absence of the catch, the background thread will
+            // silently fail anyway, so we aren't losing information by catching the exception.
+            // We crash when the system property exists so that we can test if crashes need to
+            // be fixed.
+            // The gain is that if there is a crash in a specific controller, we don't lose all
+            // non-indexable keys, but we can still find specific crashes in development.
+            if (System.getProperty(SYSPROP_CRASH_ON_ERROR) != null) {
+                throw new RuntimeException(e);
             }
+            Log.e(TAG, "Error trying to get non-indexable keys from: "
+                    + bundle.getTargetClass().getName(), e);
+            return null;
+        }
 
+        if (providerNonIndexableKeys == null || providerNonIndexableKeys.isEmpty()) {
             if (DEBUG) {
                 final long totalTime = System.currentTimeMillis() - startTime;
-                Log.d(TAG, "Non-indexables " + providerNonIndexableKeys.size() + ", total time "
-                        + totalTime);
+                Log.d(TAG, "No indexable, total time " + totalTime);
             }
+            return new ArrayList<>();
+        }
 
-            nonIndexableKeys.addAll(providerNonIndexableKeys);
+        if (providerNonIndexableKeys.removeAll(INVALID_KEYS)) {
+            Log.v(TAG, provider + " tried to add an empty non-indexable key");
         }
 
-        return nonIndexableKeys;
+        if (DEBUG) {
+            final long totalTime = System.currentTimeMillis() - startTime;
+            Log.d(TAG, "Non-indexables " + providerNonIndexableKeys.size() + ", total time "
+                    + totalTime);
+        }
+        return providerNonIndexableKeys;
     }
 
     private List<SearchIndexableResource> getSearchIndexableResourcesFromProvider(Context context) {
@@ -389,6 +452,11 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         return providerRaws;
     }
 
+    @VisibleForTesting
+    SearchIndexableDataCollector getCollector(Context context) {
+        return SearchIndexableDataCollector.getInstance(context);
+    }
+
     @VisibleForTesting
     List<SearchIndexableRaw> getInjectionIndexableRawData(Context context) {
         final DashboardFeatureProvider dashboardFeatureProvider =
@@ -456,22 +524,4 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
         }
         return tile.isSearchable();
     }
-
-    private static Object[] createIndexableRawColumnObjects(SearchIndexableRaw raw) {
-        final Object[] ref = new Object[INDEXABLES_RAW_COLUMNS.length];
-        ref[COLUMN_INDEX_RAW_TITLE] = raw.title;
-        ref[COLUMN_INDEX_RAW_SUMMARY_ON] = raw.summaryOn;
-        ref[COLUMN_INDEX_RAW_SUMMARY_OFF] = raw.summaryOff;
-        ref[COLUMN_INDEX_RAW_ENTRIES] = raw.entries;
-        ref[COLUMN_INDEX_RAW_KEYWORDS] = raw.keywords;
-        ref[COLUMN_INDEX_RAW_SCREEN_TITLE] = raw.screenTitle;
-        ref[COLUMN_INDEX_RAW_CLASS_NAME] = raw.className;
-        ref[COLUMN_INDEX_RAW_ICON_RESID] = raw.iconResId;
-        ref[COLUMN_INDEX_RAW_INTENT_ACTION] = raw.intentAction;
-        ref[COLUMN_INDEX_RAW_INTENT_TARGET_PACKAGE] = raw.intentTargetPackage;
-        ref[COLUMN_INDEX_RAW_INTENT_TARGET_CLASS] = raw.intentTargetClass;
-        ref[COLUMN_INDEX_RAW_KEY] = raw.key;
-        ref[COLUMN_INDEX_RAW_USER_ID] = raw.userId;
-        return ref;
-    }
 }
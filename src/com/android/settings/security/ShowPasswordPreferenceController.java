@@ -49,6 +49,12 @@ public class ShowPasswordPreferenceController extends TogglePreferenceController
                 ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
     }
 
+    @Override
+    public StateDependencies getStateDependencies() {
+        return new StateDependencies()
+                .addUri(Settings.System.getUriFor(Settings.System.TEXT_SHOW_PASSWORD));
+    }
+
     @Override
     public int getSliceHighlightMenuRes() {
         return R.string.menu_key_security;
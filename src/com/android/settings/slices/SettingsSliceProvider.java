@@ -80,7 +80,9 @@ import java.util.stream.Collectors;
  * the entire row is converted into a {@link SliceData}. Once complete, it is stored in
  * {@link #mSliceWeakDataCache}, and then an update sent via the Slice framework to the Slice.
  * The {@link Slice} displayed by the Slice-presenter will re-query this Slice-provider and find
- * the {@link SliceData} cached to build the full {@link Slice}.
+ * the {@link SliceData} cached to build the full {@link Slice}. Hot slices are also kept in the
+ * strongly referenced {@link SliceDataCache}, which is warmed with the most recently pinned
+ * slices on creation, so they can be built without a stub even after the weak cache is cleared.
  *
  * <p>When an action is taken on that {@link Slice}, we receive the action in
  * {@link SliceBroadcastReceiver}, and use the
@@ -138,6 +140,9 @@ public class SettingsSliceProvider extends SliceProvider {
     @VisibleForTesting
     Map<Uri, SliceData> mSliceWeakDataCache;
 
+    @VisibleForTesting
+    SliceDataCache mSliceDataCache;
+
     @VisibleForTesting
     final Map<Uri, SliceBackgroundWorker> mPinnedWorkers = new ArrayMap<>();
 
@@ -155,6 +160,8 @@ public class SettingsSliceProvider extends SliceProvider {
         Log.d(TAG, "onCreateSliceProvider");
         mSlicesDatabaseAccessor = new SlicesDatabaseAccessor(getContext());
         mSliceWeakDataCache = new WeakHashMap<>();
+        mSliceDataCache = SliceDataCache.getInstance();
+        ThreadUtils.postOnBackgroundThread(this::warmUpSliceDataCache);
         return true;
     }
 
@@ -192,6 +199,7 @@ public class SettingsSliceProvider extends SliceProvider {
         }
 
         // Start warming the slice, we expect someone will want it soon.
+        mSliceDataCache.onSlicePinned(getContext(), sliceUri);
         loadSliceInBackground(sliceUri);
     }
 
@@ -273,11 +281,16 @@ public class SettingsSliceProvider extends SliceProvider {
             }
 
             final SliceData cachedSliceData = mSliceWeakDataCache.get(sliceUri);
-            if (cachedSliceData == null) {
-                loadSliceInBackground(sliceUri);
+            if (cachedSliceData != null) {
+                return SliceBuilderUtils.buildSlice(getContext(), cachedSliceData);
+            }
+            final SliceData hotSliceData = mSliceDataCache.get(sliceUri);
+            // The slice still needs its broadcasts and background worker registered.
+            loadSliceInBackground(sliceUri);
+            if (hotSliceData == null) {
                 return getSliceStub(sliceUri);
             }
-            return SliceBuilderUtils.buildSlice(getContext(), cachedSliceData);
+            return SliceBuilderUtils.buildSlice(getContext(), hotSliceData);
         } finally {
             StrictMode.setThreadPolicy(oldPolicy);
             if (!mFirstSliceBound) {
@@ -408,12 +421,15 @@ public class SettingsSliceProvider extends SliceProvider {
         }
         long startBuildTime = System.currentTimeMillis();
 
-        final SliceData sliceData;
-        try {
-            sliceData = mSlicesDatabaseAccessor.getSliceDataFromUri(uri);
-        } catch (IllegalStateException e) {
-            Log.d(TAG, "Could not create slicedata for uri: " + uri, e);
-            return;
+        SliceData sliceData = mSliceDataCache.peek(uri);
+        if (sliceData == null) {
+            try {
+                sliceData = mSlicesDatabaseAccessor.getSliceDataFromUri(uri);
+            } catch (IllegalStateException e) {
+                Log.d(TAG, "Could not create slicedata for uri: " + uri, e);
+                return;
+            }
+            mSliceDataCache.put(uri, sliceData);
         }
 
         final BasePreferenceController controller = SliceBuilderUtils.getPreferenceController(
@@ -444,6 +460,31 @@ public class SettingsSliceProvider extends SliceProvider {
         ThreadUtils.postOnBackgroundThread(() -> loadSlice(uri));
     }
 
+    /**
+     * Reads the most recently pinned slices into {@link #mSliceDataCache}, without registering
+     * anything for them until they are actually pinned or bound.
+     */
+    @VisibleForTesting
+    void warmUpSliceDataCache() {
+        final long startTime = System.currentTimeMillis();
+        final List<Uri> uris = new ArrayList<>();
+        for (Uri uri : mSliceDataCache.getRecentlyPinnedUris(getContext())) {
+            if (mSliceDataCache.peek(uri) == null) {
+                uris.add(uri);
+            }
+        }
+        if (uris.isEmpty()) {
+            return;
+        }
+        final Map<Uri, SliceData> sliceDataMap =
+                mSlicesDatabaseAccessor.getSliceDataFromUris(uris);
+        for (Map.Entry<Uri, SliceData> entry : sliceDataMap.entrySet()) {
+            mSliceDataCache.put(entry.getKey(), entry.getValue());
+        }
+        Log.d(TAG, "Warmed " + sliceDataMap.size() + " slices in: "
+                + (System.currentTimeMillis() - startTime));
+    }
+
     @VisibleForTesting
     /**
      * Registers an IntentFilter in SysUI to notify changes to {@param sliceUri} when broadcasts to
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.settings.slices;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Notifies changes of slices backed by a {@link SliceBackgroundWorker}.
+ *
+ * <p>Each uri is throttled by the interval of its worker, see
+ * {@link SliceBackgroundWorker#getSliceUpdateThrottleInterval()}. The interval backs off while
+ * a worker keeps requesting updates faster than it, and goes back to the worker's interval once
+ * the worker calms down. Updates of all uris that are due within the same frame window are sent
+ * to the {@link android.content.ContentResolver} as a single batch.
+ */
+public class SliceChangeNotifier extends Handler {
+
+    private static final int MSG_FLUSH = 1000;
+
+    /**
+     * Updates due within this window of each other are notified together.
+     */
+    @VisibleForTesting
+    static final long FRAME_WINDOW_MS = 16L;
+
+    /**
+     * Upper bound of the backed off interval, as a multiple of the worker's interval.
+     */
+    @VisibleForTesting
+    static final int MAX_BACKOFF_FACTOR = 8;
+
+    private static SliceChangeNotifier sInstance;
+
+    private final ArrayMap<Uri, PendingState> mStates = new ArrayMap<>();
+    private final Map<Uri, UriStats> mStats = new ArrayMap<>();
+
+    /**
+     * @return the process-wide notifier, started on its own background thread.
+     */
+    public static synchronized SliceChangeNotifier getInstance() {
+        if (sInstance == null) {
+            final HandlerThread workerThread = new HandlerThread("SliceChangeNotifier",
+                    Process.THREAD_PRIORITY_BACKGROUND);
+            workerThread.start();
+            sInstance = new SliceChangeNotifier(workerThread.getLooper());
+        }
+        return sInstance;
+    }
+
+    /**
+     * @return the stats of {@link #dump()}, or null if no slice was updated in this process.
+     * Unlike {@link #getInstance()}, this doesn't start the notifier thread.
+     */
+    @Nullable
+    public static JSONObject dumpIfStarted() throws JSONException {
+        final SliceChangeNotifier notifier;
+        synchronized (SliceChangeNotifier.class) {
+            notifier = sInstance;
+        }
+        return notifier != null ? notifier.dump() : null;
+    }
+
+    @VisibleForTesting
+    static synchronized void setInstanceForTesting(@Nullable SliceChangeNotifier notifier) {
+        sInstance = notifier;
+    }
+
+    @VisibleForTesting
+    SliceChangeNotifier(Looper looper) {
+        super(looper);
+    }
+
+    /**
+     * Schedules a notification of the slice of {@param worker}. Requests made while an update
+     * is already pending are merged into it.
+     */
+    void updateSlice(SliceBackgroundWorker worker) {
+        final Uri uri = worker.getUri();
+        final long now = SystemClock.uptimeMillis();
+        synchronized (this) {
+            PendingState state = mStates.get(uri);
+            if (state == null) {
+                state = new PendingState(worker.getContext(),
+                        worker.getSliceUpdateThrottleInterval());
+                mStates.put(uri, state);
+            }
+            getStatsLocked(uri).mRequestCount++;
+            if (state.mRequestTime != 0L) {
+                return;
+            }
+
+            state.mRequestTime = now;
+            if (state.mLastNotifyTime == 0L) {
+                // Postpone the first update triggering by onSlicePinned() to avoid being too close
+                // to the first Slice bind.
+                state.mDueTime = now + state.mInterval;
+            } else if (now - state.mLastNotifyTime > state.mInterval) {
+                if (now - state.mLastNotifyTime > 2 * state.mInterval) {
+                    // The worker calmed down, stop backing off.
+                    state.mInterval = state.mBaseInterval;
+                }
+                state.mDueTime = now;
+            } else {
+                state.mDueTime = state.mLastNotifyTime + state.mInterval;
+                state.mThrottled = true;
+            }
+            scheduleFlushLocked();
+        }
+    }
+
+    /**
+     * Drops any pending update of the slice of {@param worker}.
+     */
+    void cancelSliceUpdate(SliceBackgroundWorker worker) {
+        synchronized (this) {
+            mStates.remove(worker.getUri());
+            scheduleFlushLocked();
+        }
+    }
+
+    @Override
+    public void handleMessage(Message msg) {
+        if (msg.what != MSG_FLUSH) {
+            return;
+        }
+
+        final List<Uri> uris = new ArrayList<>();
+        Context context = null;
+        final long now = SystemClock.uptimeMillis();
+        synchronized (this) {
+            for (int i = 0; i < mStates.size(); i++) {
+                final PendingState state = mStates.valueAt(i);
+                if (state.mRequestTime == 0L || state.mDueTime > now + FRAME_WINDOW_MS) {
+                    continue;
+                }
+                final Uri uri = mStates.keyAt(i);
+                getStatsLocked(uri).onNotified(now, now - state.mRequestTime, state.mInterval);
+                if (state.mThrottled) {
+                    state.mInterval = Math.min(state.mInterval * 2,
+                            state.mBaseInterval * MAX_BACKOFF_FACTOR);
+                    state.mThrottled = false;
+                }
+                state.mLastNotifyTime = now;
+                state.mRequestTime = 0L;
+                uris.add(uri);
+                context = state.mContext;
+            }
+            scheduleFlushLocked();
+        }
+
+        if (!uris.isEmpty()) {
+            context.getContentResolver().notifyChange(uris, null /* observer */, 0 /* flags */);
+        }
+    }
+
+    /**
+     * @return the notify count, rate, latency and current interval of every uri for dumpsys.
+     */
+    public synchronized JSONObject dump() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        final long now = SystemClock.uptimeMillis();
+        for (Map.Entry<Uri, UriStats> entry : mStats.entrySet()) {
+            obj.put(entry.getKey().toString(), entry.getValue().toJson(now));
+        }
+        return obj;
+    }
+
+    @VisibleForTesting
+    synchronized long getThrottleInterval(Uri uri) {
+        final PendingState state = mStates.get(uri);
+        return state == null ? 0L : state.mInterval;
+    }
+
+    private UriStats getStatsLocked(Uri uri) {
+        UriStats stats = mStats.get(uri);
+        if (stats == null) {
+            stats = new UriStats();
+            mStats.put(uri, stats);
+        }
+        return stats;
+    }
+
+    private void scheduleFlushLocked() {
+        removeMessages(MSG_FLUSH);
+        long nextDueTime = Long.MAX_VALUE;
+        for (PendingState state : mStates.values()) {
+            if (state.mRequestTime != 0L) {
+                nextDueTime = Math.min(nextDueTime, state.mDueTime);
+            }
+        }
+        if (nextDueTime != Long.MAX_VALUE) {
+            sendEmptyMessageAtTime(MSG_FLUSH, nextDueTime);
+        }
+    }
+
+    /**
+     * Throttling state of a pinned uri.
+     */
+    private static class PendingState {
+        final Context mContext;
+        final long mBaseInterval;
+        long mInterval;
+        long mLastNotifyTime;
+        // Time of the first request merged into the pending update, 0 if none is pending.
+        long mRequestTime;
+        long mDueTime;
+        // Whether the pending update was delayed by the throttle interval.
+        boolean mThrottled;
+
+        PendingState(Context context, long interval) {
+            mContext = context;
+            mBaseInterval = interval;
+            mInterval = interval;
+        }
+    }
+
+    /**
+     * Notification statistics of a uri, kept across pins for dumpsys.
+     */
+    private static class UriStats {
+        long mRequestCount;
+        long mNotifyCount;
+        long mFirstNotifyTime;
+        long mTotalLatency;
+        long mMaxLatency;
+        long mInterval;
+
+        void onNotified(long now, long latency, long interval) {
+            if (mNotifyCount == 0) {
+                mFirstNotifyTime = now;
+            }
+            mNotifyCount++;
+            mTotalLatency += latency;
+            mMaxLatency = Math.max(mMaxLatency, latency);
+            mInterval = interval;
+        }
+
+        JSONObject toJson(long now) throws JSONException {
+            final JSONObject obj = new JSONObject();
+            obj.put("requests", mRequestCount);
+            obj.put("notifies", mNotifyCount);
+            final long elapsed = now - mFirstNotifyTime;
+            obj.put("notifiesPerMinute",
+                    mNotifyCount > 1 && elapsed > 0 ? mNotifyCount * 60_000d / elapsed : 0d);
+            obj.put("avgLatencyMs", mNotifyCount > 0 ? mTotalLatency / mNotifyCount : 0L);
+            obj.put("maxLatencyMs", mMaxLatency);
+            obj.put("intervalMs", mInterval);
+            return obj;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.settings.slices;
+
+import android.content.Context;
+import android.net.Uri;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A size-bounded, strongly referenced cache of {@link SliceData} for the hottest slice uris.
+ *
+ * <p>It sits in front of the weak cache of {@link SettingsSliceProvider}, so slices pinned by
+ * long-lived hosts (Quick Settings panels, launcher cards) survive memory pressure without a
+ * round trip to {@link SlicesDatabaseAccessor}. The most recently pinned uris are persisted so
+ * the cache can be warmed when the provider is created.
+ */
+public class SliceDataCache {
+
+    private static final String SHARED_PREFS_TAG = "slice_data_cache";
+    private static final String PREF_RECENTLY_PINNED_URIS = "recently_pinned_uris";
+    private static final String URI_SEPARATOR = "\n";
+
+    @VisibleForTesting
+    static final int MAX_ENTRIES = 32;
+    @VisibleForTesting
+    static final int MAX_RECENTLY_PINNED_URIS = 16;
+
+    private static SliceDataCache sSingleton;
+
+    private final LruCache<Uri, SliceData> mCache = new LruCache<>(MAX_ENTRIES);
+    private LinkedList<Uri> mRecentlyPinnedUris;
+    private long mHitCount;
+    private long mMissCount;
+
+    /**
+     * @return the process-wide cache, shared by the slice provider and the dump service.
+     */
+    public static synchronized SliceDataCache getInstance() {
+        if (sSingleton == null) {
+            sSingleton = new SliceDataCache();
+        }
+        return sSingleton;
+    }
+
+    @VisibleForTesting
+    SliceDataCache() {
+    }
+
+    /**
+     * @return the cached {@link SliceData} for {@param uri}, counting the lookup as a hit or a
+     * miss.
+     */
+    @Nullable
+    public synchronized SliceData get(Uri uri) {
+        final SliceData sliceData = mCache.get(uri);
+        if (sliceData != null) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+        return sliceData;
+    }
+
+    /**
+     * @return the cached {@link SliceData} for {@param uri} without affecting the counters.
+     */
+    @Nullable
+    synchronized SliceData peek(Uri uri) {
+        return mCache.get(uri);
+    }
+
+    synchronized void put(Uri uri, SliceData sliceData) {
+        mCache.put(uri, sliceData);
+    }
+
+    synchronized void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Records {@param uri} as the most recently pinned slice, to be warmed on the next start.
+     */
+    synchronized void onSlicePinned(Context context, Uri uri) {
+        final LinkedList<Uri> uris = getRecentlyPinnedUrisLocked(context);
+        if (uri.equals(uris.peekFirst())) {
+            return;
+        }
+        uris.remove(uri);
+        uris.addFirst(uri);
+        while (uris.size() > MAX_RECENTLY_PINNED_URIS) {
+            uris.removeLast();
+        }
+        context.getSharedPreferences(SHARED_PREFS_TAG, Context.MODE_PRIVATE)
+                .edit()
+                .putString(PREF_RECENTLY_PINNED_URIS, TextUtils.join(URI_SEPARATOR, uris))
+                .apply();
+    }
+
+    /**
+     * @return the most recently pinned uris, most recent first.
+     */
+    synchronized List<Uri> getRecentlyPinnedUris(Context context) {
+        return new ArrayList<>(getRecentlyPinnedUrisLocked(context));
+    }
+
+    /**
+     * @return the hit/miss counters and size of the cache for dumpsys.
+     */
+    public synchronized JSONObject dump() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        obj.put("size", mCache.size());
+        obj.put("maxSize", mCache.maxSize());
+        obj.put("hits", mHitCount);
+        obj.put("misses", mMissCount);
+        obj.put("evictions", mCache.evictionCount());
+        return obj;
+    }
+
+    @VisibleForTesting
+    synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    @VisibleForTesting
+    synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    private LinkedList<Uri> getRecentlyPinnedUrisLocked(Context context) {
+        if (mRecentlyPinnedUris == null) {
+            mRecentlyPinnedUris = new LinkedList<>();
+            final String value = context.getSharedPreferences(SHARED_PREFS_TAG,
+                    Context.MODE_PRIVATE).getString(PREF_RECENTLY_PINNED_URIS, null);
+            if (!TextUtils.isEmpty(value)) {
+                for (String uri : value.split(URI_SEPARATOR)) {
+                    mRecentlyPinnedUris.add(Uri.parse(uri));
+                }
+            }
+        }
+        return mRecentlyPinnedUris;
+    }
+}
@@ -40,10 +40,13 @@ import android.os.Bundle;
 import android.provider.SearchIndexableResource;
 import android.provider.SettingsSlicesContract;
 import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.Base64;
 import android.util.Log;
 import android.view.accessibility.AccessibilityManager;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
@@ -62,12 +65,24 @@ import com.android.settingslib.search.SearchIndexableData;
 import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Converts all Slice sources into {@link SliceData}.
@@ -79,6 +94,35 @@ class SliceDataConverter {
 
     private static final String TAG = "SliceDataConverter";
 
+    /**
+     * Index group of the slices built from accessibility services, which do not belong to the
+     * search index provider of any fragment.
+     */
+    static final String ACCESSIBILITY_INDEX_GROUP = "accessibility_services";
+
+    /**
+     * Number of threads converting providers in parallel, bounded as the conversion also
+     * competes with the binder threads serving slices.
+     */
+    private static final int PARALLELISM =
+            Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final long EXECUTOR_KEEP_ALIVE_SECONDS = 10;
+
+    /** Metadata of the preferences a slice is built from. */
+    private static final int SLICE_METADATA_FLAGS = MetadataFlag.FLAG_INCLUDE_PREF_SCREEN
+            | MetadataFlag.FLAG_NEED_KEY
+            | MetadataFlag.FLAG_NEED_PREF_CONTROLLER
+            | MetadataFlag.FLAG_NEED_PREF_TYPE
+            | MetadataFlag.FLAG_NEED_PREF_TITLE
+            | MetadataFlag.FLAG_NEED_PREF_ICON
+            | MetadataFlag.FLAG_NEED_PREF_SUMMARY
+            | MetadataFlag.FLAG_UNAVAILABLE_SLICE_SUBTITLE
+            | MetadataFlag.FLAG_NEED_USER_RESTRICTION;
+
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+
+    private static ExecutorService sConversionExecutor;
+
     private final MetricsFeatureProvider mMetricsFeatureProvider;
     private Context mContext;
 
@@ -96,15 +140,49 @@ class SliceDataConverter {
      * - From each fragment, grab a {@link SearchIndexProvider}.
      * - For each provider, collect XML resource layout and a list of
      * {@link com.android.settings.core.BasePreferenceController}.
+     *
+     * @throws InterruptedException if interrupted before every provider was converted, in which
+     *                              case no partial data is returned.
      */
-    public List<SliceData> getSliceData() {
-        List<SliceData> sliceData = new ArrayList<>();
+    public List<SliceData> getSliceData() throws InterruptedException {
+        return getSliceData(null /* indexGroups */);
+    }
+
+    /**
+     * @return a list of {@link SliceData} for the given index groups only, as returned by
+     * {@link #getIndexGroup(SliceData)}. A {@code null} set collects every index group.
+     *
+     * Providers are converted in parallel on multi-core devices.
+     *
+     * @throws InterruptedException if interrupted before every provider was converted.
+     */
+    public List<SliceData> getSliceData(@Nullable Set<String> indexGroups)
+            throws InterruptedException {
+        return getSliceData(indexGroups, PARALLELISM > 1 /* parallel */);
+    }
+
+    /**
+     * @return a list of {@link SliceData} for the given index groups only.
+     *
+     * When {@param parallel} is set, the providers are converted on a bounded executor. The
+     * result keeps the order of the serial conversion, and a provider that fails only drops its
+     * own slices. An interruption fails the whole conversion, as the missing providers would
+     * otherwise look like providers without slices.
+     */
+    @VisibleForTesting
+    List<SliceData> getSliceData(@Nullable Set<String> indexGroups, boolean parallel)
+            throws InterruptedException {
+        final List<Callable<List<SliceData>>> conversions = new ArrayList<>();
+        final List<String> fragmentNames = new ArrayList<>();
 
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFeatureFactory()
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
 
         for (SearchIndexableData bundle : bundles) {
             final String fragmentName = bundle.getTargetClass().getName();
+            if (indexGroups != null && !indexGroups.contains(fragmentName)) {
+                continue;
+            }
 
             final SearchIndexProvider provider = bundle.getSearchIndexProvider();
 
@@ -114,16 +192,206 @@ class SliceDataConverter {
                 continue;
             }
 
-            final List<SliceData> providerSliceData = getSliceDataFromProvider(provider,
-                    fragmentName);
-            sliceData.addAll(providerSliceData);
+            fragmentNames.add(fragmentName);
+            conversions.add(() -> getSliceDataFromProvider(provider, fragmentName));
+        }
+
+        if (indexGroups == null || indexGroups.contains(ACCESSIBILITY_INDEX_GROUP)) {
+            fragmentNames.add(AccessibilitySettings.class.getName());
+            conversions.add(this::getAccessibilitySliceData);
         }
 
-        final List<SliceData> a11ySliceData = getAccessibilitySliceData();
-        sliceData.addAll(a11ySliceData);
+        final List<SliceData> sliceData = new ArrayList<>();
+        if (!parallel) {
+            for (int i = 0; i < conversions.size(); i++) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                sliceData.addAll(runConversion(conversions.get(i), fragmentNames.get(i)));
+            }
+            return sliceData;
+        }
+
+        final ExecutorService executor = getConversionExecutor();
+        final List<Future<List<SliceData>>> futures = new ArrayList<>(conversions.size());
+        for (int i = 0; i < conversions.size(); i++) {
+            final Callable<List<SliceData>> conversion = conversions.get(i);
+            final String fragmentName = fragmentNames.get(i);
+            futures.add(executor.submit(() -> runConversion(conversion, fragmentName)));
+        }
+        // Merge in submission order so the result does not depend on scheduling.
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                sliceData.addAll(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Interrupted while converting slice data", e);
+                for (Future<List<SliceData>> future : futures) {
+                    future.cancel(true /* mayInterruptIfRunning */);
+                }
+                throw e;
+            } catch (ExecutionException e) {
+                // runConversion() catches exceptions, only errors end up here.
+                Log.w(TAG, "Converting " + fragmentNames.get(i) + " failed", e);
+            }
+        }
         return sliceData;
     }
 
+    /**
+     * @return a fingerprint of the sources of every index group, keyed by index group.
+     *
+     * The fingerprint of a fragment is a digest of the preference metadata of the XML resources
+     * its {@link SearchIndexProvider} exposes, as resolved for the current configuration. The
+     * fingerprint of the accessibility group is a digest of the labels and icons of the installed
+     * services allowed to become slices. A fingerprint only changes with the content it covers,
+     * not with the build or locale as such.
+     */
+    public Map<String, String> getFingerprints() {
+        final Map<String, String> fingerprints = new ArrayMap<>();
+
+        final Collection<SearchIndexableData> bundles = FeatureFactory.getFeatureFactory()
+                .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
+
+        for (SearchIndexableData bundle : bundles) {
+            final String fragmentName = bundle.getTargetClass().getName();
+            final SearchIndexProvider provider = bundle.getSearchIndexProvider();
+            if (provider == null) {
+                continue;
+            }
+            fingerprints.put(fragmentName, getProviderFingerprint(provider));
+        }
+
+        fingerprints.put(ACCESSIBILITY_INDEX_GROUP, getAccessibilityFingerprint());
+        return fingerprints;
+    }
+
+    /**
+     * @return the index group of a slice hosted on {@param fragmentName} and backed by
+     * {@param controllerClassName}, i.e. the unit of work that is re-collected together when its
+     * sources change.
+     */
+    static String getIndexGroup(String fragmentName, String controllerClassName) {
+        if (TextUtils.equals(controllerClassName,
+                AccessibilitySlicePreferenceController.class.getName())) {
+            return ACCESSIBILITY_INDEX_GROUP;
+        }
+        return fragmentName;
+    }
+
+    /**
+     * @return the index group {@param data} belongs to.
+     */
+    static String getIndexGroup(SliceData data) {
+        return getIndexGroup(data.getFragmentClassName(), data.getPreferenceController());
+    }
+
+    private String getProviderFingerprint(SearchIndexProvider provider) {
+        final List<SearchIndexableResource> resList =
+                provider.getXmlResourcesToIndex(mContext, true /* enabled */);
+        if (resList == null) {
+            return "";
+        }
+
+        final MessageDigest digest = newDigest();
+        for (SearchIndexableResource resource : resList) {
+            final int xmlResId = resource.xmlResId;
+            update(digest, String.valueOf(xmlResId));
+            try {
+                // The metadata is resolved against the current configuration and overlays, so
+                // the fingerprint follows the titles and summaries that end up in the index.
+                for (Bundle bundle : PreferenceXmlParserUtils.extractMetadata(mContext,
+                        xmlResId, SLICE_METADATA_FLAGS)) {
+                    final List<String> keys = new ArrayList<>(bundle.keySet());
+                    Collections.sort(keys);
+                    for (String key : keys) {
+                        update(digest, key);
+                        update(digest, String.valueOf(bundle.get(key)));
+                    }
+                }
+            } catch (XmlPullParserException | IOException | Resources.NotFoundException e) {
+                // The resource is reported as a parsing error when collecting its slices.
+                update(digest, "unparsable");
+            }
+        }
+        return toString(digest);
+    }
+
+    private String getAccessibilityFingerprint() {
+        final Set<String> a11yServiceNames = new HashSet<>();
+        Collections.addAll(a11yServiceNames, mContext.getResources()
+                .getStringArray(R.array.config_settings_slices_accessibility_components));
+
+        final PackageManager packageManager = mContext.getPackageManager();
+        final Map<String, String> installedServices = new TreeMap<>();
+        for (AccessibilityServiceInfo a11yServiceInfo : getAccessibilityServiceInfoList()) {
+            final ResolveInfo resolveInfo = a11yServiceInfo.getResolveInfo();
+            final ServiceInfo serviceInfo = resolveInfo.serviceInfo;
+            final String flattenedName =
+                    new ComponentName(serviceInfo.packageName, serviceInfo.name)
+                            .flattenToString();
+            if (a11yServiceNames.contains(flattenedName)) {
+                installedServices.put(flattenedName, resolveInfo.loadLabel(packageManager)
+                        + ":" + resolveInfo.getIconResource());
+            }
+        }
+
+        final MessageDigest digest = newDigest();
+        for (Map.Entry<String, String> entry : installedServices.entrySet()) {
+            update(digest, entry.getKey());
+            update(digest, entry.getValue());
+        }
+        return toString(digest);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android runtime provides SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // Separates the values, so that moving characters between them changes the digest.
+        digest.update((byte) 0);
+    }
+
+    private static String toString(MessageDigest digest) {
+        return Base64.encodeToString(digest.digest(), Base64.NO_WRAP);
+    }
+
+    /**
+     * Runs the conversion of a single provider, isolating its failures from the others.
+     */
+    private List<SliceData> runConversion(Callable<List<SliceData>> conversion,
+            String fragmentName) {
+        try {
+            return conversion.call();
+        } catch (Exception e) {
+            Log.w(TAG, "Get slice data from provider failed for " + fragmentName, e);
+            mMetricsFeatureProvider.action(SettingsEnums.PAGE_UNKNOWN,
+                    SettingsEnums.ACTION_VERIFY_SLICE_OTHER_EXCEPTION,
+                    SettingsEnums.PAGE_UNKNOWN,
+                    fragmentName,
+                    1);
+            return Collections.emptyList();
+        }
+    }
+
+    private static synchronized ExecutorService getConversionExecutor() {
+        if (sConversionExecutor == null) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(PARALLELISM, PARALLELISM,
+                    EXECUTOR_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> new Thread(runnable, TAG));
+            // Slices are only indexed after OTAs and locale changes, don't hold on to threads.
+            executor.allowCoreThreadTimeOut(true);
+            sConversionExecutor = executor;
+        }
+        return sConversionExecutor;
+    }
+
     private List<SliceData> getSliceDataFromProvider(SearchIndexProvider provider,
             String fragmentName) {
         final List<SliceData> sliceData = new ArrayList<>();
@@ -161,16 +429,7 @@ class SliceDataConverter {
             // correspond to an actual setting.
 
             final List<Bundle> metadata = PreferenceXmlParserUtils.extractMetadata(mContext,
-                    xmlResId,
-                    MetadataFlag.FLAG_INCLUDE_PREF_SCREEN
-                            | MetadataFlag.FLAG_NEED_KEY
-                            | MetadataFlag.FLAG_NEED_PREF_CONTROLLER
-                            | MetadataFlag.FLAG_NEED_PREF_TYPE
-                            | MetadataFlag.FLAG_NEED_PREF_TITLE
-                            | MetadataFlag.FLAG_NEED_PREF_ICON
-                            | MetadataFlag.FLAG_NEED_PREF_SUMMARY
-                            | MetadataFlag.FLAG_UNAVAILABLE_SLICE_SUBTITLE
-                            | MetadataFlag.FLAG_NEED_USER_RESTRICTION);
+                    xmlResId, SLICE_METADATA_FLAGS);
 
             for (Bundle bundle : metadata) {
                 final String title = bundle.getString(METADATA_TITLE);
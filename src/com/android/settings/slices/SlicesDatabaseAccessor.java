@@ -24,6 +24,9 @@ import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.os.Binder;
 import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
 import android.util.Pair;
 
 import androidx.slice.Slice;
@@ -32,13 +35,24 @@ import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Class used to map a {@link Uri} from {@link SettingsSliceProvider} to a Slice.
  */
 public class SlicesDatabaseAccessor {
 
+    private static final String TAG = "SlicesDatabaseAccessor";
+
+    /**
+     * Keys bound to a single query, below SQLite's default limit of host parameters.
+     */
+    private static final int MAX_KEYS_PER_QUERY = 500;
+
     public static final String[] SELECT_COLUMNS_ALL = {
             IndexColumns.KEY,
             IndexColumns.TITLE,
@@ -89,6 +103,68 @@ public class SlicesDatabaseAccessor {
         }
     }
 
+    /**
+     * Query the slices database once for all {@param uris} and return the {@link SliceData} of
+     * every uri matching exactly one indexed row, keyed by the requested {@link Uri}. Uris that
+     * are invalid or do not match a single row are left out of the result rather than throwing.
+     * Used when several slices are needed at once, e.g. when warming caches for pinned slices.
+     */
+    public Map<Uri, SliceData> getSliceDataFromUris(Collection<Uri> uris) {
+        final Map<Uri, SliceData> sliceDataMap = new ArrayMap<>();
+        // Requested uris per key, a key may be requested as both an action and an intent uri.
+        final Map<String, List<Pair<Uri, Boolean>>> uriMap = new ArrayMap<>();
+        for (Uri uri : uris) {
+            final Pair<Boolean, String> pathData = SliceBuilderUtils.getPathData(uri);
+            if (pathData == null) {
+                Log.w(TAG, "Invalid Slices uri: " + uri);
+                continue;
+            }
+            List<Pair<Uri, Boolean>> keyUris = uriMap.get(pathData.second);
+            if (keyUris == null) {
+                keyUris = new ArrayList<>();
+                uriMap.put(pathData.second, keyUris);
+            }
+            keyUris.add(Pair.create(uri, pathData.first /* isIntentOnly */));
+        }
+        if (uriMap.isEmpty()) {
+            return sliceDataMap;
+        }
+
+        verifyIndexing();
+        final SQLiteDatabase database = mHelper.getReadableDatabase();
+        final List<String> keys = new ArrayList<>(uriMap.keySet());
+        final Set<String> foundKeys = new ArraySet<>();
+        final Set<String> duplicateKeys = new ArraySet<>();
+        for (int start = 0; start < keys.size(); start += MAX_KEYS_PER_QUERY) {
+            final List<String> chunk =
+                    keys.subList(start, Math.min(keys.size(), start + MAX_KEYS_PER_QUERY));
+            try (Cursor cursor = database.query(TABLE_SLICES_INDEX, SELECT_COLUMNS_ALL,
+                    buildKeyInWhereClause(chunk.size()), chunk.toArray(new String[0]),
+                    null /* groupBy */, null /* having */, null /* orderBy */)) {
+                while (cursor.moveToNext()) {
+                    final String key = cursor.getString(cursor.getColumnIndex(IndexColumns.KEY));
+                    if (!foundKeys.add(key)) {
+                        duplicateKeys.add(key);
+                        continue;
+                    }
+                    for (Pair<Uri, Boolean> keyUri : uriMap.get(key)) {
+                        sliceDataMap.put(keyUri.first,
+                                buildSliceData(cursor, keyUri.first, keyUri.second));
+                    }
+                }
+            }
+        }
+
+        // Match getSliceDataFromUri(), which refuses keys matching more than one slice.
+        for (String key : duplicateKeys) {
+            Log.w(TAG, "Should not match more than 1 slice with path: " + key);
+            for (Pair<Uri, Boolean> keyUri : uriMap.get(key)) {
+                sliceDataMap.remove(keyUri.first);
+            }
+        }
+        return sliceDataMap;
+    }
+
     /**
      * @return a list of Slice {@link Uri}s based on their visibility {@param isPublicSlice } and
      * {@param authority}.
@@ -143,6 +219,14 @@ public class SlicesDatabaseAccessor {
         return resultCursor;
     }
 
+    private static String buildKeyInWhereClause(int keyCount) {
+        return new StringBuilder(IndexColumns.KEY)
+                .append(" IN (")
+                .append(TextUtils.join(", ", Collections.nCopies(keyCount, "?")))
+                .append(")")
+                .toString();
+    }
+
     private String buildKeyMatchWhereClause() {
         return new StringBuilder(IndexColumns.KEY)
                 .append(" = ?")
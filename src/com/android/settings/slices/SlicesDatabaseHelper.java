@@ -16,15 +16,20 @@
 
 package com.android.settings.slices;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.os.Build;
+import android.util.ArrayMap;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
 
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Defines the schema for the Slices database.
@@ -36,10 +41,11 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "slices_index.db";
     private static final String SHARED_PREFS_TAG = "slices_shared_prefs";
 
-    private static final int DATABASE_VERSION = 10;
+    private static final int DATABASE_VERSION = 11;
 
     public interface Tables {
         String TABLE_SLICES_INDEX = "slices_index";
+        String TABLE_SLICES_FINGERPRINTS = "slices_fingerprints";
     }
 
     public interface IndexColumns {
@@ -115,6 +121,19 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
         String USER_RESTRICTION = "user_restriction";
     }
 
+    public interface FingerprintColumns {
+        /**
+         * Primary key of the table. The index group, usually the fragment class name, whose
+         * slices were indexed.
+         */
+        String INDEX_GROUP = "index_group";
+
+        /**
+         * Fingerprint of the sources the index group was built from.
+         */
+        String FINGERPRINT = "fingerprint";
+    }
+
     private static final String CREATE_SLICES_TABLE =
             "CREATE VIRTUAL TABLE " + Tables.TABLE_SLICES_INDEX + " USING fts4"
                     + "("
@@ -148,6 +167,15 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
                     + " INTEGER DEFAULT 0 "
                     + ");";
 
+    private static final String CREATE_FINGERPRINTS_TABLE =
+            "CREATE TABLE " + Tables.TABLE_SLICES_FINGERPRINTS
+                    + "("
+                    + FingerprintColumns.INDEX_GROUP
+                    + " TEXT PRIMARY KEY, "
+                    + FingerprintColumns.FINGERPRINT
+                    + " TEXT"
+                    + ");";
+
     private final Context mContext;
 
     private static SlicesDatabaseHelper sSingleton;
@@ -209,13 +237,48 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
         return isBuildIndexed() && isLocaleIndexed();
     }
 
+    /**
+     * @return the fingerprint of every index group currently stored in TABLE_SLICES_INDEX,
+     * keyed by index group.
+     */
+    Map<String, String> getIndexedFingerprints(SQLiteDatabase db) {
+        final Map<String, String> fingerprints = new ArrayMap<>();
+        try (Cursor cursor = db.query(Tables.TABLE_SLICES_FINGERPRINTS,
+                new String[]{FingerprintColumns.INDEX_GROUP, FingerprintColumns.FINGERPRINT},
+                null /* selection */, null /* selectionArgs */, null /* groupBy */,
+                null /* having */, null /* orderBy */)) {
+            while (cursor.moveToNext()) {
+                fingerprints.put(cursor.getString(0), cursor.getString(1));
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Replaces the stored fingerprints with {@param fingerprints}. Should be called in the same
+     * transaction that brings TABLE_SLICES_INDEX up to date with them.
+     */
+    void setIndexedFingerprints(SQLiteDatabase db, Map<String, String> fingerprints) {
+        db.delete(Tables.TABLE_SLICES_FINGERPRINTS, null /* whereClause */,
+                null /* whereArgs */);
+        final ContentValues values = new ContentValues();
+        for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+            values.put(FingerprintColumns.INDEX_GROUP, entry.getKey());
+            values.put(FingerprintColumns.FINGERPRINT, entry.getValue());
+            db.replaceOrThrow(Tables.TABLE_SLICES_FINGERPRINTS, null /* nullColumnHack */,
+                    values);
+        }
+    }
+
     private void createDatabases(SQLiteDatabase db) {
         db.execSQL(CREATE_SLICES_TABLE);
+        db.execSQL(CREATE_FINGERPRINTS_TABLE);
         Log.d(TAG, "Created databases");
     }
 
     private void dropTables(SQLiteDatabase db) {
         db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_SLICES_INDEX);
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.TABLE_SLICES_FINGERPRINTS);
     }
 
     private void setBuildIndexed() {
@@ -244,8 +307,19 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
                 .getBoolean(Locale.getDefault().toString(), false /* default */);
     }
 
+    /**
+     * @return the build and the last update of this package, an update of either can change the
+     * indexed content.
+     */
     @VisibleForTesting
     String getBuildTag() {
-        return Build.FINGERPRINT;
+        long lastUpdateTime = 0;
+        try {
+            lastUpdateTime = mContext.getPackageManager()
+                    .getPackageInfo(mContext.getPackageName(), 0 /* flags */).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.w(TAG, "Package not found", e);
+        }
+        return Build.FINGERPRINT + "/" + lastUpdateTime;
     }
 }
\ No newline at end of file
@@ -16,9 +16,13 @@
 
 package com.android.settings.slices;
 
-import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -29,20 +33,70 @@ import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 import com.android.settings.slices.SlicesDatabaseHelper.Tables;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Manages the conversion of {@link DashboardFragment} and {@link BasePreferenceController} to
  * indexable data {@link SliceData} to be stored for Slices.
+ *
+ * Indexing is incremental: every index group (see {@link SliceDataConverter#getIndexGroup})
+ * is fingerprinted from its content, only the groups whose fingerprint changed since the last
+ * index are re-collected, and only the rows that differ from the stored ones are written.
+ *
+ * Computing the fingerprints parses the XML of every group, so it is kept off the slice bind
+ * path: {@link #indexSliceData()} only indexes when the build, package or locale changed, while
+ * the background indexing from {@link #run()} compares the fingerprints once per process.
  */
 class SlicesIndexer implements Runnable {
 
     private static final String TAG = "SlicesIndexer";
 
+    /**
+     * Columns of {@link Tables#TABLE_SLICES_INDEX} in the order they are bound by
+     * {@link #getRowValues(SliceData)}.
+     */
+    private static final String[] INDEX_COLUMNS = {
+            IndexColumns.KEY,
+            IndexColumns.SLICE_URI,
+            IndexColumns.TITLE,
+            IndexColumns.SUMMARY,
+            IndexColumns.SCREENTITLE,
+            IndexColumns.KEYWORDS,
+            IndexColumns.ICON_RESOURCE,
+            IndexColumns.FRAGMENT,
+            IndexColumns.CONTROLLER,
+            IndexColumns.SLICE_TYPE,
+            IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
+            IndexColumns.PUBLIC_SLICE,
+            IndexColumns.HIGHLIGHT_MENU_RESOURCE,
+            IndexColumns.USER_RESTRICTION,
+    };
+
+    private static final String INSERT_SQL = "INSERT INTO " + Tables.TABLE_SLICES_INDEX
+            + " (" + TextUtils.join(", ", INDEX_COLUMNS) + ") VALUES ("
+            + TextUtils.join(", ", Collections.nCopies(INDEX_COLUMNS.length, "?")) + ")";
+
+    private static final String UPDATE_SQL = "UPDATE " + Tables.TABLE_SLICES_INDEX
+            + " SET " + TextUtils.join(" = ?, ", INDEX_COLUMNS) + " = ? WHERE rowid = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM " + Tables.TABLE_SLICES_INDEX
+            + " WHERE rowid = ?";
+
     private Context mContext;
 
     private SlicesDatabaseHelper mHelper;
 
+    /**
+     * Whether the fingerprints were compared in this process. Content can also change without a
+     * new build, package or locale, e.g. when an overlay or an accessibility service is installed.
+     */
+    private volatile boolean mFingerprintsChecked;
+
     public SlicesIndexer(Context context) {
         mContext = context;
         mHelper = SlicesDatabaseHelper.getInstance(mContext);
@@ -53,7 +107,7 @@ class SlicesIndexer implements Runnable {
      */
     @Override
     public void run() {
-        indexSliceData();
+        indexSliceData(true /* verifyFingerprints */);
     }
 
     /**
@@ -61,66 +115,228 @@ class SlicesIndexer implements Runnable {
      * SQLite database
      */
     protected void indexSliceData() {
-        if (mHelper.isSliceDataIndexed()) {
+        indexSliceData(false /* verifyFingerprints */);
+    }
+
+    /**
+     * @param verifyFingerprints whether to compare the fingerprints once in this process even if
+     *                           the index matches the current build, package and locale.
+     */
+    private void indexSliceData(boolean verifyFingerprints) {
+        if ((mFingerprintsChecked || !verifyFingerprints) && mHelper.isSliceDataIndexed()) {
             Log.d(TAG, "Slices already indexed - returning.");
             return;
         }
 
         final SQLiteDatabase database = mHelper.getWritableDatabase();
 
-        long startTime = System.currentTimeMillis();
+        final long startTime = System.currentTimeMillis();
+        final int rowsWritten;
+        final Set<String> changedGroups = new ArraySet<>();
         database.beginTransaction();
         try {
-            mHelper.reconstruct(database);
-            List<SliceData> indexData = getSliceData();
-            insertSliceData(database, indexData);
+            final Map<String, String> fingerprints = getFingerprints();
+            final Map<String, String> indexedFingerprints =
+                    mHelper.getIndexedFingerprints(database);
 
-            mHelper.setIndexedState();
+            for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+                if (!TextUtils.equals(entry.getValue(),
+                        indexedFingerprints.get(entry.getKey()))) {
+                    changedGroups.add(entry.getKey());
+                }
+            }
+            // Groups which no longer exist are changed as well, all of their rows get deleted.
+            for (String group : indexedFingerprints.keySet()) {
+                if (!fingerprints.containsKey(group)) {
+                    changedGroups.add(group);
+                }
+            }
+
+            final List<SliceData> indexData = changedGroups.isEmpty()
+                    ? Collections.emptyList() : getSliceData(changedGroups);
+            rowsWritten = applySliceData(database, changedGroups, indexData);
 
-            // TODO (b/71503044) Log indexing time.
-            Log.d(TAG,
-                    "Indexing slices database took: " + (System.currentTimeMillis() - startTime));
+            mHelper.setIndexedFingerprints(database, fingerprints);
+            mHelper.setIndexedState();
             database.setTransactionSuccessful();
+        } catch (InterruptedException e) {
+            // Keep the current index and fingerprints, the next indexing collects the groups.
+            Log.w(TAG, "Interrupted while collecting slice data, index left unchanged", e);
+            Thread.currentThread().interrupt();
+            return;
         } finally {
             database.endTransaction();
         }
+        mFingerprintsChecked = true;
+
+        if (rowsWritten > 0) {
+            // Cached slices may have been built from rows that just changed.
+            SliceDataCache.getInstance().clear();
+        }
+
+        final long indexingTime = System.currentTimeMillis() - startTime;
+        Log.d(TAG, "Indexing slices database took: " + indexingTime + ", re-collected "
+                + changedGroups.size() + " groups, wrote " + rowsWritten + " rows");
+    }
+
+    /**
+     * @return the fingerprint of the content of every index group.
+     */
+    @VisibleForTesting
+    Map<String, String> getFingerprints() {
+        return getSliceDataConverter().getFingerprints();
+    }
+
+    @VisibleForTesting
+    List<SliceData> getSliceData(Set<String> indexGroups) throws InterruptedException {
+        return getSliceDataConverter().getSliceData(indexGroups);
+    }
+
+    /**
+     * Brings the rows of {@param changedGroups} in line with {@param indexData}, inserting,
+     * updating and deleting only the rows that differ.
+     *
+     * @return the number of rows written.
+     */
+    @VisibleForTesting
+    int applySliceData(SQLiteDatabase database, Set<String> changedGroups,
+            List<SliceData> indexData) {
+        // Rows currently stored for the changed groups, keyed by slice key.
+        final Map<String, IndexedRow> indexedRows = new ArrayMap<>();
+        final List<IndexedRow> staleRows = new ArrayList<>();
+        for (IndexedRow indexedRow : getIndexedRows(database, changedGroups)) {
+            final IndexedRow duplicateRow = indexedRows.put(indexedRow.getKey(), indexedRow);
+            if (duplicateRow != null) {
+                staleRows.add(duplicateRow);
+            }
+        }
+
+        int rowsWritten = 0;
+        try (SQLiteStatement insert = database.compileStatement(INSERT_SQL);
+             SQLiteStatement update = database.compileStatement(UPDATE_SQL);
+             SQLiteStatement delete = database.compileStatement(DELETE_SQL)) {
+            for (SliceData dataRow : indexData) {
+                final Object[] values = getRowValues(dataRow);
+                final IndexedRow indexedRow = indexedRows.remove(dataRow.getKey());
+                if (indexedRow == null) {
+                    bindRowValues(insert, values);
+                    insert.executeInsert();
+                    rowsWritten++;
+                } else if (!indexedRow.hasValues(values)) {
+                    bindRowValues(update, values);
+                    update.bindLong(values.length + 1, indexedRow.mRowId);
+                    update.executeUpdateDelete();
+                    rowsWritten++;
+                }
+            }
+            staleRows.addAll(indexedRows.values());
+            for (IndexedRow staleRow : staleRows) {
+                delete.bindLong(1, staleRow.mRowId);
+                delete.executeUpdateDelete();
+                rowsWritten++;
+            }
+        }
+        return rowsWritten;
+    }
+
+    private List<IndexedRow> getIndexedRows(SQLiteDatabase database, Set<String> indexGroups) {
+        final List<IndexedRow> rows = new ArrayList<>();
+        if (indexGroups.isEmpty()) {
+            return rows;
+        }
+
+        final String[] projection = new String[INDEX_COLUMNS.length + 1];
+        projection[0] = "rowid";
+        System.arraycopy(INDEX_COLUMNS, 0, projection, 1, INDEX_COLUMNS.length);
+        final int fragmentIndex = Arrays.asList(INDEX_COLUMNS).indexOf(IndexColumns.FRAGMENT);
+        final int controllerIndex =
+                Arrays.asList(INDEX_COLUMNS).indexOf(IndexColumns.CONTROLLER);
+
+        try (Cursor cursor = database.query(Tables.TABLE_SLICES_INDEX, projection,
+                null /* selection */, null /* selectionArgs */, null /* groupBy */,
+                null /* having */, null /* orderBy */)) {
+            while (cursor.moveToNext()) {
+                final String[] values = new String[INDEX_COLUMNS.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = cursor.getString(i + 1);
+                }
+                final String group = SliceDataConverter.getIndexGroup(values[fragmentIndex],
+                        values[controllerIndex]);
+                if (indexGroups.contains(group)) {
+                    rows.add(new IndexedRow(cursor.getLong(0), values));
+                }
+            }
+        }
+        return rows;
     }
 
     @VisibleForTesting
-    List<SliceData> getSliceData() {
+    SliceDataConverter getSliceDataConverter() {
         return FeatureFactory.getFeatureFactory()
                 .getSlicesFeatureProvider()
-                .getSliceDataConverter(mContext)
-                .getSliceData();
+                .getSliceDataConverter(mContext);
     }
 
-    @VisibleForTesting
-    void insertSliceData(SQLiteDatabase database, List<SliceData> indexData) {
-        ContentValues values;
-
-        for (SliceData dataRow : indexData) {
-            values = new ContentValues();
-            values.put(IndexColumns.KEY, dataRow.getKey());
-            values.put(IndexColumns.SLICE_URI, dataRow.getUri().toString());
-            values.put(IndexColumns.TITLE, dataRow.getTitle());
-            values.put(IndexColumns.SUMMARY, dataRow.getSummary());
-            final CharSequence screenTitle = dataRow.getScreenTitle();
-            if (screenTitle != null) {
-                values.put(IndexColumns.SCREENTITLE, screenTitle.toString());
+    /**
+     * @return the column values of {@param dataRow}, ordered as {@link #INDEX_COLUMNS}.
+     */
+    private static Object[] getRowValues(SliceData dataRow) {
+        final CharSequence screenTitle = dataRow.getScreenTitle();
+        return new Object[]{
+                dataRow.getKey(),
+                dataRow.getUri().toString(),
+                dataRow.getTitle(),
+                dataRow.getSummary(),
+                screenTitle != null ? screenTitle.toString() : null,
+                dataRow.getKeywords(),
+                dataRow.getIconResource(),
+                dataRow.getFragmentClassName(),
+                dataRow.getPreferenceController(),
+                dataRow.getSliceType(),
+                dataRow.getUnavailableSliceSubtitle(),
+                dataRow.isPublicSlice() ? 1 : 0,
+                dataRow.getHighlightMenuRes(),
+                dataRow.getUserRestriction(),
+        };
+    }
+
+    private static void bindRowValues(SQLiteStatement statement, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value == null) {
+                statement.bindNull(i + 1);
+            } else if (value instanceof Integer) {
+                statement.bindLong(i + 1, (Integer) value);
+            } else {
+                statement.bindString(i + 1, (String) value);
+            }
+        }
+    }
+
+    /**
+     * A row of {@link Tables#TABLE_SLICES_INDEX} as read back from the database.
+     */
+    private static class IndexedRow {
+        final long mRowId;
+        final String[] mValues;
+
+        IndexedRow(long rowId, String[] values) {
+            mRowId = rowId;
+            mValues = values;
+        }
+
+        String getKey() {
+            return mValues[0];
+        }
+
+        boolean hasValues(Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                final String value = values[i] != null ? String.valueOf(values[i]) : null;
+                if (!TextUtils.equals(value, mValues[i])) {
+                    return false;
+                }
             }
-            values.put(IndexColumns.KEYWORDS, dataRow.getKeywords());
-            values.put(IndexColumns.ICON_RESOURCE, dataRow.getIconResource());
-            values.put(IndexColumns.FRAGMENT, dataRow.getFragmentClassName());
-            values.put(IndexColumns.CONTROLLER, dataRow.getPreferenceController());
-            values.put(IndexColumns.SLICE_TYPE, dataRow.getSliceType());
-            values.put(IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
-                    dataRow.getUnavailableSliceSubtitle());
-            values.put(IndexColumns.PUBLIC_SLICE, dataRow.isPublicSlice());
-            values.put(IndexColumns.HIGHLIGHT_MENU_RESOURCE, dataRow.getHighlightMenuRes());
-            values.put(IndexColumns.USER_RESTRICTION, dataRow.getUserRestriction());
-
-            database.replaceOrThrow(Tables.TABLE_SLICES_INDEX, null /* nullColumnHack */,
-                    values);
+            return true;
         }
     }
 }
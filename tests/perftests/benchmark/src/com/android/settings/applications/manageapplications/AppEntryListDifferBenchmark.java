@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency from submitting a rebuilt list of synthetic {@link AppEntry} to the first
+ * frame after the list is committed, and the snapshot of the list taken on the main thread.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AppEntryListDifferBenchmark {
+
+    private static final int APP_COUNT = 500;
+    private static final int CHANGED_APP_COUNT = 5;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    private ArrayList<AppEntry> mEntries;
+
+    @Before
+    public void setUp() {
+        mEntries = new ArrayList<>(APP_COUNT);
+        for (int i = 0; i < APP_COUNT; i++) {
+            mEntries.add(createEntry(i));
+        }
+    }
+
+    @Test
+    public void submitList_rebuildToFrameLatency() throws InterruptedException {
+        final AppEntryListDiffer differ =
+                new AppEntryListDiffer(new TestAdapter(), 0 /* headerCount */);
+        runOnMainSync(() -> differ.submitList(null, mEntries, false /* contentsChanged */,
+                entries -> {}));
+
+        final BenchmarkState state = mBenchmarkRule.getState();
+        ArrayList<AppEntry> oldEntries = mEntries;
+        int iteration = 0;
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            // A package update: some labels change, one app is removed and another is added.
+            final ArrayList<AppEntry> newEntries = new ArrayList<>(oldEntries);
+            for (int j = 0; j < CHANGED_APP_COUNT; j++) {
+                newEntries.get((j * 7 + iteration) % APP_COUNT).label =
+                        "Changed " + iteration + " " + j;
+            }
+            newEntries.remove(APP_COUNT / 2);
+            newEntries.add(APP_COUNT / 3, createEntry(APP_COUNT + iteration));
+            final CountDownLatch frameLatch = new CountDownLatch(1);
+            final ArrayList<AppEntry> submittedEntries = oldEntries;
+            state.resumeTiming();
+
+            runOnMainSync(() -> differ.submitList(submittedEntries, newEntries,
+                    false /* contentsChanged */,
+                    entries -> Choreographer.getInstance().postFrameCallback(
+                            frameTimeNanos -> frameLatch.countDown())));
+            assertThat(frameLatch.await(5, TimeUnit.SECONDS)).isTrue();
+
+            oldEntries = newEntries;
+            iteration++;
+        }
+    }
+
+    @Test
+    public void takeSnapshots_fiveHundredApps() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            AppEntryListDiffer.takeSnapshots(mEntries);
+        }
+    }
+
+    private static void runOnMainSync(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+
+    private AppEntry createEntry(int index) {
+        final ApplicationInfo info = new ApplicationInfo();
+        info.packageName = "com.example.app" + index;
+        info.uid = 10000 + index;
+        info.sourceDir = "/data/app/" + info.packageName;
+        info.enabled = true;
+        final AppEntry entry = new AppEntry(mContext, info, index);
+        entry.label = "App " + index;
+        entry.sizeStr = index + " MB";
+        entry.mounted = true;
+        return entry;
+    }
+
+    private static class TestAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent,
+                int viewType) {
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {};
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {}
+
+        @Override
+        public int getItemCount() {
+            return 0;
+        }
+    }
+}
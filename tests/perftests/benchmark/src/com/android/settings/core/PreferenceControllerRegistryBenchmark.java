@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_CONTROLLER;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEY;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.android.settings.R;
+import com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * Measures the instantiation of the controllers declared in preference xml through reflection
+ * and through {@link PreferenceControllerRegistry}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PreferenceControllerRegistryBenchmark {
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+    private Map<String, String> mControllers;
+
+    @Before
+    public void setUp() throws Exception {
+        mControllers = getRegisteredControllers();
+        // Drop controllers that can't be created in this process.
+        for (Map.Entry<String, String> entry : new ArrayMap<>(mControllers).entrySet()) {
+            try {
+                createReflectively(entry.getKey(), entry.getValue());
+                BasePreferenceController.createInstance(mContext, entry.getKey(),
+                        entry.getValue());
+            } catch (Exception e) {
+                mControllers.remove(entry.getKey());
+            }
+        }
+    }
+
+    @Test
+    public void createInstance_reflection() throws Exception {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (Map.Entry<String, String> entry : mControllers.entrySet()) {
+                createReflectively(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void createInstance_registry() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            for (Map.Entry<String, String> entry : mControllers.entrySet()) {
+                BasePreferenceController.createInstance(mContext, entry.getKey(),
+                        entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return the key of every controller declared in preference xml that the registry knows.
+     */
+    private Map<String, String> getRegisteredControllers() throws Exception {
+        final Map<String, String> controllers = new ArrayMap<>();
+        for (Field field : R.xml.class.getFields()) {
+            for (Bundle metadata : PreferenceXmlParserUtils.extractMetadata(mContext,
+                    field.getInt(null), MetadataFlag.FLAG_NEED_KEY
+                            | MetadataFlag.FLAG_NEED_PREF_CONTROLLER
+                            | MetadataFlag.FLAG_INCLUDE_PREF_SCREEN)) {
+                final String controller = metadata.getString(METADATA_CONTROLLER);
+                final String key = metadata.getString(METADATA_KEY);
+                if (!TextUtils.isEmpty(controller) && !TextUtils.isEmpty(key)
+                        && PreferenceControllerRegistry.contains(controller)) {
+                    controllers.put(controller, key);
+                }
+            }
+        }
+        return controllers;
+    }
+
+    private Object createReflectively(String controllerName, String key) throws Exception {
+        return Class.forName(controllerName).getConstructor(Context.class, String.class)
+                .newInstance(mContext, key);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+
+/**
+ * Measures the cold start tile load of {@link CategoryManager} with and without a tile snapshot
+ * on disk.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CategoryManagerBenchmark {
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    private TileDiskCache mTileDiskCache;
+
+    @Before
+    public void setUp() {
+        mTileDiskCache = new TileDiskCache(
+                new File(mContext.getCacheDir(), "category_manager_benchmark"));
+        mTileDiskCache.delete();
+    }
+
+    @After
+    public void tearDown() {
+        mTileDiskCache.delete();
+    }
+
+    @Test
+    public void getCategories_coldStartWithoutSnapshot() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            new CategoryManager(mContext, mTileDiskCache).getCategories(mContext);
+            state.pauseTiming();
+            // Loading writes a snapshot for the next cold start.
+            mTileDiskCache.delete();
+            state.resumeTiming();
+        }
+    }
+
+    @Test
+    public void getCategories_coldStartWithSnapshot() {
+        mTileDiskCache.write(mTileDiskCache.marshall(
+                new CategoryManager(mContext, mTileDiskCache).getCategories(mContext)));
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            new CategoryManager(mContext, mTileDiskCache).getCategories(mContext);
+        }
+    }
+}
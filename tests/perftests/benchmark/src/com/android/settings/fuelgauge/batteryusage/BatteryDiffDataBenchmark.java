@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.util.ArrayMap;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures the interpolation and the hourly diff computation of six days of battery history,
+ * through {@link DataProcessor#getHistoryMapWithExpectedTimestamps} and {@link
+ * DataProcessor#getBatteryDiffDataMap}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BatteryDiffDataBenchmark {
+
+    private static final int HOURS = (int) Duration.ofDays(6).toHours();
+    private static final int UIDS = 300;
+    // 2022-01-01 00:00:00 UTC, history is recorded 10 minutes after each sharp hour.
+    private static final long START_TIMESTAMP = 1640995200000L;
+    private static final long RECORD_OFFSET = Duration.ofMinutes(10).toMillis();
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    private Map<Long, Map<String, BatteryHistEntry>> mBatteryHistoryMap;
+
+    @Before
+    public void setUp() {
+        DataProcessor.sTestCurrentTimeMillis =
+                START_TIMESTAMP + Duration.ofHours(HOURS).toMillis() + RECORD_OFFSET;
+        mBatteryHistoryMap = new ArrayMap<>();
+        for (int hour = 0; hour <= HOURS; hour++) {
+            final long timestamp =
+                    START_TIMESTAMP + Duration.ofHours(hour).toMillis() + RECORD_OFFSET;
+            final Map<String, BatteryHistEntry> entryMap = new ArrayMap<>();
+            for (int uid = 0; uid < UIDS; uid++) {
+                final BatteryHistEntry entry =
+                        createBatteryHistEntry(10000L + uid, timestamp, hour);
+                entryMap.put(entry.getKey(), entry);
+            }
+            mBatteryHistoryMap.put(timestamp, entryMap);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        DataProcessor.sTestCurrentTimeMillis = 0;
+    }
+
+    @Test
+    public void getHistoryMapWithExpectedTimestamps_sixDaysOfHistory() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            DataProcessor.getHistoryMapWithExpectedTimestamps(mContext, mBatteryHistoryMap);
+        }
+    }
+
+    @Test
+    public void getBatteryDiffDataMap_sixDaysOfHistory() {
+        final Map<Long, Map<String, BatteryHistEntry>> processedHistoryMap =
+                DataProcessor.getHistoryMapWithExpectedTimestamps(mContext, mBatteryHistoryMap);
+        final BatteryLevelData batteryLevelData = createBatteryLevelData(processedHistoryMap);
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            DataProcessor.getBatteryDiffDataMap(
+                    mContext,
+                    batteryLevelData.getHourlyBatteryLevelsPerDay(),
+                    processedHistoryMap,
+                    /* appUsagePeriodMap= */ null,
+                    Set.of(),
+                    Set.of());
+        }
+    }
+
+    private static BatteryLevelData createBatteryLevelData(
+            Map<Long, Map<String, BatteryHistEntry>> processedHistoryMap) {
+        final Map<Long, Integer> batteryLevelMap = new ArrayMap<>();
+        for (Long timestamp : processedHistoryMap.keySet()) {
+            batteryLevelMap.put(timestamp, 50);
+        }
+        return new BatteryLevelData(batteryLevelMap);
+    }
+
+    private static BatteryHistEntry createBatteryHistEntry(long uid, long timestamp, int hour) {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setDeviceBatteryState(
+                                DeviceBatteryState.newBuilder().setBatteryLevel(50).build())
+                        .setAppLabel("App " + uid)
+                        .setBootTimestamp(0L)
+                        .setConsumePower(hour * 0.5)
+                        .setForegroundUsageConsumePower(hour * 0.3)
+                        .setBackgroundUsageConsumePower(hour * 0.2)
+                        .setForegroundUsageTimeInMs(hour * 60000L)
+                        .setBackgroundUsageTimeInMs(hour * 30000L)
+                        .build();
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_PACKAGE_NAME, "com.example.app" + uid);
+        values.put(BatteryHistEntry.KEY_UID, uid);
+        values.put(BatteryHistEntry.KEY_USER_ID, 0L);
+        values.put(BatteryHistEntry.KEY_TIMESTAMP, timestamp);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
+        return new BatteryHistEntry(values);
+    }
+}
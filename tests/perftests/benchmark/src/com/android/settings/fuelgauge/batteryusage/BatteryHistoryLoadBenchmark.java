@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.util.Base64;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.android.settings.fuelgauge.batteryusage.db.BatteryState;
+import com.android.settings.fuelgauge.batteryusage.db.BatteryStateDao;
+import com.android.settings.fuelgauge.batteryusage.db.BatteryStateDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures loading six days of battery history through
+ * {@link DatabaseUtils#getHistoryMapSinceQueryTimestamp}, from the stored proto bytes and from
+ * the legacy Base64 encoded strings.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BatteryHistoryLoadBenchmark {
+
+    private static final int HOURS = (int) Duration.ofDays(6).toHours();
+    private static final int UIDS = 300;
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    private BatteryStateDatabase mDatabase;
+    private BatteryStateDao mDao;
+
+    @Before
+    public void setUp() {
+        mDatabase =
+                Room.inMemoryDatabaseBuilder(mContext, BatteryStateDatabase.class)
+                        .allowMainThreadQueries()
+                        .build();
+        mDao = mDatabase.batteryStateDao();
+        final long startTimestamp = System.currentTimeMillis() - Duration.ofDays(6).toMillis();
+        for (int hour = 0; hour < HOURS; hour++) {
+            final long timestamp = startTimestamp + Duration.ofHours(hour).toMillis();
+            final List<BatteryState> states = new ArrayList<>(UIDS);
+            for (int uid = 0; uid < UIDS; uid++) {
+                states.add(createBatteryState(10000L + uid, timestamp, hour));
+            }
+            mDao.insertAll(states);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseUtils.sFakeSupplier = null;
+        mDatabase.close();
+    }
+
+    @Test
+    public void getHistoryMapSinceQueryTimestamp_blob() {
+        DatabaseUtils.sFakeSupplier = () -> mDao.getBatteryStatesAfter(0L);
+        measureGetHistoryMap();
+    }
+
+    @Test
+    public void getHistoryMapSinceQueryTimestamp_string() {
+        DatabaseUtils.sFakeSupplier = this::createLegacyCursor;
+        measureGetHistoryMap();
+    }
+
+    private void measureGetHistoryMap() {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            DatabaseUtils.getHistoryMapSinceQueryTimestamp(mContext, 0L);
+        }
+    }
+
+    /** Copies the stored rows into a cursor holding the battery information as strings. */
+    private Cursor createLegacyCursor() {
+        try (Cursor cursor = mDao.getBatteryStatesAfter(0L)) {
+            final MatrixCursor legacyCursor = new MatrixCursor(cursor.getColumnNames());
+            final int informationIndex =
+                    cursor.getColumnIndex(BatteryHistEntry.KEY_BATTERY_INFORMATION);
+            while (cursor.moveToNext()) {
+                final Object[] row = new Object[cursor.getColumnCount()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] =
+                            i == informationIndex
+                                    ? Base64.encodeToString(cursor.getBlob(i), Base64.DEFAULT)
+                                    : cursor.getString(i);
+                }
+                legacyCursor.addRow(row);
+            }
+            return legacyCursor;
+        }
+    }
+
+    private static BatteryState createBatteryState(long uid, long timestamp, int hour) {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setDeviceBatteryState(
+                                DeviceBatteryState.newBuilder()
+                                        .setBatteryLevel(100 - hour % 100)
+                                        .build())
+                        .setAppLabel("App " + uid)
+                        .setZoneId("UTC")
+                        .setBootTimestamp(Duration.ofHours(hour).toMillis())
+                        .setTotalPower(1000)
+                        .setConsumePower(hour * 0.5)
+                        .setForegroundUsageConsumePower(hour * 0.3)
+                        .setBackgroundUsageConsumePower(hour * 0.2)
+                        .setForegroundUsageTimeInMs(hour * 60000L)
+                        .setBackgroundUsageTimeInMs(hour * 30000L)
+                        .build();
+        return BatteryState.newBuilder()
+                .setUid(uid)
+                .setUserId(0L)
+                .setPackageName("com.example.app" + uid)
+                .setTimestamp(timestamp)
+                .setConsumerType(ConvertUtils.CONSUMER_TYPE_UID_BATTERY)
+                .setBatteryInformation(batteryInformation.toByteArray())
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the serial and parallel conversion of the full slice index.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SliceDataConverterBenchmark {
+
+    @Rule
+    public final BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private SliceDataConverter mSliceDataConverter;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        mSliceDataConverter = new SliceDataConverter(context);
+    }
+
+    @Test
+    public void getSliceData_serial() throws Exception {
+        measureGetSliceData(false /* parallel */);
+    }
+
+    @Test
+    public void getSliceData_parallel() throws Exception {
+        assumeTrue(Runtime.getRuntime().availableProcessors() > 1);
+        measureGetSliceData(true /* parallel */);
+    }
+
+    private void measureGetSliceData(boolean parallel) throws Exception {
+        final BenchmarkState state = mBenchmarkRule.getState();
+        while (state.keepRunning()) {
+            mSliceDataConverter.getSliceData(null /* indexGroups */, parallel);
+        }
+    }
+}
@@ -126,4 +126,10 @@ public class PowerButtonEndsCallPreferenceControllerTest {
                 Settings.Secure.INCALL_POWER_BUTTON_BEHAVIOR, UNKNOWN))
                 .isEqualTo(Settings.Secure.INCALL_POWER_BUTTON_BEHAVIOR_SCREEN_OFF);
     }
+
+    @Test
+    public void getStateDependencies_shouldContainIncallPowerButtonSetting() {
+        assertThat(mController.getStateDependencies().getUris()).containsExactly(
+                Settings.Secure.getUriFor(Settings.Secure.INCALL_POWER_BUTTON_BEHAVIOR));
+    }
 }
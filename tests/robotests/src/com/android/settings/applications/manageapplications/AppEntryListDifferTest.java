@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.pm.ApplicationInfo;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppEntryListDifferTest {
+
+    private final List<String> mEvents = new ArrayList<>();
+    private final List<Runnable> mBackgroundTasks = new ArrayList<>();
+
+    private TestAdapter mAdapter;
+    private ArrayList<AppEntry> mCommittedEntries;
+
+    @Before
+    public void setUp() {
+        mAdapter = new TestAdapter();
+        mAdapter.registerAdapterDataObserver(new RecordingObserver());
+    }
+
+    @Test
+    public void submitList_fromEmptyList_commitsWithFullRefresh() {
+        final AppEntryListDiffer differ = createDiffer(0 /* headerCount */);
+        final ArrayList<AppEntry> entries = createEntries("a", "b");
+
+        differ.submitList(null, entries, false /* contentsChanged */, this::commit);
+
+        assertThat(mCommittedEntries).isSameInstanceAs(entries);
+        assertThat(mEvents).containsExactly("changed");
+        assertThat(mBackgroundTasks).isEmpty();
+    }
+
+    @Test
+    public void submitList_insertAndRemove_dispatchesItemEvents() {
+        final AppEntryListDiffer differ = createDiffer(0 /* headerCount */);
+        final ArrayList<AppEntry> oldEntries = createEntries("a", "b", "c");
+        differ.submitList(null, oldEntries, false /* contentsChanged */, this::commit);
+        mEvents.clear();
+        final ArrayList<AppEntry> newEntries = new ArrayList<>(oldEntries);
+        newEntries.remove(1);
+        newEntries.add(createEntry("d", 4));
+
+        differ.submitList(oldEntries, newEntries, false /* contentsChanged */, this::commit);
+        assertThat(mCommittedEntries).isSameInstanceAs(oldEntries);
+        runBackgroundTasks();
+
+        assertThat(mCommittedEntries).isSameInstanceAs(newEntries);
+        assertThat(mEvents).containsExactly("inserted 3+1", "removed 1+1");
+    }
+
+    @Test
+    public void submitList_labelChangedInPlace_dispatchesChange() {
+        final AppEntryListDiffer differ = createDiffer(0 /* headerCount */);
+        final ArrayList<AppEntry> entries = createEntries("a", "b");
+        differ.submitList(null, entries, false /* contentsChanged */, this::commit);
+        mEvents.clear();
+
+        entries.get(1).label = "b2";
+        differ.submitList(entries, new ArrayList<>(entries), false /* contentsChanged */,
+                this::commit);
+        runBackgroundTasks();
+
+        assertThat(mEvents).containsExactly("changed 1+1");
+    }
+
+    @Test
+    public void submitList_withHeader_offsetsPositions() {
+        final AppEntryListDiffer differ = createDiffer(1 /* headerCount */);
+        final ArrayList<AppEntry> oldEntries = createEntries("a", "b");
+        differ.submitList(null, oldEntries, false /* contentsChanged */, this::commit);
+        mEvents.clear();
+
+        differ.submitList(oldEntries, new ArrayList<>(oldEntries.subList(0, 1)),
+                false /* contentsChanged */, this::commit);
+        runBackgroundTasks();
+
+        assertThat(mEvents).containsExactly("removed 2+1");
+    }
+
+    @Test
+    public void submitList_contentsChanged_rebindsKeptRows() {
+        final AppEntryListDiffer differ = createDiffer(0 /* headerCount */);
+        final ArrayList<AppEntry> entries = createEntries("a", "b");
+        differ.submitList(null, entries, false /* contentsChanged */, this::commit);
+        mEvents.clear();
+
+        differ.submitList(entries, new ArrayList<>(entries), true /* contentsChanged */,
+                this::commit);
+        runBackgroundTasks();
+
+        assertThat(mEvents).containsExactly("changed 0+2");
+    }
+
+    @Test
+    public void submitList_supersededList_notCommitted() {
+        final AppEntryListDiffer differ = createDiffer(0 /* headerCount */);
+        final ArrayList<AppEntry> oldEntries = createEntries("a", "b");
+        differ.submitList(null, oldEntries, false /* contentsChanged */, this::commit);
+        final ArrayList<AppEntry> staleEntries = createEntries("a");
+        final ArrayList<AppEntry> latestEntries = createEntries("b");
+
+        differ.submitList(oldEntries, staleEntries, false /* contentsChanged */, this::commit);
+        differ.submitList(oldEntries, latestEntries, false /* contentsChanged */, this::commit);
+        final List<ArrayList<AppEntry>> committed = new ArrayList<>();
+        mBackgroundTasks.get(0).run();
+        committed.add(mCommittedEntries);
+        mBackgroundTasks.get(1).run();
+        committed.add(mCommittedEntries);
+
+        assertThat(committed.get(0)).isSameInstanceAs(oldEntries);
+        assertThat(committed.get(1)).isSameInstanceAs(latestEntries);
+    }
+
+    @Test
+    public void entrySnapshot_sameApp_identifiedByPackageNameAndUid() {
+        final AppEntry entry = createEntry("a", 1);
+        final AppEntry otherUserEntry = createEntry("a", 2);
+        otherUserEntry.info.uid = 1100001;
+
+        final List<AppEntryListDiffer.EntrySnapshot> snapshots =
+                AppEntryListDiffer.takeSnapshots(List.of(entry, createEntry("a", 3),
+                        otherUserEntry));
+
+        assertThat(snapshots.get(0).isSameApp(snapshots.get(1))).isTrue();
+        assertThat(snapshots.get(0).isSameApp(snapshots.get(2))).isFalse();
+    }
+
+    private AppEntryListDiffer createDiffer(int headerCount) {
+        return new AppEntryListDiffer(mAdapter, headerCount, mBackgroundTasks::add, Runnable::run);
+    }
+
+    private void commit(ArrayList<AppEntry> entries) {
+        mCommittedEntries = entries;
+    }
+
+    private void runBackgroundTasks() {
+        final List<Runnable> tasks = new ArrayList<>(mBackgroundTasks);
+        mBackgroundTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private static ArrayList<AppEntry> createEntries(String... packageNames) {
+        final ArrayList<AppEntry> entries = new ArrayList<>();
+        for (int i = 0; i < packageNames.length; i++) {
+            entries.add(createEntry(packageNames[i], i));
+        }
+        return entries;
+    }
+
+    private static AppEntry createEntry(String packageName, long id) {
+        final ApplicationInfo info = new ApplicationInfo();
+        info.packageName = packageName;
+        info.uid = 10001;
+        info.sourceDir = "abc";
+        final AppEntry entry = new AppEntry(RuntimeEnvironment.application, info, id);
+        entry.label = packageName;
+        return entry;
+    }
+
+    private class RecordingObserver extends RecyclerView.AdapterDataObserver {
+        @Override
+        public void onChanged() {
+            mEvents.add("changed");
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            mEvents.add("changed " + positionStart + "+" + itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mEvents.add("inserted " + positionStart + "+" + itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mEvents.add("removed " + positionStart + "+" + itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mEvents.add("moved " + fromPosition + ">" + toPosition);
+        }
+    }
+
+    private static class TestAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent,
+                int viewType) {
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {};
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {}
+
+        @Override
+        public int getItemCount() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import android.content.pm.ApplicationInfo;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppSearchIndexTest {
+
+    @Test
+    public void normalize_removesAccentsAndFoldsCase() {
+        assertThat(AppSearchIndex.normalize("Café Crème", Locale.US)).isEqualTo("cafe creme");
+        assertThat(AppSearchIndex.normalize(null, Locale.US)).isEmpty();
+    }
+
+    @Test
+    public void normalize_usesLocaleCaseRules() {
+        assertThat(AppSearchIndex.normalize("TITLE", new Locale("tr"))).isEqualTo("tıtle");
+    }
+
+    @Test
+    public void search_matchesLabelIgnoringAccentsAndCase() {
+        final List<AppEntry> entries = createEntries(
+                new String[] {"Café", "Maps", "Écran"}, new String[] {"a.cafe", "b.maps", "c.e"});
+        final AppSearchIndex index = new AppSearchIndex(entries, Locale.US);
+
+        assertThat(labels(index.search("CAFE"))).containsExactly("Café");
+        assertThat(labels(index.search("écr"))).containsExactly("Écran");
+    }
+
+    @Test
+    public void search_matchesPackageName() {
+        final List<AppEntry> entries = createEntries(
+                new String[] {"Camera", "Maps"},
+                new String[] {"com.android.camera2", "com.google.android.apps.maps"});
+        final AppSearchIndex index = new AppSearchIndex(entries, Locale.US);
+
+        assertThat(labels(index.search("google"))).containsExactly("Maps");
+    }
+
+    @Test
+    public void search_extendedQuery_narrowsPreviousMatchesInOrder() {
+        final List<AppEntry> entries = createEntries(
+                new String[] {"Apricot", "Banana", "Cantaloupe", "Fig", "Mango"},
+                new String[] {"p.a", "p.b", "p.c", "p.f", "p.m"});
+        final AppSearchIndex index = new AppSearchIndex(entries, Locale.US);
+
+        assertThat(labels(index.search("a"))).containsExactly(
+                "Apricot", "Banana", "Cantaloupe", "Mango").inOrder();
+        assertThat(labels(index.search("an"))).containsExactly(
+                "Banana", "Cantaloupe", "Mango").inOrder();
+        assertThat(labels(index.search("ang"))).containsExactly("Mango");
+        // A shorter query searches the whole list again.
+        assertThat(labels(index.search("ap"))).containsExactly("Apricot");
+    }
+
+    @Test
+    public void search_entryWithoutInfo_matchesLabelOnly() {
+        final AppEntry entry = mock(AppEntry.class);
+        entry.label = "Fig";
+        final AppSearchIndex index = new AppSearchIndex(List.of(entry), Locale.US);
+
+        assertThat(index.search("fi")).containsExactly(entry);
+    }
+
+    @Test
+    public void isBuiltFrom_differentListOrLocale_returnsFalse() {
+        final List<AppEntry> entries = createEntries(new String[] {"Fig"}, new String[] {"p.f"});
+        final AppSearchIndex index = new AppSearchIndex(entries, Locale.US);
+
+        assertThat(index.isBuiltFrom(entries, Locale.US)).isTrue();
+        assertThat(index.isBuiltFrom(new ArrayList<>(entries), Locale.US)).isFalse();
+        assertThat(index.isBuiltFrom(entries, Locale.FRANCE)).isFalse();
+    }
+
+    private static List<AppEntry> createEntries(String[] labels, String[] packageNames) {
+        final List<AppEntry> entries = new ArrayList<>();
+        for (int i = 0; i < labels.length; i++) {
+            final AppEntry entry = mock(AppEntry.class);
+            entry.label = labels[i];
+            entry.info = new ApplicationInfo();
+            entry.info.packageName = packageNames[i];
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static List<String> labels(List<AppEntry> entries) {
+        final List<String> labels = new ArrayList<>();
+        for (AppEntry entry : entries) {
+            labels.add(entry.label);
+        }
+        return labels;
+    }
+}
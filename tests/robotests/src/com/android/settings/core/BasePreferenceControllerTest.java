@@ -215,6 +215,48 @@ public class BasePreferenceControllerTest {
         assertThat(category).isEqualTo(SettingsEnums.DISPLAY);
     }
 
+    @Test
+    public void createInstance_registeredController_shouldCreateController() {
+        final String controllerName =
+                "com.android.settings.accessibility.CaptioningTogglePreferenceController";
+        assertThat(PreferenceControllerRegistry.contains(controllerName)).isTrue();
+
+        final BasePreferenceController controller =
+                BasePreferenceController.createInstance(mContext, controllerName, KEY);
+
+        assertThat(controller.getClass().getName()).isEqualTo(controllerName);
+        assertThat(controller.getPreferenceKey()).isEqualTo(KEY);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void createInstance_registeredControllerWithoutContextConstructor_shouldCrash() {
+        BasePreferenceController.createInstance(mContext,
+                "com.android.settings.accessibility.CaptioningTogglePreferenceController");
+    }
+
+    @Test
+    public void createInstance_unregisteredController_shouldUseReflection() {
+        final String controllerName = ReflectedPreferenceController.class.getName();
+        assertThat(PreferenceControllerRegistry.contains(controllerName)).isFalse();
+
+        final BasePreferenceController controller =
+                BasePreferenceController.createInstance(mContext, controllerName, KEY);
+
+        assertThat(controller).isInstanceOf(ReflectedPreferenceController.class);
+    }
+
+    public static class ReflectedPreferenceController extends BasePreferenceController {
+
+        public ReflectedPreferenceController(Context context, String preferenceKey) {
+            super(context, preferenceKey);
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            return AVAILABLE;
+        }
+    }
+
     private class FakeBasePreferenceController extends BasePreferenceController {
 
         private int mAvailable;
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_PREF_TYPE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_SEARCHABLE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_TITLE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.util.TypedValue;
+
+import com.android.settings.R;
+import com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceMetadataIndexTest {
+
+    private static final String SCREEN = "top_level_settings";
+    private static final String BUILD_TOKEN = "build";
+    private static final int FLAGS = MetadataFlag.FLAG_NEED_KEY | MetadataFlag.FLAG_NEED_PREF_TITLE
+            | MetadataFlag.FLAG_NEED_PREF_TYPE | MetadataFlag.FLAG_NEED_SEARCHABLE;
+
+    private Context mContext;
+    private int mAssetCookie;
+    private byte[] mDigest;
+
+    @Before
+    public void setUp() throws IOException, XmlPullParserException {
+        mContext = getApplicationContext();
+        final TypedValue value = new TypedValue();
+        mContext.getResources().getValue(R.xml.top_level_settings, value, true /* resolveRefs */);
+        mAssetCookie = value.assetCookie;
+        mDigest = PreferenceMetadataIndex.computeContentDigest(mContext.getResources(),
+                R.xml.top_level_settings);
+    }
+
+    @Test
+    public void extractMetadata_indexedScreen_shouldResolveValues() throws IOException {
+        final PreferenceMetadataIndex index = new PreferenceMetadataIndex(
+                buildIndex(SCREEN, mDigest, "@string/location_settings_title"), mAssetCookie);
+
+        final List<Bundle> metadata = index.extractMetadata(mContext, R.xml.top_level_settings,
+                FLAGS);
+
+        assertThat(metadata).hasSize(1);
+        final Bundle bundle = metadata.get(0);
+        assertThat(bundle.getString(METADATA_PREF_TYPE)).isEqualTo("Preference");
+        assertThat(bundle.getString(METADATA_KEY)).isEqualTo("test_key");
+        assertThat(bundle.getString(METADATA_TITLE))
+                .isEqualTo(mContext.getString(R.string.location_settings_title));
+        assertThat(bundle.getBoolean(METADATA_SEARCHABLE)).isFalse();
+    }
+
+    @Test
+    public void extractMetadata_includePrefScreen_shouldContainScreen() throws IOException {
+        final PreferenceMetadataIndex index = new PreferenceMetadataIndex(
+                buildIndex(SCREEN, mDigest, "Title"), mAssetCookie);
+
+        final List<Bundle> metadata = index.extractMetadata(mContext, R.xml.top_level_settings,
+                FLAGS | MetadataFlag.FLAG_INCLUDE_PREF_SCREEN);
+
+        assertThat(metadata).hasSize(2);
+        assertThat(metadata.get(0).getString(METADATA_PREF_TYPE))
+                .isEqualTo(PreferenceXmlParserUtils.PREF_SCREEN_TAG);
+        assertThat(metadata.get(0).getBoolean(METADATA_SEARCHABLE)).isTrue();
+        assertThat(metadata.get(1).getString(METADATA_TITLE)).isEqualTo("Title");
+    }
+
+    @Test
+    public void extractMetadata_screenNotIndexed_returnNull() throws IOException {
+        final PreferenceMetadataIndex index = new PreferenceMetadataIndex(
+                buildIndex("other_settings", mDigest, "Title"), mAssetCookie);
+
+        assertThat(index.extractMetadata(mContext, R.xml.top_level_settings, FLAGS)).isNull();
+    }
+
+    @Test
+    public void extractMetadata_screenFromOtherApk_returnNull() throws IOException {
+        final PreferenceMetadataIndex index = new PreferenceMetadataIndex(
+                buildIndex(SCREEN, mDigest, "Title"), mAssetCookie + 1);
+
+        assertThat(index.extractMetadata(mContext, R.xml.top_level_settings, FLAGS)).isNull();
+    }
+
+    @Test
+    public void extractMetadata_unresolvedReference_returnNull() throws IOException {
+        final PreferenceMetadataIndex index = new PreferenceMetadataIndex(
+                buildIndex(SCREEN, mDigest, "@string/no_such_string_for_test"), mAssetCookie);
+
+        assertThat(index.extractMetadata(mContext, R.xml.top_level_settings, FLAGS)).isNull();
+    }
+
+    @Test
+    public void extractMetadata_packagedXmlDiffersFromIndex_returnNull() throws IOException {
+        final byte[] digest = mDigest.clone();
+        digest[0]++;
+        final PreferenceMetadataIndex index = new PreferenceMetadataIndex(
+                buildIndex(SCREEN, digest, "Title"), mAssetCookie);
+
+        assertThat(index.extractMetadata(mContext, R.xml.top_level_settings, FLAGS)).isNull();
+    }
+
+    @Test
+    public void extractMetadata_verifiedInSameBuild_doesNotCompareAgain() throws IOException {
+        final SharedPreferences prefs = getVerifiedScreensPrefs();
+        new PreferenceMetadataIndex(buildIndex(SCREEN, mDigest, "Title"), mAssetCookie, prefs,
+                BUILD_TOKEN).extractMetadata(mContext, R.xml.top_level_settings, FLAGS);
+
+        // A new process of the same build trusts the persisted outcome, even for a stale digest.
+        final byte[] digest = mDigest.clone();
+        digest[0]++;
+        final PreferenceMetadataIndex index = new PreferenceMetadataIndex(
+                buildIndex(SCREEN, digest, "Title"), mAssetCookie, prefs, BUILD_TOKEN);
+
+        assertThat(index.extractMetadata(mContext, R.xml.top_level_settings, FLAGS)).hasSize(1);
+    }
+
+    @Test
+    public void extractMetadata_verifiedInOtherBuild_comparesAgain() throws IOException {
+        final SharedPreferences prefs = getVerifiedScreensPrefs();
+        new PreferenceMetadataIndex(buildIndex(SCREEN, mDigest, "Title"), mAssetCookie, prefs,
+                BUILD_TOKEN).extractMetadata(mContext, R.xml.top_level_settings, FLAGS);
+
+        final byte[] digest = mDigest.clone();
+        digest[0]++;
+        final PreferenceMetadataIndex index = new PreferenceMetadataIndex(
+                buildIndex(SCREEN, digest, "Title"), mAssetCookie, prefs, "other build");
+
+        assertThat(index.extractMetadata(mContext, R.xml.top_level_settings, FLAGS)).isNull();
+        assertThat(prefs.getString(PreferenceMetadataIndex.KEY_BUILD_TOKEN, null))
+                .isEqualTo("other build");
+    }
+
+    @Test
+    public void computeContentDigest_sameScreen_sameDigest() throws Exception {
+        assertThat(PreferenceMetadataIndex.computeContentDigest(mContext.getResources(),
+                R.xml.top_level_settings)).isEqualTo(mDigest);
+    }
+
+    @Test
+    public void computeContentDigest_otherScreen_differentDigest() throws Exception {
+        assertThat(PreferenceMetadataIndex.computeContentDigest(mContext.getResources(),
+                R.xml.location_settings)).isNotEqualTo(mDigest);
+    }
+
+    @Test
+    public void extractMetadata_noIndex_returnNull() {
+        final PreferenceMetadataIndex index = new PreferenceMetadataIndex(null, mAssetCookie);
+
+        assertThat(index.extractMetadata(mContext, R.xml.top_level_settings, FLAGS)).isNull();
+    }
+
+    private SharedPreferences getVerifiedScreensPrefs() {
+        return mContext.getSharedPreferences("preference_metadata_index_test",
+                Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Builds an index in the format written by tools/preference_index, holding a screen with a
+     * single unsearchable preference and the given content digest.
+     */
+    private static ByteBuffer buildIndex(String screen, byte[] digest, String title)
+            throws IOException {
+        final List<String> strings = Arrays.asList(screen,
+                PreferenceXmlParserUtils.PREF_SCREEN_TAG, "Preference", "test_key", title,
+                "false");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(PreferenceMetadataIndex.MAGIC);
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            final byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(encoded.length);
+            out.write(encoded);
+        }
+        out.writeInt(1 /* screen count */);
+        out.writeInt(strings.indexOf(screen));
+        out.write(digest);
+        out.writeInt(2 /* element count */);
+
+        final int[] screenFields = new int[PreferenceMetadataIndex.FIELD_COUNT];
+        Arrays.fill(screenFields, -1);
+        out.writeInt(strings.indexOf(PreferenceXmlParserUtils.PREF_SCREEN_TAG));
+        for (int field : screenFields) {
+            out.writeInt(field);
+        }
+
+        final int[] preferenceFields = screenFields.clone();
+        preferenceFields[PreferenceMetadataIndex.FIELD_KEY] = strings.indexOf("test_key");
+        preferenceFields[PreferenceMetadataIndex.FIELD_TITLE] = strings.indexOf(title);
+        preferenceFields[PreferenceMetadataIndex.FIELD_SEARCHABLE] = strings.indexOf("false");
+        out.writeInt(strings.indexOf("Preference"));
+        for (int field : preferenceFields) {
+            out.writeInt(field);
+        }
+        out.flush();
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.app.settings.SettingsEnums;
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class AvailabilityPrecomputerTest {
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    private AvailabilityPrecomputer mPrecomputer;
+    private TestController mController;
+
+    @Before
+    public void setUp() {
+        FakeFeatureFactory.setupForTest();
+        mPrecomputer = new AvailabilityPrecomputer(Runnable::run);
+        mController = new TestController(mContext, "key");
+    }
+
+    @Test
+    public void start_shouldKeepAvailabilityUntilCleared() {
+        mController.mStatus = BasePreferenceController.AVAILABLE;
+        mPrecomputer.start(Arrays.<AbstractPreferenceController>asList(mController),
+                SettingsEnums.PAGE_UNKNOWN);
+
+        mController.mStatus = BasePreferenceController.CONDITIONALLY_UNAVAILABLE;
+        assertThat(mController.isAvailable()).isTrue();
+
+        mController.clearPrecomputedAvailabilityStatus();
+        assertThat(mController.isAvailable()).isFalse();
+    }
+
+    @Test
+    public void start_failingController_shouldEvaluateOnUse() {
+        mController.mThrowOnce = true;
+        mPrecomputer.start(Arrays.<AbstractPreferenceController>asList(mController),
+                SettingsEnums.PAGE_UNKNOWN);
+
+        assertThat(mController.isAvailable()).isTrue();
+    }
+
+    @Test
+    public void cancel_pendingController_shouldNotEvaluate() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final AvailabilityPrecomputer precomputer = new AvailabilityPrecomputer(tasks::add);
+        precomputer.start(Arrays.<AbstractPreferenceController>asList(mController),
+                SettingsEnums.PAGE_UNKNOWN);
+
+        precomputer.cancel();
+        tasks.forEach(Runnable::run);
+
+        assertThat(mController.mEvaluationCount).isEqualTo(0);
+    }
+
+    @Test
+    public void cancel_whileEvaluating_shouldDropResult() {
+        final AvailabilityPrecomputer precomputer = new AvailabilityPrecomputer(Runnable::run);
+        mController.mOnEvaluate = precomputer::cancel;
+        mController.mStatus = BasePreferenceController.AVAILABLE;
+        precomputer.start(Arrays.<AbstractPreferenceController>asList(mController),
+                SettingsEnums.PAGE_UNKNOWN);
+
+        mController.mOnEvaluate = null;
+        mController.mStatus = BasePreferenceController.CONDITIONALLY_UNAVAILABLE;
+        assertThat(mController.isAvailable()).isFalse();
+    }
+
+    @Test
+    public void start_notDoneYet_shouldEvaluateOnUse() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final AvailabilityPrecomputer precomputer = new AvailabilityPrecomputer(tasks::add);
+        precomputer.start(Arrays.<AbstractPreferenceController>asList(mController),
+                SettingsEnums.PAGE_UNKNOWN);
+
+        mController.mStatus = BasePreferenceController.CONDITIONALLY_UNAVAILABLE;
+
+        assertThat(mController.isAvailable()).isFalse();
+        assertThat(mController.mEvaluationCount).isEqualTo(1);
+    }
+
+    @Test
+    public void start_clearedWhileEvaluating_shouldDropResult() {
+        mController.mOnEvaluate = mController::clearPrecomputedAvailabilityStatus;
+        mController.mStatus = BasePreferenceController.AVAILABLE;
+        mPrecomputer.start(Arrays.<AbstractPreferenceController>asList(mController),
+                SettingsEnums.PAGE_UNKNOWN);
+
+        // The status may have been evaluated before the state it depends on changed.
+        mController.mOnEvaluate = null;
+        mController.mStatus = BasePreferenceController.CONDITIONALLY_UNAVAILABLE;
+        assertThat(mController.isAvailable()).isFalse();
+    }
+
+    @Test
+    public void clear_shouldDropKeptResults() {
+        mController.mStatus = BasePreferenceController.AVAILABLE;
+        mPrecomputer.start(Arrays.<AbstractPreferenceController>asList(mController),
+                SettingsEnums.PAGE_UNKNOWN);
+
+        mPrecomputer.clear();
+
+        mController.mStatus = BasePreferenceController.CONDITIONALLY_UNAVAILABLE;
+        assertThat(mController.isAvailable()).isFalse();
+    }
+
+    @Test
+    public void start_allDone_shouldReportSlowestControllers() {
+        mPrecomputer.start(Arrays.<AbstractPreferenceController>asList(mController),
+                SettingsEnums.SETTINGS_HOMEPAGE);
+
+        assertThat(mPrecomputer.getSlowestControllers(
+                AvailabilityPrecomputer.SLOWEST_CONTROLLER_COUNT)).hasSize(1);
+        assertThat(ShadowLog.getLogsForTag("AvailabilityPrecomputer").stream()
+                .anyMatch(log -> log.msg.contains(" TestController="))).isTrue();
+    }
+
+    private static class TestController extends BasePreferenceController {
+
+        int mStatus = AVAILABLE;
+        boolean mThrowOnce;
+        int mEvaluationCount;
+        Runnable mOnEvaluate;
+
+        TestController(Context context, String key) {
+            super(context, key);
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            mEvaluationCount++;
+            if (mOnEvaluate != null) {
+                mOnEvaluate.run();
+            }
+            if (mThrowOnce) {
+                mThrowOnce = false;
+                throw new IllegalStateException();
+            }
+            return mStatus;
+        }
+    }
+}
@@ -39,12 +39,14 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import android.app.Application;
 import android.app.PendingIntent;
+import android.app.settings.SettingsEnums;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
@@ -98,6 +100,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.Shadows;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowActivity;
+import org.robolectric.shadows.ShadowLog;
 import org.robolectric.util.ReflectionHelpers;
 
 import java.util.ArrayList;
@@ -370,6 +373,74 @@ public class DashboardFeatureProviderImplTest {
         assertThat(preference.getTitle()).isEqualTo(ShadowTileUtils.MOCK_TEXT);
     }
 
+    @Test
+    @Config(shadows = {ShadowTileUtils.class})
+    public void bindPreference_summaryLoadedBefore_shouldShowCachedSummaryImmediately() {
+        final Tile tile = new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        mActivityInfo.metaData.putString(TileUtils.META_DATA_PREFERENCE_SUMMARY_URI,
+                "content://com.android.settings/tile_summary");
+        mImpl.bindPreferenceToTileAndGetObservers(mActivity, mFragment, mForceRoundedIcon,
+                new Preference(mApplication), tile, null /* key */, Preference.DEFAULT_ORDER);
+
+        final Preference preference = new Preference(mApplication);
+        mImpl.bindPreferenceToTileAndGetObservers(mActivity, mFragment, mForceRoundedIcon,
+                preference, tile, null /* key */, Preference.DEFAULT_ORDER);
+
+        assertThat(preference.getSummary()).isEqualTo(ShadowTileUtils.MOCK_TEXT);
+    }
+
+    @Test
+    @Config(shadows = {ShadowTileUtils.class})
+    public void bindPreference_dataLoaded_shouldLogProviderLatency() {
+        final Tile tile = new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        mActivityInfo.metaData.putString(TileUtils.META_DATA_PREFERENCE_SUMMARY_URI,
+                "content://com.android.settings/tile_summary");
+
+        mImpl.bindPreferenceToTileAndGetObservers(mActivity, mFragment, mForceRoundedIcon,
+                new Preference(mApplication), tile, null /* key */, Preference.DEFAULT_ORDER);
+
+        assertThat(getProviderLatencyLogCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Config(shadows = {ShadowTileUtils.class})
+    public void bindPreference_cachedDataUnchanged_shouldStillLogProviderLatency() {
+        final Tile tile = new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        mActivityInfo.metaData.putString(TileUtils.META_DATA_PREFERENCE_SUMMARY_URI,
+                "content://com.android.settings/tile_summary");
+        mImpl.bindPreferenceToTileAndGetObservers(mActivity, mFragment, mForceRoundedIcon,
+                new Preference(mApplication), tile, null /* key */, Preference.DEFAULT_ORDER);
+
+        // The cached summary matches the provider, so nothing is posted to the preference.
+        mImpl.bindPreferenceToTileAndGetObservers(mActivity, mFragment, mForceRoundedIcon,
+                new Preference(mApplication), tile, null /* key */, Preference.DEFAULT_ORDER);
+
+        assertThat(getProviderLatencyLogCount()).isEqualTo(2);
+    }
+
+    @Test
+    @Config(shadows = {ShadowTileUtils.class})
+    public void bindPreference_switchStateCached_shouldStayDisabledUntilConfirmed() {
+        final Tile tile = new ProviderTile(mProviderInfo, CategoryKey.CATEGORY_HOMEPAGE,
+                mSwitchMetaData);
+        ShadowTileUtils.setProviderChecked(true);
+        mImpl.bindPreferenceToTileAndGetObservers(mActivity, mFragment, mForceRoundedIcon,
+                new SwitchPreference(mApplication), tile, null /* key */,
+                Preference.DEFAULT_ORDER);
+
+        final SwitchPreference preference = new SwitchPreference(mApplication);
+        final List<DynamicDataObserver> observers = mImpl.bindPreferenceToTileAndGetObservers(
+                mActivity, mFragment, mForceRoundedIcon, preference, tile, null /* key */,
+                Preference.DEFAULT_ORDER);
+
+        assertThat(preference.isChecked()).isTrue();
+        assertThat(preference.isEnabled()).isFalse();
+
+        observers.get(0).updateUi();
+
+        assertThat(preference.isEnabled()).isTrue();
+    }
+
     @Test
     @Config(shadows = {ShadowTileUtils.class})
     public void bindPreference_onCheckedChanged_shouldPutStateToContentProvider() {
@@ -822,6 +893,13 @@ public class DashboardFeatureProviderImplTest {
         verify(mActivity, never()).getSupportFragmentManager();
     }
 
+    private static long getProviderLatencyLogCount() {
+        return ShadowLog.getLogsForTag("DashboardFeatureImpl").stream()
+                .filter(log -> log.msg.startsWith("Loaded ")
+                        && log.msg.contains(" from com.android.settings in "))
+                .count();
+    }
+
     private static class TestFragment extends DashboardFragment {
 
         @Override
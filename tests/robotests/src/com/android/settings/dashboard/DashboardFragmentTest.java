@@ -54,6 +54,7 @@ import androidx.test.core.app.ApplicationProvider;
 
 import com.android.internal.logging.nano.MetricsProto.MetricsEvent;
 import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.slices.BlockingSlicePrefController;
 import com.android.settings.testutils.FakeFeatureFactory;
@@ -488,6 +489,36 @@ public class DashboardFragmentTest {
         verify(activityResultPref).onActivityResult(requestCode, resultCode, null);
     }
 
+    @Test
+    public void onResume_precomputingAvailability_shouldKeepPrecomputedStatus() {
+        final TestAvailabilityController controller = new TestAvailabilityController(mContext);
+        mTestFragment.mPrecomputeAvailability = true;
+        mTestFragment.mControllers.add(controller);
+        mTestFragment.onAttach(mAppContext);
+        controller.setPrecomputedAvailabilityStatus(BasePreferenceController.AVAILABLE,
+                controller.getPrecomputedAvailabilityGeneration());
+
+        mTestFragment.onResume();
+        controller.mStatus = BasePreferenceController.CONDITIONALLY_UNAVAILABLE;
+
+        assertThat(controller.isAvailable()).isTrue();
+    }
+
+    @Test
+    public void onDetach_precomputingAvailability_shouldDropPrecomputedStatus() {
+        final TestAvailabilityController controller = new TestAvailabilityController(mContext);
+        mTestFragment.mPrecomputeAvailability = true;
+        mTestFragment.mControllers.add(controller);
+        mTestFragment.onAttach(mAppContext);
+        controller.setPrecomputedAvailabilityStatus(BasePreferenceController.AVAILABLE,
+                controller.getPrecomputedAvailabilityGeneration());
+
+        mTestFragment.onDetach();
+        controller.mStatus = BasePreferenceController.CONDITIONALLY_UNAVAILABLE;
+
+        assertThat(controller.isAvailable()).isFalse();
+    }
+
     public static class TestPreferenceController extends AbstractPreferenceController
             implements PreferenceControllerMixin {
 
@@ -535,6 +566,20 @@ public class DashboardFragmentTest {
         }
     }
 
+    private static class TestAvailabilityController extends BasePreferenceController {
+
+        int mStatus = AVAILABLE;
+
+        private TestAvailabilityController(Context context) {
+            super(context, "precomputed");
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            return mStatus;
+        }
+    }
+
     private static class TestFragment extends DashboardFragment {
 
         private final PreferenceManager mPreferenceManager;
@@ -543,6 +588,7 @@ public class DashboardFragmentTest {
         private final ContentResolver mContentResolver;
 
         public final PreferenceScreen mScreen;
+        boolean mPrecomputeAvailability;
 
         public TestFragment(Context context) {
             mContext = context;
@@ -596,6 +642,11 @@ public class DashboardFragmentTest {
             return mContentResolver;
         }
 
+        @Override
+        protected boolean shouldPrecomputeAvailability() {
+            return mPrecomputeAvailability;
+        }
+
     }
 
     private static class TestDynamicDataObserver extends DynamicDataObserver {
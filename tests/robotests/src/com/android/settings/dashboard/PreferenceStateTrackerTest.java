@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settings.security.ShowPasswordPreferenceController;
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceStateTrackerTest {
+
+    private static final Uri SETTING_URI = Settings.Global.getUriFor("test_setting");
+    private static final String ACTION = "com.android.settings.TEST_ACTION";
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    private PreferenceStateTracker mTracker;
+    private TestController mTrackedController;
+    private TestController mUntrackedController;
+
+    @Before
+    public void setUp() {
+        mTracker = new PreferenceStateTracker();
+        mTrackedController = new TestController(mContext, "tracked",
+                new BasePreferenceController.StateDependencies()
+                        .addUri(SETTING_URI)
+                        .addBroadcastAction(ACTION));
+        mUntrackedController = new TestController(mContext, "untracked", null);
+        mTracker.startTracking(mContext,
+                Arrays.<AbstractPreferenceController>asList(
+                        mTrackedController, mUntrackedController));
+        mTracker.setDirtyOnly(true);
+    }
+
+    @After
+    public void tearDown() {
+        mTracker.stopTracking();
+    }
+
+    @Test
+    public void shouldUpdate_notUpdatedYet_returnTrue() {
+        assertThat(mTracker.shouldUpdate(mTrackedController)).isTrue();
+    }
+
+    @Test
+    public void shouldUpdate_upToDate_returnFalse() {
+        mTracker.onUpdated(mTrackedController, 0L /* durationNanos */);
+
+        assertThat(mTracker.shouldUpdate(mTrackedController)).isFalse();
+    }
+
+    @Test
+    public void shouldUpdate_upToDateButFullRefresh_returnTrue() {
+        mTracker.onUpdated(mTrackedController, 0L /* durationNanos */);
+        mTracker.setDirtyOnly(false);
+
+        assertThat(mTracker.shouldUpdate(mTrackedController)).isTrue();
+    }
+
+    @Test
+    public void shouldUpdate_noDeclaredDependencies_returnTrue() {
+        mTracker.onUpdated(mUntrackedController, 0L /* durationNanos */);
+
+        assertThat(mTracker.shouldUpdate(mUntrackedController)).isTrue();
+    }
+
+    @Test
+    public void shouldUpdate_dependentUriChanged_returnTrue() {
+        mTracker.onUpdated(mTrackedController, 0L /* durationNanos */);
+
+        mContext.getContentResolver().notifyChange(SETTING_URI, null /* observer */);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(mTracker.shouldUpdate(mTrackedController)).isTrue();
+    }
+
+    @Test
+    public void shouldUpdate_dependentBroadcastReceived_returnTrue() {
+        mTracker.onUpdated(mTrackedController, 0L /* durationNanos */);
+
+        mContext.sendBroadcast(new Intent(ACTION));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(mTracker.shouldUpdate(mTrackedController)).isTrue();
+    }
+
+    @Test
+    public void shouldUpdate_dependentUriChanged_shouldDropPrecomputedAvailability() {
+        mTrackedController.setPrecomputedAvailabilityStatus(BasePreferenceController.AVAILABLE,
+                mTrackedController.getPrecomputedAvailabilityGeneration());
+        mTrackedController.mStatus = BasePreferenceController.CONDITIONALLY_UNAVAILABLE;
+
+        mContext.getContentResolver().notifyChange(SETTING_URI, null /* observer */);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(mTrackedController.isAvailable()).isFalse();
+    }
+
+    @Test
+    public void startTracking_broadcastDependency_shouldRegisterNotExportedReceiver() {
+        final Context context = spy(mContext);
+        doReturn(context).when(context).getApplicationContext();
+        final PreferenceStateTracker tracker = new PreferenceStateTracker();
+
+        tracker.startTracking(context,
+                Collections.<AbstractPreferenceController>singletonList(mTrackedController));
+
+        verify(context).registerReceiver(any(BroadcastReceiver.class), any(IntentFilter.class),
+                isNull(), any(Handler.class), eq(Context.RECEIVER_NOT_EXPORTED));
+        tracker.stopTracking();
+    }
+
+    @Test
+    public void shouldUpdate_showPasswordSettingUnchanged_returnFalse() {
+        final ShowPasswordPreferenceController controller =
+                new ShowPasswordPreferenceController(mContext);
+        final PreferenceStateTracker tracker = new PreferenceStateTracker();
+        tracker.startTracking(mContext,
+                Collections.<AbstractPreferenceController>singletonList(controller));
+        tracker.setDirtyOnly(true);
+        tracker.onUpdated(controller, 0L /* durationNanos */);
+
+        assertThat(tracker.shouldUpdate(controller)).isFalse();
+        tracker.stopTracking();
+    }
+
+    @Test
+    public void shouldUpdate_showPasswordSettingChanged_returnTrue() {
+        final ShowPasswordPreferenceController controller =
+                new ShowPasswordPreferenceController(mContext);
+        final PreferenceStateTracker tracker = new PreferenceStateTracker();
+        tracker.startTracking(mContext,
+                Collections.<AbstractPreferenceController>singletonList(controller));
+        tracker.setDirtyOnly(true);
+        tracker.onUpdated(controller, 0L /* durationNanos */);
+
+        Settings.System.putInt(mContext.getContentResolver(),
+                Settings.System.TEXT_SHOW_PASSWORD, 0);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(tracker.shouldUpdate(controller)).isTrue();
+        tracker.stopTracking();
+    }
+
+    @Test
+    public void dump_shouldReportUpdatesAndSkips() {
+        mTracker.onUpdated(mTrackedController, 2_000L /* durationNanos */);
+        mTracker.shouldUpdate(mTrackedController);
+        final StringWriter stringWriter = new StringWriter();
+
+        mTracker.dump("", new PrintWriter(stringWriter));
+
+        assertThat(stringWriter.toString())
+                .contains("TestController/tracked: updates=1 skips=1 avgUs=2 maxUs=2");
+    }
+
+    private static class TestController extends BasePreferenceController {
+
+        private final StateDependencies mDependencies;
+        int mStatus = AVAILABLE;
+
+        TestController(Context context, String key, StateDependencies dependencies) {
+            super(context, key);
+            mDependencies = dependencies;
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            return mStatus;
+        }
+
+        @Override
+        public StateDependencies getStateDependencies() {
+            return mDependencies;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
+import android.os.UserManager;
 import android.provider.SearchIndexableResource;
 import android.provider.Settings;
 
@@ -33,6 +34,7 @@ import androidx.fragment.app.FragmentActivity;
 
 import com.android.internal.logging.nano.MetricsProto;
 import com.android.settings.R;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.testutils.shadow.ShadowAlertDialogCompat;
 import com.android.settings.testutils.shadow.ShadowUserManager;
 import com.android.settings.widget.SettingsMainSwitchBar;
@@ -105,6 +107,30 @@ public class DevelopmentSettingsDashboardFragmentTest {
         assertThat(index.get(0).xmlResId).isEqualTo(R.xml.development_settings);
     }
 
+    @Test
+    public void getSearchDependencies_pageDisabled_shouldDependOnDevelopmentSettings() {
+        final Context appContext = RuntimeEnvironment.application;
+        DevelopmentSettingsEnabler.setDevelopmentSettingsEnabled(appContext, false);
+
+        final BasePreferenceController.StateDependencies dependencies =
+                DevelopmentSettingsDashboardFragment.SEARCH_INDEX_DATA_PROVIDER
+                        .getSearchDependencies(appContext);
+
+        assertThat(dependencies.getUris()).containsExactly(
+                Settings.Global.getUriFor(Settings.Global.DEVELOPMENT_SETTINGS_ENABLED));
+        assertThat(dependencies.getBroadcastActions())
+                .containsExactly(UserManager.ACTION_USER_RESTRICTIONS_CHANGED);
+    }
+
+    @Test
+    public void getSearchDependencies_pageEnabled_shouldReturnNull() {
+        final Context appContext = RuntimeEnvironment.application;
+        DevelopmentSettingsEnabler.setDevelopmentSettingsEnabled(appContext, true);
+
+        assertThat(DevelopmentSettingsDashboardFragment.SEARCH_INDEX_DATA_PROVIDER
+                .getSearchDependencies(appContext)).isNull();
+    }
+
     @Test
     @Ignore
     public void searchIndex_pageDisabledBySetting_shouldAddAllKeysToNonIndexable() {
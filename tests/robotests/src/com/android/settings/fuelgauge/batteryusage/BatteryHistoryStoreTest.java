@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryHistoryStoreTest {
+    private static final BatteryHistEntry PLACEHOLDER_ENTRY =
+            new BatteryHistEntry(new ContentValues());
+
+    @Test
+    public void create_sortsTimestampsAndKeepsKeys() {
+        final BatteryHistoryStore store =
+                BatteryHistoryStore.create(
+                        Map.of(
+                                3000L, Map.of("b", createEntry("b", 3, 30L)),
+                                1000L, Map.of("a", createEntry("a", 1, 10L)),
+                                2000L, Map.of()),
+                        PLACEHOLDER_ENTRY);
+
+        assertThat(store.getTimestampCount()).isEqualTo(3);
+        assertThat(store.getTimestamp(0)).isEqualTo(1000L);
+        assertThat(store.getTimestamp(2)).isEqualTo(3000L);
+        assertThat(store.getKeyCount()).isEqualTo(2);
+        assertThat(store.hasEntries(store.indexOf(2000L))).isFalse();
+        assertThat(store.indexOf(1500L)).isEqualTo(-1);
+    }
+
+    @Test
+    public void create_keysOrderedByHashCode() {
+        final BatteryHistoryStore store =
+                BatteryHistoryStore.create(
+                        Map.of(
+                                1000L,
+                                Map.of(
+                                        "zz", createEntry("zz", 1, 10L),
+                                        "a", createEntry("a", 1, 10L),
+                                        "m", createEntry("m", 1, 10L))),
+                        PLACEHOLDER_ENTRY);
+
+        assertThat(List.of(store.getKey(0), store.getKey(1), store.getKey(2)))
+                .containsExactly("a", "m", "zz")
+                .inOrder();
+    }
+
+    @Test
+    public void getValues_returnsColumnValues() {
+        final BatteryHistEntry entry = createEntry("a", 2.5, 20L);
+        final BatteryHistoryStore store =
+                BatteryHistoryStore.create(
+                        Map.of(
+                                1000L, Map.of("a", entry),
+                                2000L, Map.of("b", createEntry("b", 1, 10L))),
+                        PLACEHOLDER_ENTRY);
+        final int keyId = store.getKey(0).equals("a") ? 0 : 1;
+
+        final int cell = store.getCell(store.indexOf(1000L), keyId);
+        assertThat(store.getEntry(cell)).isSameInstanceAs(entry);
+        assertThat(store.getConsumePower(cell)).isEqualTo(2.5);
+        assertThat(store.getForegroundUsageTimeInMs(cell)).isEqualTo(20L);
+        // The missing cell has zero values.
+        final int missingCell = store.getCell(store.indexOf(2000L), keyId);
+        assertThat(store.getEntry(missingCell)).isNull();
+        assertThat(store.getConsumePower(missingCell)).isEqualTo(0);
+        assertThat(store.getForegroundUsageTimeInMs(missingCell)).isEqualTo(0L);
+    }
+
+    @Test
+    public void create_placeholderEntry_onlyMarksRow() {
+        final BatteryHistoryStore store =
+                BatteryHistoryStore.create(
+                        Map.of(1000L, Map.of("placeholder", PLACEHOLDER_ENTRY)),
+                        PLACEHOLDER_ENTRY);
+
+        assertThat(store.hasEntries(0)).isTrue();
+        assertThat(store.getEntry(store.getCell(0, 0))).isNull();
+    }
+
+    @Test
+    public void create_missingEntries_onlyStoresPresentCells() {
+        final Map<String, BatteryHistEntry> entryMap =
+                Map.of("a", createEntry("a", 3, 30L), "b", createEntry("b", 4, 40L));
+        final BatteryHistoryStore store =
+                BatteryHistoryStore.create(
+                        Map.of(
+                                1000L, Map.of("a", createEntry("a", 1, 10L)),
+                                2000L, Map.of("b", createEntry("b", 2, 20L)),
+                                3000L, entryMap),
+                        PLACEHOLDER_ENTRY);
+        final int keyId = store.getKey(0).equals("a") ? 0 : 1;
+
+        // Four entries and the cell holding zero values.
+        assertThat(store.getCellCount()).isEqualTo(5);
+        assertThat(store.getConsumePower(store.getCell(store.indexOf(1000L), keyId)))
+                .isEqualTo(1);
+        assertThat(store.getConsumePower(store.getCell(store.indexOf(2000L), keyId)))
+                .isEqualTo(0);
+        assertThat(store.getConsumePower(store.getCell(store.indexOf(3000L), keyId)))
+                .isEqualTo(3);
+        assertThat(store.getConsumePower(store.getCell(store.indexOf(3000L), 1 - keyId)))
+                .isEqualTo(4);
+    }
+
+    @Test
+    public void findNearestTimestamp_returnExpectedResult() {
+        final long[] timestamps = new long[] {10L, 20L, 30L, 40L};
+
+        assertThat(BatteryHistoryStore.findNearestTimestamp(timestamps, /* target= */ 15L))
+                .isEqualTo(new long[] {10L, 20L});
+        assertThat(BatteryHistoryStore.findNearestTimestamp(timestamps, /* target= */ 10L))
+                .isEqualTo(new long[] {10L, 10L});
+        assertThat(BatteryHistoryStore.findNearestTimestamp(timestamps, /* target= */ 5L))
+                .isEqualTo(new long[] {0L, 10L});
+        assertThat(BatteryHistoryStore.findNearestTimestamp(timestamps, /* target= */ 50L))
+                .isEqualTo(new long[] {40L, 0L});
+    }
+
+    @Test
+    public void findNearestTimestamp_emptyTimestamps_returnsZero() {
+        assertThat(BatteryHistoryStore.findNearestTimestamp(new long[0], 1000L))
+                .isEqualTo(new long[] {0, 0});
+    }
+
+    private static BatteryHistEntry createEntry(
+            String packageName, double consumePower, long foregroundUsageTimeInMs) {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setConsumePower(consumePower)
+                        .setForegroundUsageTimeInMs(foregroundUsageTimeInMs)
+                        .build();
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_PACKAGE_NAME, packageName);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        values.put(
+                BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
+        return new BatteryHistEntry(values);
+    }
+}
@@ -25,6 +25,7 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
+import android.util.Base64;
 
 import androidx.test.core.app.ApplicationProvider;
 
@@ -293,8 +294,6 @@ public final class BatteryUsageContentProviderTest {
                         .setForegroundServiceUsageTimeInMs(1500)
                         .setDrainType(1)
                         .build();
-        final String expectedBatteryInformationString =
-                ConvertUtils.convertBatteryInformationToString(batteryInformation);
         ContentValues values = new ContentValues();
         values.put(BatteryHistEntry.KEY_UID, Long.valueOf(101L));
         values.put(BatteryHistEntry.KEY_USER_ID, Long.valueOf(1001L));
@@ -302,7 +301,7 @@ public final class BatteryUsageContentProviderTest {
         values.put(BatteryHistEntry.KEY_TIMESTAMP, Long.valueOf(2100021L));
         values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, Integer.valueOf(2));
         values.put(BatteryHistEntry.KEY_IS_FULL_CHARGE_CYCLE_START, true);
-        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, expectedBatteryInformationString);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
 
         final Uri uri = mProvider.insert(VALID_BATTERY_STATE_CONTENT_URI, values);
 
@@ -317,7 +316,7 @@ public final class BatteryUsageContentProviderTest {
         assertThat(states.get(0).timestamp).isEqualTo(2100021L);
         assertThat(states.get(0).consumerType).isEqualTo(2);
         assertThat(states.get(0).isFullChargeCycleStart).isTrue();
-        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformationString);
+        assertThat(states.get(0).batteryInformation).isEqualTo(batteryInformation.toByteArray());
     }
 
     @Test
@@ -332,7 +331,7 @@ public final class BatteryUsageContentProviderTest {
         final BatteryInformation batteryInformation =
                 BatteryInformation.newBuilder().setDeviceBatteryState(deviceBatteryState).build();
         final String expectedBatteryInformationString =
-                ConvertUtils.convertBatteryInformationToString(batteryInformation);
+                Base64.encodeToString(batteryInformation.toByteArray(), Base64.DEFAULT);
         final ContentValues values = new ContentValues();
         values.put(BatteryHistEntry.KEY_PACKAGE_NAME, new String("fake_data"));
         values.put(BatteryHistEntry.KEY_TIMESTAMP, Long.valueOf(2100022L));
@@ -347,7 +346,8 @@ public final class BatteryUsageContentProviderTest {
         assertThat(states).hasSize(1);
         assertThat(states.get(0).packageName).isEqualTo("fake_data");
         assertThat(states.get(0).timestamp).isEqualTo(2100022L);
-        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformationString);
+        // The legacy encoded string is stored as bytes.
+        assertThat(states.get(0).batteryInformation).isEqualTo(batteryInformation.toByteArray());
     }
 
     @Test
@@ -450,6 +450,68 @@ public final class BatteryUsageContentProviderTest {
         assertThat(cursor2.getCount()).isEqualTo(0);
     }
 
+    @Test
+    public void bulkInsert_appUsageEvents_insertsAllRows() {
+        mProvider.onCreate();
+        final ContentValues[] valuesArray = new ContentValues[3];
+        for (int i = 0; i < valuesArray.length; i++) {
+            final ContentValues values = new ContentValues();
+            values.put(AppUsageEventEntity.KEY_UID, 101L + i);
+            values.put(AppUsageEventEntity.KEY_USER_ID, 1001L);
+            values.put(AppUsageEventEntity.KEY_TIMESTAMP, 10001L + i);
+            values.put(AppUsageEventEntity.KEY_APP_USAGE_EVENT_TYPE, 1);
+            values.put(AppUsageEventEntity.KEY_PACKAGE_NAME, "com.android.settings" + i);
+            valuesArray[i] = values;
+        }
+
+        final int size = mProvider.bulkInsert(DatabaseUtils.APP_USAGE_EVENT_URI, valuesArray);
+
+        assertThat(size).isEqualTo(3);
+        final List<AppUsageEventEntity> entities =
+                BatteryStateDatabase.getInstance(mContext).appUsageEventDao().getAllAfter(0);
+        assertThat(entities).hasSize(3);
+        assertThat(entities.stream().map(entity -> entity.uid).collect(Collectors.toList()))
+                .containsExactly(101L, 102L, 103L);
+    }
+
+    @Test
+    public void bulkInsert_batteryUsageSlots_insertsAllRows() {
+        mProvider.onCreate();
+        final ContentValues values1 = new ContentValues();
+        values1.put(BatteryUsageSlotEntity.KEY_TIMESTAMP, 10001L);
+        values1.put(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT, "TEST_STRING1");
+        final ContentValues values2 = new ContentValues();
+        values2.put(BatteryUsageSlotEntity.KEY_TIMESTAMP, 10002L);
+        values2.put(BatteryUsageSlotEntity.KEY_BATTERY_USAGE_SLOT, "TEST_STRING2");
+
+        final int size =
+                mProvider.bulkInsert(
+                        DatabaseUtils.BATTERY_USAGE_SLOT_URI,
+                        new ContentValues[] {values1, values2});
+
+        assertThat(size).isEqualTo(2);
+        final List<BatteryUsageSlotEntity> entities =
+                BatteryStateDatabase.getInstance(mContext).batteryUsageSlotDao().getAll();
+        assertThat(entities).hasSize(2);
+        assertThat(entities.get(0).batteryUsageSlot).isEqualTo("TEST_STRING1");
+        assertThat(entities.get(1).batteryUsageSlot).isEqualTo("TEST_STRING2");
+    }
+
+    @Test
+    public void bulkInsert_incorrectContentUri_throwsIllegalArgumentException() {
+        final Uri uri =
+                new Uri.Builder()
+                        .scheme(ContentResolver.SCHEME_CONTENT)
+                        .authority(DatabaseUtils.AUTHORITY)
+                        .appendPath(DatabaseUtils.APP_USAGE_LATEST_TIMESTAMP_PATH)
+                        .build();
+        mProvider.onCreate();
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> mProvider.bulkInsert(uri, new ContentValues[] {new ContentValues()}));
+    }
+
     @Test
     public void delete_throwsUnsupportedOperationException() {
         assertThrows(
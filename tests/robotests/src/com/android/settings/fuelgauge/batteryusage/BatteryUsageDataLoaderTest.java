@@ -47,6 +47,8 @@ import org.robolectric.RuntimeEnvironment;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RunWith(RobolectricTestRunner.class)
 public final class BatteryUsageDataLoaderTest {
@@ -154,4 +156,42 @@ public final class BatteryUsageDataLoaderTest {
 
         verifyNoMoreInteractions(mMockContentResolver);
     }
+
+    @Test
+    public void getCompletedBatteryDiffDataMap_removesLastSlot() {
+        final BatteryDiffData completedData = createBatteryDiffData(1000L, 2000L);
+        final Map<Long, BatteryDiffData> batteryDiffDataMap =
+                Map.of(
+                        1000L, completedData,
+                        2000L, createBatteryDiffData(2000L, 2500L));
+
+        final Map<Long, BatteryDiffData> completedBatteryDiffDataMap =
+                BatteryUsageDataLoader.getCompletedBatteryDiffDataMap(batteryDiffDataMap);
+
+        assertThat(completedBatteryDiffDataMap).containsExactly(1000L, completedData);
+    }
+
+    @Test
+    public void getCompletedBatteryDiffDataMap_onlyPartialSlot_returnsEmpty() {
+        final Map<Long, BatteryDiffData> batteryDiffDataMap =
+                Map.of(2000L, createBatteryDiffData(2000L, 2500L));
+
+        assertThat(BatteryUsageDataLoader.getCompletedBatteryDiffDataMap(batteryDiffDataMap))
+                .isEmpty();
+    }
+
+    private BatteryDiffData createBatteryDiffData(long startTimestamp, long endTimestamp) {
+        return new BatteryDiffData(
+                mContext,
+                startTimestamp,
+                endTimestamp,
+                /* startBatteryLevel= */ 100,
+                /* endBatteryLevel= */ 90,
+                /* screenOnTime= */ 0L,
+                List.of(),
+                List.of(),
+                Set.of(),
+                Set.of(),
+                /* isAccumulated= */ false);
+    }
 }
@@ -24,6 +24,7 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.robolectric.Shadows.shadowOf;
 
 import android.app.usage.IUsageStatsManager;
 import android.app.usage.UsageEvents;
@@ -36,11 +37,15 @@ import android.os.BatteryManager;
 import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
 import android.os.BatteryUsageStatsQuery;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.RemoteException;
 import android.os.UserManager;
 import android.text.format.DateUtils;
 
+import com.android.settings.fuelgauge.batteryusage.bugreport.BatteryUsageLogUtils;
 import com.android.settings.fuelgauge.batteryusage.db.AppUsageEventEntity;
 
 import org.junit.After;
@@ -55,6 +60,8 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.LooperMode;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -69,6 +76,9 @@ public final class DataProcessManagerTest {
 
     private Context mContext;
     private DataProcessManager mDataProcessManager;
+    // Stages submitted to the executor, run by the tests which control the pipeline progress.
+    private final List<Runnable> mQueuedStages = new ArrayList<>();
+    private final List<Map<Long, BatteryDiffData>> mLoadedDataMaps = new ArrayList<>();
 
     @Mock private IUsageStatsManager mUsageStatsManager;
     @Mock private UserManager mUserManager;
@@ -80,6 +90,7 @@ public final class DataProcessManagerTest {
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        DataProcessManager.sTestExecutor = Runnable::run;
 
         mContext = spy(RuntimeEnvironment.application);
         DataProcessor.sTestSystemAppsPackageNames = Set.of();
@@ -111,6 +122,7 @@ public final class DataProcessManagerTest {
     public void cleanUp() {
         DatabaseUtils.sFakeSupplier = null;
         DataProcessManager.sFakeBatteryHistoryMap = null;
+        DataProcessManager.sTestExecutor = null;
     }
 
     @Test
@@ -320,6 +332,101 @@ public final class DataProcessManagerTest {
         assertThat(mDataProcessManager.getShowScreenOnTime()).isFalse();
     }
 
+    @Test
+    @LooperMode(LooperMode.Mode.LEGACY)
+    public void start_cancelled_notLoadData() {
+        final MatrixCursor cursor =
+                new MatrixCursor(
+                        new String[] {
+                            AppUsageEventEntity.KEY_UID,
+                            AppUsageEventEntity.KEY_PACKAGE_NAME,
+                            AppUsageEventEntity.KEY_TIMESTAMP
+                        });
+        cursor.addRow(new Object[] {101L, "app name1", 1001L});
+        DatabaseUtils.sFakeSupplier = () -> cursor;
+        doReturn(true).when(mUserManager).isUserUnlocked(anyInt());
+
+        mDataProcessManager.cancel();
+        mDataProcessManager.start();
+
+        assertThat(mDataProcessManager.isCancelled()).isTrue();
+        assertThat(mDataProcessManager.getIsDatabaseAppUsageLoaded()).isFalse();
+        assertThat(mDataProcessManager.getAppUsageEventList()).isEmpty();
+    }
+
+    @Test
+    @LooperMode(LooperMode.Mode.LEGACY)
+    public void start_queuedStages_applyCallbackAfterAllStages() {
+        final DataProcessManager dataProcessManager = createQueuedDataProcessManager();
+
+        dataProcessManager.start();
+        assertThat(mQueuedStages).isNotEmpty();
+        shadowOf(Looper.getMainLooper()).idle();
+        assertThat(mLoadedDataMaps).isEmpty();
+
+        runQueuedStages();
+
+        assertThat(mLoadedDataMaps).hasSize(1);
+    }
+
+    @Test
+    @LooperMode(LooperMode.Mode.LEGACY)
+    public void start_cancelledMidPipeline_skipRemainingStagesAndCallback() {
+        doReturn(true).when(mUserManager).isUserUnlocked(anyInt());
+        final DataProcessManager dataProcessManager = createQueuedDataProcessManager();
+        dataProcessManager.start();
+        // Runs the first loading stage only.
+        mQueuedStages.remove(0).run();
+        assertThat(dataProcessManager.getIsCurrentBatteryHistoryLoaded()).isTrue();
+
+        dataProcessManager.cancel();
+        runQueuedStages();
+
+        assertThat(dataProcessManager.getIsCurrentAppUsageLoaded()).isFalse();
+        assertThat(dataProcessManager.getIsDatabaseAppUsageLoaded()).isFalse();
+        assertThat(dataProcessManager.getAppUsagePeriodMap()).isNull();
+        assertThat(mLoadedDataMaps).isEmpty();
+        assertThat(dumpProcessLog()).contains("cancelled");
+    }
+
+    @Test
+    @LooperMode(LooperMode.Mode.LEGACY)
+    public void start_failingStage_notApplyCallback() {
+        DatabaseUtils.sFakeSupplier =
+                () -> {
+                    throw new IllegalStateException("fake database failure");
+                };
+        doReturn(true).when(mUserManager).isUserUnlocked(anyInt());
+        final DataProcessManager dataProcessManager = createQueuedDataProcessManager();
+
+        dataProcessManager.start();
+        runQueuedStages();
+
+        assertThat(dataProcessManager.getIsCurrentBatteryHistoryLoaded()).isTrue();
+        assertThat(dataProcessManager.getIsDatabaseAppUsageLoaded()).isFalse();
+        assertThat(mLoadedDataMaps).isEmpty();
+        assertThat(dumpProcessLog()).contains("failed");
+    }
+
+    @Test
+    @LooperMode(LooperMode.Mode.LEGACY)
+    public void getBatteryLevelData_cancellationSignalCancelled_notApplyCallback() {
+        DataProcessManager.sTestExecutor = mQueuedStages::add;
+        final CancellationSignal cancellationSignal = new CancellationSignal();
+        DataProcessManager.getBatteryLevelData(
+                mContext,
+                new Handler(Looper.getMainLooper()),
+                /* isFromPeriodJob= */ false,
+                mLoadedDataMaps::add,
+                cancellationSignal);
+        assertThat(mQueuedStages).isNotEmpty();
+
+        cancellationSignal.cancel();
+        runQueuedStages();
+
+        assertThat(mLoadedDataMaps).isEmpty();
+    }
+
     @Test
     @LooperMode(LooperMode.Mode.LEGACY)
     public void getBatteryLevelData_emptyHistoryMap_returnNull() {
@@ -401,6 +508,32 @@ public final class DataProcessManagerTest {
                 expectedHourlyLevels);
     }
 
+    private DataProcessManager createQueuedDataProcessManager() {
+        DataProcessManager.sTestExecutor = mQueuedStages::add;
+        return new DataProcessManager(
+                mContext,
+                new Handler(Looper.getMainLooper()),
+                /* rawStartTimestamp= */ 0L,
+                /* lastFullChargeTimestamp= */ 0L,
+                mLoadedDataMaps::add,
+                /* hourlyBatteryLevelsPerDay= */ new ArrayList<>(),
+                /* batteryHistoryMap= */ new HashMap<>());
+    }
+
+    private void runQueuedStages() {
+        // Stages depending on the completed ones are queued while running.
+        while (!mQueuedStages.isEmpty()) {
+            mQueuedStages.remove(0).run();
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private String dumpProcessLog() {
+        final StringWriter stringWriter = new StringWriter();
+        BatteryUsageLogUtils.printProcessLog(mContext, new PrintWriter(stringWriter));
+        return stringWriter.toString();
+    }
+
     private UsageEvents getUsageEvents(final List<UsageEvents.Event> events) {
         UsageEvents usageEvents = new UsageEvents(events, new String[] {"package"});
         Parcel parcel = Parcel.obtain();
@@ -438,9 +571,7 @@ public final class DataProcessManagerTest {
                 DeviceBatteryState.newBuilder().setBatteryLevel(level).build();
         final BatteryInformation batteryInformation =
                 BatteryInformation.newBuilder().setDeviceBatteryState(deviceBatteryState).build();
-        values.put(
-                BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
         return values;
     }
 
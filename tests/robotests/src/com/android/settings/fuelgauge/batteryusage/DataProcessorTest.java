@@ -818,29 +818,6 @@ public final class DataProcessorTest {
         assertThat(DataProcessor.isFromFullCharge(entryMap)).isTrue();
     }
 
-    @Test
-    public void findNearestTimestamp_returnExpectedResult() {
-        long[] results =
-                DataProcessor.findNearestTimestamp(
-                        Arrays.asList(10L, 20L, 30L, 40L), /* target= */ 15L);
-        assertThat(results).isEqualTo(new long[] {10L, 20L});
-
-        results =
-                DataProcessor.findNearestTimestamp(
-                        Arrays.asList(10L, 20L, 30L, 40L), /* target= */ 10L);
-        assertThat(results).isEqualTo(new long[] {10L, 10L});
-
-        results =
-                DataProcessor.findNearestTimestamp(
-                        Arrays.asList(10L, 20L, 30L, 40L), /* target= */ 5L);
-        assertThat(results).isEqualTo(new long[] {0L, 10L});
-
-        results =
-                DataProcessor.findNearestTimestamp(
-                        Arrays.asList(10L, 20L, 30L, 40L), /* target= */ 50L);
-        assertThat(results).isEqualTo(new long[] {40L, 0L});
-    }
-
     @Test
     public void getBatteryDiffDataMap_emptyHistoryMap_returnEmpty() {
         final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay =
@@ -2344,9 +2321,7 @@ public final class DataProcessorTest {
                 DeviceBatteryState.newBuilder().setBatteryLevel(level).build();
         final BatteryInformation batteryInformation =
                 BatteryInformation.newBuilder().setDeviceBatteryState(deviceBatteryState).build();
-        values.put(
-                BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
         return values;
     }
 
@@ -2382,9 +2357,7 @@ public final class DataProcessorTest {
         values.put(BatteryHistEntry.KEY_UID, uid);
         values.put(BatteryHistEntry.KEY_USER_ID, userId);
         values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, consumerType);
-        values.put(
-                BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
         return new BatteryHistEntry(values);
     }
 
@@ -25,6 +25,7 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
 import android.content.Context;
+import android.os.CancellationSignal;
 import android.util.Pair;
 
 import com.android.settings.testutils.BatteryTestUtils;
@@ -82,6 +83,23 @@ public final class PowerUsageAdvancedTest {
         mSlotFilterPredicate = PowerAnomalyEvent::hasWarningItemInfo;
     }
 
+    @Test
+    public void onCreateLoader_twice_cancelsPreviousPipeline() {
+        mPowerUsageAdvanced.mBatteryLevelDataLoaderCallbacks.onCreateLoader(
+                /* id= */ 0, /* bundle= */ null);
+        final CancellationSignal previousSignal =
+                mPowerUsageAdvanced.mBatteryLevelDataCancellationSignal;
+
+        mPowerUsageAdvanced.mBatteryLevelDataLoaderCallbacks.onCreateLoader(
+                /* id= */ 0, /* bundle= */ null);
+
+        assertThat(previousSignal.isCanceled()).isTrue();
+        assertThat(mPowerUsageAdvanced.mBatteryLevelDataCancellationSignal)
+                .isNotSameInstanceAs(previousSignal);
+        assertThat(mPowerUsageAdvanced.mBatteryLevelDataCancellationSignal.isCanceled())
+                .isFalse();
+    }
+
     @Test
     public void getFilterAnomalyEvent_withEmptyOrNullList_getNull() {
         prepareCardFilterPredicate(null);
@@ -33,6 +33,8 @@ import org.robolectric.RobolectricTestRunner;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 @RunWith(RobolectricTestRunner.class)
@@ -89,6 +91,46 @@ public final class BatteryUsageLogUtilsTest {
         assertActionCount("EXECUTE_JOB", BatteryUsageLogUtils.MAX_ENTRIES);
     }
 
+    @Test
+    public void writeProcessLog_overMaxEntriesLogs_keepsJobLogs() {
+        BatteryUsageLogUtils.writeLog(mContext, Action.SCHEDULE_JOB, "");
+        for (int i = 0; i < BatteryUsageLogUtils.MAX_PROCESS_ENTRIES * 2; i++) {
+            BatteryUsageLogUtils.writeProcessLog(mContext, "total=10ms");
+        }
+
+        BatteryUsageLogUtils.printHistoricalLog(mContext, mTestPrintWriter);
+        BatteryUsageLogUtils.printProcessLog(mContext, mTestPrintWriter);
+
+        assertActionCount("SCHEDULE_JOB", 1);
+        assertActionCount("PROCESS_USAGE_DATA", BatteryUsageLogUtils.MAX_PROCESS_ENTRIES);
+        assertThat(mTestStringWriter.toString()).contains("total=10ms");
+    }
+
+    @Test
+    public void writeLog_concurrentWriters_keepsAllLogs() throws InterruptedException {
+        final int threadCount = 4;
+        final int logsPerThread = 20;
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(
+                    new Thread(
+                            () -> {
+                                for (int j = 0; j < logsPerThread; j++) {
+                                    BatteryUsageLogUtils.writeLog(
+                                            mContext, Action.EXECUTE_JOB, "");
+                                }
+                            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        BatteryUsageLogUtils.printHistoricalLog(mContext, mTestPrintWriter);
+
+        assertActionCount("EXECUTE_JOB", threadCount * logsPerThread);
+    }
+
     private void assertActionCount(String token, int count) {
         final String dumpResults = mTestStringWriter.toString();
         assertThat(dumpResults.split(token).length).isEqualTo(count + 1);
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Base64;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.fuelgauge.batteryusage.BatteryInformation;
+import com.android.settings.fuelgauge.batteryusage.ConvertUtils;
+import com.android.settings.fuelgauge.batteryusage.DeviceBatteryState;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/** Tests for {@link BatteryStateDatabase}. */
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryStateDatabaseTest {
+    private static final String VERSION_1_BATTERY_STATE_TABLE =
+            "CREATE TABLE `BatteryState` ("
+                    + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL,"
+                    + " `uid` INTEGER NOT NULL,"
+                    + " `userId` INTEGER NOT NULL,"
+                    + " `packageName` TEXT,"
+                    + " `timestamp` INTEGER NOT NULL,"
+                    + " `consumerType` INTEGER NOT NULL,"
+                    + " `isFullChargeCycleStart` INTEGER NOT NULL,"
+                    + " `batteryInformation` TEXT,"
+                    + " `batteryInformationDebug` TEXT)";
+
+    private SupportSQLiteOpenHelper mOpenHelper;
+    private SupportSQLiteDatabase mDatabase;
+    private BatteryInformation mBatteryInformation;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        mOpenHelper =
+                new FrameworkSQLiteOpenHelperFactory()
+                        .create(
+                                SupportSQLiteOpenHelper.Configuration.builder(context)
+                                        .callback(
+                                                new SupportSQLiteOpenHelper.Callback(1) {
+                                                    @Override
+                                                    public void onCreate(
+                                                            @NonNull SupportSQLiteDatabase db) {
+                                                        db.execSQL(VERSION_1_BATTERY_STATE_TABLE);
+                                                    }
+
+                                                    @Override
+                                                    public void onUpgrade(
+                                                            @NonNull SupportSQLiteDatabase db,
+                                                            int oldVersion,
+                                                            int newVersion) {}
+                                                })
+                                        .build());
+        mDatabase = mOpenHelper.getWritableDatabase();
+        mBatteryInformation =
+                BatteryInformation.newBuilder()
+                        .setDeviceBatteryState(
+                                DeviceBatteryState.newBuilder().setBatteryLevel(45).build())
+                        .setAppLabel("Settings")
+                        .setConsumePower(3)
+                        .build();
+    }
+
+    @After
+    public void tearDown() {
+        mOpenHelper.close();
+    }
+
+    @Test
+    public void migrate1To2_convertsBatteryInformationIntoBytes() {
+        insertVersion1BatteryState(
+                1001L, Base64.encodeToString(mBatteryInformation.toByteArray(), Base64.DEFAULT));
+
+        BatteryStateDatabase.MIGRATION_1_2.migrate(mDatabase);
+
+        try (Cursor cursor = mDatabase.query("SELECT * FROM `BatteryState`")) {
+            assertThat(cursor.getCount()).isEqualTo(1);
+            cursor.moveToFirst();
+            final int informationIndex = cursor.getColumnIndex("batteryInformation");
+            assertThat(cursor.getType(informationIndex)).isEqualTo(Cursor.FIELD_TYPE_BLOB);
+            assertThat(cursor.getBlob(informationIndex))
+                    .isEqualTo(mBatteryInformation.toByteArray());
+            assertThat(cursor.getLong(cursor.getColumnIndex("uid"))).isEqualTo(1001L);
+            assertThat(cursor.getString(cursor.getColumnIndex("packageName")))
+                    .isEqualTo("com.android.settings");
+            assertThat(cursor.getInt(cursor.getColumnIndex("isFullChargeCycleStart")))
+                    .isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void migrate1To2_invalidBatteryInformation_keepsRow() {
+        insertVersion1BatteryState(1001L, "invalid%string");
+
+        BatteryStateDatabase.MIGRATION_1_2.migrate(mDatabase);
+
+        try (Cursor cursor = mDatabase.query("SELECT * FROM `BatteryState`")) {
+            assertThat(cursor.getCount()).isEqualTo(1);
+            cursor.moveToFirst();
+            assertThat(ConvertUtils.getBatteryInformation(cursor, "batteryInformation"))
+                    .isEqualTo(BatteryInformation.getDefaultInstance());
+        }
+    }
+
+    private void insertVersion1BatteryState(long uid, String batteryInformation) {
+        final ContentValues values = new ContentValues();
+        values.put("uid", uid);
+        values.put("userId", 0L);
+        values.put("packageName", "com.android.settings");
+        values.put("timestamp", 10001L);
+        values.put("consumerType", ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        values.put("isFullChargeCycleStart", true);
+        values.put("batteryInformation", batteryInformation);
+        mDatabase.insert("BatteryState", SQLiteDatabase.CONFLICT_REPLACE, values);
+    }
+}
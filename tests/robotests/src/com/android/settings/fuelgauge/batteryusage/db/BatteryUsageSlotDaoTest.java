@@ -91,6 +91,16 @@ public final class BatteryUsageSlotDaoTest {
         assertThat(cursor2.getLong(1 /*timestamp*/)).isEqualTo(TIMESTAMP2);
     }
 
+    @Test
+    public void getAllAfter_sameTimestamp_returnsLatestInsertedLast() throws Exception {
+        mBatteryUsageSlotDao.insert(new BatteryUsageSlotEntity(TIMESTAMP2, "NEW_SLOT_STRING"));
+
+        final Cursor cursor = mBatteryUsageSlotDao.getAllAfter(TIMESTAMP2);
+        assertThat(cursor.getCount()).isEqualTo(2);
+        cursor.moveToLast();
+        assertThat(cursor.getString(2 /*batteryUsageSlot*/)).isEqualTo("NEW_SLOT_STRING");
+    }
+
     @Test
     public void clearAllBefore_normalFlow_expectedBehavior() throws Exception {
         mBatteryUsageSlotDao.clearAllBefore(TIMESTAMP1);
@@ -32,4 +32,10 @@ public class GestureSettingsTest {
         GestureSettings settings = new GestureSettings();
         assertThat(settings.getCategoryKey()).isEqualTo(CategoryKey.CATEGORY_GESTURES);
     }
+
+    @Test
+    public void shouldPrecomputeAvailability_returnTrue() {
+        GestureSettings settings = new GestureSettings();
+        assertThat(settings.shouldPrecomputeAvailability()).isTrue();
+    }
 }
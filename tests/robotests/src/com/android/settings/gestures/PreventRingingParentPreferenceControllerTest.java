@@ -155,6 +155,13 @@ public class PreventRingingParentPreferenceControllerTest {
         assertThat(mController.isChecked()).isFalse();
     }
 
+    @Test
+    public void getStateDependencies_shouldContainHushGestureAndKeyChord() {
+        assertThat(mController.getStateDependencies().getUris()).containsExactly(
+                Settings.Secure.getUriFor(VOLUME_HUSH_GESTURE),
+                Settings.Global.getUriFor(Settings.Global.KEY_CHORD_POWER_VOLUME_UP));
+    }
+
     @Test
     public void isChecked_vibrate_shouldReturnTrue() {
         Settings.Secure.putInt(mContext.getContentResolver(), VOLUME_HUSH_GESTURE,
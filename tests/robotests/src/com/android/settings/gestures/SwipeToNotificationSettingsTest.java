@@ -58,6 +58,11 @@ public class SwipeToNotificationSettingsTest {
                 .isEqualTo(R.xml.swipe_to_notification_settings);
     }
 
+    @Test
+    public void shouldPrecomputeAvailability_returnTrue() {
+        assertThat(mFragment.shouldPrecomputeAvailability()).isTrue();
+    }
+
     @Test
     public void testSearchIndexProvider_shouldIndexResource() {
         final List<SearchIndexableResource> indexRes =
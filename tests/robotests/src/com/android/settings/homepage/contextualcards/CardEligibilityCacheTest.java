@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.homepage.contextualcards;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.net.Uri;
+import android.os.Looper;
+
+import androidx.slice.Slice;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+public class CardEligibilityCacheTest {
+
+    private static final Uri TEST_SLICE_URI = Uri.parse("content://test/test");
+
+    private CardEligibilityCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new CardEligibilityCache();
+    }
+
+    @Test
+    public void get_notBound_shouldReturnNull() {
+        assertThat(mCache.get(TEST_SLICE_URI)).isNull();
+    }
+
+    @Test
+    public void get_recentlyBound_shouldReturnSlice() {
+        final Slice slice = new Slice.Builder(TEST_SLICE_URI).build();
+        mCache.put(TEST_SLICE_URI, slice);
+
+        assertThat(mCache.get(TEST_SLICE_URI).mSlice).isSameInstanceAs(slice);
+    }
+
+    @Test
+    public void get_expired_shouldReturnNull() {
+        mCache.put(TEST_SLICE_URI, new Slice.Builder(TEST_SLICE_URI).build());
+
+        shadowOf(Looper.getMainLooper()).idleFor(
+                Duration.ofMillis(CardEligibilityCache.EXPIRATION_MS + 1));
+
+        assertThat(mCache.get(TEST_SLICE_URI)).isNull();
+    }
+}
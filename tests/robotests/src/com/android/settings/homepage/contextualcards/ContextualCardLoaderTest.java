@@ -17,6 +17,7 @@
 package com.android.settings.homepage.contextualcards;
 
 import static com.android.settings.homepage.contextualcards.ContextualCardLoader.DEFAULT_CARD_COUNT;
+import static com.android.settings.homepage.contextualcards.ContextualCardLoader.ELIGIBILITY_CHECKER_TIMEOUT_MS;
 import static com.android.settings.intelligence.ContextualCardProto.ContextualCard.Category.STICKY_VALUE;
 
 import static com.google.common.truth.Truth.assertThat;
@@ -38,6 +39,7 @@ import com.android.settings.R;
 import com.android.settings.slices.CustomSliceRegistry;
 import com.android.settings.testutils.FakeFeatureFactory;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -46,6 +48,10 @@ import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @RunWith(RobolectricTestRunner.class)
@@ -54,12 +60,19 @@ public class ContextualCardLoaderTest {
     private Context mContext;
     private ContextualCardLoader mContextualCardLoader;
     private FakeFeatureFactory mFakeFeatureFactory;
+    private ExecutorService mExecutor;
 
     @Before
     public void setUp() {
         mContext = RuntimeEnvironment.application;
         mContextualCardLoader = spy(new ContextualCardLoader(mContext));
         mFakeFeatureFactory = FakeFeatureFactory.setupForTest();
+        mExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
     }
 
     @Test
@@ -151,6 +164,61 @@ public class ContextualCardLoaderTest {
         assertThat(mContextualCardLoader.getCardCount()).isEqualTo(configCount);
     }
 
+    @Test
+    public void eligibilityCheck_queuedLongerThanTimeout_shouldNotTimeOut() throws Exception {
+        final ContextualCard card = getContextualCardList().get(0);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ContextualCardLoader.EligibilityCheck runningCheck =
+                new ContextualCardLoader.EligibilityCheck(() -> {
+                    release.await();
+                    return card;
+                }, card);
+        final ContextualCardLoader.EligibilityCheck queuedCheck =
+                new ContextualCardLoader.EligibilityCheck(() -> card, card);
+        runningCheck.submit(mExecutor);
+        queuedCheck.submit(mExecutor);
+
+        // The queued check waits for the only thread longer than its own timeout.
+        Thread.sleep(ELIGIBILITY_CHECKER_TIMEOUT_MS + 100);
+        release.countDown();
+
+        final long startDeadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        assertThat(runningCheck.get(startDeadlineNanos)).isEqualTo(card);
+        assertThat(queuedCheck.get(startDeadlineNanos)).isEqualTo(card);
+    }
+
+    @Test
+    public void eligibilityCheck_runningLongerThanTimeout_shouldTimeOut() throws Exception {
+        final ContextualCard card = getContextualCardList().get(0);
+        final ContextualCardLoader.EligibilityCheck check =
+                new ContextualCardLoader.EligibilityCheck(() -> {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+                    return card;
+                }, card);
+        check.submit(mExecutor);
+
+        final long startDeadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        assertThat(check.get(startDeadlineNanos)).isNull();
+    }
+
+    @Test
+    public void eligibilityCheck_neverStarted_shouldGiveUpAtStartDeadline() throws Exception {
+        final ContextualCard card = getContextualCardList().get(0);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ContextualCardLoader.EligibilityCheck runningCheck =
+                new ContextualCardLoader.EligibilityCheck(() -> {
+                    release.await();
+                    return card;
+                }, card);
+        final ContextualCardLoader.EligibilityCheck queuedCheck =
+                new ContextualCardLoader.EligibilityCheck(() -> card, card);
+        runningCheck.submit(mExecutor);
+        queuedCheck.submit(mExecutor);
+
+        assertThat(queuedCheck.get(System.nanoTime())).isNull();
+        release.countDown();
+    }
+
     private List<ContextualCard> getContextualCardList() {
         final List<ContextualCard> cards = new ArrayList<>();
         cards.add(new ContextualCard.Builder()
@@ -23,6 +23,8 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import android.app.Activity;
 import android.app.PendingIntent;
@@ -53,14 +55,16 @@ public class EligibleCardCheckerTest {
     private static final Uri TEST_SLICE_URI = Uri.parse("content://test/test");
 
     private Context mContext;
+    private CardEligibilityCache mCache;
     private EligibleCardChecker mEligibleCardChecker;
     private Activity mActivity;
 
     @Before
     public void setUp() {
         mContext = RuntimeEnvironment.application;
-        mEligibleCardChecker =
-                spy(new EligibleCardChecker(mContext, getContextualCard(TEST_SLICE_URI)));
+        mCache = new CardEligibilityCache();
+        mEligibleCardChecker = spy(new EligibleCardChecker(mContext,
+                getContextualCard(TEST_SLICE_URI), mCache));
         SliceProvider.setSpecs(SliceLiveData.SUPPORTED_SPECS);
         mActivity = Robolectric.buildActivity(Activity.class).create().get();
     }
@@ -131,6 +135,41 @@ public class EligibleCardCheckerTest {
         assertThat(mEligibleCardChecker.mCard.getSlice()).isNotNull();
     }
 
+    @Test
+    public void isCardEligibleToDisplay_recentlyBound_shouldNotBindAgain() {
+        final Slice slice = buildSlice();
+        doReturn(slice).when(mEligibleCardChecker).bindSlice(any(Uri.class));
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+
+        assertThat(mEligibleCardChecker.isCardEligibleToDisplay(
+                getContextualCard(TEST_SLICE_URI))).isTrue();
+
+        verify(mEligibleCardChecker, times(1)).bindSlice(TEST_SLICE_URI);
+    }
+
+    @Test
+    public void isCardEligibleToDisplay_recentlyFailedToBind_shouldStayIneligible() {
+        doReturn(null).when(mEligibleCardChecker).bindSlice(any(Uri.class));
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+
+        assertThat(mEligibleCardChecker.isCardEligibleToDisplay(
+                getContextualCard(TEST_SLICE_URI))).isFalse();
+
+        verify(mEligibleCardChecker, times(1)).bindSlice(TEST_SLICE_URI);
+    }
+
+    @Test
+    public void isCardEligibleToDisplay_cacheInvalidated_shouldBindAgain() {
+        final Slice slice = buildSlice();
+        doReturn(slice).when(mEligibleCardChecker).bindSlice(any(Uri.class));
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+
+        mCache.invalidate();
+        mEligibleCardChecker.isCardEligibleToDisplay(getContextualCard(TEST_SLICE_URI));
+
+        verify(mEligibleCardChecker, times(2)).bindSlice(TEST_SLICE_URI);
+    }
+
     private ContextualCard getContextualCard(Uri sliceUri) {
         return new ContextualCard.Builder()
                 .setName("test_card")
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
+import com.android.settingslib.mobile.dataservice.MobileNetworkDatabase;
+import com.android.settingslib.mobile.dataservice.MobileNetworkInfoEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class MobileNetworkRepositoryTest {
+    private static final int SUB_ID_1 = 1;
+    private static final int SUB_ID_2 = 2;
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    @Mock
+    private ScheduledExecutorService mExecutor;
+    @Mock
+    private MobileNetworkDatabase mMobileNetworkDatabase;
+    @Mock
+    private MetricsFeatureProvider mMetricsFeatureProvider;
+
+    private ScheduledExecutorService mOriginalExecutor;
+    private MobileNetworkInfoEntity mEntity1;
+    private MobileNetworkInfoEntity mEntity2;
+    private MobileNetworkRepository mRepository;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mOriginalExecutor = MobileNetworkRepository.sExecutor;
+        MobileNetworkRepository.sExecutor = mExecutor;
+        MobileNetworkRepository.clearCachesForTesting();
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(mMobileNetworkDatabase).runInTransaction(any(Runnable.class));
+
+        mEntity1 = createEntity(SUB_ID_1);
+        mEntity2 = createEntity(SUB_ID_2);
+        mRepository = spy(new MobileNetworkRepository(mContext, mMobileNetworkDatabase,
+                mMetricsFeatureProvider));
+        doReturn(mEntity1).when(mRepository)
+                .convertToMobileNetworkInfoEntity(any(), eq(SUB_ID_1), any());
+        doReturn(mEntity2).when(mRepository)
+                .convertToMobileNetworkInfoEntity(any(), eq(SUB_ID_2), any());
+    }
+
+    @After
+    public void tearDown() {
+        MobileNetworkRepository.sExecutor = mOriginalExecutor;
+        MobileNetworkRepository.clearCachesForTesting();
+        SubscriptionSnapshotCache.setInstanceForTesting(null);
+    }
+
+    @Test
+    public void onSubscriptionsChanged_invalidatesSnapshots() {
+        final SubscriptionSnapshotCache cache = mock(SubscriptionSnapshotCache.class);
+        SubscriptionSnapshotCache.setInstanceForTesting(cache);
+
+        mRepository.onSubscriptionsChanged();
+
+        verify(cache).invalidate();
+        verify(mExecutor).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void requestMobileNetworkInfoUpdate_withinDebounce_writesInOneTransaction() {
+        mRepository.requestMobileNetworkInfoUpdate(SUB_ID_1);
+        mRepository.requestMobileNetworkInfoUpdate(SUB_ID_2);
+        mRepository.requestMobileNetworkInfoUpdate(SUB_ID_1);
+
+        runScheduledUpdate(1 /* times */);
+
+        verify(mMobileNetworkDatabase, times(1)).runInTransaction(any(Runnable.class));
+        verify(mMobileNetworkDatabase).insertMobileNetworkInfo(mEntity1);
+        verify(mMobileNetworkDatabase).insertMobileNetworkInfo(mEntity2);
+        assertThat(mRepository.getCoalescedUpdateCount()).isEqualTo(2);
+        assertThat(mRepository.getTransactionCount()).isEqualTo(1);
+        assertThat(mRepository.getCommittedWriteCount()).isEqualTo(2);
+        assertThat(mRepository.getSuppressedWriteCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void requestMobileNetworkInfoUpdate_unchanged_suppressesWrites() {
+        mRepository.requestMobileNetworkInfoUpdate(SUB_ID_1);
+        mRepository.requestMobileNetworkInfoUpdate(SUB_ID_2);
+        runScheduledUpdate(1 /* times */);
+
+        mRepository.requestMobileNetworkInfoUpdate(SUB_ID_1);
+        mRepository.requestMobileNetworkInfoUpdate(SUB_ID_2);
+        runScheduledUpdate(2 /* times */);
+
+        verify(mMobileNetworkDatabase, times(1)).runInTransaction(any(Runnable.class));
+        assertThat(mRepository.getTransactionCount()).isEqualTo(1);
+        assertThat(mRepository.getCommittedWriteCount()).isEqualTo(2);
+        assertThat(mRepository.getSuppressedWriteCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void requestMobileNetworkInfoUpdate_transactionFailed_writesAgainOnNextUpdate() {
+        doThrow(new IllegalStateException("disk full")).when(mMobileNetworkDatabase)
+                .runInTransaction(any(Runnable.class));
+        mRepository.requestMobileNetworkInfoUpdate(SUB_ID_1);
+
+        // The failure is logged by the scheduled task instead of being thrown.
+        runScheduledUpdate(1 /* times */);
+
+        assertThat(mRepository.getFailedTransactionCount()).isEqualTo(1);
+        assertThat(mRepository.getTransactionCount()).isEqualTo(0);
+        assertThat(mRepository.getCommittedWriteCount()).isEqualTo(0);
+        verify(mMobileNetworkDatabase, never()).insertMobileNetworkInfo(any());
+
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(mMobileNetworkDatabase).runInTransaction(any(Runnable.class));
+        mRepository.requestMobileNetworkInfoUpdate(SUB_ID_1);
+        runScheduledUpdate(2 /* times */);
+
+        verify(mMobileNetworkDatabase).insertMobileNetworkInfo(mEntity1);
+        assertThat(mRepository.getTransactionCount()).isEqualTo(1);
+        assertThat(mRepository.getCommittedWriteCount()).isEqualTo(1);
+        assertThat(mRepository.getSuppressedWriteCount()).isEqualTo(0);
+    }
+
+    /** Runs the last update scheduled, {@param times} updates having been scheduled so far. */
+    private void runScheduledUpdate(int times) {
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mExecutor, times(times)).schedule(captor.capture(), anyLong(),
+                eq(TimeUnit.MILLISECONDS));
+        captor.getValue().run();
+    }
+
+    private static MobileNetworkInfoEntity createEntity(int subId) {
+        return new MobileNetworkInfoEntity(String.valueOf(subId),
+                false /* isContactDiscoveryEnabled */, false /* isContactDiscoveryVisible */,
+                true /* isMobileDataEnabled */, false /* isCdmaOptions */,
+                true /* isGsmOptions */, false /* isWorldMode */,
+                true /* shouldDisplayNetworkSelectOptions */, false /* isTdscdmaSupported */,
+                true /* activeNetworkIsCellular */, false /* showToggleForPhysicalSim */,
+                false /* isDataRoamingEnabled */);
+    }
+}
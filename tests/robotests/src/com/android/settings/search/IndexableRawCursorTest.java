@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_ICON_RESID;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_KEY;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_RANK;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_SUMMARY_ON;
+import static android.provider.SearchIndexablesContract.COLUMN_INDEX_RAW_TITLE;
+import static android.provider.SearchIndexablesContract.INDEXABLES_RAW_COLUMNS;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorIndexOutOfBoundsException;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settingslib.search.SearchIndexableRaw;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+
+@RunWith(RobolectricTestRunner.class)
+public class IndexableRawCursorTest {
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    private Cursor mCursor;
+
+    @Before
+    public void setUp() {
+        final SearchIndexableRaw first = new SearchIndexableRaw(mContext);
+        first.title = "title1";
+        first.key = "key1";
+        first.iconResId = 42;
+        final SearchIndexableRaw second = new SearchIndexableRaw(mContext);
+        second.title = "title2";
+        second.key = "key2";
+        mCursor = new IndexableRawCursor(Arrays.asList(first, second));
+    }
+
+    @Test
+    public void getColumnNames_shouldMatchRawColumns() {
+        assertThat(mCursor.getColumnNames()).isEqualTo(INDEXABLES_RAW_COLUMNS);
+        assertThat(mCursor.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void getValues_shouldReadCurrentRow() {
+        mCursor.moveToLast();
+
+        assertThat(mCursor.getString(COLUMN_INDEX_RAW_TITLE)).isEqualTo("title2");
+        assertThat(mCursor.getString(COLUMN_INDEX_RAW_KEY)).isEqualTo("key2");
+
+        mCursor.moveToFirst();
+
+        assertThat(mCursor.getString(COLUMN_INDEX_RAW_TITLE)).isEqualTo("title1");
+        assertThat(mCursor.getInt(COLUMN_INDEX_RAW_ICON_RESID)).isEqualTo(42);
+        assertThat(mCursor.getType(COLUMN_INDEX_RAW_ICON_RESID))
+                .isEqualTo(Cursor.FIELD_TYPE_INTEGER);
+    }
+
+    @Test
+    public void getValues_unsetColumns_shouldBeNull() {
+        mCursor.moveToFirst();
+
+        assertThat(mCursor.isNull(COLUMN_INDEX_RAW_SUMMARY_ON)).isTrue();
+        assertThat(mCursor.isNull(COLUMN_INDEX_RAW_RANK)).isTrue();
+        assertThat(mCursor.getType(COLUMN_INDEX_RAW_SUMMARY_ON)).isEqualTo(Cursor.FIELD_TYPE_NULL);
+    }
+
+    @Test(expected = CursorIndexOutOfBoundsException.class)
+    public void getString_beforeFirst_shouldThrow() {
+        mCursor.getString(COLUMN_INDEX_RAW_TITLE);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.android.settings.search.SearchIndexDeltaTracker.OPERATION_ADDED;
+import static com.android.settings.search.SearchIndexDeltaTracker.OPERATION_CHANGED;
+import static com.android.settings.search.SearchIndexDeltaTracker.OPERATION_REMOVED;
+import static com.android.settings.search.SettingsSearchIndexablesProvider.EXTRA_DELTA_FULL;
+import static com.android.settings.search.SettingsSearchIndexablesProvider.EXTRA_DELTA_GENERATION;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SearchIndexDeltaTrackerTest {
+
+    private static final String TYPE = "raw";
+    private static final long EPOCH = 42L;
+    private static final String[] COLUMNS = {"class_name", "key", "title"};
+    private static final int COLUMN_CLASS_NAME = 0;
+    private static final int COLUMN_KEY = 1;
+    private static final int COLUMN_TITLE = 2;
+    private static final int COLUMN_OPERATION = 3;
+
+    private SearchIndexDeltaTracker mTracker;
+    private List<Object[]> mRows;
+
+    @Before
+    public void setUp() {
+        mTracker = new SearchIndexDeltaTracker(EPOCH);
+        mRows = new ArrayList<>();
+        mRows.add(new Object[]{"ProviderA", "key1", "title1"});
+        mRows.add(new Object[]{"ProviderA", "key2", "title2"});
+        mRows.add(new Object[]{"ProviderB", "key3", "title3"});
+    }
+
+    @Test
+    public void computeDelta_noGeneration_shouldReturnAllRows() {
+        final Cursor cursor = computeDelta(-1 /* sinceGeneration */, EPOCH);
+
+        assertThat(cursor.getCount()).isEqualTo(3);
+        assertThat(cursor.getExtras().getBoolean(EXTRA_DELTA_FULL)).isTrue();
+        while (cursor.moveToNext()) {
+            assertThat(cursor.getInt(COLUMN_OPERATION)).isEqualTo(OPERATION_ADDED);
+        }
+    }
+
+    @Test
+    public void computeDelta_unchangedData_shouldReturnNoRows() {
+        final long generation = getGeneration(computeDelta(-1 /* sinceGeneration */, EPOCH));
+
+        final Cursor cursor = computeDelta(generation, EPOCH);
+
+        assertThat(cursor.getCount()).isEqualTo(0);
+        assertThat(cursor.getExtras().getBoolean(EXTRA_DELTA_FULL)).isFalse();
+        assertThat(getGeneration(cursor)).isEqualTo(generation);
+    }
+
+    @Test
+    public void computeDelta_changedRow_shouldOnlyReturnChangedRow() {
+        final long generation = getGeneration(computeDelta(-1 /* sinceGeneration */, EPOCH));
+        mRows.set(1, new Object[]{"ProviderA", "key2", "new title"});
+
+        final Cursor cursor = computeDelta(generation, EPOCH);
+
+        assertThat(cursor.getCount()).isEqualTo(1);
+        cursor.moveToFirst();
+        assertThat(cursor.getString(COLUMN_KEY)).isEqualTo("key2");
+        assertThat(cursor.getString(COLUMN_TITLE)).isEqualTo("new title");
+        assertThat(cursor.getInt(COLUMN_OPERATION)).isEqualTo(OPERATION_CHANGED);
+        assertThat(getGeneration(cursor)).isGreaterThan(generation);
+    }
+
+    @Test
+    public void computeDelta_addedAndRemovedRows_shouldReturnOperations() {
+        final long generation = getGeneration(computeDelta(-1 /* sinceGeneration */, EPOCH));
+        mRows.remove(2);
+        mRows.add(new Object[]{"ProviderA", "key4", "title4"});
+
+        final Cursor cursor = computeDelta(generation, EPOCH);
+
+        assertThat(cursor.getCount()).isEqualTo(2);
+        cursor.moveToFirst();
+        assertThat(cursor.getString(COLUMN_KEY)).isEqualTo("key4");
+        assertThat(cursor.getInt(COLUMN_OPERATION)).isEqualTo(OPERATION_ADDED);
+        cursor.moveToNext();
+        assertThat(cursor.getString(COLUMN_CLASS_NAME)).isEqualTo("ProviderB");
+        assertThat(cursor.getString(COLUMN_KEY)).isEqualTo("key3");
+        assertThat(cursor.isNull(COLUMN_TITLE)).isTrue();
+        assertThat(cursor.getInt(COLUMN_OPERATION)).isEqualTo(OPERATION_REMOVED);
+    }
+
+    @Test
+    public void computeDelta_severalChanges_shouldReturnChangesSinceGeneration() {
+        final long firstGeneration = getGeneration(computeDelta(-1 /* sinceGeneration */, EPOCH));
+        mRows.set(0, new Object[]{"ProviderA", "key1", "new title1"});
+        final long secondGeneration = getGeneration(computeDelta(firstGeneration, EPOCH));
+        mRows.set(2, new Object[]{"ProviderB", "key3", "new title3"});
+
+        assertThat(computeDelta(firstGeneration, EPOCH).getCount()).isEqualTo(2);
+        assertThat(computeDelta(secondGeneration, EPOCH).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void computeDelta_otherEpoch_shouldReturnAllRows() {
+        final long generation = getGeneration(computeDelta(-1 /* sinceGeneration */, EPOCH));
+
+        final Cursor cursor = computeDelta(generation, EPOCH + 1);
+
+        assertThat(cursor.getCount()).isEqualTo(3);
+        assertThat(cursor.getExtras().getBoolean(EXTRA_DELTA_FULL)).isTrue();
+    }
+
+    @Test
+    public void computeDelta_prunedRemovedRows_shouldReturnAllRows() {
+        for (int i = 0; i <= SearchIndexDeltaTracker.MAX_REMOVED_ROWS; i++) {
+            mRows.add(new Object[]{"ProviderC", "key" + i, "title"});
+        }
+        final long generation = getGeneration(computeDelta(-1 /* sinceGeneration */, EPOCH));
+        mRows.removeIf(row -> "ProviderC".equals(row[COLUMN_CLASS_NAME]));
+
+        computeDelta(generation, EPOCH);
+        final Cursor cursor = computeDelta(generation, EPOCH);
+
+        assertThat(cursor.getCount()).isEqualTo(3);
+        assertThat(cursor.getExtras().getBoolean(EXTRA_DELTA_FULL)).isTrue();
+    }
+
+    @Test
+    public void computeDelta_duplicateKeys_shouldTrackRowsSeparately() {
+        mRows.add(new Object[]{"ProviderA", "key1", "duplicate"});
+        final long generation = getGeneration(computeDelta(-1 /* sinceGeneration */, EPOCH));
+        mRows.set(3, new Object[]{"ProviderA", "key1", "new duplicate"});
+
+        final Cursor cursor = computeDelta(generation, EPOCH);
+
+        assertThat(cursor.getCount()).isEqualTo(1);
+        cursor.moveToFirst();
+        assertThat(cursor.getString(COLUMN_TITLE)).isEqualTo("new duplicate");
+    }
+
+    @Test
+    public void computeDelta_changedRowWithSameHashCode_shouldReturnChangedRow() {
+        // "Aa" and "BB" have the same hash code.
+        mRows.set(1, new Object[]{"ProviderA", "key2", "Aa"});
+        final long generation = getGeneration(computeDelta(-1 /* sinceGeneration */, EPOCH));
+        mRows.set(1, new Object[]{"ProviderA", "key2", "BB"});
+
+        final Cursor cursor = computeDelta(generation, EPOCH);
+
+        assertThat(cursor.getCount()).isEqualTo(1);
+        cursor.moveToFirst();
+        assertThat(cursor.getString(COLUMN_TITLE)).isEqualTo("BB");
+        assertThat(cursor.getInt(COLUMN_OPERATION)).isEqualTo(OPERATION_CHANGED);
+    }
+
+    private Cursor computeDelta(long sinceGeneration, long epoch) {
+        final MatrixCursor current = new MatrixCursor(COLUMNS);
+        for (Object[] row : mRows) {
+            current.addRow(row);
+        }
+        return mTracker.computeDelta(TYPE, current, COLUMN_CLASS_NAME, COLUMN_KEY,
+                sinceGeneration, epoch);
+    }
+
+    private static long getGeneration(Cursor cursor) {
+        return cursor.getExtras().getLong(EXTRA_DELTA_GENERATION);
+    }
+}
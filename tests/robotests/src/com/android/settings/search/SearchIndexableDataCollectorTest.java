@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.net.Uri;
+import android.provider.Settings;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settingslib.search.SearchIndexableData;
+import com.android.settingslib.search.SearchIndexableRaw;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+@RunWith(RobolectricTestRunner.class)
+public class SearchIndexableDataCollectorTest {
+
+    private static final Uri SETTING_URI = Settings.Global.getUriFor("test_setting");
+    private static final long TIMEOUT_MS = 10L;
+    // Never runs the providers, as if they were all stuck behind slower ones.
+    private static final Executor STALLED_EXECUTOR = runnable -> {};
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    private SearchIndexableDataCollector mCollector;
+    private SearchIndexableData mCachedBundle;
+    private SearchIndexableData mUncachedBundle;
+    private List<SearchIndexableData> mLoadedBundles;
+    private Function<SearchIndexableData, List<String>> mLoader;
+
+    @Before
+    public void setUp() {
+        mCollector = new SearchIndexableDataCollector(mContext, Runnable::run);
+        mCachedBundle = new SearchIndexableData(FakeSettingsFragment.class,
+                new BaseSearchIndexProvider() {
+                    @Override
+                    public BasePreferenceController.StateDependencies getSearchDependencies(
+                            Context context) {
+                        return new BasePreferenceController.StateDependencies()
+                                .addUri(SETTING_URI);
+                    }
+                });
+        mUncachedBundle = new SearchIndexableData(FakeSettingsFragment.class,
+                new BaseSearchIndexProvider());
+        mLoadedBundles = new ArrayList<>();
+        mLoader = bundle -> {
+            mLoadedBundles.add(bundle);
+            return new ArrayList<>(Collections.singletonList(
+                    bundle == mCachedBundle ? "cached_key" : "uncached_key"));
+        };
+    }
+
+    @Test
+    public void getNonIndexableKeys_shouldKeepProviderOrder() {
+        final List<String> keys = mCollector.getNonIndexableKeys(
+                Arrays.asList(mUncachedBundle, mCachedBundle), mLoader);
+
+        assertThat(keys).containsExactly("uncached_key", "cached_key").inOrder();
+    }
+
+    @Test
+    public void getNonIndexableKeys_secondQuery_shouldOnlyLoadUncachedProviders() {
+        final List<SearchIndexableData> bundles = Arrays.asList(mCachedBundle, mUncachedBundle);
+        mCollector.getNonIndexableKeys(bundles, mLoader);
+        mLoadedBundles.clear();
+
+        final List<String> keys = mCollector.getNonIndexableKeys(bundles, mLoader);
+
+        assertThat(keys).containsExactly("cached_key", "uncached_key").inOrder();
+        assertThat(mLoadedBundles).containsExactly(mUncachedBundle);
+    }
+
+    @Test
+    public void getNonIndexableKeys_dependencyChanged_shouldLoadAgain() {
+        final List<SearchIndexableData> bundles = Collections.singletonList(mCachedBundle);
+        mCollector.getNonIndexableKeys(bundles, mLoader);
+        mLoadedBundles.clear();
+
+        mContext.getContentResolver().notifyChange(SETTING_URI, null /* observer */);
+        mCollector.getNonIndexableKeys(bundles, mLoader);
+
+        assertThat(mLoadedBundles).containsExactly(mCachedBundle);
+    }
+
+    @Test
+    public void getNonIndexableKeys_dependenciesDeclaredLater_shouldBeCachedFromThen() {
+        final boolean[] declaring = {false};
+        final SearchIndexableData bundle = new SearchIndexableData(FakeSettingsFragment.class,
+                new BaseSearchIndexProvider() {
+                    @Override
+                    public BasePreferenceController.StateDependencies getSearchDependencies(
+                            Context context) {
+                        return declaring[0] ? new BasePreferenceController.StateDependencies()
+                                .addUri(SETTING_URI) : null;
+                    }
+                });
+        final List<SearchIndexableData> bundles = Collections.singletonList(bundle);
+        mCollector.getNonIndexableKeys(bundles, mLoader);
+        assertThat(mCollector.getObservedUriCount()).isEqualTo(0);
+
+        declaring[0] = true;
+        mCollector.getNonIndexableKeys(bundles, mLoader);
+        mCollector.getNonIndexableKeys(bundles, mLoader);
+
+        assertThat(mLoadedBundles).containsExactly(bundle, bundle);
+        assertThat(mCollector.getObservedUriCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void getNonIndexableKeys_failedProvider_shouldNotBeCached() {
+        final List<SearchIndexableData> bundles = Collections.singletonList(mCachedBundle);
+        mCollector.getNonIndexableKeys(bundles, bundle -> null);
+
+        final List<String> keys = mCollector.getNonIndexableKeys(bundles, mLoader);
+
+        assertThat(keys).containsExactly("cached_key");
+    }
+
+    @Test
+    public void getNonIndexableKeys_callerModifiesResult_shouldNotChangeCache() {
+        final List<SearchIndexableData> bundles = Collections.singletonList(mCachedBundle);
+        mCollector.getNonIndexableKeys(bundles, mLoader).clear();
+
+        assertThat(mCollector.getNonIndexableKeys(bundles, mLoader))
+                .containsExactly("cached_key");
+    }
+
+    @Test
+    public void getNonIndexableKeys_providerNotStartedInTime_shouldLoadOnCallingThread() {
+        final SearchIndexableDataCollector collector =
+                new SearchIndexableDataCollector(mContext, STALLED_EXECUTOR, TIMEOUT_MS);
+
+        final List<String> keys = collector.getNonIndexableKeys(
+                Arrays.asList(mCachedBundle, mUncachedBundle), mLoader);
+
+        assertThat(keys).containsExactly("cached_key", "uncached_key").inOrder();
+    }
+
+    @Test
+    public void getDynamicRawData_providerNotStartedInTime_shouldBeLeftOut() {
+        final SearchIndexableDataCollector collector =
+                new SearchIndexableDataCollector(mContext, STALLED_EXECUTOR, TIMEOUT_MS);
+
+        final List<SearchIndexableRaw> raws = collector.getDynamicRawData(
+                Collections.singletonList(mUncachedBundle),
+                bundle -> Collections.singletonList(new SearchIndexableRaw(mContext)),
+                false /* required */);
+
+        assertThat(raws).isEmpty();
+    }
+
+    @Test
+    public void getDynamicRawData_requiredProviderNotStartedInTime_shouldLoadOnCallingThread() {
+        final SearchIndexableDataCollector collector =
+                new SearchIndexableDataCollector(mContext, STALLED_EXECUTOR, TIMEOUT_MS);
+        final SearchIndexableRaw raw = new SearchIndexableRaw(mContext);
+
+        final List<SearchIndexableRaw> raws = collector.getDynamicRawData(
+                Collections.singletonList(mUncachedBundle),
+                bundle -> Collections.singletonList(raw), true /* required */);
+
+        assertThat(raws).containsExactly(raw);
+    }
+
+    @Test
+    public void getNonIndexableKeys_configurationChanged_shouldLoadAgain() {
+        final List<SearchIndexableData> bundles = Collections.singletonList(mCachedBundle);
+        mCollector.getNonIndexableKeys(bundles, mLoader);
+        mLoadedBundles.clear();
+
+        RuntimeEnvironment.setQualifiers("fr");
+        mCollector.getNonIndexableKeys(bundles, mLoader);
+
+        assertThat(mLoadedBundles).containsExactly(mCachedBundle);
+    }
+
+    @Test
+    public void getNonIndexableKeys_cached_shouldObserveDependencies() {
+        mCollector.getNonIndexableKeys(Collections.singletonList(mCachedBundle), mLoader);
+
+        assertThat(mCollector.getObservedUriCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidate_shouldStopObservingDependencies() {
+        mCollector.getNonIndexableKeys(Collections.singletonList(mCachedBundle), mLoader);
+
+        mCollector.invalidate(mCachedBundle.getSearchIndexProvider());
+
+        assertThat(mCollector.getObservedUriCount()).isEqualTo(0);
+    }
+}
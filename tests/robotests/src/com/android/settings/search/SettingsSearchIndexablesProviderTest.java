@@ -5,6 +5,8 @@ import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_TITL
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
@@ -28,6 +30,7 @@ import com.android.settingslib.drawer.ActivityTile;
 import com.android.settingslib.drawer.CategoryKey;
 import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.search.SearchIndexableData;
+import com.android.settingslib.search.SearchIndexableRaw;
 
 import org.junit.After;
 import org.junit.Before;
@@ -59,6 +62,8 @@ public class SettingsSearchIndexablesProviderTest {
     public void setUp() {
         mContext = RuntimeEnvironment.application;
         mProvider = spy(new SettingsSearchIndexablesProvider());
+        doReturn(new SearchIndexableDataCollector(mContext, Runnable::run))
+                .when(mProvider).getCollector(any());
         ProviderInfo info = new ProviderInfo();
         info.exported = true;
         info.grantUriPermissions = true;
@@ -219,6 +224,63 @@ public class SettingsSearchIndexablesProviderTest {
         assertThat(mProvider.isEligibleForIndexing(PACKAGE_NAME, activityTile)).isFalse();
     }
 
+    @Test
+    public void queryDelta_singleToggleChange_shouldOnlyReturnChangedRow() {
+        final boolean[] toggles = new boolean[10];
+        final SearchFeatureProvider featureProvider = mFakeFeatureFactory.searchFeatureProvider;
+        featureProvider.getSearchIndexableResources().getProviderValues().clear();
+        featureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(FakeSettingsFragment.class,
+                        new BaseSearchIndexProvider() {
+                            @Override
+                            public List<SearchIndexableRaw> getDynamicRawDataToIndex(
+                                    Context context, boolean enabled) {
+                                final List<SearchIndexableRaw> raws = new ArrayList<>();
+                                for (int i = 0; i < toggles.length; i++) {
+                                    final SearchIndexableRaw raw = new SearchIndexableRaw(context);
+                                    raw.key = "toggle" + i;
+                                    raw.title = "Toggle " + i;
+                                    raw.summaryOn = toggles[i] ? "On" : "Off";
+                                    raws.add(raw);
+                                }
+                                return raws;
+                            }
+                        }));
+        final Uri deltaUri = Uri.parse(BASE_AUTHORITY
+                + SettingsSearchIndexablesProvider.INDEXABLES_DELTA_PATH + "/"
+                + SettingsSearchIndexablesProvider.DELTA_TYPE_DYNAMIC_RAW);
+
+        // Replay a full index, including the injected tile.
+        final Cursor fullCursor = mProvider.query(deltaUri, null, null, null, null);
+        assertThat(fullCursor.getCount()).isEqualTo(toggles.length + 1);
+        assertThat(fullCursor.getExtras().getBoolean(
+                SettingsSearchIndexablesProvider.EXTRA_DELTA_FULL)).isTrue();
+        final long generation = fullCursor.getExtras().getLong(
+                SettingsSearchIndexablesProvider.EXTRA_DELTA_GENERATION);
+        final long epoch = fullCursor.getExtras().getLong(
+                SettingsSearchIndexablesProvider.EXTRA_DELTA_EPOCH);
+
+        toggles[3] = true;
+        final Cursor deltaCursor = mProvider.query(deltaUri.buildUpon()
+                .appendQueryParameter(SettingsSearchIndexablesProvider
+                        .QUERY_PARAMETER_SINCE_GENERATION, String.valueOf(generation))
+                .appendQueryParameter(SettingsSearchIndexablesProvider.QUERY_PARAMETER_EPOCH,
+                        String.valueOf(epoch))
+                .build(), null, null, null, null);
+
+        assertThat(deltaCursor.getCount()).isEqualTo(1);
+        assertThat(deltaCursor.getExtras().getBoolean(
+                SettingsSearchIndexablesProvider.EXTRA_DELTA_FULL)).isFalse();
+        deltaCursor.moveToFirst();
+        assertThat(deltaCursor.getString(SearchIndexablesContract.COLUMN_INDEX_RAW_KEY))
+                .isEqualTo("toggle3");
+        assertThat(deltaCursor.getString(SearchIndexablesContract.COLUMN_INDEX_RAW_SUMMARY_ON))
+                .isEqualTo("On");
+        assertThat(deltaCursor.getInt(deltaCursor.getColumnIndexOrThrow(
+                SettingsSearchIndexablesProvider.COLUMN_DELTA_OPERATION)))
+                .isEqualTo(SettingsSearchIndexablesProvider.DELTA_OPERATION_CHANGED);
+    }
+
     @Implements(CategoryManager.class)
     public static class ShadowCategoryManager {
 
@@ -89,6 +89,12 @@ public class ShowPasswordPreferenceControllerTest {
         assertThat(mController.isChecked()).isTrue();
     }
 
+    @Test
+    public void getStateDependencies_shouldContainShowPasswordSetting() {
+        assertThat(mController.getStateDependencies().getUris())
+                .containsExactly(Settings.System.getUriFor(Settings.System.TEXT_SHOW_PASSWORD));
+    }
+
     @Test
     public void changePref_turnOff_shouldChangeSettingTo0() {
         mController.onPreferenceChange(mPreference, false);
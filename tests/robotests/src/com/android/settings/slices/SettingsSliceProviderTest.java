@@ -150,6 +150,7 @@ public class SettingsSliceProviderTest {
         mProvider = spy(new SettingsSliceProvider());
         ShadowStrictMode.reset();
         mProvider.mSliceWeakDataCache = new HashMap<>();
+        mProvider.mSliceDataCache = new SliceDataCache();
         mProvider.mSlicesDatabaseAccessor = new SlicesDatabaseAccessor(mContext);
         when(mProvider.getContext()).thenReturn(mContext);
 
@@ -180,6 +181,38 @@ public class SettingsSliceProviderTest {
         assertThat(slice.getItems()).isEmpty();
     }
 
+    @Test
+    public void onBindSlice_hotSliceDataCached_returnsFullSlice() {
+        final SliceData data = getMockData();
+        mProvider.mSliceDataCache.put(data.getUri(), data);
+
+        final Slice slice = mProvider.onBindSlice(data.getUri());
+
+        assertThat(slice.getUri()).isEqualTo(data.getUri());
+        assertThat(slice.getItems()).isNotEmpty();
+        assertThat(mProvider.mSliceDataCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void loadSlice_putsSliceDataInHotCache() {
+        SliceTestUtils.insertSliceToDb(mContext, KEY);
+
+        mProvider.loadSlice(INTENT_SLICE_URI);
+
+        assertThat(mProvider.mSliceDataCache.peek(INTENT_SLICE_URI).getKey()).isEqualTo(KEY);
+    }
+
+    @Test
+    public void warmUpSliceDataCache_loadsRecentlyPinnedSlices() {
+        SliceTestUtils.insertSliceToDb(mContext, KEY);
+        mProvider.mSliceDataCache.onSlicePinned(mContext, INTENT_SLICE_URI);
+
+        mProvider.warmUpSliceDataCache();
+
+        assertThat(mProvider.mSliceDataCache.peek(INTENT_SLICE_URI).getKey()).isEqualTo(KEY);
+        assertThat(mProvider.mSliceWeakDataCache).isEmpty();
+    }
+
     @Test
     public void testLoadSlice_returnsSliceFromAccessor() {
         SliceTestUtils.insertSliceToDb(mContext, KEY);
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Looper;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowContentResolver;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+public class SliceChangeNotifierTest {
+
+    private static final long INTERVAL = 300L;
+    private static final Uri URI_1 = Uri.parse("content://com.android.settings.slices/test1");
+    private static final Uri URI_2 = Uri.parse("content://com.android.settings.slices/test2");
+
+    private Context mContext;
+    private ShadowContentResolver mShadowContentResolver;
+    private SliceChangeNotifier mNotifier;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        final ContentResolver contentResolver = mContext.getContentResolver();
+        mShadowContentResolver = shadowOf(contentResolver);
+        mNotifier = new SliceChangeNotifier(Looper.getMainLooper());
+    }
+
+    @After
+    public void tearDown() {
+        SliceChangeNotifier.setInstanceForTesting(null);
+    }
+
+    @Test
+    public void updateSlice_firstUpdate_postponedByInterval() {
+        mNotifier.updateSlice(new TestWorker(mContext, URI_1));
+
+        idleFor(INTERVAL - 1 - SliceChangeNotifier.FRAME_WINDOW_MS);
+        assertThat(mShadowContentResolver.getNotifiedUris()).isEmpty();
+
+        idleFor(SliceChangeNotifier.FRAME_WINDOW_MS + 1);
+        assertThat(mShadowContentResolver.getNotifiedUris()).hasSize(1);
+    }
+
+    @Test
+    public void updateSlice_pendingUpdate_coalesced() {
+        final TestWorker worker = new TestWorker(mContext, URI_1);
+        mNotifier.updateSlice(worker);
+        mNotifier.updateSlice(worker);
+        mNotifier.updateSlice(worker);
+
+        idleFor(INTERVAL);
+
+        assertThat(mShadowContentResolver.getNotifiedUris()).hasSize(1);
+    }
+
+    @Test
+    public void updateSlice_urisDueInSameWindow_notifiedTogether() {
+        mNotifier.updateSlice(new TestWorker(mContext, URI_1));
+        idleFor(SliceChangeNotifier.FRAME_WINDOW_MS / 2);
+        mNotifier.updateSlice(new TestWorker(mContext, URI_2));
+
+        idleFor(INTERVAL - SliceChangeNotifier.FRAME_WINDOW_MS / 2);
+
+        assertThat(mShadowContentResolver.getNotifiedUris()).hasSize(2);
+    }
+
+    @Test
+    public void updateSlice_workerInterval_used() {
+        mNotifier.updateSlice(new TestWorker(mContext, URI_1, 1000L));
+
+        idleFor(INTERVAL);
+        assertThat(mShadowContentResolver.getNotifiedUris()).isEmpty();
+
+        idleFor(1000L - INTERVAL);
+        assertThat(mShadowContentResolver.getNotifiedUris()).hasSize(1);
+    }
+
+    @Test
+    public void updateSlice_throttledUpdates_backsOffAndRecovers() {
+        final TestWorker worker = new TestWorker(mContext, URI_1);
+        mNotifier.updateSlice(worker);
+        idleFor(INTERVAL);
+
+        // Updated again right after the notification, it has to wait for the interval.
+        mNotifier.updateSlice(worker);
+        idleFor(INTERVAL);
+        assertThat(mNotifier.getThrottleInterval(URI_1)).isEqualTo(2 * INTERVAL);
+
+        // Quiet for long enough, the interval goes back to the worker's one.
+        idleFor(10 * INTERVAL);
+        mNotifier.updateSlice(worker);
+        assertThat(mNotifier.getThrottleInterval(URI_1)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    public void cancelSliceUpdate_pendingUpdate_dropped() {
+        final TestWorker worker = new TestWorker(mContext, URI_1);
+        mNotifier.updateSlice(worker);
+
+        mNotifier.cancelSliceUpdate(worker);
+        idleFor(INTERVAL);
+
+        assertThat(mShadowContentResolver.getNotifiedUris()).isEmpty();
+    }
+
+    @Test
+    public void dump_reportsNotifiesPerUri() throws Exception {
+        final TestWorker worker = new TestWorker(mContext, URI_1);
+        mNotifier.updateSlice(worker);
+        mNotifier.updateSlice(worker);
+        idleFor(INTERVAL);
+
+        final JSONObject stats = mNotifier.dump().getJSONObject(URI_1.toString());
+
+        assertThat(stats.getLong("requests")).isEqualTo(2);
+        assertThat(stats.getLong("notifies")).isEqualTo(1);
+        assertThat(stats.getLong("avgLatencyMs")).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    public void dumpIfStarted_notStarted_returnsNull() throws Exception {
+        SliceChangeNotifier.setInstanceForTesting(null);
+
+        assertThat(SliceChangeNotifier.dumpIfStarted()).isNull();
+    }
+
+    @Test
+    public void dumpIfStarted_started_returnsStats() throws Exception {
+        SliceChangeNotifier.setInstanceForTesting(mNotifier);
+        mNotifier.updateSlice(new TestWorker(mContext, URI_1));
+
+        assertThat(SliceChangeNotifier.dumpIfStarted().has(URI_1.toString())).isTrue();
+    }
+
+    private static void idleFor(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+    }
+
+    private static class TestWorker extends SliceBackgroundWorker<Void> {
+
+        private final long mInterval;
+
+        TestWorker(Context context, Uri uri) {
+            this(context, uri, INTERVAL);
+        }
+
+        TestWorker(Context context, Uri uri, long interval) {
+            super(context, uri);
+            mInterval = interval;
+        }
+
+        @Override
+        protected long getSliceUpdateThrottleInterval() {
+            return mInterval;
+        }
+
+        @Override
+        protected void onSlicePinned() {
+        }
+
+        @Override
+        protected void onSliceUnpinned() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
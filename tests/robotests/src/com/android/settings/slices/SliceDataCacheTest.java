@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SliceDataCacheTest {
+
+    private static final Uri URI = Uri.parse("content://com.android.settings.slices/action/key");
+
+    private Context mContext;
+    private SliceDataCache mCache;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mCache = new SliceDataCache();
+    }
+
+    @Test
+    public void get_countsHitsAndMisses() {
+        mCache.get(URI);
+        mCache.put(URI, getSliceData("key"));
+        mCache.get(URI);
+        mCache.peek(URI);
+
+        assertThat(mCache.getHitCount()).isEqualTo(1);
+        assertThat(mCache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void put_overMaxEntries_evictsLeastRecentlyUsed() {
+        for (int i = 0; i <= SliceDataCache.MAX_ENTRIES; i++) {
+            mCache.put(getUri(i), getSliceData("key" + i));
+        }
+
+        assertThat(mCache.peek(getUri(0))).isNull();
+        assertThat(mCache.peek(getUri(SliceDataCache.MAX_ENTRIES))).isNotNull();
+    }
+
+    @Test
+    public void onSlicePinned_keepsMostRecentFirstAndPersists() {
+        mCache.onSlicePinned(mContext, getUri(0));
+        mCache.onSlicePinned(mContext, getUri(1));
+        mCache.onSlicePinned(mContext, getUri(0));
+
+        final List<Uri> uris = new SliceDataCache().getRecentlyPinnedUris(mContext);
+
+        assertThat(uris).containsExactly(getUri(0), getUri(1)).inOrder();
+    }
+
+    @Test
+    public void onSlicePinned_overMaxUris_dropsOldest() {
+        for (int i = 0; i <= SliceDataCache.MAX_RECENTLY_PINNED_URIS; i++) {
+            mCache.onSlicePinned(mContext, getUri(i));
+        }
+
+        final List<Uri> uris = mCache.getRecentlyPinnedUris(mContext);
+
+        assertThat(uris).hasSize(SliceDataCache.MAX_RECENTLY_PINNED_URIS);
+        assertThat(uris).doesNotContain(getUri(0));
+    }
+
+    private static Uri getUri(int index) {
+        return Uri.parse("content://com.android.settings.slices/action/key" + index);
+    }
+
+    private static SliceData getSliceData(String key) {
+        return new SliceData.Builder()
+                .setKey(key)
+                .setUri(URI)
+                .setTitle(SliceTestUtils.FAKE_TITLE)
+                .setFragmentName(SliceTestUtils.FAKE_FRAGMENT_NAME)
+                .setPreferenceControllerClassName(SliceTestUtils.FAKE_CONTROLLER_NAME)
+                .build();
+    }
+}
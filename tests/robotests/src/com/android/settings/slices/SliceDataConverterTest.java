@@ -18,10 +18,14 @@ package com.android.settings.slices;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.junit.Assert.fail;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
 
 import android.accessibilityservice.AccessibilityServiceInfo;
 import android.content.Context;
@@ -37,6 +41,7 @@ import com.android.settings.search.SearchFeatureProvider;
 import com.android.settings.search.SearchFeatureProviderImpl;
 import com.android.settings.testutils.FakeFeatureFactory;
 import com.android.settings.testutils.FakeIndexProvider;
+import com.android.settingslib.search.Indexable.SearchIndexProvider;
 import com.android.settingslib.search.SearchIndexableData;
 
 import org.junit.After;
@@ -49,6 +54,7 @@ import org.robolectric.annotation.Config;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RunWith(RobolectricTestRunner.class)
 public class SliceDataConverterTest {
@@ -90,7 +96,7 @@ public class SliceDataConverterTest {
 
     @Test
     @Config(qualifiers = "mcc999")
-    public void testFakeProvider_convertsFakeData() {
+    public void testFakeProvider_convertsFakeData() throws Exception {
         mSearchFeatureProvider.getSearchIndexableResources().getProviderValues().clear();
         mSearchFeatureProvider.getSearchIndexableResources().getProviderValues()
                 .add(new SearchIndexableData(FakeIndexProvider.class,
@@ -114,6 +120,102 @@ public class SliceDataConverterTest {
         }
     }
 
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getSliceData_parallel_keepsSerialOrder() throws Exception {
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues().clear();
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(FakeIndexProvider.class,
+                        FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER));
+        doReturn(getFakeService()).when(mSliceDataConverter).getAccessibilityServiceInfoList();
+
+        final List<SliceData> serial = mSliceDataConverter.getSliceData(
+                null /* indexGroups */, false /* parallel */);
+        final List<SliceData> parallel = mSliceDataConverter.getSliceData(
+                null /* indexGroups */, true /* parallel */);
+
+        assertThat(parallel).containsExactlyElementsIn(serial).inOrder();
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getSliceData_parallel_failingProviderIsIsolated() throws Exception {
+        final SearchIndexProvider failingProvider = mock(SearchIndexProvider.class);
+        when(failingProvider.getXmlResourcesToIndex(any(Context.class), anyBoolean()))
+                .thenThrow(new IllegalStateException());
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues().clear();
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(Object.class, failingProvider));
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(FakeIndexProvider.class,
+                        FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER));
+        doReturn(getFakeService()).when(mSliceDataConverter).getAccessibilityServiceInfoList();
+
+        final List<SliceData> sliceDataList = mSliceDataConverter.getSliceData(
+                null /* indexGroups */, true /* parallel */);
+
+        assertThat(sliceDataList).hasSize(2);
+        assertFakeSlice(sliceDataList.get(0));
+        assertFakeA11ySlice(sliceDataList.get(1));
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getSliceData_interrupted_throwsInsteadOfPartialData() {
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues().clear();
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(FakeIndexProvider.class,
+                        FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER));
+        doReturn(getFakeService()).when(mSliceDataConverter).getAccessibilityServiceInfoList();
+
+        Thread.currentThread().interrupt();
+        try {
+            mSliceDataConverter.getSliceData(null /* indexGroups */, false /* parallel */);
+            fail("Expected InterruptedException");
+        } catch (InterruptedException e) {
+            // Expected.
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getFingerprints_sameContent_sameFingerprints() {
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues().clear();
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(FakeIndexProvider.class,
+                        FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER));
+        doReturn(getFakeService()).when(mSliceDataConverter).getAccessibilityServiceInfoList();
+
+        final Map<String, String> fingerprints = mSliceDataConverter.getFingerprints();
+
+        assertThat(fingerprints.keySet()).containsExactly(FAKE_FRAGMENT_CLASSNAME,
+                SliceDataConverter.ACCESSIBILITY_INDEX_GROUP);
+        assertThat(mSliceDataConverter.getFingerprints()).isEqualTo(fingerprints);
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getFingerprints_changedA11yLabel_changesA11yFingerprintOnly() {
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues().clear();
+        mSearchFeatureProvider.getSearchIndexableResources().getProviderValues()
+                .add(new SearchIndexableData(FakeIndexProvider.class,
+                        FakeIndexProvider.SEARCH_INDEX_DATA_PROVIDER));
+        final List<AccessibilityServiceInfo> services = getFakeService();
+        doReturn(services).when(mSliceDataConverter).getAccessibilityServiceInfoList();
+        final Map<String, String> fingerprints = mSliceDataConverter.getFingerprints();
+
+        doReturn("new title").when(services.get(0).getResolveInfo())
+                .loadLabel(any(PackageManager.class));
+        final Map<String, String> newFingerprints = mSliceDataConverter.getFingerprints();
+
+        assertThat(newFingerprints.get(FAKE_FRAGMENT_CLASSNAME))
+                .isEqualTo(fingerprints.get(FAKE_FRAGMENT_CLASSNAME));
+        assertThat(newFingerprints.get(SliceDataConverter.ACCESSIBILITY_INDEX_GROUP))
+                .isNotEqualTo(fingerprints.get(SliceDataConverter.ACCESSIBILITY_INDEX_GROUP));
+    }
+
     private void assertFakeSlice(SliceData fakeSlice) {
         assertThat(fakeSlice.getKey()).isEqualTo(FAKE_KEY);
         assertThat(fakeSlice.getTitle()).isEqualTo(FAKE_TITLE);
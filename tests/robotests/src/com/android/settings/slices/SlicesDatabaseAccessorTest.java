@@ -56,8 +56,10 @@ import org.robolectric.shadow.api.Shadow;
 import org.robolectric.shadows.ShadowAccessibilityManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(shadows = {ShadowUserManager.class, ShadowUtils.class,
@@ -108,6 +110,43 @@ public class SlicesDatabaseAccessorTest {
         assertThat(data.getUnavailableSliceSubtitle()).isNull();
     }
 
+    @Test
+    public void getSliceDataFromUris_returnsMatchingSlicesOnly() {
+        SliceTestUtils.insertSliceToDb(mContext, "key1");
+        SliceTestUtils.insertSliceToDb(mContext, "key2");
+        final Uri uri1 = getActionUri("key1");
+        final Uri uri2 = getActionUri("key2");
+        final Uri unknownUri = getActionUri("unknown");
+
+        final Map<Uri, SliceData> sliceDataMap =
+                mAccessor.getSliceDataFromUris(Arrays.asList(uri1, uri2, unknownUri));
+
+        assertThat(sliceDataMap.keySet()).containsExactly(uri1, uri2);
+        assertThat(sliceDataMap.get(uri1).getKey()).isEqualTo("key1");
+        assertThat(sliceDataMap.get(uri1).getUri()).isEqualTo(uri1);
+        assertThat(sliceDataMap.get(uri2).getKey()).isEqualTo("key2");
+    }
+
+    @Test
+    public void getSliceDataFromUris_duplicateKey_leftOut() {
+        SliceTestUtils.insertSliceToDb(mContext, "key");
+        SliceTestUtils.insertSliceToDb(mContext, "key");
+
+        final Map<Uri, SliceData> sliceDataMap =
+                mAccessor.getSliceDataFromUris(Arrays.asList(getActionUri("key")));
+
+        assertThat(sliceDataMap).isEmpty();
+    }
+
+    private static Uri getActionUri(String key) {
+        return new Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(SettingsSlicesContract.AUTHORITY)
+                .appendPath(SettingsSlicesContract.PATH_SETTING_ACTION)
+                .appendPath(key)
+                .build();
+    }
+
     @Test
     @Ignore
     public void testGetSliceDataFromKey_allowDynamicSummary_validSliceReturned() {
@@ -18,14 +18,19 @@ package com.android.settings.slices;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
+import android.util.ArrayMap;
 
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 import com.android.settings.testutils.DatabaseTestUtils;
@@ -35,11 +40,17 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 @RunWith(RobolectricTestRunner.class)
 public class SlicesIndexerTest {
@@ -56,20 +67,27 @@ public class SlicesIndexerTest {
     private static final int SLICE_TYPE = SliceData.SliceType.SLIDER;
     private static final String UNAVAILABLE_SLICE_SUBTITLE = "subtitleOfUnavailableSlice";
     private static final int HIGHLIGHT_MENU_KEY = 5678; // I declare a thumb war
+    private static final String FINGERPRINT = "fingerprint";
 
     private Context mContext;
+    private Locale mDefaultLocale;
 
     private SlicesIndexer mManager;
-
+    @Mock
+    private SliceDataConverter mConverter;
 
     @Before
     public void setUp() {
+        MockitoAnnotations.initMocks(this);
         mContext = RuntimeEnvironment.application;
+        mDefaultLocale = Locale.getDefault();
         mManager = spy(new SlicesIndexer(mContext));
+        doReturn(mConverter).when(mManager).getSliceDataConverter();
     }
 
     @After
     public void cleanUp() {
+        Locale.setDefault(mDefaultLocale);
         DatabaseTestUtils.clearDb(mContext);
     }
 
@@ -97,10 +115,10 @@ public class SlicesIndexerTest {
     }
 
     @Test
-    public void testInsertSliceData_indexedStateSet() {
+    public void testInsertSliceData_indexedStateSet() throws Exception {
         final SlicesDatabaseHelper helper = SlicesDatabaseHelper.getInstance(mContext);
         helper.setIndexedState();
-        doReturn(new ArrayList<SliceData>()).when(mManager).getSliceData();
+        stubIndexData(new ArrayList<SliceData>(), FINGERPRINT);
 
         mManager.run();
 
@@ -109,9 +127,9 @@ public class SlicesIndexerTest {
 
     @Test
     @Ignore
-    public void testInsertSliceData_nonPublicSlice_mockDataInserted() {
+    public void testInsertSliceData_nonPublicSlice_mockDataInserted() throws Exception {
         final List<SliceData> sliceData = getMockIndexableData(false);
-        doReturn(sliceData).when(mManager).getSliceData();
+        stubIndexData(sliceData, FINGERPRINT);
 
         mManager.run();
 
@@ -158,9 +176,9 @@ public class SlicesIndexerTest {
 
     @Test
     @Ignore
-    public void insertSliceData_publicSlice_mockDataInserted() {
+    public void insertSliceData_publicSlice_mockDataInserted() throws Exception {
         final List<SliceData> sliceData = getMockIndexableData(true);
-        doReturn(sliceData).when(mManager).getSliceData();
+        stubIndexData(sliceData, FINGERPRINT);
 
         mManager.run();
 
@@ -205,6 +223,144 @@ public class SlicesIndexerTest {
         }
     }
 
+    @Test
+    public void indexSliceData_newBuildAndLocaleWithSameContent_doesNotRecollectGroup()
+            throws Exception {
+        stubIndexData(getMockIndexableData(false), FINGERPRINT);
+        mManager.run();
+
+        // A new build and locale leave the content, and so the fingerprints, as they were.
+        invalidateIndexedState();
+        Locale.setDefault(Locale.FRANCE);
+        assertThat(SlicesDatabaseHelper.getInstance(mContext).isSliceDataIndexed()).isFalse();
+        mManager.run();
+
+        verify(mManager, times(1)).getSliceData(anySet());
+        verify(mConverter, times(2)).getFingerprints();
+        assertThat(SlicesDatabaseHelper.getInstance(mContext).isSliceDataIndexed()).isTrue();
+    }
+
+    @Test
+    public void indexSliceData_newProcessWithChangedContent_recollectsGroup() throws Exception {
+        stubIndexData(getMockIndexableData(false), FINGERPRINT);
+        mManager.run();
+
+        // The build and locale are still indexed, but a new process compares the fingerprints.
+        final SlicesIndexer newManager = spy(new SlicesIndexer(mContext));
+        doReturn(mConverter).when(newManager).getSliceDataConverter();
+        doReturn(getMockIndexableData(false)).when(newManager).getSliceData(anySet());
+        stubFingerprint("new fingerprint");
+        newManager.run();
+
+        verify(newManager, times(1)).getSliceData(anySet());
+    }
+
+    @Test
+    public void indexSliceData_syncInNewProcessWithIndexedState_doesNotCompareFingerprints()
+            throws Exception {
+        stubIndexData(getMockIndexableData(false), FINGERPRINT);
+        mManager.run();
+
+        // Binding a slice in a new process must not parse every group to fingerprint it.
+        final SlicesIndexer newManager = spy(new SlicesIndexer(mContext));
+        doReturn(mConverter).when(newManager).getSliceDataConverter();
+        newManager.indexSliceData();
+
+        verify(mConverter, times(1)).getFingerprints();
+    }
+
+    @Test
+    public void indexSliceData_syncWithoutIndexedState_indexes() throws Exception {
+        stubIndexData(getMockIndexableData(false), FINGERPRINT);
+
+        mManager.indexSliceData();
+
+        verify(mManager, times(1)).getSliceData(anySet());
+        assertThat(SlicesDatabaseHelper.getInstance(mContext).isSliceDataIndexed()).isTrue();
+    }
+
+    @Test
+    public void indexSliceData_alreadyCheckedInProcess_doesNotCompareFingerprints()
+            throws Exception {
+        stubIndexData(getMockIndexableData(false), FINGERPRINT);
+        mManager.run();
+
+        mManager.run();
+
+        verify(mConverter, times(1)).getFingerprints();
+    }
+
+    @Test
+    public void indexSliceData_interrupted_keepsIndexAndFingerprints() throws Exception {
+        stubIndexData(getMockIndexableData(false), FINGERPRINT);
+        mManager.run();
+        invalidateIndexedState();
+
+        stubFingerprint("new fingerprint");
+        doThrow(new InterruptedException()).when(mManager).getSliceData(anySet());
+        mManager.run();
+
+        final SlicesDatabaseHelper helper = SlicesDatabaseHelper.getInstance(mContext);
+        final SQLiteDatabase db = helper.getWritableDatabase();
+        try (Cursor cursor = db.rawQuery("SELECT * FROM slices_index", null)) {
+            assertThat(cursor.getCount()).isEqualTo(KEYS.length);
+        }
+        assertThat(helper.getIndexedFingerprints(db)).containsExactly(FRAGMENT_NAME, FINGERPRINT);
+        assertThat(helper.isSliceDataIndexed()).isFalse();
+        assertThat(Thread.interrupted()).isTrue();
+    }
+
+    @Test
+    public void applySliceData_changedGroup_writesChangedRowsOnly() throws Exception {
+        final List<SliceData> sliceData = getMockIndexableData(false);
+        stubIndexData(sliceData, FINGERPRINT);
+        mManager.run();
+
+        final List<SliceData> newSliceData = new ArrayList<>(sliceData.subList(0, 2));
+        newSliceData.set(0, getMockBuilder(false).setKey(KEYS[0]).setTitle("new title").build());
+        final SQLiteDatabase db = SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        final Set<String> groups = Collections.singleton(FRAGMENT_NAME);
+
+        // One updated title and one deleted row, the remaining row is untouched.
+        assertThat(mManager.applySliceData(db, groups, newSliceData)).isEqualTo(2);
+        try (Cursor cursor = db.rawQuery("SELECT * FROM slices_index", null)) {
+            assertThat(cursor.getCount()).isEqualTo(newSliceData.size());
+        }
+    }
+
+    @Test
+    public void indexSliceData_removedGroup_deletesRows() throws Exception {
+        stubIndexData(getMockIndexableData(false), FINGERPRINT);
+        mManager.run();
+        invalidateIndexedState();
+
+        doReturn(new ArrayMap<String, String>()).when(mConverter).getFingerprints();
+        mManager.run();
+
+        final SQLiteDatabase db = SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        try (Cursor cursor = db.rawQuery("SELECT * FROM slices_index", null)) {
+            assertThat(cursor.getCount()).isEqualTo(0);
+        }
+    }
+
+    private void invalidateIndexedState() {
+        mContext.getSharedPreferences("slices_shared_prefs", Context.MODE_PRIVATE)
+                .edit()
+                .clear()
+                .commit();
+    }
+
+    private void stubIndexData(List<SliceData> sliceData, String fingerprint) throws Exception {
+        stubFingerprint(fingerprint);
+        doReturn(sliceData).when(mManager).getSliceData(anySet());
+    }
+
+    private void stubFingerprint(String fingerprint) {
+        final Map<String, String> fingerprints = new ArrayMap<>();
+        fingerprints.put(FRAGMENT_NAME, fingerprint);
+        doReturn(fingerprints).when(mConverter).getFingerprints();
+    }
+
     private void insertSpecialCase(String key, String title) {
         final ContentValues values = new ContentValues();
         values.put(IndexColumns.KEY, key);
@@ -222,6 +378,17 @@ public class SlicesIndexerTest {
 
     private List<SliceData> getMockIndexableData(boolean isPublicSlice) {
         final List<SliceData> sliceData = new ArrayList<>();
+        final SliceData.Builder builder = getMockBuilder(isPublicSlice);
+
+        for (int i = 0; i < KEYS.length; i++) {
+            builder.setKey(KEYS[i]).setTitle(TITLES[i]);
+            sliceData.add(builder.build());
+        }
+
+        return sliceData;
+    }
+
+    private SliceData.Builder getMockBuilder(boolean isPublicSlice) {
         final SliceData.Builder builder = new SliceData.Builder()
                 .setSummary(SUMMARY)
                 .setScreenTitle(SCREEN_TITLE)
@@ -237,12 +404,6 @@ public class SlicesIndexerTest {
         if (isPublicSlice) {
             builder.setIsPublicSlice(true);
         }
-
-        for (int i = 0; i < KEYS.length; i++) {
-            builder.setKey(KEYS[i]).setTitle(TITLES[i]);
-            sliceData.add(builder.build());
-        }
-
-        return sliceData;
+        return builder;
     }
 }
\ No newline at end of file
@@ -22,6 +22,12 @@ import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_KEYH
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -47,7 +53,11 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RunWith(AndroidJUnit4.class)
@@ -408,6 +418,95 @@ public class CategoryManagerTest {
         assertThat(category.getTilesCount()).isEqualTo(1);
     }
 
+    @Test
+    public void getCategories_restoredFromDisk_shouldAlwaysNeedRevalidation() {
+        final File file = new File(mContext.getCacheDir(), "category_manager_test");
+        final TileDiskCache tileDiskCache = new TileDiskCache(file);
+        try {
+            final DashboardCategory category = new DashboardCategory(CATEGORY_HOMEPAGE);
+            category.addTile(createActivityTile(CATEGORY_HOMEPAGE, "pkg", "class", 0));
+            tileDiskCache.write(tileDiskCache.marshall(Collections.singletonList(category)));
+            final CategoryManager categoryManager = new CategoryManager(mContext, tileDiskCache);
+
+            categoryManager.getCategories(mContext);
+
+            assertThat(categoryManager.consumeRevalidationPending()).isTrue();
+            assertThat(categoryManager.consumeRevalidationPending()).isFalse();
+        } finally {
+            tileDiskCache.delete();
+        }
+    }
+
+    @Test
+    public void getCategories_restoredFromDisk_shouldMatchLoadedCategories() {
+        final File file = new File(mContext.getCacheDir(), "category_manager_test");
+        final TileDiskCache tileDiskCache = new TileDiskCache(file);
+        try {
+            tileDiskCache.delete();
+            final List<DashboardCategory> loaded =
+                    new CategoryManager(mContext, tileDiskCache).getCategories(mContext);
+            tileDiskCache.write(tileDiskCache.marshall(loaded));
+
+            final List<DashboardCategory> restored =
+                    new CategoryManager(mContext, tileDiskCache).getCategories(mContext);
+
+            assertThat(getKeys(restored)).containsExactlyElementsIn(getKeys(loaded));
+        } finally {
+            tileDiskCache.delete();
+        }
+    }
+
+    @Test
+    public void reloadAllCategories_unchangedSinceRestored_shouldNotWriteSnapshot() {
+        final File file = new File(mContext.getCacheDir(), "category_manager_test");
+        final TileDiskCache tileDiskCache = spy(new TileDiskCache(file));
+        try {
+            tileDiskCache.delete();
+            final List<DashboardCategory> loaded =
+                    new CategoryManager(mContext, new TileDiskCache(file)).getCategories(mContext);
+            tileDiskCache.write(tileDiskCache.marshall(loaded));
+            clearInvocations(tileDiskCache);
+            final CategoryManager categoryManager = new CategoryManager(mContext, tileDiskCache);
+            categoryManager.getCategories(mContext);
+
+            categoryManager.reloadAllCategories(mContext);
+
+            verify(tileDiskCache, after(500).never()).write(any());
+        } finally {
+            tileDiskCache.delete();
+        }
+    }
+
+    @Test
+    public void reloadAllCategories_changedSinceRestored_shouldWriteSnapshotOnce() {
+        final File file = new File(mContext.getCacheDir(), "category_manager_test");
+        final TileDiskCache tileDiskCache = spy(new TileDiskCache(file));
+        try {
+            final DashboardCategory category = new DashboardCategory(CATEGORY_HOMEPAGE);
+            category.addTile(createActivityTile(CATEGORY_HOMEPAGE, "pkg", "class", 0));
+            tileDiskCache.write(tileDiskCache.marshall(Collections.singletonList(category)));
+            clearInvocations(tileDiskCache);
+            final CategoryManager categoryManager = new CategoryManager(mContext, tileDiskCache);
+            categoryManager.getCategories(mContext);
+
+            categoryManager.reloadAllCategories(mContext);
+            categoryManager.reloadAllCategories(mContext);
+
+            verify(tileDiskCache, timeout(1000)).write(any());
+            verify(tileDiskCache, after(500).times(1)).write(any());
+        } finally {
+            tileDiskCache.delete();
+        }
+    }
+
+    private static List<String> getKeys(List<DashboardCategory> categories) {
+        final List<String> keys = new ArrayList<>();
+        for (DashboardCategory category : categories) {
+            keys.add(category.key + ":" + category.getTilesCount());
+        }
+        return keys;
+    }
+
     private Tile createActivityTile(String categoryKey, String packageName, String className,
             int order) {
         final ActivityInfo activityInfo = new ActivityInfo();
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.android.settingslib.drawer.TileUtils.META_DATA_KEY_ORDER;
+import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_KEYHINT;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.ProviderInfo;
+import android.os.Bundle;
+import android.os.UserHandle;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.android.settingslib.drawer.ActivityTile;
+import com.android.settingslib.drawer.CategoryKey;
+import com.android.settingslib.drawer.DashboardCategory;
+import com.android.settingslib.drawer.ProviderTile;
+import com.android.settingslib.drawer.Tile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class TileDiskCacheTest {
+
+    private static final String KEY = "tile_key";
+    private static final String CLASS_NAME = "class";
+    private static final int ORDER = 42;
+    private static final String AUTHORITY = "com.android.settings.tiles";
+
+    private Context mContext;
+    private File mFile;
+    private TileDiskCache mTileDiskCache;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mFile = new File(mContext.getCacheDir(), "tile_disk_cache_test");
+        mTileDiskCache = new TileDiskCache(mFile);
+    }
+
+    @After
+    public void tearDown() {
+        mTileDiskCache.delete();
+    }
+
+    @Test
+    public void read_noSnapshot_shouldReturnNull() {
+        assertThat(mTileDiskCache.read()).isNull();
+    }
+
+    @Test
+    public void read_afterWrite_shouldRestoreCategories() {
+        mTileDiskCache.write(mTileDiskCache.marshall(
+                Collections.singletonList(createHomepageCategory())));
+
+        final TileDiskCache.Snapshot snapshot = mTileDiskCache.read();
+
+        assertThat(snapshot).isNotNull();
+        final List<DashboardCategory> categories = snapshot.mCategories;
+        assertThat(categories).hasSize(1);
+        assertThat(categories.get(0).key).isEqualTo(CategoryKey.CATEGORY_HOMEPAGE);
+        assertThat(categories.get(0).getTilesCount()).isEqualTo(1);
+        final Tile tile = categories.get(0).getTile(0);
+        assertThat(tile.getKey(mContext)).isEqualTo(KEY);
+        assertThat(tile.getPackageName()).isEqualTo(mContext.getPackageName());
+        assertThat(tile.getComponentName()).isEqualTo(CLASS_NAME);
+        assertThat(tile.getCategory()).isEqualTo(CategoryKey.CATEGORY_HOMEPAGE);
+        assertThat(tile.userHandle).containsExactly(UserHandle.SYSTEM);
+        assertThat(tile.getMetaData().getInt(META_DATA_KEY_ORDER)).isEqualTo(ORDER);
+    }
+
+    @Test
+    public void read_afterWrite_shouldRestoreProviderTile() {
+        final ProviderInfo providerInfo = new ProviderInfo();
+        providerInfo.packageName = mContext.getPackageName();
+        providerInfo.name = CLASS_NAME;
+        providerInfo.authority = AUTHORITY;
+        providerInfo.applicationInfo = new ApplicationInfo();
+        final Bundle metaData = new Bundle();
+        metaData.putString(META_DATA_PREFERENCE_KEYHINT, KEY);
+        final DashboardCategory category = new DashboardCategory(CategoryKey.CATEGORY_HOMEPAGE);
+        category.addTile(new ProviderTile(providerInfo, CategoryKey.CATEGORY_HOMEPAGE, metaData));
+        mTileDiskCache.write(mTileDiskCache.marshall(Collections.singletonList(category)));
+
+        final Tile tile = mTileDiskCache.read().mCategories.get(0).getTile(0);
+
+        assertThat(tile).isInstanceOf(ProviderTile.class);
+        assertThat(tile.getDescription()).isEqualTo(AUTHORITY + "/" + KEY);
+    }
+
+    @Test
+    public void marshall_unsupportedMetaData_shouldReturnNull() {
+        final DashboardCategory category = createHomepageCategory();
+        category.getTile(0).getMetaData().putParcelable("parcelable", new Bundle());
+
+        assertThat(mTileDiskCache.marshall(Collections.singletonList(category))).isNull();
+    }
+
+    @Test
+    public void read_corruptedSnapshot_shouldReturnNullAndDelete() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(mFile)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        assertThat(mTileDiskCache.read()).isNull();
+        assertThat(mFile.exists()).isFalse();
+    }
+
+    private DashboardCategory createHomepageCategory() {
+        final ActivityInfo activityInfo = new ActivityInfo();
+        activityInfo.packageName = mContext.getPackageName();
+        activityInfo.name = CLASS_NAME;
+        activityInfo.applicationInfo = new ApplicationInfo();
+        activityInfo.metaData = new Bundle();
+        activityInfo.metaData.putString(META_DATA_PREFERENCE_KEYHINT, KEY);
+        activityInfo.metaData.putInt(META_DATA_KEY_ORDER, ORDER);
+        final Tile tile = new ActivityTile(activityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        tile.userHandle.add(UserHandle.SYSTEM);
+        final DashboardCategory category = new DashboardCategory(CategoryKey.CATEGORY_HOMEPAGE);
+        category.addTile(tile);
+        return category;
+    }
+}
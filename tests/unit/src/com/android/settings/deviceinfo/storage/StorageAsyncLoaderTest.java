@@ -24,7 +24,9 @@ import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -208,6 +210,56 @@ public class StorageAsyncLoaderTest {
         assertThat(result.get(PRIMARY_USER_ID).allAppsExceptGamesSize).isEqualTo(33L);
     }
 
+    @Test
+    public void testNoCache_cacheQuotaNotQueried() throws Exception {
+        addPackage(PACKAGE_NAME_1, 0, 1, 10, ApplicationInfo.CATEGORY_UNDEFINED);
+
+        SparseArray<StorageAsyncLoader.StorageResult> result = mLoader.loadInBackground();
+
+        assertThat(result.get(PRIMARY_USER_ID).allAppsExceptGamesSize).isEqualTo(11L);
+        verify(mSource, never()).getCacheQuotaBytes(anyString(), anyInt());
+    }
+
+    @Test
+    public void testDuplicateCodeSizeIsCountedForLaterUsers() throws Exception {
+        UserInfo info = new UserInfo();
+        info.id = SECONDARY_USER_ID;
+        mUsers.add(0, info);
+        addPackage(PACKAGE_NAME_1, 0, 1, 10, ApplicationInfo.CATEGORY_UNDEFINED);
+        addPackage(PACKAGE_NAME_2, 0, 100, 1000, ApplicationInfo.CATEGORY_UNDEFINED);
+
+        SparseArray<StorageAsyncLoader.StorageResult> result = mLoader.loadInBackground();
+
+        assertThat(result.get(PRIMARY_USER_ID).duplicateCodeSize).isEqualTo(0L);
+        assertThat(result.get(SECONDARY_USER_ID).duplicateCodeSize).isEqualTo(101L);
+    }
+
+    @Test
+    public void testLoadInParallel_sameResultsAsSerial() throws Exception {
+        UserInfo info = new UserInfo();
+        info.id = SECONDARY_USER_ID;
+        mUsers.add(info);
+        addPackage(PACKAGE_NAME_1, 0, 1, 10, ApplicationInfo.CATEGORY_GAME);
+        addPackage(PACKAGE_NAME_2, DEFAULT_QUOTA + 100, 100, 1000,
+                ApplicationInfo.CATEGORY_UNDEFINED);
+        final StorageAsyncLoader parallelLoader = new StorageAsyncLoader(mContext, mUserManager,
+                "id", mSource, mPackageManager, true /* loadInParallel */);
+
+        SparseArray<StorageAsyncLoader.StorageResult> serial = mLoader.loadInBackground();
+        SparseArray<StorageAsyncLoader.StorageResult> parallel =
+                parallelLoader.loadInBackground();
+
+        assertThat(parallel.size()).isEqualTo(2);
+        for (int userId : new int[] {PRIMARY_USER_ID, SECONDARY_USER_ID}) {
+            assertThat(parallel.get(userId).gamesSize).isEqualTo(serial.get(userId).gamesSize);
+            assertThat(parallel.get(userId).allAppsExceptGamesSize)
+                    .isEqualTo(serial.get(userId).allAppsExceptGamesSize);
+            assertThat(parallel.get(userId).duplicateCodeSize)
+                    .isEqualTo(serial.get(userId).duplicateCodeSize);
+        }
+        assertThat(parallel.get(SECONDARY_USER_ID).duplicateCodeSize).isEqualTo(101L);
+    }
+
     private ApplicationInfo addPackage(String packageName, long cacheSize, long codeSize,
             long dataSize, int category) throws Exception {
         StorageStatsSource.AppStorageStats storageStats =
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.util.Base64;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.android.settings.fuelgauge.batteryusage.db.BatteryState;
+import com.android.settings.fuelgauge.batteryusage.db.BatteryStateDao;
+import com.android.settings.fuelgauge.batteryusage.db.BatteryStateDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+public class BatteryHistoryLoadTest {
+
+    private static final int HOURS = 3;
+    private static final int UIDS = 2;
+
+    private final Context mContext = ApplicationProvider.getApplicationContext();
+
+    private BatteryStateDatabase mDatabase;
+    private BatteryStateDao mDao;
+
+    @Before
+    public void setUp() {
+        mDatabase =
+                Room.inMemoryDatabaseBuilder(mContext, BatteryStateDatabase.class)
+                        .allowMainThreadQueries()
+                        .build();
+        mDao = mDatabase.batteryStateDao();
+        final long startTimestamp = System.currentTimeMillis() - Duration.ofHours(HOURS).toMillis();
+        for (int hour = 0; hour < HOURS; hour++) {
+            final long timestamp = startTimestamp + Duration.ofHours(hour).toMillis();
+            final List<BatteryState> states = new ArrayList<>(UIDS);
+            for (int uid = 0; uid < UIDS; uid++) {
+                states.add(createBatteryState(10000L + uid, timestamp, hour));
+            }
+            mDao.insertAll(states);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseUtils.sFakeSupplier = null;
+        mDatabase.close();
+    }
+
+    @Test
+    public void getHistoryMapSinceQueryTimestamp_blobAndString_shouldLoadSameHistory() {
+        DatabaseUtils.sFakeSupplier = () -> mDao.getBatteryStatesAfter(0L);
+        final Map<Long, Map<String, BatteryHistEntry>> historyMap =
+                DatabaseUtils.getHistoryMapSinceQueryTimestamp(mContext, 0L);
+        DatabaseUtils.sFakeSupplier = this::createLegacyCursor;
+        final Map<Long, Map<String, BatteryHistEntry>> legacyHistoryMap =
+                DatabaseUtils.getHistoryMapSinceQueryTimestamp(mContext, 0L);
+
+        assertThat(historyMap).hasSize(HOURS);
+        assertThat(legacyHistoryMap.keySet()).isEqualTo(historyMap.keySet());
+        for (Map.Entry<Long, Map<String, BatteryHistEntry>> entry : historyMap.entrySet()) {
+            final Map<String, BatteryHistEntry> legacyEntries =
+                    legacyHistoryMap.get(entry.getKey());
+            assertThat(legacyEntries.keySet()).isEqualTo(entry.getValue().keySet());
+            for (BatteryHistEntry histEntry : entry.getValue().values()) {
+                assertThat(legacyEntries.get(histEntry.getKey()).toString())
+                        .isEqualTo(histEntry.toString());
+            }
+        }
+    }
+
+    /** Copies the stored rows into a cursor holding the battery information as strings. */
+    private Cursor createLegacyCursor() {
+        try (Cursor cursor = mDao.getBatteryStatesAfter(0L)) {
+            final MatrixCursor legacyCursor = new MatrixCursor(cursor.getColumnNames());
+            final int informationIndex =
+                    cursor.getColumnIndex(BatteryHistEntry.KEY_BATTERY_INFORMATION);
+            while (cursor.moveToNext()) {
+                final Object[] row = new Object[cursor.getColumnCount()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] =
+                            i == informationIndex
+                                    ? Base64.encodeToString(cursor.getBlob(i), Base64.DEFAULT)
+                                    : cursor.getString(i);
+                }
+                legacyCursor.addRow(row);
+            }
+            return legacyCursor;
+        }
+    }
+
+    private static BatteryState createBatteryState(long uid, long timestamp, int hour) {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setDeviceBatteryState(
+                                DeviceBatteryState.newBuilder()
+                                        .setBatteryLevel(100 - hour % 100)
+                                        .build())
+                        .setAppLabel("App " + uid)
+                        .setZoneId("UTC")
+                        .setBootTimestamp(Duration.ofHours(hour).toMillis())
+                        .setTotalPower(1000)
+                        .setConsumePower(hour * 0.5)
+                        .setForegroundUsageConsumePower(hour * 0.3)
+                        .setBackgroundUsageConsumePower(hour * 0.2)
+                        .setForegroundUsageTimeInMs(hour * 60000L)
+                        .setBackgroundUsageTimeInMs(hour * 30000L)
+                        .build();
+        return BatteryState.newBuilder()
+                .setUid(uid)
+                .setUserId(0L)
+                .setPackageName("com.example.app" + uid)
+                .setTimestamp(timestamp)
+                .setConsumerType(ConvertUtils.CONSUMER_TYPE_UID_BATTERY)
+                .setBatteryInformation(batteryInformation.toByteArray())
+                .build();
+    }
+}
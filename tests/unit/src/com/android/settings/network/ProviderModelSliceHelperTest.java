@@ -98,6 +98,7 @@ public class ProviderModelSliceHelperTest {
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        SubscriptionSnapshotCache.setInstanceForTesting(null);
         mContext = spy(ApplicationProvider.getApplicationContext());
         mBundle = new PersistableBundle();
         mNetwork = mock(Network.class);
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+public class SubscriptionSnapshotCacheTest {
+    private static final int SUB_ID = 1;
+    private static final int WORK_SUB_ID = 2;
+    private static final String SIM_CARD_LABEL = "SIM";
+
+    private Context mContext;
+    // The user-scoped view, and the view of all user profiles.
+    @Mock
+    private SubscriptionManager mSubscriptionManager;
+    @Mock
+    private SubscriptionManager mAllProfilesSubscriptionManager;
+    @Mock
+    private TelephonyManager mTelephonyManager;
+    @Mock
+    private SubscriptionInfo mSubscriptionInfo;
+    @Mock
+    private SubscriptionInfo mWorkSubscriptionInfo;
+
+    private SubscriptionSnapshotCache mCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(ApplicationProvider.getApplicationContext());
+        when(mContext.getSystemService(SubscriptionManager.class)).thenReturn(mSubscriptionManager);
+        when(mContext.getSystemService(TelephonyManager.class)).thenReturn(mTelephonyManager);
+        doReturn(mAllProfilesSubscriptionManager)
+                .when(mSubscriptionManager).createForAllUserProfiles();
+        when(mSubscriptionInfo.getSubscriptionId()).thenReturn(SUB_ID);
+        when(mWorkSubscriptionInfo.getSubscriptionId()).thenReturn(WORK_SUB_ID);
+        setSubscriptions(mSubscriptionManager, mSubscriptionInfo);
+        setSubscriptions(mAllProfilesSubscriptionManager, mSubscriptionInfo,
+                mWorkSubscriptionInfo);
+
+        mCache = new SubscriptionSnapshotCache(mContext);
+        SubscriptionSnapshotCache.setInstanceForTesting(mCache);
+    }
+
+    @After
+    public void tearDown() {
+        SubscriptionSnapshotCache.setInstanceForTesting(null);
+    }
+
+    @Test
+    public void getSnapshot_twice_queriesOnce() {
+        mCache.getSnapshot(true /* forAllUserProfiles */).getActiveSubscriptions();
+        final SubscriptionSnapshotCache.Snapshot snapshot =
+                mCache.getSnapshot(true /* forAllUserProfiles */);
+
+        assertThat(snapshot.getActiveSubscriptions())
+                .containsExactly(mSubscriptionInfo, mWorkSubscriptionInfo);
+        verify(mAllProfilesSubscriptionManager, times(1)).getActiveSubscriptionInfoList();
+        assertThat(mCache.getRebuildCount()).isEqualTo(1);
+        assertThat(mCache.getBinderCallsMade()).isEqualTo(1);
+        assertThat(mCache.getBinderCallsAvoided()).isEqualTo(1);
+    }
+
+    @Test
+    public void getSnapshot_activeSubscriptionsOnly_queriesNothingElse() {
+        mCache.getSnapshot(false /* forAllUserProfiles */).getActiveSubscriptions();
+
+        verify(mSubscriptionManager, never()).getAvailableSubscriptionInfoList();
+        verify(mSubscriptionManager, never()).getAllSubscriptionInfoList();
+        verify(mTelephonyManager, never()).getUiccSlotsInfo();
+        assertThat(mCache.getBinderCallsMade()).isEqualTo(1);
+    }
+
+    @Test
+    public void getSnapshot_afterInvalidate_queriesAgain() {
+        mCache.getSnapshot(false /* forAllUserProfiles */).getActiveSubscriptions();
+        final SubscriptionInfo newSubscriptionInfo = mock(SubscriptionInfo.class);
+        when(mSubscriptionManager.getActiveSubscriptionInfoList())
+                .thenReturn(Arrays.asList(newSubscriptionInfo));
+
+        mCache.invalidate();
+        final SubscriptionSnapshotCache.Snapshot snapshot =
+                mCache.getSnapshot(false /* forAllUserProfiles */);
+
+        assertThat(snapshot.getActiveSubscriptions()).containsExactly(newSubscriptionInfo);
+        assertThat(mCache.getRebuildCount()).isEqualTo(2);
+        assertThat(mCache.getBinderCallsAvoided()).isEqualTo(0);
+    }
+
+    @Test
+    public void getSnapshot_nullList_keepsNull() {
+        when(mSubscriptionManager.getActiveSubscriptionInfoList()).thenReturn(null);
+
+        assertThat(mCache.getSnapshot(false /* forAllUserProfiles */).getActiveSubscriptions())
+                .isNull();
+    }
+
+    @Test
+    public void getSnapshot_userView_excludesOtherProfiles() {
+        final SubscriptionSnapshotCache.Snapshot userSnapshot =
+                mCache.getSnapshot(false /* forAllUserProfiles */);
+        final SubscriptionSnapshotCache.Snapshot allProfilesSnapshot =
+                mCache.getSnapshot(true /* forAllUserProfiles */);
+
+        assertThat(userSnapshot.getAvailableSubscriptions()).containsExactly(mSubscriptionInfo);
+        assertThat(allProfilesSnapshot.getAvailableSubscriptions())
+                .containsExactly(mSubscriptionInfo, mWorkSubscriptionInfo);
+        assertThat(mCache.getRebuildCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void getSnapshot_simSlotStatusChanged_queriesAgain() {
+        mCache.getSnapshot(false /* forAllUserProfiles */).getUiccSlotsInfo();
+        final ArgumentCaptor<BroadcastReceiver> receiverCaptor =
+                ArgumentCaptor.forClass(BroadcastReceiver.class);
+        final ArgumentCaptor<IntentFilter> filterCaptor =
+                ArgumentCaptor.forClass(IntentFilter.class);
+        verify(mContext).registerReceiver(receiverCaptor.capture(), filterCaptor.capture(),
+                eq(Context.RECEIVER_NOT_EXPORTED));
+        assertThat(filterCaptor.getValue().hasAction(
+                TelephonyManager.ACTION_SIM_SLOT_STATUS_CHANGED)).isTrue();
+        assertThat(filterCaptor.getValue().hasAction(
+                TelephonyManager.ACTION_SIM_CARD_STATE_CHANGED)).isTrue();
+
+        receiverCaptor.getValue().onReceive(mContext,
+                new Intent(TelephonyManager.ACTION_SIM_SLOT_STATUS_CHANGED));
+        mCache.getSnapshot(false /* forAllUserProfiles */).getUiccSlotsInfo();
+
+        verify(mTelephonyManager, times(2)).getUiccSlotsInfo();
+        assertThat(mCache.getRebuildCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void getSnapshot_twice_registersReceiverOnce() {
+        mCache.getSnapshot(false /* forAllUserProfiles */);
+        mCache.getSnapshot(true /* forAllUserProfiles */);
+
+        verify(mContext, times(1)).registerReceiver(any(BroadcastReceiver.class),
+                any(IntentFilter.class), eq(Context.RECEIVER_NOT_EXPORTED));
+    }
+
+    @Test
+    public void getDisplayNames_invalidated_returnsNull() {
+        mCache.putDisplayNames(mCache.getGeneration(), SIM_CARD_LABEL, Map.of(SUB_ID, "name"));
+        assertThat(mCache.getDisplayNames(SIM_CARD_LABEL)).containsExactly(SUB_ID, "name");
+
+        mCache.invalidate();
+
+        assertThat(mCache.getDisplayNames(SIM_CARD_LABEL)).isNull();
+    }
+
+    @Test
+    public void putDisplayNames_staleGeneration_notKept() {
+        final int generation = mCache.getGeneration();
+        mCache.invalidate();
+
+        mCache.putDisplayNames(generation, SIM_CARD_LABEL, Map.of(SUB_ID, "name"));
+
+        assertThat(mCache.getDisplayNames(SIM_CARD_LABEL)).isNull();
+    }
+
+    @Test
+    public void getDisplayNames_otherSimCardLabel_returnsNull() {
+        mCache.putDisplayNames(mCache.getGeneration(), SIM_CARD_LABEL, Map.of(SUB_ID, "name"));
+
+        assertThat(mCache.getDisplayNames("Carte SIM")).isNull();
+    }
+
+    @Test
+    public void subscriptionUtil_getSelectableSubscriptionInfoList_servedFromUserSnapshot() {
+        SubscriptionUtil.getSelectableSubscriptionInfoList(mContext);
+        final List<SubscriptionInfo> subscriptions =
+                SubscriptionUtil.getSelectableSubscriptionInfoList(mContext);
+
+        assertThat(subscriptions).containsExactly(mSubscriptionInfo);
+        verify(mSubscriptionManager, times(1)).getAvailableSubscriptionInfoList();
+        assertThat(mCache.getBinderCallsAvoided()).isEqualTo(1);
+    }
+
+    @Test
+    public void subscriptionUtil_getActiveSubscriptions_servedFromSnapshotOfGivenManager() {
+        SubscriptionUtil.getActiveSubscriptions(mAllProfilesSubscriptionManager);
+        SubscriptionUtil.getActiveSubscriptions(mSubscriptionManager);
+        final List<SubscriptionInfo> subscriptions =
+                SubscriptionUtil.getActiveSubscriptions(mSubscriptionManager);
+
+        assertThat(subscriptions).containsExactly(mSubscriptionInfo);
+        verify(mSubscriptionManager, times(1)).getActiveSubscriptionInfoList();
+        assertThat(mCache.getRebuildCount()).isEqualTo(2);
+        assertThat(mCache.getBinderCallsAvoided()).isEqualTo(1);
+    }
+
+    @Test
+    public void subscriptionUtil_getSubById_servedFromSnapshotOfGivenManager() {
+        SubscriptionUtil.findAllSubscriptionsInGroup(mSubscriptionManager, SUB_ID);
+        final SubscriptionInfo subscription =
+                SubscriptionUtil.getSubById(mSubscriptionManager, SUB_ID);
+
+        assertThat(subscription).isSameInstanceAs(mSubscriptionInfo);
+        verify(mSubscriptionManager, times(1)).getAllSubscriptionInfoList();
+    }
+
+    @Test
+    public void subscriptionUtil_otherUser_notServedFromSnapshot() {
+        final Context otherUserContext = spy(ApplicationProvider.getApplicationContext());
+        when(otherUserContext.getUserId()).thenReturn(mContext.getUserId() + 1);
+        final SubscriptionManager otherUserSubscriptionManager = mock(SubscriptionManager.class);
+        when(otherUserContext.getSystemService(SubscriptionManager.class))
+                .thenReturn(otherUserSubscriptionManager);
+        when(otherUserContext.getSystemService(TelephonyManager.class))
+                .thenReturn(mTelephonyManager);
+        setSubscriptions(otherUserSubscriptionManager, mWorkSubscriptionInfo);
+
+        final List<SubscriptionInfo> subscriptions =
+                SubscriptionUtil.getSelectableSubscriptionInfoList(otherUserContext);
+
+        assertThat(subscriptions).containsExactly(mWorkSubscriptionInfo);
+        assertThat(mCache.getRebuildCount()).isEqualTo(0);
+    }
+
+    private static void setSubscriptions(SubscriptionManager subscriptionManager,
+            SubscriptionInfo... subscriptions) {
+        when(subscriptionManager.getActiveSubscriptionInfoList())
+                .thenReturn(Arrays.asList(subscriptions));
+        when(subscriptionManager.getAvailableSubscriptionInfoList())
+                .thenReturn(Arrays.asList(subscriptions));
+        when(subscriptionManager.getAllSubscriptionInfoList())
+                .thenReturn(Arrays.asList(subscriptions));
+    }
+}
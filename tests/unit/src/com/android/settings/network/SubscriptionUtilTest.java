@@ -80,6 +80,7 @@ public class SubscriptionUtilTest {
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        SubscriptionSnapshotCache.setInstanceForTesting(null);
         mContext = spy(ApplicationProvider.getApplicationContext());
         when(mContext.getSystemService(SubscriptionManager.class)).thenReturn(mSubMgr);
         when(mContext.getSystemService(TelephonyManager.class)).thenReturn(mTelMgr);
@@ -125,6 +125,7 @@ public class SubscriptionsPreferenceControllerTest {
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        SubscriptionSnapshotCache.setInstanceForTesting(null);
         mContext = spy(ApplicationProvider.getApplicationContext());
         if (Looper.myLooper() == null) {
             Looper.prepare();
@@ -71,6 +71,7 @@ public class UiccSlotUtilTest {
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        SubscriptionSnapshotCache.setInstanceForTesting(null);
 
         mContext = spy(ApplicationProvider.getApplicationContext());
         when(mContext.getSystemService(TelephonyManager.class)).thenReturn(mTelephonyManager);
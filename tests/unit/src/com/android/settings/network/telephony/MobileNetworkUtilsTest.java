@@ -57,6 +57,7 @@ import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import com.android.settings.network.CarrierConfigCache;
+import com.android.settings.network.SubscriptionSnapshotCache;
 import com.android.settings.network.ims.MockWfcQueryImsState;
 
 import org.junit.Before;
@@ -110,6 +111,7 @@ public class MobileNetworkUtilsTest {
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        SubscriptionSnapshotCache.setInstanceForTesting(null);
 
         mContext = spy(ApplicationProvider.getApplicationContext());
         when(mContext.getSystemService(SubscriptionManager.class)).thenReturn(mSubscriptionManager);
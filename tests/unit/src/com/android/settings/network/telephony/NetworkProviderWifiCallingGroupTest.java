@@ -44,6 +44,7 @@ import androidx.preference.PreferenceScreen;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.android.settings.network.SubscriptionSnapshotCache;
 import com.android.settings.network.ims.MockWfcQueryImsState;
 import com.android.settingslib.core.lifecycle.Lifecycle;
 
@@ -94,6 +95,7 @@ public class NetworkProviderWifiCallingGroupTest {
     @Before
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
+        SubscriptionSnapshotCache.setInstanceForTesting(null);
 
         mContext = spy(ApplicationProvider.getApplicationContext());
         when(mContext.getSystemService(CarrierConfigManager.class)).thenReturn(
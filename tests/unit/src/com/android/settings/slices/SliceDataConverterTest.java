@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class SliceDataConverterTest {
+
+    private SliceDataConverter mSliceDataConverter;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        mSliceDataConverter = new SliceDataConverter(context);
+    }
+
+    @Test
+    public void getSliceData_fullIndexInParallel_matchesSerial() throws Exception {
+        final List<SliceData> serial = mSliceDataConverter.getSliceData(
+                null /* indexGroups */, false /* parallel */);
+        final List<SliceData> parallel = mSliceDataConverter.getSliceData(
+                null /* indexGroups */, true /* parallel */);
+
+        assertThat(getKeys(parallel)).containsExactlyElementsIn(getKeys(serial)).inOrder();
+    }
+
+    private static List<String> getKeys(List<SliceData> sliceData) {
+        final List<String> keys = new ArrayList<>();
+        for (SliceData data : sliceData) {
+            keys.add(data.getKey());
+        }
+        return keys;
+    }
+}
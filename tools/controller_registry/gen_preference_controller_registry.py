@@ -0,0 +1,237 @@
+#!/usr/bin/env python3
+#
+# Copyright (C) 2026 The Android Open Source Project
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+"""Generates PreferenceControllerRegistry, used by BasePreferenceController.createInstance().
+
+Every settings:controller named in the preference xmls is looked up in the java sources. The
+public non-abstract top level classes whose public constructors can all be read are registered
+with their (Context) and (Context, String) constructors. Other controllers are left out and keep
+being instantiated through reflection, as are those with neither constructor. A controller
+whose public constructors can't be found at all is most likely misread, and fails the generation.
+"""
+
+import argparse
+import os
+import re
+import sys
+import xml.etree.ElementTree as ET
+
+APP_NS = '{http://schemas.android.com/apk/res-auto}'
+
+HEADER = '''/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+// Generated by tools/controller_registry/gen_preference_controller_registry.py, do not edit.
+
+package com.android.settings.core;
+
+import android.content.Context;
+
+/**
+ * Instantiates the preference controllers declared in preference xml without reflection.
+ */
+final class PreferenceControllerRegistry {
+
+    /** The controller has a public (Context) constructor. */
+    static final int CONSTRUCTOR_CONTEXT = 1;
+    /** The controller has a public (Context, String) constructor. */
+    static final int CONSTRUCTOR_CONTEXT_KEY = 1 << 1;
+
+    private PreferenceControllerRegistry() {
+    }
+'''
+
+CONTEXT = ('Context',)
+CONTEXT_KEY = ('Context', 'String')
+
+# Fully qualified spellings of the parameter types of the registered constructors.
+QUALIFIED_TYPES = {
+    'android.content.Context': 'Context',
+    'java.lang.String': 'String',
+}
+
+COMMENTS = re.compile(r'//[^\n]*|/\*.*?\*/', re.DOTALL)
+ANNOTATION = re.compile(r'@[\w.]+(\([^)]*\))?\s*')
+
+
+def read_controllers(xmls):
+    controllers = set()
+    for xml in xmls:
+        try:
+            root = ET.parse(xml).getroot()
+        except ET.ParseError:
+            continue
+        for element in root.iter():
+            controller = element.attrib.get(APP_NS + 'controller')
+            if controller and not controller.startswith('@'):
+                controllers.add(controller)
+    return controllers
+
+
+def parameter_types(parameters):
+    """Returns the simple names of the parameter types, or None if they can't be read."""
+    parameters = ANNOTATION.sub('', parameters).strip()
+    if not parameters:
+        return ()
+    if '<' in parameters:
+        return None
+    types = []
+    for parameter in parameters.split(','):
+        words = [word for word in parameter.split() if word != 'final']
+        if len(words) != 2:
+            return None
+        type_name = QUALIFIED_TYPES.get(words[0], words[0])
+        # Other qualified names, arrays and varargs are not resolved.
+        if not re.match(r'^\w+$', type_name):
+            return None
+        types.append(type_name)
+    return tuple(types)
+
+
+def read_constructors(source, simple_name):
+    """Returns the parameter types of the public constructors, or None if they are unknown."""
+    source = COMMENTS.sub('', source)
+    if 'import android.content.Context;' not in source:
+        return None
+    if not re.search(r'^public\s+(final\s+)?class\s+%s\b' % simple_name, source, re.MULTILINE):
+        return None
+    constructors = set()
+    for match in re.finditer(r'\bpublic\s+%s\s*\(([^)]*)\)\s*(\w*)' % simple_name, source):
+        if match.group(2) == 'throws':
+            return None
+        types = parameter_types(match.group(1))
+        if types is None:
+            return None
+        constructors.add(types)
+    return constructors
+
+
+def write_method(out, name, signature, arguments, classes):
+    out.append('')
+    out.append('    /**')
+    out.append('     * @return a new instance of {@param className} created with %s, or null if it'
+               % signature)
+    out.append('     * has no such constructor.')
+    out.append('     */')
+    out.append('    static Object %s(String className, %s) {' % (name, signature))
+    out.append('        switch (className) {')
+    for class_name in classes:
+        out.append('            case "%s":' % class_name)
+        out.append('                return new %s(%s);' % (class_name, arguments))
+    out.append('            default:')
+    out.append('                return null;')
+    out.append('        }')
+    out.append('    }')
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__)
+    parser.add_argument('--out', required=True, help='java file to write')
+    parser.add_argument('inputs', nargs='+', help='preference xml and java source files')
+    args = parser.parse_args()
+
+    sources = {}
+    for path in args.inputs:
+        if path.endswith('.java'):
+            simple_name = os.path.splitext(os.path.basename(path))[0]
+            sources.setdefault(simple_name, []).append(path)
+    controllers = read_controllers([path for path in args.inputs if path.endswith('.xml')])
+
+    registered = {}
+    unreadable = []
+    for controller in sorted(controllers):
+        package, _, simple_name = controller.rpartition('.')
+        suffix = os.path.join(*controller.split('.')) + '.java'
+        paths = [p for p in sources.get(simple_name, []) if p.endswith(os.sep + suffix)]
+        if len(paths) != 1:
+            continue
+        with open(paths[0], encoding='utf-8') as f:
+            source = f.read()
+        if not re.search(r'^package\s+%s\s*;' % re.escape(package), source, re.MULTILINE):
+            continue
+        constructors = read_constructors(source, simple_name)
+        if constructors is None:
+            continue
+        if not constructors:
+            unreadable.append('%s (%s)' % (controller, paths[0]))
+            continue
+        if CONTEXT in constructors or CONTEXT_KEY in constructors:
+            registered[controller] = constructors
+
+    if unreadable:
+        print('No public constructor found in preference controllers:\n  '
+              + '\n  '.join(unreadable), file=sys.stderr)
+        sys.exit(1)
+
+    shapes = {}
+    for class_name, constructors in registered.items():
+        shape = []
+        if CONTEXT in constructors:
+            shape.append('CONSTRUCTOR_CONTEXT')
+        if CONTEXT_KEY in constructors:
+            shape.append('CONSTRUCTOR_CONTEXT_KEY')
+        shapes.setdefault(' | '.join(shape), []).append(class_name)
+
+    out = [HEADER.rstrip('\n')]
+    out.append('')
+    out.append('    /**')
+    out.append('     * @return whether {@param className} is known, see {@link #getConstructors}.')
+    out.append('     */')
+    out.append('    static boolean contains(String className) {')
+    out.append('        return getConstructors(className) != 0;')
+    out.append('    }')
+    out.append('')
+    out.append('    /**')
+    out.append('     * @return the CONSTRUCTOR_* flags of {@param className}, or 0 if it is not'
+               ' known.')
+    out.append('     */')
+    out.append('    static int getConstructors(String className) {')
+    out.append('        switch (className) {')
+    for shape, class_names in sorted(shapes.items()):
+        for class_name in sorted(class_names):
+            out.append('            case "%s":' % class_name)
+        out.append('                return %s;' % shape)
+    out.append('            default:')
+    out.append('                return 0;')
+    out.append('        }')
+    out.append('    }')
+    write_method(out, 'create', 'Context context',
+                 'context', sorted(c for c, types in registered.items()
+                                   if CONTEXT in types))
+    write_method(out, 'create', 'Context context, String key',
+                 'context, key', sorted(c for c, types in registered.items()
+                                        if CONTEXT_KEY in types))
+    out.append('}')
+
+    with open(args.out, 'w', encoding='utf-8') as f:
+        f.write('\n'.join(out) + '\n')
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,172 @@
+#!/usr/bin/env python3
+#
+# Copyright (C) 2026 The Android Open Source Project
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+"""Compiles preference screen XMLs into the metadata index read by PreferenceMetadataIndex.
+
+The index is a big-endian binary file:
+
+  int   magic ('PMI2')
+  int   string count, then for each string: int length, UTF-8 bytes
+  int   screen count, then for each screen:
+          int  name (string index)
+          32   SHA-256 digest of the indexed content, see content_digest()
+          int  element count, then for each element, in document order:
+                 int  tag name (string index)
+                 int  FIELD_COUNT raw attribute values (string index, -1 if absent)
+
+Attribute values are stored as written in the XML, resource references are resolved at runtime.
+Screens the runtime could not serve exactly (styles, theme attributes, escapes, qualified
+variants) are left out so that they are parsed from resources instead. Static overlays are only
+merged when the apk is linked, so the runtime compares the digest with the packaged XML and parses
+the screens that differ.
+"""
+
+import argparse
+import collections
+import hashlib
+import os
+import re
+import struct
+import sys
+import xml.etree.ElementTree as ET
+
+MAGIC = 0x504D4932
+
+ANDROID_NS = '{http://schemas.android.com/apk/res/android}'
+APP_NS = '{http://schemas.android.com/apk/res-auto}'
+
+# Must match the FIELD_* order of PreferenceMetadataIndex.
+FIELDS = [
+    ANDROID_NS + 'key',
+    ANDROID_NS + 'title',
+    ANDROID_NS + 'summary',
+    ANDROID_NS + 'icon',
+    APP_NS + 'controller',
+    APP_NS + 'keywords',
+    APP_NS + 'searchable',
+    APP_NS + 'staticPreferenceLocation',
+    APP_NS + 'unavailableSliceSubtitle',
+    APP_NS + 'forWork',
+    APP_NS + 'highlightableMenuKey',
+    APP_NS + 'userRestriction',
+]
+
+
+# Values of the staticPreferenceLocation enum, as packaged.
+LOCATIONS = {'prepend': '0', 'append': '1'}
+WHITESPACE = re.compile(r'[ \t\n\x0b\f\r]+')
+
+
+class StringTable(object):
+
+    def __init__(self):
+        self.strings = []
+        self.indices = {}
+
+    def add(self, value):
+        if value is None:
+            return -1
+        if value not in self.indices:
+            self.indices[value] = len(self.strings)
+            self.strings.append(value)
+        return self.indices[value]
+
+
+def is_supported_value(value):
+    return not value.startswith('?') and '\\' not in value and '"' not in value
+
+
+def read_screen(path):
+    """Returns the elements of the screen as (tag, values), or None if it is not supported."""
+    try:
+        root = ET.parse(path).getroot()
+    except ET.ParseError as e:
+        print('Skipping %s: %s' % (path, e), file=sys.stderr)
+        return None
+    elements = []
+    for element in root.iter():
+        if 'style' in element.attrib:
+            return None
+        values = [element.attrib.get(field) for field in FIELDS]
+        if any(value is not None and not is_supported_value(value) for value in values):
+            return None
+        elements.append((element.tag, values))
+    return elements
+
+
+def content_value(field, value):
+    """Returns value as PreferenceMetadataIndex#getContentValue reads it from the apk."""
+    if value is None:
+        return None
+    if value.startswith('@'):
+        if value == '@null':
+            return value
+        package, _, name = value[1:].lstrip('+*').rpartition(':')
+        return '@' + ('android:' if package == 'android' else '') + name
+    if field == APP_NS + 'staticPreferenceLocation':
+        return LOCATIONS.get(value, value)
+    return WHITESPACE.sub(' ', value).strip(' ')
+
+
+def content_digest(elements):
+    """Digests the screen like PreferenceMetadataIndex#computeContentDigest."""
+    digest = hashlib.sha256()
+    for tag, values in elements:
+        for value in [tag] + [content_value(f, v) for f, v in zip(FIELDS, values)]:
+            # Absent values differ from every string, including the empty one.
+            digest.update(b'\x01' if value is None else value.encode('utf-8'))
+            digest.update(b'\x00')
+    return digest.digest()
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__)
+    parser.add_argument('--out', required=True, help='index file to write')
+    parser.add_argument('xmls', nargs='+', help='preference screen xml files')
+    args = parser.parse_args()
+
+    # Screens with configuration-qualified variants depend on the runtime configuration, and
+    # screens found in several resource dirs are overridden at build time.
+    variants = collections.Counter(os.path.basename(xml) for xml in args.xmls)
+    strings = StringTable()
+    screens = []
+    for xml in sorted(args.xmls):
+        name = os.path.splitext(os.path.basename(xml))[0]
+        if os.path.basename(os.path.dirname(xml)) != 'xml' or variants[name + '.xml'] > 1:
+            continue
+        elements = read_screen(xml)
+        if elements is None:
+            continue
+        screens.append((strings.add(name), content_digest(elements),
+                        [(strings.add(tag), [strings.add(v) for v in values])
+                         for tag, values in elements]))
+
+    out = bytearray(struct.pack('>ii', MAGIC, len(strings.strings)))
+    for value in strings.strings:
+        encoded = value.encode('utf-8')
+        out += struct.pack('>i', len(encoded)) + encoded
+    out += struct.pack('>i', len(screens))
+    for name, digest, elements in screens:
+        out += struct.pack('>i', name) + digest + struct.pack('>i', len(elements))
+        for tag, values in elements:
+            out += struct.pack('>i%di' % len(values), tag, *values)
+
+    with open(args.out, 'wb') as f:
+        f.write(out)
+
+
+if __name__ == '__main__':
+    main()